@@ -26,6 +26,8 @@ public class CompareSettings {
 
 	private boolean cappingDisabled;
 
+	private String diffAlgorithm;
+
 	/**
 	 * The constructor
 	 */
@@ -54,4 +56,18 @@ public class CompareSettings {
 		return this.cappingDisabled;
 	}
 
+	/**
+	 * Sets the id of the algorithm used by default to compute differences.
+	 *
+	 * @param id the id of the algorithm, see
+	 *            {@link org.eclipse.compare.rangedifferencer.DiffAlgorithm}
+	 */
+	public void setDiffAlgorithm(String id) {
+		this.diffAlgorithm = id;
+	}
+
+	public String getDiffAlgorithm() {
+		return this.diffAlgorithm;
+	}
+
 }
@@ -30,6 +30,7 @@ public class FileDiffResult implements IFilePatchResult {
 	private List<String> fBeforeLines, fAfterLines;
 	private final PatchConfiguration configuration;
 	private String charset;
+	private LineIndex fLineIndex;
 
 	public FileDiffResult(FilePatch2 diff, PatchConfiguration configuration) {
 		super();
@@ -147,6 +148,7 @@ public class FileDiffResult implements IFilePatchResult {
 		if (getConfiguration().getFuzz() != 0) {
 			calculateFuzz(this.fBeforeLines, monitor);
 		}
+		resetLineIndex();
 		int shift= 0;
 		IHunk[] hunks = this.fDiff.getHunks();
 		for (IHunk h : hunks) {
@@ -158,6 +160,7 @@ public class FileDiffResult implements IFilePatchResult {
 				shift = result.getShift();
 			}
 		}
+		resetLineIndex();
 		this.fAfterLines = lines;
 	}
 
@@ -215,6 +218,7 @@ public class FileDiffResult implements IFilePatchResult {
 			// TODO: What about the after lines?
 			return -1;
 		}
+		resetLineIndex();
 		int shift= 0;
 		int highestFuzz = -1; // the maximum fuzz factor for all hunks
 		String name = getTargetPath() != null ? getTargetPath().lastSegment() : ""; //$NON-NLS-1$
@@ -230,10 +234,27 @@ public class FileDiffResult implements IFilePatchResult {
 				highestFuzz = fuzz;
 			monitor.worked(1);
 		}
+		resetLineIndex();
 		this.fAfterLines = lines;
 		return highestFuzz;
 	}
 
+	/*
+	 * Returns an index of the given lines. The index is kept until the lines
+	 * are patched, so it is shared by all hunks that have to be shifted.
+	 */
+	LineIndex getLineIndex(List<String> lines) {
+		boolean ignoreWhitespace = getConfiguration().isIgnoreWhitespace();
+		if (this.fLineIndex == null || !this.fLineIndex.isIndexOf(lines)
+				|| this.fLineIndex.isIgnoreWhitespace() != ignoreWhitespace)
+			this.fLineIndex = new LineIndex(lines, ignoreWhitespace);
+		return this.fLineIndex;
+	}
+
+	void resetLineIndex() {
+		this.fLineIndex = null;
+	}
+
 	public IPath getTargetPath() {
 		return this.fDiff.getStrippedPath(getConfiguration().getPrefixSegmentStripCount(), getConfiguration().isReversed());
 	}
@@ -265,6 +265,44 @@ public class Hunk implements IHunk {
 		return true;
 	}
 
+	/*
+	 * Returns the shifts at which tryPatch can possibly succeed with the given
+	 * fuzz factor in ascending order, or null if every shift has to be tried.
+	 * Deleted lines always have to match and context lines have to match if no
+	 * fuzz is used, so the positions of the rarest of these lines in the index
+	 * give all candidates.
+	 */
+	int[] getCandidateShifts(PatchConfiguration configuration, LineIndex index, int fuzz) {
+		boolean reverse = configuration.isReversed();
+		String anchor = null;
+		int anchorOffset = 0;
+		int anchorCount = Integer.MAX_VALUE;
+		int offset = 0;
+		for (String s : this.fLines) {
+			char controlChar = s.charAt(0);
+			boolean isContext = controlChar == ' ';
+			if (!isContext && !isDeletedDelimeter(controlChar, reverse))
+				continue; // added lines are not in the file
+			if (!isContext || fuzz == 0) {
+				String line = s.substring(1);
+				int count = index.count(line);
+				if (count < anchorCount) {
+					anchor = line;
+					anchorOffset = offset;
+					anchorCount = count;
+				}
+			}
+			offset++;
+		}
+		if (anchor == null)
+			return null;
+		int[] shifts = index.getPositions(anchor);
+		int start = getStart(reverse) + anchorOffset;
+		for (int i = 0; i < shifts.length; i++)
+			shifts[i] -= start;
+		return shifts;
+	}
+
 	private boolean checkPrecedingContextLines(
 			PatchConfiguration configuration, List<String> lines, int fuzz, int pos,
 			List<String> contextLines) {
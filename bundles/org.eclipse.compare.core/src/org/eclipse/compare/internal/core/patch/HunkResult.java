@@ -13,6 +13,7 @@
  *******************************************************************************/
 package org.eclipse.compare.internal.core.patch;
 
+import java.util.Arrays;
 import java.util.List;
 
 import org.eclipse.compare.patch.IHunkFilter;
@@ -62,36 +63,13 @@ public class HunkResult {
 		if (isEnabled(configuration)) {
 			if (this.fHunk.tryPatch(configuration, lines, this.fShift, fuzz)) {
 				// it's a perfect match, no shifting is needed
-				this.fShift += this.fHunk.doPatch(configuration, lines, this.fShift, fuzz);
+				apply(lines, fuzz);
 				this.fMatches = true;
 			} else {
-				boolean found= false;
 				int oldShift= this.fShift;
-
-				int hugeShift = lines.size();
-				for (int i = 1; i <= hugeShift; i++) {
-					if (this.fHunk.tryPatch(configuration, lines, this.fShift - i, fuzz)) {
-						if (isAdjustShift())
-							this.fShift -= i;
-						found = true;
-						break;
-					}
-				}
-
-				if (!found) {
-					for (int i = 1; i <= hugeShift; i++) {
-						if (this.fHunk.tryPatch(configuration, lines, this.fShift + i, fuzz)) {
-							if (isAdjustShift())
-								this.fShift += i;
-							found = true;
-							break;
-						}
-					}
-				}
-
-				if (found) {
+				if (shift(lines, fuzz, null)) {
 					if (DEBUG) System.out.println("patched hunk at offset: " + (this.fShift-oldShift)); //$NON-NLS-1$
-					this.fShift+= this.fHunk.doPatch(configuration, lines, this.fShift, fuzz);
+					apply(lines, fuzz);
 					this.fMatches = true;
 				}
 			}
@@ -103,6 +81,63 @@ public class HunkResult {
 		return true;
 	}
 
+	/*
+	 * Looks for another shift at which the hunk can be applied. The shifts
+	 * below the current shift are tried first, starting with the closest one,
+	 * then the shifts above it. Instead of trying every shift, only the shifts
+	 * at which the rarest line that has to match is found in the index of the
+	 * lines are tried. The result is the same as trying every shift because
+	 * the hunk cannot be applied at any other shift.
+	 */
+	private boolean shift(List<String> lines, int fuzz, IProgressMonitor monitor) {
+		int maxShift = lines.size();
+		int[] shifts = this.fHunk.getCandidateShifts(getConfiguration(), getDiffResult().getLineIndex(lines), fuzz);
+		if (shifts == null) {
+			// no line has to match, try every shift
+			for (int i = 1; i <= maxShift; i++) {
+				if (tryShift(lines, this.fShift - i, fuzz, monitor))
+					return true;
+			}
+			for (int i = 1; i <= maxShift; i++) {
+				if (tryShift(lines, this.fShift + i, fuzz, monitor))
+					return true;
+			}
+			return false;
+		}
+		int index = Arrays.binarySearch(shifts, this.fShift);
+		int above = index >= 0 ? index + 1 : -index - 1;
+		int below = index >= 0 ? index - 1 : -index - 2;
+		for (int i = below; i >= 0 && shifts[i] >= this.fShift - maxShift; i--) {
+			if (tryShift(lines, shifts[i], fuzz, monitor))
+				return true;
+		}
+		for (int i = above; i < shifts.length && shifts[i] <= this.fShift + maxShift; i++) {
+			if (tryShift(lines, shifts[i], fuzz, monitor))
+				return true;
+		}
+		return false;
+	}
+
+	private boolean tryShift(List<String> lines, int shift, int fuzz, IProgressMonitor monitor) {
+		if (monitor != null && monitor.isCanceled())
+			throw new OperationCanceledException();
+		if (this.fHunk.tryPatch(getConfiguration(), lines, shift, fuzz)) {
+			if (isAdjustShift())
+				this.fShift = shift;
+			return true;
+		}
+		return false;
+	}
+
+	/*
+	 * Applies the hunk at the current shift. This changes the lines, so the
+	 * index of the lines has to be rebuilt.
+	 */
+	private void apply(List<String> lines, int fuzz) {
+		this.fShift += this.fHunk.doPatch(getConfiguration(), lines, this.fShift, fuzz);
+		getDiffResult().resetLineIndex();
+	}
+
 	private PatchConfiguration getConfiguration() {
 		return getDiffResult().getConfiguration();
 	}
@@ -128,47 +163,14 @@ public class HunkResult {
 			// try to apply using lines coordinates from the patch
 			if (this.fHunk.tryPatch(configuration, lines, this.fShift, fuzz)) {
 				// it's a perfect match, no adjustment is needed
-				this.fShift += this.fHunk.doPatch(configuration, lines, this.fShift, fuzz);
+				apply(lines, fuzz);
 				this.fMatches = true;
 				break;
 			}
 
-			// TODO (tzarna): hugeShift=lines.size() is more than we need.
-			// Lines to the beg/end of a file would be enough but this can still
-			// in matching hunks out of order. Try to shift using only lines
-			// available "between" hunks.
-			int hugeShift = lines.size();
-
-			// shift up
-			for (int i = 1; i <= hugeShift; i++) {
-				if (monitor.isCanceled()) {
-					throw new OperationCanceledException();
-				}
-				if (this.fHunk.tryPatch(configuration, lines, this.fShift - i, fuzz)) {
-					if (isAdjustShift())
-						this.fShift -= i;
-					this.fMatches = true;
-					break;
-				}
-			}
-
-			// shift down
-			if (!this.fMatches) {
-				for (int i = 1; i <= hugeShift; i++) {
-					if (monitor.isCanceled()) {
-						throw new OperationCanceledException();
-					}
-					if (this.fHunk.tryPatch(configuration, lines, this.fShift + i, fuzz)) {
-						if (isAdjustShift())
-							this.fShift += i;
-						this.fMatches = true;
-						break;
-					}
-				}
-			}
-
-			if (this.fMatches) {
-				this.fShift += this.fHunk.doPatch(configuration, lines, this.fShift, fuzz);
+			if (shift(lines, fuzz, monitor)) {
+				apply(lines, fuzz);
+				this.fMatches = true;
 				break;
 			}
 		}
@@ -240,6 +242,7 @@ public class HunkResult {
 						problemFound = !patch(lines);
 					} finally {
 						this.fShift = oldShift;
+						getDiffResult().resetLineIndex();
 					}
 				} else {
 					problemFound = true;
@@ -0,0 +1,118 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.compare.internal.core.patch;
+
+import java.util.List;
+
+/**
+ * A hash index of the lines of the file being patched. It is used to find the
+ * positions at which a hunk line can possibly match without comparing the line
+ * with every line of the file.
+ * <p>
+ * Lines are hashed the same way <code>Hunk</code> compares them: line
+ * delimiters are ignored and, if requested, all whitespace. Lines that match
+ * always have the same hash, so the positions returned by
+ * {@link #getPositions(String)} contain all matching lines. They may contain
+ * other lines with the same hash as well, so callers still have to compare
+ * the lines.
+ * </p>
+ * <p>
+ * The index does not track changes to the lines it was built from.
+ * </p>
+ */
+class LineIndex {
+
+	private final List<String> fLines;
+	private final int fSize;
+	private final boolean fIgnoreWhitespace;
+	private final int[] fHashes;
+	// the first line of each bucket and the next line of the same bucket,
+	// both as line index + 1 so that 0 terminates a chain
+	private final int[] fBuckets;
+	private final int[] fNext;
+
+	LineIndex(List<String> lines, boolean ignoreWhitespace) {
+		this.fLines = lines;
+		this.fSize = lines.size();
+		this.fIgnoreWhitespace = ignoreWhitespace;
+		this.fHashes = new int[this.fSize];
+		this.fNext = new int[this.fSize];
+		this.fBuckets = new int[Integer.highestOneBit(Math.max(this.fSize, 1) * 2 - 1) * 2];
+		int mask = this.fBuckets.length - 1;
+		// insert backwards so that every chain is in ascending order
+		for (int i = this.fSize - 1; i >= 0; i--) {
+			int hash = hash(lines.get(i));
+			this.fHashes[i] = hash;
+			int bucket = hash & mask;
+			this.fNext[i] = this.fBuckets[bucket];
+			this.fBuckets[bucket] = i + 1;
+		}
+	}
+
+	/**
+	 * Returns whether this index has been built from the given lines, assuming
+	 * they have not been changed since.
+	 */
+	boolean isIndexOf(List<String> lines) {
+		return this.fLines == lines && this.fSize == lines.size();
+	}
+
+	boolean isIgnoreWhitespace() {
+		return this.fIgnoreWhitespace;
+	}
+
+	/**
+	 * Returns the number of lines that may match the given line.
+	 */
+	int count(String line) {
+		int hash = hash(line);
+		int count = 0;
+		for (int i = this.fBuckets[hash & (this.fBuckets.length - 1)]; i != 0; i = this.fNext[i - 1]) {
+			if (this.fHashes[i - 1] == hash)
+				count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the positions of the lines that may match the given line in
+	 * ascending order.
+	 */
+	int[] getPositions(String line) {
+		int hash = hash(line);
+		int[] positions = new int[count(line)];
+		int count = 0;
+		for (int i = this.fBuckets[hash & (this.fBuckets.length - 1)]; i != 0; i = this.fNext[i - 1]) {
+			if (this.fHashes[i - 1] == hash)
+				positions[count++] = i - 1;
+		}
+		return positions;
+	}
+
+	/*
+	 * Hashes the line without its delimiter, skipping whitespace if requested.
+	 */
+	private int hash(String line) {
+		int length = LineReader.length(line);
+		int hash = 0;
+		for (int i = 0; i < length; i++) {
+			char c = line.charAt(i);
+			if (this.fIgnoreWhitespace && Character.isWhitespace(c))
+				continue;
+			hash = 31 * hash + c;
+		}
+		// spread the bits, buckets are selected by the low bits only
+		return hash ^ (hash >>> 16);
+	}
+}
@@ -20,6 +20,7 @@ import java.util.*;
 import java.util.regex.Pattern;
 
 import org.eclipse.compare.patch.IFilePatch2;
+import org.eclipse.compare.patch.IFilePatchListener;
 import org.eclipse.core.runtime.*;
 
 public class PatchReader {
@@ -46,6 +47,7 @@ public class PatchReader {
 	private boolean fIsGitPatch;
 	private DiffProject[] fDiffProjects;
 	private FilePatch2[] fDiffs;
+	private IFilePatchListener fListener;
 
 	// API for writing new multi-project patch format
 	public static final String MULTIPROJECTPATCH_HEADER= "### Eclipse Workspace Patch"; //$NON-NLS-1$
@@ -75,6 +77,29 @@ public class PatchReader {
 		this.fDateFormats = dateFormats;
 	}
 
+	/**
+	 * Parses the given patch and reports each file diff to the listener as
+	 * soon as it has been read. The file diffs are not kept, so
+	 * {@link #getDiffs()} returns an empty array afterwards. File diffs of a
+	 * workspace patch are reported relative to the workspace, as returned by
+	 * {@link #getAdjustedDiffs()}.
+	 *
+	 * @param reader
+	 *            the patch
+	 * @param listener
+	 *            the listener that receives the file diffs
+	 * @throws IOException
+	 *             if the patch cannot be read
+	 */
+	public void parse(BufferedReader reader, IFilePatchListener listener) throws IOException {
+		this.fListener = listener;
+		try {
+			parse(reader);
+		} finally {
+			this.fListener = null;
+		}
+	}
+
 	public void parse(BufferedReader reader) throws IOException {
 		List<FilePatch2> diffs= new ArrayList<>();
 		HashMap<String, DiffProject> diffProjects= new HashMap<>(4);
@@ -137,6 +162,7 @@ public class PatchReader {
 				}
 
 				line= readUnifiedDiff(diffs, lr, line, diffArgs, fileName, diffProject);
+				flush(diffs);
 				diffArgs= fileName= null;
 				reread= true;
 			}
@@ -190,14 +216,16 @@ public class PatchReader {
 				diffArgs= line.substring(4).trim();
 			} else if (line.startsWith("--- ")) { //$NON-NLS-1$
 				line= readUnifiedDiff(diffs, lr, line, diffArgs, fileName);
-				if (!headerLines.isEmpty())
+				if (!headerLines.isEmpty() && !diffs.isEmpty())
 					setHeader(diffs.get(diffs.size() - 1), headerLines);
+				flush(diffs);
 				diffArgs= fileName= null;
 				reread= true;
 			} else if (line.startsWith("*** ")) { //$NON-NLS-1$
 				line= readContextDiff(diffs, lr, line, diffArgs, fileName);
-				if (!headerLines.isEmpty())
+				if (!headerLines.isEmpty() && !diffs.isEmpty())
 					setHeader(diffs.get(diffs.size() - 1), headerLines);
+				flush(diffs);
 				diffArgs= fileName= null;
 				reread= true;
 			}
@@ -214,6 +242,22 @@ public class PatchReader {
 		this.fDiffs = diffs.toArray(new FilePatch2[diffs.size()]);
 	}
 
+	/*
+	 * Reports the diffs that have been read completely to the listener, if
+	 * there is one, and drops them.
+	 */
+	private void flush(List<FilePatch2> diffs) {
+		if (this.fListener == null)
+			return;
+		for (FilePatch2 diff : diffs) {
+			DiffProject project = diff.getProject();
+			if (project != null)
+				project.remove(diff);
+			this.fListener.filePatchParsed(isWorkspacePatch() ? diff.asRelativeDiff() : diff);
+		}
+		diffs.clear();
+	}
+
 	private void setHeader(FilePatch2 diff, List<String> headerLines) {
 		String header = LineReader.createString(false, headerLines);
 		diff.setHeader(header);
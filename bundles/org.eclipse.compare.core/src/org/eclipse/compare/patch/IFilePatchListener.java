@@ -0,0 +1,40 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.compare.patch;
+
+/**
+ * Receives the file patches of a patch while it is being parsed. Each file
+ * patch is reported as soon as its last hunk has been read, so only one file
+ * patch is held in memory at a time unless the listener keeps a reference to
+ * it.
+ *
+ * @see PatchParser#parsePatch(ReaderCreator, IFilePatchListener)
+ * @since org.eclipse.compare.core 3.7
+ */
+public interface IFilePatchListener {
+
+	/**
+	 * Called for each file patch of the patch, in the order in which they
+	 * appear in the patch. The file patch contains all of its hunks.
+	 * <p>
+	 * Parsing stops if this method throws a runtime exception, for example an
+	 * <code>OperationCanceledException</code>. The exception is passed on to
+	 * the caller of the parser.
+	 * </p>
+	 *
+	 * @param filePatch
+	 *            the file patch that has been read
+	 */
+	public void filePatchParsed(IFilePatch2 filePatch);
+}
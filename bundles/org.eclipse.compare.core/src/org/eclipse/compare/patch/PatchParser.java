@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2011 IBM Corporation and others.
+ * Copyright (c) 2008, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -57,4 +57,37 @@ public class PatchParser {
 			}
 		}
 	}
+
+	/**
+	 * Parse the given patch and report each file patch that it contains to the
+	 * given listener as soon as it has been read. Unlike
+	 * {@link #parsePatch(ReaderCreator)}, this does not keep the file patches
+	 * in memory, so it can be used for patches that are too large to be held
+	 * completely.
+	 *
+	 * @param content
+	 *            a patch reader creator
+	 * @param listener
+	 *            the listener that receives the file patches
+	 * @throws CoreException
+	 *             if an error occurs reading the contents
+	 * @since org.eclipse.compare.core 3.7
+	 */
+	public static void parsePatch(ReaderCreator content,
+			IFilePatchListener listener) throws CoreException {
+		BufferedReader reader = new BufferedReader(content.createReader());
+		try {
+			PatchReader patchReader = new PatchReader();
+			patchReader.parse(reader, listener);
+		} catch (IOException e) {
+			throw new CoreException(new Status(IStatus.ERROR,
+					CompareSettings.PLUGIN_ID, 0, e.getMessage(), e));
+		} finally {
+			try {
+				reader.close();
+			} catch (IOException e) {
+				// ignored
+			}
+		}
+	}
 }
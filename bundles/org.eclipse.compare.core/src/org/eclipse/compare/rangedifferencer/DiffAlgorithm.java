@@ -0,0 +1,199 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.compare.rangedifferencer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.compare.internal.core.CompareSettings;
+import org.eclipse.compare.internal.core.Messages;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.SubMonitor;
+
+/**
+ * An algorithm used by the <code>RangeDifferencer</code> to find the
+ * differences between two <code>IRangeComparator</code>s.
+ * <p>
+ * The default algorithm is Myers' LCS algorithm which works on any
+ * <code>IRangeComparator</code>. Unless capping is disabled, it limits its
+ * running time for long inputs, which may produce differences that are far
+ * from minimal.
+ * </p>
+ * <p>
+ * The histogram and patience algorithms anchor the comparison on rarely
+ * occurring ranges and run in near linear time on typical inputs, so they do
+ * not need to be capped. Both work on range ids and require the compared
+ * comparators to be {@link IInternedRangeComparator}s sharing the same
+ * {@link RangeInterner}. For other comparators they fall back to Myers'
+ * algorithm.
+ * </p>
+ * <p>
+ * Clients may subclass this class to provide their own algorithm working on
+ * range ids by implementing {@link #match(int[], int[], int[], IProgressMonitor)}.
+ * </p>
+ *
+ * @see RangeDifferencer
+ * @since 3.7
+ */
+public abstract class DiffAlgorithm {
+
+	/**
+	 * The id of Myers' LCS algorithm (value <code>"myers"</code>).
+	 */
+	public static final String MYERS = "myers"; //$NON-NLS-1$
+
+	/**
+	 * The id of the histogram algorithm (value <code>"histogram"</code>).
+	 */
+	public static final String HISTOGRAM = "histogram"; //$NON-NLS-1$
+
+	/**
+	 * The id of the patience algorithm (value <code>"patience"</code>).
+	 */
+	public static final String PATIENCE = "patience"; //$NON-NLS-1$
+
+	private static DiffAlgorithm myers;
+	private static DiffAlgorithm histogram;
+	private static DiffAlgorithm patience;
+
+	/**
+	 * Returns the algorithm with the given id.
+	 *
+	 * @param id one of {@link #MYERS}, {@link #HISTOGRAM} or {@link #PATIENCE}
+	 * @return the algorithm with the given id, or Myers' algorithm if the id is
+	 *         <code>null</code> or unknown
+	 */
+	public static synchronized DiffAlgorithm forId(String id) {
+		if (HISTOGRAM.equals(id)) {
+			if (histogram == null)
+				histogram = new HistogramDiffAlgorithm();
+			return histogram;
+		}
+		if (PATIENCE.equals(id)) {
+			if (patience == null)
+				patience = new PatienceDiffAlgorithm();
+			return patience;
+		}
+		if (myers == null)
+			myers = new MyersDiffAlgorithm();
+		return myers;
+	}
+
+	/**
+	 * Returns the algorithm used by the <code>RangeDifferencer</code> methods
+	 * that do not take an explicit algorithm.
+	 *
+	 * @return the default algorithm
+	 */
+	public static DiffAlgorithm getDefault() {
+		return forId(CompareSettings.getDefault().getDiffAlgorithm());
+	}
+
+	/**
+	 * Returns the id of this algorithm.
+	 *
+	 * @return the id of this algorithm
+	 */
+	public abstract String getId();
+
+	/**
+	 * Finds the differences between two <code>IRangeComparator</code>s.
+	 * <p>
+	 * The default implementation calls
+	 * {@link #match(int[], int[], int[], IProgressMonitor)} if both comparators
+	 * share the same interner, and uses Myers' algorithm otherwise.
+	 * </p>
+	 *
+	 * @param factory factory to instantiate new {@link RangeDifference}s
+	 * @param pm if not <code>null</code> used to report progress
+	 * @param left the left range comparator
+	 * @param right the right range comparator
+	 * @return an array of range differences, or an empty array if no differences were found
+	 */
+	public RangeDifference[] findDifferences(AbstractRangeDifferenceFactory factory, IProgressMonitor pm, IRangeComparator left, IRangeComparator right) {
+		if (!RangeInterner.isShared(left, right))
+			return RangeComparatorLCS.findDifferences(factory, pm, left, right);
+		SubMonitor monitor = SubMonitor.convert(pm, Messages.RangeComparatorLCS_0, 100);
+		try {
+			int[] leftIds = ((IInternedRangeComparator) left).getRangeIds();
+			int[] rightIds = ((IInternedRangeComparator) right).getRangeIds();
+			int[] matches = new int[leftIds.length];
+			Arrays.fill(matches, -1);
+			match(leftIds, rightIds, matches, monitor.newChild(95));
+			return toDifferences(factory, matches, rightIds.length);
+		} finally {
+			if (pm != null)
+				pm.done();
+		}
+	}
+
+	/**
+	 * Computes a common subsequence of the given id sequences. For every index
+	 * <code>i</code> of the left sequence that is part of the common subsequence,
+	 * <code>matches[i]</code> must be set to the corresponding index of the right
+	 * sequence. All other entries must be left at <code>-1</code>. The matched
+	 * right indices must be strictly increasing.
+	 *
+	 * @param left the ids of the left ranges
+	 * @param right the ids of the right ranges
+	 * @param matches the array receiving the matches, initialized to <code>-1</code>
+	 * @param monitor used to report progress and to check for cancellation, not
+	 *            <code>null</code>
+	 * @throws OperationCanceledException if the monitor has been canceled
+	 */
+	protected abstract void match(int[] left, int[] right, int[] matches, IProgressMonitor monitor);
+
+	/*
+	 * Runs Myers' algorithm on left[leftStart..leftEnd) and right[rightStart..rightEnd).
+	 * Used by the algorithms that work on unique or rare ranges if no such
+	 * ranges can be found.
+	 */
+	static void matchLCS(int[] left, int leftStart, int leftEnd, int[] right, int rightStart, int rightEnd, int[] matches, SubMonitor monitor) {
+		new RangeIdLCS(left, leftStart, leftEnd, right, rightStart, rightEnd, matches).longestCommonSubsequence(monitor);
+	}
+
+	/*
+	 * Converts the matches into differences the same way RangeComparatorLCS does.
+	 */
+	private static RangeDifference[] toDifferences(AbstractRangeDifferenceFactory factory, int[] matches, int rightLength) {
+		List<RangeDifference> differences = new ArrayList<>();
+		int leftLength = matches.length;
+		int nextLeft = 0;
+		int nextRight = 0;
+		boolean matched = false;
+		for (int i = 0; i < leftLength; i++) {
+			int j = matches[i];
+			if (j < 0)
+				continue;
+			if (i != nextLeft || j != nextRight)
+				differences.add(factory.createRangeDifference(RangeDifference.CHANGE, nextRight, j - nextRight, nextLeft, i - nextLeft));
+			nextLeft = i + 1;
+			nextRight = j + 1;
+			matched = true;
+		}
+		if (!matched) {
+			differences.add(factory.createRangeDifference(RangeDifference.CHANGE, 0, rightLength, 0, leftLength));
+		} else if (nextLeft < leftLength || nextRight < rightLength) {
+			differences.add(factory.createRangeDifference(RangeDifference.CHANGE, nextRight, rightLength - nextRight, nextLeft, leftLength - nextLeft));
+		}
+		return differences.toArray(new RangeDifference[differences.size()]);
+	}
+
+	static void checkCanceled(IProgressMonitor monitor) {
+		if (monitor.isCanceled())
+			throw new OperationCanceledException();
+	}
+}
@@ -0,0 +1,151 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.compare.rangedifferencer;
+
+import java.util.Arrays;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.SubMonitor;
+
+/*
+ * Histogram diff: finds the longest common region containing the least
+ * frequently occurring ranges of the left side, matches it and continues
+ * with the regions before and after it. Regions in which every common range
+ * occurs too often are handed to Myers' algorithm.
+ */
+/* package */ class HistogramDiffAlgorithm extends DiffAlgorithm {
+
+	/*
+	 * Ranges occurring more often than this in a region are not used to find
+	 * common regions.
+	 */
+	private static final int MAX_CHAIN_LENGTH = 64;
+
+	@Override
+	public String getId() {
+		return HISTOGRAM;
+	}
+
+	@Override
+	protected void match(int[] left, int[] right, int[] matches, IProgressMonitor pm) {
+		SubMonitor monitor = SubMonitor.convert(pm, left.length);
+		int idCount = 0;
+		for (int id : left)
+			idCount = Math.max(idCount, id + 1);
+		for (int id : right)
+			idCount = Math.max(idCount, id + 1);
+
+		// Occurrences of each id in the current left region, chained through next
+		int[] head = new int[idCount];
+		int[] count = new int[idCount];
+		int[] next = new int[left.length];
+		Arrays.fill(head, -1);
+
+		// Regions still to be processed, stored as (leftStart, leftEnd, rightStart, rightEnd)
+		int[] regions = new int[64];
+		int top = 0;
+		regions[top++] = 0;
+		regions[top++] = left.length;
+		regions[top++] = 0;
+		regions[top++] = right.length;
+		while (top > 0) {
+			checkCanceled(monitor);
+			int rightEnd = regions[--top];
+			int rightStart = regions[--top];
+			int leftEnd = regions[--top];
+			int leftStart = regions[--top];
+
+			// Common prefixes and suffixes are always part of the result
+			while (leftStart < leftEnd && rightStart < rightEnd && left[leftStart] == right[rightStart]) {
+				matches[leftStart++] = rightStart++;
+				monitor.worked(1);
+			}
+			while (leftStart < leftEnd && rightStart < rightEnd && left[leftEnd - 1] == right[rightEnd - 1]) {
+				matches[--leftEnd] = --rightEnd;
+				monitor.worked(1);
+			}
+			if (leftStart == leftEnd || rightStart == rightEnd)
+				continue;
+
+			for (int i = leftEnd - 1; i >= leftStart; i--) {
+				int id = left[i];
+				next[i] = head[id];
+				head[id] = i;
+				count[id]++;
+			}
+
+			boolean hasCommon = false;
+			int bestLeft = 0, bestRight = 0, bestLength = 0;
+			int bestCount = MAX_CHAIN_LENGTH;
+			for (int j = rightStart; j < rightEnd;) {
+				int occurrences = count[right[j]];
+				int nextRight = j + 1;
+				if (occurrences > 0) {
+					hasCommon = true;
+					if (occurrences <= bestCount) {
+						for (int i = head[right[j]]; i != -1; i = next[i]) {
+							int ls = i, rs = j, le = i + 1, re = j + 1;
+							int regionCount = occurrences;
+							while (ls > leftStart && rs > rightStart && left[ls - 1] == right[rs - 1]) {
+								ls--;
+								rs--;
+								regionCount = Math.min(regionCount, count[left[ls]]);
+							}
+							while (le < leftEnd && re < rightEnd && left[le] == right[re]) {
+								regionCount = Math.min(regionCount, count[left[le]]);
+								le++;
+								re++;
+							}
+							if (le - ls > bestLength || regionCount < bestCount) {
+								bestLeft = ls;
+								bestRight = rs;
+								bestLength = le - ls;
+								bestCount = regionCount;
+							}
+							if (re > nextRight)
+								nextRight = re;
+						}
+					}
+				}
+				j = nextRight;
+			}
+
+			for (int i = leftStart; i < leftEnd; i++) {
+				head[left[i]] = -1;
+				count[left[i]] = 0;
+			}
+
+			if (bestLength == 0) {
+				if (hasCommon)
+					matchLCS(left, leftStart, leftEnd, right, rightStart, rightEnd, matches, monitor.newChild(0));
+				continue;
+			}
+
+			for (int k = 0; k < bestLength; k++)
+				matches[bestLeft + k] = bestRight + k;
+			monitor.worked(bestLength);
+
+			if (top + 8 > regions.length)
+				regions = Arrays.copyOf(regions, regions.length * 2);
+			regions[top++] = leftStart;
+			regions[top++] = bestLeft;
+			regions[top++] = rightStart;
+			regions[top++] = bestRight;
+			regions[top++] = bestLeft + bestLength;
+			regions[top++] = leftEnd;
+			regions[top++] = bestRight + bestLength;
+			regions[top++] = rightEnd;
+		}
+	}
+}
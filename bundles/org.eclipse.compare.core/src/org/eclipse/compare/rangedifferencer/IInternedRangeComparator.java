@@ -0,0 +1,53 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.compare.rangedifferencer;
+
+/**
+ * An <code>IRangeComparator</code> that has tokenized its input once into
+ * a dense array of ids taken from a {@link RangeInterner}.
+ * <p>
+ * If all comparators taking part in a comparison return the same interner,
+ * <code>RangeDifferencer</code> compares ranges by comparing their ids instead
+ * of calling {@link #rangesEqual(int, IRangeComparator, int)}. Implementations
+ * must therefore make sure that two ranges have the same id if and only if
+ * <code>rangesEqual</code> would return <code>true</code> for them.
+ * </p>
+ * <p>
+ * Clients may implement this interface.
+ * </p>
+ *
+ * @see RangeInterner
+ * @since 3.7
+ */
+public interface IInternedRangeComparator extends IRangeComparator {
+
+	/**
+	 * Returns the interner that was used to compute the range ids of this
+	 * comparator.
+	 *
+	 * @return the interner or <code>null</code> if the ranges of this comparator
+	 *         have not been interned
+	 */
+	RangeInterner getInterner();
+
+	/**
+	 * Returns the ids of all ranges of this comparator. The length of the
+	 * returned array is equal to {@link #getRangeCount()}. Callers must not
+	 * modify the returned array.
+	 *
+	 * @return the range ids or <code>null</code> if the ranges of this
+	 *         comparator have not been interned
+	 */
+	int[] getRangeIds();
+}
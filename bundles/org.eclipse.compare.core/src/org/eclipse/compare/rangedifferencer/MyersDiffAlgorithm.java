@@ -0,0 +1,38 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.compare.rangedifferencer;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.SubMonitor;
+
+/*
+ * Myers' LCS algorithm as implemented by RangeComparatorLCS.
+ */
+/* package */ class MyersDiffAlgorithm extends DiffAlgorithm {
+
+	@Override
+	public String getId() {
+		return MYERS;
+	}
+
+	@Override
+	public RangeDifference[] findDifferences(AbstractRangeDifferenceFactory factory, IProgressMonitor pm, IRangeComparator left, IRangeComparator right) {
+		return RangeComparatorLCS.findDifferences(factory, pm, left, right);
+	}
+
+	@Override
+	protected void match(int[] left, int[] right, int[] matches, IProgressMonitor monitor) {
+		matchLCS(left, 0, left.length, right, 0, right.length, matches, SubMonitor.convert(monitor));
+	}
+}
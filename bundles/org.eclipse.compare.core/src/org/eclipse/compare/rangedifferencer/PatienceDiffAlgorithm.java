@@ -0,0 +1,150 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.compare.rangedifferencer;
+
+import java.util.Arrays;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.SubMonitor;
+
+/*
+ * Patience diff: matches the longest increasing sequence of ranges that occur
+ * exactly once on both sides of a region and continues with the regions
+ * between them. Regions without such unique ranges are handed to Myers'
+ * algorithm.
+ */
+/* package */ class PatienceDiffAlgorithm extends DiffAlgorithm {
+
+	@Override
+	public String getId() {
+		return PATIENCE;
+	}
+
+	@Override
+	protected void match(int[] left, int[] right, int[] matches, IProgressMonitor pm) {
+		SubMonitor monitor = SubMonitor.convert(pm, left.length);
+		int idCount = 0;
+		for (int id : left)
+			idCount = Math.max(idCount, id + 1);
+		for (int id : right)
+			idCount = Math.max(idCount, id + 1);
+
+		// Occurrences of each id in the current region
+		int[] leftCount = new int[idCount];
+		int[] rightCount = new int[idCount];
+		int[] leftPosition = new int[idCount];
+
+		// Unique common ranges ordered by their right index, and the piles of the patience sort
+		int size = Math.min(left.length, right.length);
+		int[] candidateLeft = new int[size];
+		int[] candidateRight = new int[size];
+		int[] predecessor = new int[size];
+		int[] piles = new int[size];
+
+		// Regions still to be processed, stored as (leftStart, leftEnd, rightStart, rightEnd)
+		int[] regions = new int[64];
+		int top = 0;
+		regions[top++] = 0;
+		regions[top++] = left.length;
+		regions[top++] = 0;
+		regions[top++] = right.length;
+		while (top > 0) {
+			checkCanceled(monitor);
+			int rightEnd = regions[--top];
+			int rightStart = regions[--top];
+			int leftEnd = regions[--top];
+			int leftStart = regions[--top];
+
+			// Common prefixes and suffixes are always part of the result
+			while (leftStart < leftEnd && rightStart < rightEnd && left[leftStart] == right[rightStart]) {
+				matches[leftStart++] = rightStart++;
+				monitor.worked(1);
+			}
+			while (leftStart < leftEnd && rightStart < rightEnd && left[leftEnd - 1] == right[rightEnd - 1]) {
+				matches[--leftEnd] = --rightEnd;
+				monitor.worked(1);
+			}
+			if (leftStart == leftEnd || rightStart == rightEnd)
+				continue;
+
+			for (int i = leftStart; i < leftEnd; i++) {
+				leftCount[left[i]]++;
+				leftPosition[left[i]] = i;
+			}
+			boolean hasCommon = false;
+			for (int j = rightStart; j < rightEnd; j++) {
+				rightCount[right[j]]++;
+				if (leftCount[right[j]] > 0)
+					hasCommon = true;
+			}
+			int candidates = 0;
+			for (int j = rightStart; j < rightEnd; j++) {
+				int id = right[j];
+				if (leftCount[id] == 1 && rightCount[id] == 1) {
+					candidateLeft[candidates] = leftPosition[id];
+					candidateRight[candidates] = j;
+					candidates++;
+				}
+			}
+			for (int i = leftStart; i < leftEnd; i++)
+				leftCount[left[i]] = 0;
+			for (int j = rightStart; j < rightEnd; j++)
+				rightCount[right[j]] = 0;
+
+			if (candidates == 0) {
+				if (hasCommon)
+					matchLCS(left, leftStart, leftEnd, right, rightStart, rightEnd, matches, monitor.newChild(0));
+				continue;
+			}
+
+			// Longest increasing subsequence of the left indices by patience sorting
+			int pileCount = 0;
+			for (int c = 0; c < candidates; c++) {
+				int low = 0, high = pileCount;
+				while (low < high) {
+					int mid = (low + high) >>> 1;
+					if (candidateLeft[piles[mid]] < candidateLeft[c])
+						low = mid + 1;
+					else
+						high = mid;
+				}
+				predecessor[c] = low > 0 ? piles[low - 1] : -1;
+				piles[low] = c;
+				if (low == pileCount)
+					pileCount++;
+			}
+
+			// Walk the sequence backwards, queueing the regions between the anchors
+			if (top + 4 * (pileCount + 1) > regions.length)
+				regions = Arrays.copyOf(regions, Math.max(regions.length * 2, top + 4 * (pileCount + 1)));
+			int nextLeft = leftEnd, nextRight = rightEnd;
+			for (int c = piles[pileCount - 1]; c != -1; c = predecessor[c]) {
+				int i = candidateLeft[c];
+				int j = candidateRight[c];
+				matches[i] = j;
+				regions[top++] = i + 1;
+				regions[top++] = nextLeft;
+				regions[top++] = j + 1;
+				regions[top++] = nextRight;
+				nextLeft = i;
+				nextRight = j;
+			}
+			monitor.worked(pileCount);
+			regions[top++] = leftStart;
+			regions[top++] = nextLeft;
+			regions[top++] = rightStart;
+			regions[top++] = nextRight;
+		}
+	}
+}
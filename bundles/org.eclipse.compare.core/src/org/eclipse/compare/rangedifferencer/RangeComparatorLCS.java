@@ -23,6 +23,7 @@ import org.eclipse.core.runtime.*;
 /* package */ class RangeComparatorLCS extends LCS {
 
 	private final IRangeComparator comparator1, comparator2;
+	private final int[] ids1, ids2;
 	private int[][] lcs;
 
 	public static RangeDifference[] findDifferences(AbstractRangeDifferenceFactory factory, IProgressMonitor pm, IRangeComparator left, IRangeComparator right) {
@@ -40,6 +41,13 @@ import org.eclipse.core.runtime.*;
 	public RangeComparatorLCS(IRangeComparator comparator1, IRangeComparator comparator2) {
 		this.comparator1 = comparator1;
 		this.comparator2 = comparator2;
+		if (RangeInterner.isShared(comparator1, comparator2)) {
+			// Both sides were tokenized against the same interner, compare ids
+			this.ids1 = ((IInternedRangeComparator) comparator1).getRangeIds();
+			this.ids2 = ((IInternedRangeComparator) comparator2).getRangeIds();
+		} else {
+			this.ids1 = this.ids2 = null;
+		}
 	}
 
 	@Override
@@ -59,6 +67,8 @@ import org.eclipse.core.runtime.*;
 
 	@Override
 	protected boolean isRangeEqual(int i1, int i2) {
+		if (this.ids1 != null)
+			return this.ids1[i1] == this.ids2[i2];
 		return this.comparator1.rangesEqual(i1, this.comparator2, i2);
 	}
 
@@ -150,9 +160,10 @@ import org.eclipse.core.runtime.*;
 	 *            some other collection of lines
 	 * @param length The number of non-empty (i.e non-zero) entries in LCS
 	 * @param comparator The comparator used to generate the LCS
+	 * @param ids The interned range ids of the comparator or <code>null</code>
 	 */
 	private void compactAndShiftLCS(int[] lcsSide, int length,
-			IRangeComparator comparator) {
+			IRangeComparator comparator, int[] ids) {
 		// If the LCS is empty, just return
 		if (length == 0)
 			return;
@@ -172,7 +183,8 @@ import org.eclipse.core.runtime.*;
 			// Push the difference down as far as possible by comparing the line at the
 			// start of the diff with the line and the end and adjusting if they are the same
 			int nextLine = lcsSide[i - 1] + 1;
-			if (nextLine != lcsSide[j] && comparator.rangesEqual(nextLine - 1, comparator, lcsSide[j] - 1)) {
+			if (nextLine != lcsSide[j] && (ids != null ? ids[nextLine - 1] == ids[lcsSide[j] - 1]
+					: comparator.rangesEqual(nextLine - 1, comparator, lcsSide[j] - 1))) {
 				lcsSide[i] = nextLine;
 			} else {
 				lcsSide[i] = lcsSide[j];
@@ -189,8 +201,8 @@ import org.eclipse.core.runtime.*;
 	public void longestCommonSubsequence(SubMonitor subMonitor) {
 		super.longestCommonSubsequence(subMonitor);
 		if (this.lcs != null) { // The LCS can be null if one of the sides is empty
-			compactAndShiftLCS(this.lcs[0], getLength(), this.comparator1);
-			compactAndShiftLCS(this.lcs[1], getLength(), this.comparator2);
+			compactAndShiftLCS(this.lcs[0], getLength(), this.comparator1, this.ids1);
+			compactAndShiftLCS(this.lcs[1], getLength(), this.comparator2, this.ids2);
 		}
 	}
 }
@@ -15,6 +15,9 @@ package org.eclipse.compare.rangedifferencer;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.eclipse.compare.internal.core.Messages;
 import org.eclipse.core.runtime.*;
@@ -34,14 +37,31 @@ import org.eclipse.core.runtime.*;
  * Alternatively, the <code>findRanges</code> methods not only return objects for
  * the differing ranges but for non-differing ranges too.
  * </p>
+ * <p>
+ * The algorithm used to find the differences can be passed explicitly as a
+ * {@link DiffAlgorithm}; otherwise {@link DiffAlgorithm#getDefault()} is used.
+ * </p>
+ * <p>
+ * A three-way comparison compares the ancestor with the left and with the
+ * right side. For large inputs of {@link IInternedRangeComparator}s sharing
+ * the same interner both comparisons run concurrently, see
+ * {@link #findDifferencesConcurrently(DiffAlgorithm, AbstractRangeDifferenceFactory, IProgressMonitor, IRangeComparator, IRangeComparator, IRangeComparator)}.
+ * </p>
  *
  * @see IRangeComparator
  * @see RangeDifference
+ * @see DiffAlgorithm
  */
 public final class RangeDifferencer {
 
 	private static final RangeDifference[] EMPTY_RESULT= new RangeDifference[0];
 
+	/*
+	 * The number of ancestor ranges from which on a three-way comparison of
+	 * interned comparators compares the ancestor with both sides concurrently.
+	 */
+	private static final int CONCURRENT_THRESHOLD= 5000;
+
 	private static final AbstractRangeDifferenceFactory defaultFactory = new AbstractRangeDifferenceFactory() {
 		@Override
 		protected RangeDifference createRangeDifference() {
@@ -97,7 +117,25 @@ public final class RangeDifferencer {
 	 * @since org.eclipse.compare.core 3.5
 	 */
 	public static RangeDifference[] findDifferences(AbstractRangeDifferenceFactory factory, IProgressMonitor pm, IRangeComparator left, IRangeComparator right) {
-		return RangeComparatorLCS.findDifferences(factory, pm, left, right);
+		return findDifferences(DiffAlgorithm.getDefault(), factory, pm, left, right);
+	}
+
+	/**
+	 * Finds the differences between two <code>IRangeComparator</code>s using
+	 * the given algorithm.
+	 * The differences are returned as an array of <code>RangeDifference</code>s.
+	 * If no differences are detected an empty array is returned.
+	 *
+	 * @param algorithm the algorithm used to find the differences
+	 * @param factory factory to instantiate new {@link RangeDifference}s
+	 * @param pm if not <code>null</code> used to report progress
+	 * @param left the left range comparator
+	 * @param right the right range comparator
+	 * @return an array of range differences, or an empty array if no differences were found
+	 * @since 3.7
+	 */
+	public static RangeDifference[] findDifferences(DiffAlgorithm algorithm, AbstractRangeDifferenceFactory factory, IProgressMonitor pm, IRangeComparator left, IRangeComparator right) {
+		return algorithm.findDifferences(factory, pm, left, right);
 	}
 
 	/**
@@ -150,98 +188,211 @@ public final class RangeDifferencer {
 	 * @since org.eclipse.compare.core 3.5
 	 */
 	public static RangeDifference[] findDifferences(AbstractRangeDifferenceFactory factory, IProgressMonitor pm, IRangeComparator ancestor, IRangeComparator left, IRangeComparator right) {
+		return findDifferences(DiffAlgorithm.getDefault(), factory, pm, ancestor, left, right);
+	}
+
+	/**
+	 * Finds the differences among three <code>IRangeComparator</code>s using
+	 * the given algorithm.
+	 * The differences are returned as a list of <code>RangeDifference</code>s.
+	 * If no differences are detected an empty list is returned.
+	 * If the ancestor range comparator is <code>null</code>, a two-way
+	 * comparison is performed.
+	 *
+	 * @param algorithm the algorithm used to find the differences
+	 * @param factory factory to instantiate new {@link RangeDifference}s
+	 * @param pm if not <code>null</code> used to report progress
+	 * @param ancestor the ancestor range comparator or <code>null</code>
+	 * @param left the left range comparator
+	 * @param right the right range comparator
+	 * @return an array of range differences, or an empty array if no differences were found
+	 * @since 3.7
+	 */
+	public static RangeDifference[] findDifferences(DiffAlgorithm algorithm, AbstractRangeDifferenceFactory factory, IProgressMonitor pm, IRangeComparator ancestor, IRangeComparator left, IRangeComparator right) {
+		if (ancestor != null && isConcurrent(ancestor, left, right))
+			return findDifferencesConcurrently(algorithm, factory, pm, ancestor, left, right);
 		try {
 			if (ancestor == null)
-				return findDifferences(factory, pm, left, right);
+				return findDifferences(algorithm, factory, pm, left, right);
 			SubMonitor monitor = SubMonitor.convert(pm, Messages.RangeComparatorLCS_0, 100);
 			RangeDifference[] leftAncestorScript= null;
-			RangeDifference[] rightAncestorScript= findDifferences(factory, monitor.newChild(50), ancestor, right);
+			RangeDifference[] rightAncestorScript= findDifferences(algorithm, factory, monitor.newChild(50), ancestor, right);
 			if (rightAncestorScript != null) {
 				monitor.setWorkRemaining(100);
-				leftAncestorScript= findDifferences(factory, monitor.newChild(50), ancestor, left);
+				leftAncestorScript= findDifferences(algorithm, factory, monitor.newChild(50), ancestor, left);
+			}
+			if (rightAncestorScript == null || leftAncestorScript == null)
+				return null;
+			return combine(factory, monitor, left, right, rightAncestorScript, leftAncestorScript);
+		} finally {
+			if (pm != null)
+				pm.done();
+		}
+	}
+
+	/**
+	 * Finds the differences among three <code>IRangeComparator</code>s using
+	 * the given algorithm. Unlike
+	 * {@link #findDifferences(DiffAlgorithm, AbstractRangeDifferenceFactory, IProgressMonitor, IRangeComparator, IRangeComparator, IRangeComparator)}
+	 * the ancestor is compared with the left and the right side concurrently,
+	 * using the common fork-join pool.
+	 * <p>
+	 * The comparators and the factory are accessed from two threads at the same
+	 * time and must therefore be safe for concurrent reads. This is the case for
+	 * {@link IInternedRangeComparator}s sharing the same interner, which is why
+	 * <code>findDifferences</code> and <code>findRanges</code> use this method
+	 * automatically for such comparators if the input is large.
+	 * </p>
+	 * <p>
+	 * If the monitor is canceled or one of the comparisons fails, the other
+	 * comparison is canceled as well. Progress is only reported on the calling
+	 * thread, as the comparison that runs on it proceeds and when the other
+	 * one has completed.
+	 * </p>
+	 *
+	 * @param algorithm the algorithm used to find the differences
+	 * @param factory factory to instantiate new {@link RangeDifference}s
+	 * @param pm if not <code>null</code> used to report progress
+	 * @param ancestor the ancestor range comparator or <code>null</code>
+	 * @param left the left range comparator
+	 * @param right the right range comparator
+	 * @return an array of range differences, or an empty array if no differences were found
+	 * @throws OperationCanceledException if the monitor has been canceled
+	 * @since 3.7
+	 */
+	public static RangeDifference[] findDifferencesConcurrently(DiffAlgorithm algorithm, AbstractRangeDifferenceFactory factory, IProgressMonitor pm, IRangeComparator ancestor, IRangeComparator left, IRangeComparator right) {
+		try {
+			if (ancestor == null)
+				return findDifferences(algorithm, factory, pm, left, right);
+			SubMonitor monitor = SubMonitor.convert(pm, Messages.RangeComparatorLCS_0, 100);
+			AtomicBoolean canceled= new AtomicBoolean();
+			// the right comparison runs on another thread so it does not report progress
+			ConcurrentMonitor rightMonitor= new ConcurrentMonitor(new NullProgressMonitor(), pm, canceled);
+			ForkJoinTask<RangeDifference[]> rightTask= ForkJoinTask.adapt(() -> findDifferencesOrCancel(algorithm, factory, rightMonitor, ancestor, right)).fork();
+			RangeDifference[] leftAncestorScript;
+			try {
+				ConcurrentMonitor leftMonitor= new ConcurrentMonitor(monitor.split(40), pm, canceled);
+				leftAncestorScript= findDifferencesOrCancel(algorithm, factory, leftMonitor, ancestor, left);
+			} finally {
+				// make sure the other comparison has ended before leaving
+				if (canceled.get() || (pm != null && pm.isCanceled()))
+					rightTask.quietlyJoin();
 			}
+			RangeDifference[] rightAncestorScript= rightTask.join();
+			monitor.worked(40);
 			if (rightAncestorScript == null || leftAncestorScript == null)
 				return null;
+			return combine(factory, monitor, left, right, rightAncestorScript, leftAncestorScript);
+		} finally {
+			if (pm != null)
+				pm.done();
+		}
+	}
+
+	/*
+	 * Runs a two-way comparison on behalf of findDifferencesConcurrently and
+	 * cancels the other comparison if this one fails.
+	 */
+	private static RangeDifference[] findDifferencesOrCancel(DiffAlgorithm algorithm, AbstractRangeDifferenceFactory factory, ConcurrentMonitor monitor, IRangeComparator left, IRangeComparator right) {
+		try {
+			return algorithm.findDifferences(factory, monitor, left, right);
+		} catch (RuntimeException | Error e) {
+			monitor.setCanceled(true);
+			throw e;
+		}
+	}
+
+	/*
+	 * Returns whether a three-way comparison is large enough to compare the
+	 * ancestor with both sides concurrently and whether it is safe to do so.
+	 */
+	private static boolean isConcurrent(IRangeComparator ancestor, IRangeComparator left, IRangeComparator right) {
+		return ancestor.getRangeCount() >= CONCURRENT_THRESHOLD
+				&& ForkJoinPool.getCommonPoolParallelism() > 1
+				&& RangeInterner.isShared(ancestor, left)
+				&& RangeInterner.isShared(ancestor, right);
+	}
+
+	/*
+	 * Combines the two two-way edit scripts into one three-way script.
+	 */
+	private static RangeDifference[] combine(AbstractRangeDifferenceFactory factory, SubMonitor monitor, IRangeComparator left, IRangeComparator right,
+			RangeDifference[] rightAncestorScript, RangeDifference[] leftAncestorScript) {
+		DifferencesIterator myIter= new DifferencesIterator(rightAncestorScript);
+		DifferencesIterator yourIter= new DifferencesIterator(leftAncestorScript);
 
-			DifferencesIterator myIter= new DifferencesIterator(rightAncestorScript);
-			DifferencesIterator yourIter= new DifferencesIterator(leftAncestorScript);
+		List<RangeDifference> diff3= new ArrayList<>();
+		diff3.add(factory.createRangeDifference(RangeDifference.ERROR)); // add a sentinel
 
-			List<RangeDifference> diff3= new ArrayList<>();
-			diff3.add(factory.createRangeDifference(RangeDifference.ERROR)); // add a sentinel
+		int changeRangeStart= 0;
+		int changeRangeEnd= 0;
+		//
+		// Combine the two two-way edit scripts into one
+		//
+		monitor.setWorkRemaining(rightAncestorScript.length + leftAncestorScript.length);
+		while (myIter.fDifference != null || yourIter.fDifference != null) {
 
-			int changeRangeStart= 0;
-			int changeRangeEnd= 0;
+			DifferencesIterator startThread;
+			myIter.removeAll();
+			yourIter.removeAll();
 			//
-			// Combine the two two-way edit scripts into one
+			// take the next diff that is closer to the start
 			//
-			monitor.setWorkRemaining(rightAncestorScript.length + leftAncestorScript.length);
-			while (myIter.fDifference != null || yourIter.fDifference != null) {
-
-				DifferencesIterator startThread;
-				myIter.removeAll();
-				yourIter.removeAll();
-				//
-				// take the next diff that is closer to the start
-				//
-				if (myIter.fDifference == null)
-					startThread= yourIter;
-				else if (yourIter.fDifference == null)
+			if (myIter.fDifference == null)
+				startThread= yourIter;
+			else if (yourIter.fDifference == null)
+				startThread= myIter;
+			else { // not at end of both scripts take the lowest range
+				if (myIter.fDifference.leftStart < yourIter.fDifference.leftStart) { // 2 -> common (Ancestor) change range
 					startThread= myIter;
-				else { // not at end of both scripts take the lowest range
-					if (myIter.fDifference.leftStart < yourIter.fDifference.leftStart) { // 2 -> common (Ancestor) change range
+				} else if (myIter.fDifference.leftStart > yourIter.fDifference.leftStart) {
+					startThread= yourIter;
+				} else {
+					if (myIter.fDifference.leftLength == 0 && yourIter.fDifference.leftLength == 0) {
+						//insertion into the same position is conflict.
+						changeRangeStart= myIter.fDifference.leftStart;
+						changeRangeEnd= myIter.fDifference.leftEnd();
+						myIter.next();
+						yourIter.next();
+						diff3.add(createRangeDifference3(factory, myIter, yourIter, diff3, right, left, changeRangeStart, changeRangeEnd));
+						continue;
+					} else 	if (myIter.fDifference.leftLength == 0) {
+						//insertion into a position, and modification to the next line, is not conflict.
 						startThread= myIter;
-					} else if (myIter.fDifference.leftStart > yourIter.fDifference.leftStart) {
-						startThread= yourIter;
+					} else if (yourIter.fDifference.leftLength == 0) {
+						startThread = yourIter;
 					} else {
-						if (myIter.fDifference.leftLength == 0 && yourIter.fDifference.leftLength == 0) {
-							//insertion into the same position is conflict.
-							changeRangeStart= myIter.fDifference.leftStart;
-							changeRangeEnd= myIter.fDifference.leftEnd();
-							myIter.next();
-							yourIter.next();
-							diff3.add(createRangeDifference3(factory, myIter, yourIter, diff3, right, left, changeRangeStart, changeRangeEnd));
-							continue;
-						} else 	if (myIter.fDifference.leftLength == 0) {
-							//insertion into a position, and modification to the next line, is not conflict.
-							startThread= myIter;
-						} else if (yourIter.fDifference.leftLength == 0) {
-							startThread = yourIter;
-						} else {
-							//modifications to overlapping lines is conflict.
-							startThread= myIter;
-						}
+						//modifications to overlapping lines is conflict.
+						startThread= myIter;
 					}
-
 				}
-				changeRangeStart= startThread.fDifference.leftStart;
-				changeRangeEnd= startThread.fDifference.leftEnd();
 
-				startThread.next();
+			}
+			changeRangeStart= startThread.fDifference.leftStart;
+			changeRangeEnd= startThread.fDifference.leftEnd();
+
+			startThread.next();
+			monitor.worked(1);
+			//
+			// check for overlapping changes with other thread
+			// merge overlapping changes with this range
+			//
+			DifferencesIterator other= startThread.other(myIter, yourIter);
+			while (other.fDifference != null && other.fDifference.leftStart < changeRangeEnd) {
+				int newMax= other.fDifference.leftEnd();
+				other.next();
 				monitor.worked(1);
-				//
-				// check for overlapping changes with other thread
-				// merge overlapping changes with this range
-				//
-				DifferencesIterator other= startThread.other(myIter, yourIter);
-				while (other.fDifference != null && other.fDifference.leftStart < changeRangeEnd) {
-					int newMax= other.fDifference.leftEnd();
-					other.next();
-					monitor.worked(1);
-					if (newMax > changeRangeEnd) {
-						changeRangeEnd= newMax;
-						other= other.other(myIter, yourIter);
-					}
+				if (newMax > changeRangeEnd) {
+					changeRangeEnd= newMax;
+					other= other.other(myIter, yourIter);
 				}
-				diff3.add(createRangeDifference3(factory, myIter, yourIter, diff3, right, left, changeRangeStart, changeRangeEnd));
 			}
-
-			// remove sentinel
-			diff3.remove(0);
-			return diff3.toArray(EMPTY_RESULT);
-		} finally {
-			if (pm != null)
-				pm.done();
+			diff3.add(createRangeDifference3(factory, myIter, yourIter, diff3, right, left, changeRangeStart, changeRangeEnd));
 		}
+
+		// remove sentinel
+		diff3.remove(0);
+		return diff3.toArray(EMPTY_RESULT);
 	}
 
 	/**
@@ -286,7 +437,25 @@ public final class RangeDifferencer {
 	 * @since org.eclipse.compare.core 3.5
 	 */
 	public static RangeDifference[] findRanges(AbstractRangeDifferenceFactory factory, IProgressMonitor pm, IRangeComparator left, IRangeComparator right) {
-		RangeDifference[] in= findDifferences(factory, pm, left, right);
+		return findRanges(DiffAlgorithm.getDefault(), factory, pm, left, right);
+	}
+
+	/**
+	 * Finds the differences among two <code>IRangeComparator</code>s using
+	 * the given algorithm.
+	 * In contrast to <code>findDifferences</code>, the result
+	 * contains <code>RangeDifference</code> elements for non-differing ranges too.
+	 *
+	 * @param algorithm the algorithm used to find the differences
+	 * @param factory factory to instantiate new {@link RangeDifference}s
+	 * @param pm if not <code>null</code> used to report progress
+	 * @param left the left range comparator
+	 * @param right the right range comparator
+	 * @return an array of range differences
+	 * @since 3.7
+	 */
+	public static RangeDifference[] findRanges(DiffAlgorithm algorithm, AbstractRangeDifferenceFactory factory, IProgressMonitor pm, IRangeComparator left, IRangeComparator right) {
+		RangeDifference[] in= findDifferences(algorithm, factory, pm, left, right);
 		List<RangeDifference> out= new ArrayList<>();
 
 		RangeDifference rd;
@@ -345,6 +514,26 @@ public final class RangeDifferencer {
 		return findRanges(defaultFactory, pm, ancestor, left, right);
 	}
 
+	/**
+	 * Finds the differences among three <code>IRangeComparator</code>s using
+	 * the given algorithm.
+	 * In contrast to <code>findDifferences</code>, the result
+	 * contains <code>RangeDifference</code> elements for non-differing ranges too.
+	 * If the ancestor range comparator is <code>null</code>, a two-way
+	 * comparison is performed.
+	 *
+	 * @param algorithm the algorithm used to find the differences
+	 * @param pm if not <code>null</code> used to report progress
+	 * @param ancestor the ancestor range comparator or <code>null</code>
+	 * @param left the left range comparator
+	 * @param right the right range comparator
+	 * @return an array of range differences
+	 * @since 3.7
+	 */
+	public static RangeDifference[] findRanges(DiffAlgorithm algorithm, IProgressMonitor pm, IRangeComparator ancestor, IRangeComparator left, IRangeComparator right) {
+		return findRanges(algorithm, defaultFactory, pm, ancestor, left, right);
+	}
+
 	/**
 	 * Finds the differences among three <code>IRangeComparator</code>s.
 	 * In contrast to <code>findDifferences</code>, the result
@@ -361,10 +550,31 @@ public final class RangeDifferencer {
 	 * @since org.eclipse.compare.core 3.5
 	 */
 	public static RangeDifference[] findRanges(AbstractRangeDifferenceFactory factory, IProgressMonitor pm, IRangeComparator ancestor, IRangeComparator left, IRangeComparator right) {
+		return findRanges(DiffAlgorithm.getDefault(), factory, pm, ancestor, left, right);
+	}
+
+	/**
+	 * Finds the differences among three <code>IRangeComparator</code>s using
+	 * the given algorithm.
+	 * In contrast to <code>findDifferences</code>, the result
+	 * contains <code>RangeDifference</code> elements for non-differing ranges too.
+	 * If the ancestor range comparator is <code>null</code>, a two-way
+	 * comparison is performed.
+	 *
+	 * @param algorithm the algorithm used to find the differences
+	 * @param factory factory to instantiate new {@link RangeDifference}s
+	 * @param pm if not <code>null</code> used to report progress
+	 * @param ancestor the ancestor range comparator or <code>null</code>
+	 * @param left the left range comparator
+	 * @param right the right range comparator
+	 * @return an array of range differences
+	 * @since 3.7
+	 */
+	public static RangeDifference[] findRanges(DiffAlgorithm algorithm, AbstractRangeDifferenceFactory factory, IProgressMonitor pm, IRangeComparator ancestor, IRangeComparator left, IRangeComparator right) {
 		if (ancestor == null)
-			return findRanges(factory,pm, left, right);
+			return findRanges(algorithm, factory, pm, left, right);
 
-		RangeDifference[] in= findDifferences(factory, pm, ancestor, left, right);
+		RangeDifference[] in= findDifferences(algorithm, factory, pm, ancestor, left, right);
 		List<RangeDifference> out= new ArrayList<>();
 
 		RangeDifference rd;
@@ -462,5 +672,32 @@ public final class RangeDifferencer {
 	private static boolean rangesEqual(IRangeComparator a, int ai, IRangeComparator b, int bi) {
 		return a.rangesEqual(ai, b, bi);
 	}
-}
 
+	/*
+	 * The monitor of one of the comparisons of findDifferencesConcurrently.
+	 * The comparisons share whether they are canceled, which they are if the
+	 * client's monitor is canceled or if one of the comparisons fails.
+	 * Progress is reported to the wrapped monitor.
+	 */
+	private static final class ConcurrentMonitor extends ProgressMonitorWrapper {
+
+		private final IProgressMonitor fParent;
+		private final AtomicBoolean fCanceled;
+
+		ConcurrentMonitor(IProgressMonitor progress, IProgressMonitor parent, AtomicBoolean canceled) {
+			super(progress);
+			fParent= parent;
+			fCanceled= canceled;
+		}
+
+		@Override
+		public boolean isCanceled() {
+			return fCanceled.get() || (fParent != null && fParent.isCanceled());
+		}
+
+		@Override
+		public void setCanceled(boolean canceled) {
+			fCanceled.set(canceled);
+		}
+	}
+}
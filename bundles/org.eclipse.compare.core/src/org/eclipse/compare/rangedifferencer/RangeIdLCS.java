@@ -0,0 +1,63 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.compare.rangedifferencer;
+
+import org.eclipse.compare.internal.core.LCS;
+
+/*
+ * Myers' LCS on a region of two range id sequences. The LCS is written
+ * directly into the matches array of the enclosing algorithm.
+ */
+/* package */ class RangeIdLCS extends LCS {
+
+	private final int[] left, right;
+	private final int leftStart, leftLength;
+	private final int rightStart, rightLength;
+	private final int[] matches;
+
+	RangeIdLCS(int[] left, int leftStart, int leftEnd, int[] right, int rightStart, int rightEnd, int[] matches) {
+		this.left = left;
+		this.leftStart = leftStart;
+		this.leftLength = leftEnd - leftStart;
+		this.right = right;
+		this.rightStart = rightStart;
+		this.rightLength = rightEnd - rightStart;
+		this.matches = matches;
+	}
+
+	@Override
+	protected int getLength1() {
+		return this.leftLength;
+	}
+
+	@Override
+	protected int getLength2() {
+		return this.rightLength;
+	}
+
+	@Override
+	protected boolean isRangeEqual(int i1, int i2) {
+		return this.left[this.leftStart + i1] == this.right[this.rightStart + i2];
+	}
+
+	@Override
+	protected void setLcs(int sl1, int sl2) {
+		this.matches[this.leftStart + sl1] = this.rightStart + sl2;
+	}
+
+	@Override
+	protected void initializeLcs(int lcsLength) {
+		// the matches array is owned by the caller
+	}
+}
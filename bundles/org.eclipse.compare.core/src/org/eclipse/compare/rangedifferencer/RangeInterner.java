@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.compare.rangedifferencer;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An intern table that maps comparable entities (typically the text of a line)
+ * to dense integer ids.
+ * <p>
+ * Two entities receive the same id if and only if they are equal according to
+ * {@link Object#equals(Object)}. Ids are allocated consecutively starting at
+ * <code>0</code>, so they can be used directly as array indices.
+ * </p>
+ * <p>
+ * An interner is shared by all {@link IInternedRangeComparator}s taking part in
+ * one comparison. The differencer then compares ranges by comparing their ids,
+ * which avoids calling {@link IRangeComparator#rangesEqual(int, IRangeComparator, int)}
+ * in its inner loops.
+ * </p>
+ * <p>
+ * This class is not thread safe. The comparators of one comparison are
+ * expected to be created one after the other.
+ * </p>
+ *
+ * @see IInternedRangeComparator
+ * @since 3.7
+ */
+public final class RangeInterner {
+
+	private final Map<Object, Integer> fIds = new HashMap<>();
+
+	/**
+	 * Returns the id of the given entity, allocating a new id if the entity has
+	 * not been seen before by this interner.
+	 *
+	 * @param entity the entity to intern, must not be <code>null</code>
+	 * @return the id of the entity
+	 */
+	public int intern(Object entity) {
+		Integer id = fIds.get(entity);
+		if (id == null) {
+			id = Integer.valueOf(fIds.size());
+			fIds.put(entity, id);
+		}
+		return id.intValue();
+	}
+
+	/**
+	 * Returns the number of distinct entities interned so far. All ids handed
+	 * out by this interner are smaller than this number.
+	 *
+	 * @return the number of distinct entities
+	 */
+	public int size() {
+		return fIds.size();
+	}
+
+	/**
+	 * Returns whether the two comparators have both been tokenized using the
+	 * same interner, in which case their ranges can be compared by id.
+	 */
+	static boolean isShared(IRangeComparator comparator1, IRangeComparator comparator2) {
+		if (comparator1 instanceof IInternedRangeComparator && comparator2 instanceof IInternedRangeComparator) {
+			RangeInterner interner = ((IInternedRangeComparator) comparator1).getInterner();
+			return interner != null && interner == ((IInternedRangeComparator) comparator2).getInterner();
+		}
+		return false;
+	}
+}
@@ -43,6 +43,10 @@ public final class CompareMessages extends NLS {
 	public static String ComparePreferencePage_2;
 	public static String ComparePreferencePage_3;
 	public static String ComparePreferencePage_4;
+	public static String ComparePreferencePage_5;
+	public static String ComparePreferencePage_6;
+	public static String ComparePreferencePage_7;
+	public static String ComparePreferencePage_8;
 	public static String CompareUIPlugin_0;
 	public static String CompareUIPlugin_1;
 	public static String ContentMergeViewer_resource_changed_description;
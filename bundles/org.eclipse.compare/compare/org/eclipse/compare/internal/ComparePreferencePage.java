@@ -28,9 +28,11 @@ import org.eclipse.compare.IEncodedStreamContentAccessor;
 import org.eclipse.compare.ITypedElement;
 import org.eclipse.compare.contentmergeviewer.TextMergeViewer;
 import org.eclipse.compare.internal.core.CompareSettings;
+import org.eclipse.compare.rangedifferencer.DiffAlgorithm;
 import org.eclipse.compare.structuremergeviewer.DiffNode;
 import org.eclipse.compare.structuremergeviewer.Differencer;
 import org.eclipse.jface.dialogs.Dialog;
+import org.eclipse.jface.preference.ComboFieldEditor;
 import org.eclipse.jface.preference.FieldEditor;
 import org.eclipse.jface.preference.IPreferenceStore;
 import org.eclipse.jface.preference.PreferencePage;
@@ -117,6 +119,7 @@ public class ComparePreferencePage extends PreferencePage implements IWorkbenchP
 	public static final String HIGHLIGHT_TOKEN_CHANGES= PREFIX + "HighlightTokenChanges"; //$NON-NLS-1$
 	//public static final String USE_RESOLVE_UI= PREFIX + "UseResolveUI"; //$NON-NLS-1$
 	public static final String CAPPING_DISABLED= PREFIX + "CappingDisable"; //$NON-NLS-1$
+	public static final String DIFF_ALGORITHM= PREFIX + "DiffAlgorithm"; //$NON-NLS-1$
 	public static final String PATH_FILTER= PREFIX + "PathFilter"; //$NON-NLS-1$
 	public static final String ADDED_LINES_REGEX= PREFIX + "AddedLinesRegex"; //$NON-NLS-1$
 	public static final String REMOVED_LINES_REGEX= PREFIX + "RemovedLinesRegex"; //$NON-NLS-1$
@@ -148,6 +151,7 @@ public class ComparePreferencePage extends PreferencePage implements IWorkbenchP
 		new OverlayPreferenceStore.OverlayKey(OverlayPreferenceStore.BOOLEAN, HIGHLIGHT_TOKEN_CHANGES),
 		//new OverlayPreferenceStore.OverlayKey(OverlayPreferenceStore.BOOLEAN, USE_RESOLVE_UI),
 		new OverlayPreferenceStore.OverlayKey(OverlayPreferenceStore.BOOLEAN, CAPPING_DISABLED),
+		new OverlayPreferenceStore.OverlayKey(OverlayPreferenceStore.STRING, DIFF_ALGORITHM),
 		new OverlayPreferenceStore.OverlayKey(OverlayPreferenceStore.STRING, PATH_FILTER),
 		new OverlayPreferenceStore.OverlayKey(OverlayPreferenceStore.STRING, ICompareUIConstants.PREF_NAVIGATION_END_ACTION),
 		new OverlayPreferenceStore.OverlayKey(OverlayPreferenceStore.STRING, ICompareUIConstants.PREF_NAVIGATION_END_ACTION_LOCAL),
@@ -171,6 +175,7 @@ public class ComparePreferencePage extends PreferencePage implements IWorkbenchP
 		store.setDefault(USE_SINGLE_LINE, true);
 		store.setDefault(HIGHLIGHT_TOKEN_CHANGES, true);
 		store.setDefault(CAPPING_DISABLED, false);
+		store.setDefault(DIFF_ALGORITHM, DiffAlgorithm.MYERS);
 		store.setDefault(PATH_FILTER, ""); //$NON-NLS-1$
 		store.setDefault(ICompareUIConstants.PREF_NAVIGATION_END_ACTION, ICompareUIConstants.PREF_VALUE_PROMPT);
 		store.setDefault(ICompareUIConstants.PREF_NAVIGATION_END_ACTION_LOCAL, ICompareUIConstants.PREF_VALUE_LOOP);
@@ -210,6 +215,9 @@ public class ComparePreferencePage extends PreferencePage implements IWorkbenchP
 		CompareSettings.getDefault().setCappingDisabled(
 				getPreferenceStore().getBoolean(
 						ComparePreferencePage.CAPPING_DISABLED));
+		CompareSettings.getDefault().setDiffAlgorithm(
+				getPreferenceStore().getString(
+						ComparePreferencePage.DIFF_ALGORITHM));
 		return true;
 	}
 
@@ -363,6 +371,20 @@ public class ComparePreferencePage extends PreferencePage implements IWorkbenchP
 		fDisableCappingCheckBox = addCheckBox(composite, "ComparePreferencePage.disableCapping.label", CAPPING_DISABLED, 0);	//$NON-NLS-1$
 		addCheckBox(composite, "ComparePreferencePage.swapped.label", SWAPPED, 0);	//$NON-NLS-1$
 
+		Composite algorithmGroup = new Composite(composite, SWT.NULL);
+		algorithmGroup.setLayoutData(new GridData(SWT.FILL, SWT.FILL, true, false));
+		ComboFieldEditor algorithmEditor = new ComboFieldEditor(DIFF_ALGORITHM,
+				CompareMessages.ComparePreferencePage_5,
+				new String[][] {
+					new String[] { CompareMessages.ComparePreferencePage_6, DiffAlgorithm.MYERS },
+					new String[] { CompareMessages.ComparePreferencePage_7, DiffAlgorithm.HISTOGRAM },
+					new String[] { CompareMessages.ComparePreferencePage_8, DiffAlgorithm.PATIENCE }
+				},
+		algorithmGroup);
+		algorithmEditor.setPreferenceStore(fOverlayStore);
+		algorithmEditor.fillIntoGrid(algorithmGroup, 2);
+		editors.add(algorithmEditor);
+
 		Composite radioGroup = new Composite(composite, SWT.NULL);
 		radioGroup.setLayoutData(new GridData(SWT.FILL, SWT.FILL, true, false));
 		RadioGroupFieldEditor editor = new RadioGroupFieldEditor(
@@ -289,6 +289,9 @@ public final class CompareUIPlugin extends AbstractUIPlugin {
 		CompareSettings.getDefault().setCappingDisabled(
 				getPreferenceStore().getBoolean(
 						ComparePreferencePage.CAPPING_DISABLED));
+		CompareSettings.getDefault().setDiffAlgorithm(
+				getPreferenceStore().getString(
+						ComparePreferencePage.DIFF_ALGORITHM));
 	}
 
 	@Override
@@ -15,7 +15,9 @@ package org.eclipse.compare.internal;
 
 import org.eclipse.compare.ICompareFilter;
 import org.eclipse.compare.contentmergeviewer.ITokenComparator;
+import org.eclipse.compare.rangedifferencer.IInternedRangeComparator;
 import org.eclipse.compare.rangedifferencer.IRangeComparator;
+import org.eclipse.compare.rangedifferencer.RangeInterner;
 import org.eclipse.core.internal.expressions.util.LRUCache;
 import org.eclipse.jface.text.BadLocationException;
 import org.eclipse.jface.text.IDocument;
@@ -28,8 +30,12 @@ import org.eclipse.jface.text.IRegion;
  * <p>
  * A <code>DocLineComparator</code> doesn't know anything about line separators because
  * its notion of lines is solely defined in the underlying <code>IDocument</code>.
+ * <p>
+ * If a <code>RangeInterner</code> is passed in and no compare filters are active, the
+ * lines are extracted from the document once and turned into ids, so that comparing
+ * two lines does not have to access the document anymore.
  */
-public class DocLineComparator implements ITokenComparator {
+public class DocLineComparator implements ITokenComparator, IInternedRangeComparator {
 
 	private IDocument fDocument;
 	private int fLineOffset;
@@ -39,6 +45,8 @@ public class DocLineComparator implements ITokenComparator {
 	private ICompareFilter[] fCompareFilters;
 	private char fContributor;
 	private LRUCache fCompareFilterCache;
+	private RangeInterner fInterner;
+	private int[] fRangeIds;
 
 	/**
 	 * Creates a <code>DocLineComparator</code> for the given document range.
@@ -76,6 +84,34 @@ public class DocLineComparator implements ITokenComparator {
 	public DocLineComparator(IDocument document, IRegion region,
 			boolean ignoreWhiteSpace, ICompareFilter[] compareFilters,
 			char contributor) {
+		this(document, region, ignoreWhiteSpace, compareFilters, contributor, null);
+	}
+
+	/**
+	 * Creates a <code>DocLineComparator</code> for the given document range
+	 * whose lines are interned using the given interner. All comparators that
+	 * take part in one comparison should share the same interner and use the
+	 * same whitespace setting. Interning is skipped if compare filters are
+	 * active since filtered lines depend on the line they are compared with.
+	 *
+	 * @param document
+	 *            the document from which the lines are taken
+	 * @param region
+	 *            if non-<code>null</code> only lines within this range are
+	 *            taken
+	 * @param ignoreWhiteSpace
+	 *            if <code>true</code> white space is ignored when comparing
+	 *            lines
+	 * @param compareFilters
+	 *            the active compare filters for the compare
+	 * @param contributor
+	 *            contributor of document
+	 * @param interner
+	 *            the interner used to compute line ids or <code>null</code>
+	 */
+	public DocLineComparator(IDocument document, IRegion region,
+			boolean ignoreWhiteSpace, ICompareFilter[] compareFilters,
+			char contributor, RangeInterner interner) {
 		fDocument = document;
 		fIgnoreWhiteSpace = ignoreWhiteSpace;
 		fCompareFilters = compareFilters;
@@ -119,6 +155,14 @@ public class DocLineComparator implements ITokenComparator {
 			fLength = document.getLength();
 			fLineCount = fDocument.getNumberOfLines();
 		}
+
+		if (interner != null && (compareFilters == null || compareFilters.length == 0)) {
+			fRangeIds = new int[fLineCount];
+			for (int line = 0; line < fLineCount; line++) {
+				fRangeIds[line] = interner.intern(getInternKey(line));
+			}
+			fInterner = interner;
+		}
 	}
 
 	/**
@@ -168,6 +212,9 @@ public class DocLineComparator implements ITokenComparator {
 		if (otherComparator != null && otherComparator.getClass() == getClass()) {
 			DocLineComparator other= (DocLineComparator) otherComparator;
 
+			if (fInterner != null && fInterner == other.fInterner)
+				return fRangeIds[thisIndex] == other.fRangeIds[otherIndex];
+
 			if (fIgnoreWhiteSpace) {
 				String[] linesToCompare = extract(thisIndex, otherIndex, other, false);
 				return compare(linesToCompare[0], linesToCompare[1]);
@@ -201,8 +248,39 @@ public class DocLineComparator implements ITokenComparator {
 		return false;
 	}
 
+	@Override
+	public RangeInterner getInterner() {
+		return fInterner;
+	}
+
+	@Override
+	public int[] getRangeIds() {
+		return fRangeIds;
+	}
+
 	//---- private methods
 
+	/*
+	 * Returns the key under which the given line is interned. Two keys are equal
+	 * if and only if rangesEqual would consider the lines equal: when ignoring
+	 * whitespace it is removed, otherwise the line is prefixed with
+	 * the length of its separator since lines of different length never match.
+	 */
+	private String getInternKey(int line) {
+		String text = extract(line, false);
+		if (fIgnoreWhiteSpace) {
+			StringBuilder sb = new StringBuilder(text.length());
+			for (int i = 0; i < text.length(); i++) {
+				char c = text.charAt(i);
+				if (!Character.isWhitespace(c))
+					sb.append(c);
+			}
+			return sb.toString();
+		}
+		char separatorLength = (char) (getTokenLength(line) - text.length());
+		return String.valueOf(separatorLength).concat(text);
+	}
+
 	private String[] extract(int thisIndex, int otherIndex,
 			DocLineComparator other, boolean includeSeparator) {
 
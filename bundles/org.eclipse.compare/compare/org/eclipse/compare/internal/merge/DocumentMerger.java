@@ -31,9 +31,11 @@ import org.eclipse.compare.internal.DocLineComparator;
 import org.eclipse.compare.internal.MergeViewerContentProvider;
 import org.eclipse.compare.internal.Utilities;
 import org.eclipse.compare.internal.core.LCS;
+import org.eclipse.compare.rangedifferencer.DiffAlgorithm;
 import org.eclipse.compare.rangedifferencer.IRangeComparator;
 import org.eclipse.compare.rangedifferencer.RangeDifference;
 import org.eclipse.compare.rangedifferencer.RangeDifferencer;
+import org.eclipse.compare.rangedifferencer.RangeInterner;
 import org.eclipse.compare.structuremergeviewer.Differencer;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IStatus;
@@ -376,17 +378,18 @@ public class DocumentMerger {
 		boolean ignoreWhiteSpace= isIgnoreWhitespace();
 		ICompareFilter[] compareFilters = getCompareFilters();
 
+		RangeInterner interner = new RangeInterner();
 		DocLineComparator sright = new DocLineComparator(rDoc,
 				toRegion(rRegion), ignoreWhiteSpace, compareFilters,
-				MergeViewerContentProvider.RIGHT_CONTRIBUTOR);
+				MergeViewerContentProvider.RIGHT_CONTRIBUTOR, interner);
 		DocLineComparator sleft = new DocLineComparator(lDoc,
 				toRegion(lRegion), ignoreWhiteSpace, compareFilters,
-				MergeViewerContentProvider.LEFT_CONTRIBUTOR);
+				MergeViewerContentProvider.LEFT_CONTRIBUTOR, interner);
 		DocLineComparator sancestor = null;
 		if (aDoc != null) {
 			sancestor = new DocLineComparator(aDoc, toRegion(aRegion),
 					ignoreWhiteSpace, compareFilters,
-					MergeViewerContentProvider.ANCESTOR_CONTRIBUTOR);
+					MergeViewerContentProvider.ANCESTOR_CONTRIBUTOR, interner);
 			/*if (isPatchHunk()) {
 				if (isHunkOnLeft()) {
 					sright= new DocLineComparator(aDoc, toRegion(aRegion), ignoreWhiteSpace);
@@ -398,10 +401,11 @@ public class DocumentMerger {
 
 		final Object[] result= new Object[1];
 		final DocLineComparator sa= sancestor, sl= sleft, sr= sright;
+		final DiffAlgorithm algorithm= getDiffAlgorithm();
 		IRunnableWithProgress runnable= monitor -> {
 			monitor.beginTask(CompareMessages.DocumentMerger_0, maxWork(sa, sl, sr));
 			try {
-				result[0]= RangeDifferencer.findRanges(monitor, sa, sl, sr);
+				result[0]= RangeDifferencer.findRanges(algorithm, monitor, sa, sl, sr);
 			} catch (OutOfMemoryError ex) {
 				System.gc();
 				throw new InvocationTargetException(ex);
@@ -521,6 +525,9 @@ public class DocumentMerger {
 			DocLineComparator left, DocLineComparator right) {
 		if (isCappingDisabled())
 			return false;
+		// Only Myers' algorithm is capped, the others need interned lines
+		if (!DiffAlgorithm.MYERS.equals(getDiffAlgorithm().getId()) && left.getInterner() != null)
+			return false;
 		int aLength = ancestor == null? 0 : ancestor.getRangeCount();
 		int lLength = left.getRangeCount();
 		int rLength = right.getRangeCount();
@@ -551,18 +558,20 @@ public class DocumentMerger {
 		boolean ignoreWhiteSpace= isIgnoreWhitespace();
 		ICompareFilter[] compareFilters = getCompareFilters();
 
-		DocLineComparator sright= new DocLineComparator(rDoc, toRegion(rRegion), ignoreWhiteSpace, compareFilters, MergeViewerContentProvider.RIGHT_CONTRIBUTOR);
-		DocLineComparator sleft= new DocLineComparator(lDoc, toRegion(lRegion), ignoreWhiteSpace, compareFilters, MergeViewerContentProvider.LEFT_CONTRIBUTOR);
+		RangeInterner interner= new RangeInterner();
+		DocLineComparator sright= new DocLineComparator(rDoc, toRegion(rRegion), ignoreWhiteSpace, compareFilters, MergeViewerContentProvider.RIGHT_CONTRIBUTOR, interner);
+		DocLineComparator sleft= new DocLineComparator(lDoc, toRegion(lRegion), ignoreWhiteSpace, compareFilters, MergeViewerContentProvider.LEFT_CONTRIBUTOR, interner);
 		DocLineComparator sancestor= null;
 		if (aDoc != null)
-			sancestor= new DocLineComparator(aDoc, toRegion(aRegion), ignoreWhiteSpace, compareFilters, MergeViewerContentProvider.ANCESTOR_CONTRIBUTOR);
+			sancestor= new DocLineComparator(aDoc, toRegion(aRegion), ignoreWhiteSpace, compareFilters, MergeViewerContentProvider.ANCESTOR_CONTRIBUTOR, interner);
 
 		final Object[] result= new Object[1];
 		final DocLineComparator sa= sancestor, sl= sleft, sr= sright;
+		final DiffAlgorithm algorithm= getDiffAlgorithm();
 		IRunnableWithProgress runnable= monitor -> {
 			monitor.beginTask(CompareMessages.DocumentMerger_2, maxWork(sa, sl, sr));
 			try {
-				result[0]= RangeDifferencer.findRanges(monitor, sa, sl, sr);
+				result[0]= RangeDifferencer.findRanges(algorithm, monitor, sa, sl, sr);
 			} catch (OutOfMemoryError ex) {
 				System.gc();
 				throw new InvocationTargetException(ex);
@@ -641,6 +650,17 @@ public class DocumentMerger {
 		return CompareUIPlugin.getDefault().getPreferenceStore().getBoolean(ComparePreferencePage.CAPPING_DISABLED);
 	}
 
+	/*
+	 * The algorithm can be chosen per compare by setting the DIFF_ALGORITHM
+	 * property on the compare configuration, otherwise the preference is used.
+	 */
+	private DiffAlgorithm getDiffAlgorithm() {
+		Object id= getCompareConfiguration().getProperty(ComparePreferencePage.DIFF_ALGORITHM);
+		if (id instanceof String)
+			return DiffAlgorithm.forId((String) id);
+		return DiffAlgorithm.forId(CompareUIPlugin.getDefault().getPreferenceStore().getString(ComparePreferencePage.DIFF_ALGORITHM));
+	}
+
 	private IDocument getDocument(char contributor) {
 		return fInput.getDocument(contributor);
 	}
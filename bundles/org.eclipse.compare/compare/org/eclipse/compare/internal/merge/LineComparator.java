@@ -19,16 +19,24 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
 
+import org.eclipse.compare.rangedifferencer.IInternedRangeComparator;
 import org.eclipse.compare.rangedifferencer.IRangeComparator;
+import org.eclipse.compare.rangedifferencer.RangeInterner;
 
 /**
  * This implementation of IRangeComparator breaks an input stream into lines.
  */
-class LineComparator implements IRangeComparator {
+class LineComparator implements IInternedRangeComparator {
 
 	private String[] fLines;
+	private RangeInterner fInterner;
+	private int[] fLineIds;
 
 	public LineComparator(InputStream is, String encoding) throws IOException {
+		this(is, encoding, null);
+	}
+
+	public LineComparator(InputStream is, String encoding, RangeInterner interner) throws IOException {
 
 		BufferedReader br = new BufferedReader(new InputStreamReader(is, encoding));
 		String line;
@@ -38,6 +46,13 @@ class LineComparator implements IRangeComparator {
 		}
 		// It is the responsibility of the caller to close the stream
 		fLines = ar.toArray(new String[ar.size()]);
+		if (interner != null) {
+			fLineIds = new int[fLines.length];
+			for (int i = 0; i < fLines.length; i++) {
+				fLineIds[i] = interner.intern(fLines[i]);
+			}
+			fInterner = interner;
+		}
 	}
 
 	String getLine(int ix) {
@@ -52,8 +67,11 @@ class LineComparator implements IRangeComparator {
 	@Override
 	public boolean rangesEqual(int thisIndex, IRangeComparator other,
 			int otherIndex) {
+		LineComparator otherComparator = (LineComparator) other;
+		if (fInterner != null && fInterner == otherComparator.fInterner)
+			return fLineIds[thisIndex] == otherComparator.fLineIds[otherIndex];
 		String s1 = fLines[thisIndex];
-		String s2 = ((LineComparator) other).fLines[otherIndex];
+		String s2 = otherComparator.fLines[otherIndex];
 		return s1.equals(s2);
 	}
 
@@ -61,4 +79,14 @@ class LineComparator implements IRangeComparator {
 	public boolean skipRangeComparison(int length, int maxLength, IRangeComparator other) {
 		return false;
 	}
+
+	@Override
+	public RangeInterner getInterner() {
+		return fInterner;
+	}
+
+	@Override
+	public int[] getRangeIds() {
+		return fLineIds;
+	}
 }
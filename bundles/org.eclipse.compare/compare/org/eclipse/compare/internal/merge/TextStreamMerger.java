@@ -22,6 +22,7 @@ import org.eclipse.compare.CompareUI;
 import org.eclipse.compare.IStreamMerger;
 import org.eclipse.compare.rangedifferencer.RangeDifference;
 import org.eclipse.compare.rangedifferencer.RangeDifferencer;
+import org.eclipse.compare.rangedifferencer.RangeInterner;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
@@ -37,9 +38,10 @@ public class TextStreamMerger implements IStreamMerger {
 		LineComparator a, t, o;
 
 		try {
-			a= new LineComparator(ancestor, ancestorEncoding);
-			t= new LineComparator(target, targetEncoding);
-			o= new LineComparator(other, otherEncoding);
+			RangeInterner interner= new RangeInterner();
+			a= new LineComparator(ancestor, ancestorEncoding, interner);
+			t= new LineComparator(target, targetEncoding, interner);
+			o= new LineComparator(other, otherEncoding, interner);
 		} catch (UnsupportedEncodingException e) {
 			return new Status(IStatus.ERROR, CompareUI.PLUGIN_ID, 1, MergeMessages.TextAutoMerge_inputEncodingError, e);
 		} catch (IOException e) {
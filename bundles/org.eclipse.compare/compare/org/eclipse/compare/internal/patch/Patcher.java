@@ -19,15 +19,26 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.StringReader;
 import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
 
 import org.eclipse.compare.internal.core.Messages;
 import org.eclipse.compare.internal.core.patch.DiffProject;
@@ -46,13 +57,16 @@ import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.IStorage;
+import org.eclipse.core.resources.IWorkspace;
 import org.eclipse.core.resources.IWorkspaceRoot;
+import org.eclipse.core.resources.IWorkspaceRunnable;
 import org.eclipse.core.resources.ProjectScope;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.Path;
 import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.SubMonitor;
@@ -72,6 +86,17 @@ public class Patcher implements IHunkFilter {
 
 	static protected final String MARKER_TYPE= "org.eclipse.compare.rejectedPatchMarker"; //$NON-NLS-1$
 
+	// the milliseconds after which the calling thread checks for cancelation while tasks run
+	private static final long CANCEL_POLL_INTERVAL= 100;
+
+	// the threads that read and match the target files, they end when they are idle for a minute
+	private static final int WORKER_COUNT= Math.min(4, Runtime.getRuntime().availableProcessors());
+	private static final ThreadPoolExecutor WORKERS= new ThreadPoolExecutor(WORKER_COUNT, WORKER_COUNT,
+			60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), WorkerThread::new);
+	static {
+		WORKERS.allowCoreThreadTimeOut(true);
+	}
+
 	/**
 	 * Property used to associate a patcher with a {@link PatchConfiguration}
 	 */
@@ -263,73 +288,239 @@ public class Patcher implements IHunkFilter {
 			return;
 		}
 
-		final int WORK_UNIT= 10;
-		if (pm != null) {
-			String message= Messages.Patcher_0;
-			pm.beginTask(message, fDiffs.length*WORK_UNIT);
-		}
-
-		for (i= 0; i < fDiffs.length; i++) {
+		final IContainer target= container;
+		final IFile targetFile= singleFile;
+		// read and match in parallel, but modify the workspace in one operation
+		IWorkspaceRunnable runnable= monitor -> applyAll(target, targetFile, monitor);
+		ResourcesPlugin.getWorkspace().run(runnable, null, IWorkspace.AVOID_UPDATE, pm);
+	}
 
-			int workTicks= WORK_UNIT;
+	private void applyAll(IContainer container, IFile singleFile, IProgressMonitor pm) throws CoreException {
+		final int WORK_UNIT= 10;
+		String message= Messages.Patcher_0;
+		pm.beginTask(message, fDiffs.length*(WORK_UNIT + 1));
 
-			FilePatch2 diff= fDiffs[i];
+		List<PatchedFile> files= new ArrayList<>();
+		for (FilePatch2 diff : fDiffs) {
 			if (isEnabled(diff)) {
-
 				IPath path= getPath(diff);
-				if (pm != null)
-					pm.subTask(path.toString());
-
 				IFile file= singleFile != null
 								? singleFile
 								: createPath(container, path);
+				files.add(new PatchedFile(diff, diff.getDiffType(isReversed()), file, path));
+			}
+		}
+		apply(files, pm);
+
+		for (PatchedFile patched : files) {
+			if (pm.isCanceled())
+				break;
+			pm.subTask(patched.path.toString());
+
+			IFile file= patched.file;
+			switch (patched.type) {
+			case FilePatch2.ADDITION:
+			case FilePatch2.CHANGE:
+				if (patched.lines != null)
+					store(LineReader.createString(isPreserveLineDelimeters(), patched.lines), file, SubMonitor.convert(pm, WORK_UNIT));
+				break;
+			case FilePatch2.DELETION:
+				file.delete(true, true, SubMonitor.convert(pm, WORK_UNIT));
+				break;
+			}
 
-				List<Hunk> failed= new ArrayList<>();
-
-				int type= diff.getDiffType(isReversed());
-				switch (type) {
-				case FilePatch2.ADDITION:
-					// patch it and collect rejected hunks
-					List<String> result= apply(diff, file, true, failed);
-					if (result != null)
-						store(LineReader.createString(isPreserveLineDelimeters(), result), file, SubMonitor.convert(pm, workTicks));
-					workTicks-= WORK_UNIT;
-					break;
-				case FilePatch2.DELETION:
-					file.delete(true, true, SubMonitor.convert(pm, workTicks));
-					workTicks-= WORK_UNIT;
-					break;
-				case FilePatch2.CHANGE:
-					// patch it and collect rejected hunks
-					result= apply(diff, file, false, failed);
-					if (result != null)
-						store(LineReader.createString(isPreserveLineDelimeters(), result), file, SubMonitor.convert(pm, workTicks));
-					workTicks-= WORK_UNIT;
-					break;
-				}
-
-				if (isGenerateRejectFile() && failed.size() > 0) {
-					IPath pp = getRejectFilePath(path);
-					file= createPath(container, pp);
-					if (file != null) {
-						store(getRejected(failed), file, pm);
-						try {
-							IMarker marker= file.createMarker(MARKER_TYPE);
-							marker.setAttribute(IMarker.MESSAGE, Messages.Patcher_1);
-							marker.setAttribute(IMarker.PRIORITY, IMarker.PRIORITY_HIGH);
-						} catch (CoreException ex) {
-							// NeedWork
-						}
+			if (isGenerateRejectFile() && patched.failed.size() > 0) {
+				IPath pp = getRejectFilePath(patched.path);
+				file= createPath(container, pp);
+				if (file != null) {
+					store(getRejected(patched.failed), file, pm);
+					try {
+						IMarker marker= file.createMarker(MARKER_TYPE);
+						marker.setAttribute(IMarker.MESSAGE, Messages.Patcher_1);
+						marker.setAttribute(IMarker.PRIORITY, IMarker.PRIORITY_HIGH);
+					} catch (CoreException ex) {
+						// NeedWork
 					}
 				}
 			}
+		}
+	}
+
+	/*
+	 * A diff to be applied to its target file.
+	 */
+	static class PatchedFile {
+		final FilePatch2 diff;
+		final int type;
+		final IFile file;
+		final IPath path;
+		final List<Hunk> failed= new ArrayList<>();
+		// the patched lines or null if the file is not changed
+		List<String> lines;
+
+		PatchedFile(FilePatch2 diff, int type, IFile file, IPath path) {
+			this.diff= diff;
+			this.type= type;
+			this.file= file;
+			this.path= path;
+		}
+	}
+
+	/*
+	 * Reads the target files and matches the hunks of the given diffs without
+	 * modifying the workspace. The target files are read in parallel. The diffs
+	 * of one target file are matched one after the other, each against the
+	 * contents that the diffs before it leave, as if they were applied in turn.
+	 */
+	void apply(List<PatchedFile> files, IProgressMonitor pm) {
+		// create the results up front, the map is not thread safe
+		for (PatchedFile patched : files)
+			getDiffResult(patched.diff);
+		Map<IFile, List<PatchedFile>> groups= new LinkedHashMap<>();
+		for (PatchedFile patched : files)
+			groups.computeIfAbsent(patched.file, file -> new ArrayList<>()).add(patched);
+		CancelMonitor cancelMonitor= new CancelMonitor();
+		List<Callable<Integer>> tasks= new ArrayList<>();
+		for (List<PatchedFile> group : groups.values()) {
+			tasks.add(() -> {
+				applyInTurn(group, cancelMonitor);
+				return group.size();
+			});
+		}
+		runConcurrently(tasks, Integer::intValue, pm, cancelMonitor);
+	}
+
+	private void applyInTurn(List<PatchedFile> group, IProgressMonitor monitor) {
+		IFile file= group.get(0).file;
+		boolean exists= file.exists();
+		// the contents that the previous diffs leave or null if they left the file as it is
+		String contents= null;
+		for (PatchedFile patched : group) {
+			if (monitor.isCanceled())
+				return;
+			if (patched.type == FilePatch2.DELETION) {
+				exists= false;
+				contents= null;
+				continue;
+			}
+			List<String> lines;
+			if (patched.type == FilePatch2.ADDITION || !exists)
+				lines= new ArrayList<>();
+			else if (contents != null)
+				lines= LineReader.readLines(new BufferedReader(new StringReader(contents)));
+			else
+				lines= LineReader.load(file, false);
+			patched.lines= apply(patched.diff, lines, patched.failed);
+			if (patched.lines != null) {
+				contents= LineReader.createString(isPreserveLineDelimeters(), patched.lines);
+				if (!exists)
+					contents= getNewFileContents(contents, file);
+				exists= true;
+			}
+		}
+	}
+
+	/*
+	 * A monitor that is only used to pass the cancelation of the monitor of
+	 * the calling thread on to worker threads.
+	 */
+	static class CancelMonitor extends NullProgressMonitor {
+		private volatile boolean canceled;
+
+		@Override
+		public boolean isCanceled() {
+			return canceled;
+		}
 
-			if (pm != null) {
+		@Override
+		public void setCanceled(boolean value) {
+			canceled= value;
+		}
+	}
+
+	/*
+	 * A thread of the pool that runs the tasks of the patcher.
+	 */
+	private static class WorkerThread extends Thread {
+		WorkerThread(Runnable runnable) {
+			super(runnable, "Patcher worker"); //$NON-NLS-1$
+			setDaemon(true);
+		}
+	}
+
+	/*
+	 * Runs the given tasks on the worker pool and returns their results in
+	 * the same order. Progress monitors are not thread safe, so only the
+	 * calling thread uses the given monitor: it reports the work of each task
+	 * when the task completes and passes the cancelation of the monitor on to
+	 * the tasks through the cancel monitor.
+	 */
+	static <T> List<T> runConcurrently(List<Callable<T>> tasks, ToIntFunction<T> work, IProgressMonitor pm, CancelMonitor cancelMonitor) {
+		List<T> results= new ArrayList<>(tasks.size());
+		if (tasks.size() <= 1 || Thread.currentThread() instanceof WorkerThread) {
+			// nothing to run in parallel or the pool may have no thread left for the tasks
+			for (Callable<T> task : tasks) {
 				if (pm.isCanceled())
-					break;
-				if (workTicks > 0)
-					pm.worked(workTicks);
+					cancelMonitor.setCanceled(true);
+				T result= call(task);
+				pm.worked(work.applyAsInt(result));
+				results.add(result);
+			}
+			return results;
+		}
+		CompletionService<T> service= new ExecutorCompletionService<>(WORKERS);
+		Map<Future<T>, Integer> indices= new HashMap<>();
+		for (Callable<T> task : tasks) {
+			indices.put(service.submit(task), results.size());
+			results.add(null);
+		}
+		Throwable failure= null;
+		boolean interrupted= false;
+		for (int done= 0; done < tasks.size();) {
+			Future<T> future= null;
+			try {
+				future= service.poll(CANCEL_POLL_INTERVAL, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				// cancel, but wait for the tasks that are running
+				interrupted= true;
+				pm.setCanceled(true);
 			}
+			if (pm.isCanceled())
+				cancelMonitor.setCanceled(true);
+			if (future == null)
+				continue;
+			done++;
+			try {
+				T result= future.get();
+				results.set(indices.get(future), result);
+				pm.worked(work.applyAsInt(result));
+			} catch (ExecutionException e) {
+				if (failure == null)
+					failure= e.getCause();
+				cancelMonitor.setCanceled(true);
+			} catch (InterruptedException e) {
+				// the task is done, so get does not wait
+				interrupted= true;
+			}
+		}
+		if (interrupted)
+			Thread.currentThread().interrupt();
+		if (failure instanceof RuntimeException)
+			throw (RuntimeException) failure;
+		if (failure instanceof Error)
+			throw (Error) failure;
+		if (failure != null)
+			throw new RuntimeException(failure);
+		return results;
+	}
+
+	private static <T> T call(Callable<T> task) {
+		try {
+			return task.call();
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new RuntimeException(e);
 		}
 	}
 
@@ -344,8 +535,11 @@ public class Patcher implements IHunkFilter {
 	}
 
 	List<String> apply(FilePatch2 diff, IFile file, boolean create, List<Hunk> failedHunks) {
+		return apply(diff, LineReader.load(file, create), failedHunks);
+	}
+
+	private List<String> apply(FilePatch2 diff, List<String> lines, List<Hunk> failedHunks) {
 		FileDiffResult result = getDiffResult(diff);
-		List<String> lines = LineReader.load(file, create);
 		result.patch(lines, null);
 		failedHunks.addAll(result.getFailedHunks());
 		if (hasCachedContents(diff)) {
@@ -363,17 +557,8 @@ public class Patcher implements IHunkFilter {
 	 */
 	protected void store(String contents, IFile file, IProgressMonitor pm) throws CoreException {
 
-		if (!file.exists()) {
-			if (FileBuffers.getTextFileBufferManager().isTextFileLocation(file.getFullPath(), true)) {
-				// For new text files use the line delimiter as defined in the workspace
-				String expectedLD= getLineDelimiterPreference(file);
-				if (expectedLD != null) {
-					String patchLD= TextUtilities.determineLineDelimiter(contents, expectedLD);
-					if (!expectedLD.equals(patchLD))
-						contents= contents.replaceAll(patchLD, expectedLD);
-				}
-			}
-		}
+		if (!file.exists())
+			contents= getNewFileContents(contents, file);
 
 		byte[] bytes;
 		try {
@@ -386,6 +571,23 @@ public class Patcher implements IHunkFilter {
 		store(bytes,file, pm);
 	}
 
+	/*
+	 * Returns the contents that are stored for the given contents in a new
+	 * file.
+	 */
+	private static String getNewFileContents(String contents, IFile file) {
+		if (FileBuffers.getTextFileBufferManager().isTextFileLocation(file.getFullPath(), true)) {
+			// For new text files use the line delimiter as defined in the workspace
+			String expectedLD= getLineDelimiterPreference(file);
+			if (expectedLD != null) {
+				String patchLD= TextUtilities.determineLineDelimiter(contents, expectedLD);
+				if (!expectedLD.equals(patchLD))
+					contents= contents.replaceAll(patchLD, expectedLD);
+			}
+		}
+		return contents;
+	}
+
 	private static String getLineDelimiterPreference(IFile file) {
 		IScopeContext[] scopeContext;
 		if (file != null && file.getProject() != null) {
@@ -616,16 +818,26 @@ public class Patcher implements IHunkFilter {
 			FilePatch2[] diffs= getDiffs();
 			if (diffs==null||diffs.length<=0)
 				return -1;
-			int fuzz= -1;
+			// create the results up front, the map is not thread safe
+			for (FilePatch2 d : diffs)
+				getDiffResult(d);
+			CancelMonitor cancelMonitor= new CancelMonitor();
+			List<Callable<Integer>> tasks= new ArrayList<>();
 			for (FilePatch2 d : diffs) {
-				IFile file= getTargetFile(d);
-				if (file != null && file.exists()) {
-					List<String> lines= LineReader.load(file, false);
-					FileDiffResult result = getDiffResult(d);
-					int f = result.calculateFuzz(lines, monitor);
-					if (f > fuzz)
-						fuzz = f;
-				}
+				tasks.add(() -> {
+					IFile file= getTargetFile(d);
+					if (file != null && file.exists()) {
+						List<String> lines= LineReader.load(file, false);
+						FileDiffResult result = getDiffResult(d);
+						return result.calculateFuzz(lines, cancelMonitor);
+					}
+					return -1;
+				});
+			}
+			int fuzz= -1;
+			for (int f : runConcurrently(tasks, f -> 0, monitor, cancelMonitor)) {
+				if (f > fuzz)
+					fuzz = f;
 			}
 			return fuzz;
 		} finally {
@@ -639,10 +851,29 @@ public class Patcher implements IHunkFilter {
 	}
 
 	public void refresh(FilePatch2[] diffs) {
+		refresh(diffs, new NullProgressMonitor());
+	}
+
+	/**
+	 * Refresh the results of the given diffs. Each diff has its own target
+	 * file, so the diffs are matched in parallel.
+	 * @param diffs the diffs
+	 * @param monitor a progress monitor
+	 */
+	public void refresh(FilePatch2[] diffs, IProgressMonitor monitor) {
+		// create the results up front, the map is not thread safe
+		for (FilePatch2 diff : diffs)
+			getDiffResult(diff);
+		CancelMonitor cancelMonitor= new CancelMonitor();
+		List<Callable<Integer>> tasks= new ArrayList<>();
 		for (FilePatch2 diff : diffs) {
-			FileDiffResult result = getDiffResult(diff);
-			((WorkspaceFileDiffResult)result).refresh();
+			tasks.add(() -> {
+				if (!cancelMonitor.isCanceled())
+					((WorkspaceFileDiffResult) getDiffResult(diff)).refresh(cancelMonitor);
+				return 1;
+			});
 		}
+		runConcurrently(tasks, Integer::intValue, monitor, cancelMonitor);
 	}
 
 	public FileDiffResult getDiffResult(FilePatch2 diff) {
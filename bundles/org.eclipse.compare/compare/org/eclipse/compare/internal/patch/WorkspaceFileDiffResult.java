@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2017 IBM Corporation and others.
+ * Copyright (c) 2007, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -23,6 +23,7 @@ import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IStorage;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
 
 public class WorkspaceFileDiffResult extends FileDiffResult {
 
@@ -56,7 +57,11 @@ public class WorkspaceFileDiffResult extends FileDiffResult {
 	}
 
 	public void refresh() {
-		refresh(Utilities.getReaderCreator(getTargetFile()), null);
+		refresh(null);
+	}
+
+	public void refresh(IProgressMonitor monitor) {
+		refresh(Utilities.getReaderCreator(getTargetFile()), monitor);
 	}
 
 	@Override
@@ -31,6 +31,8 @@ import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IProjectDescription;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.IResourceRuleFactory;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.IWorkspaceRunnable;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
@@ -91,8 +93,6 @@ public class WorkspacePatcher extends Patcher {
 		if (!fIsWorkspacePatch) {
 			super.applyAll(pm, validator);
 		} else {
-			final int WORK_UNIT= 10;
-
 			// get all files to be modified in order to call validateEdit
 			List<IFile> list= new ArrayList<>();
 			for (DiffProject diffProject : fDiffProjects) {
@@ -104,71 +104,64 @@ public class WorkspacePatcher extends Patcher {
 				return;
 			}
 
-			FilePatch2[] diffs = getDiffs();
-			if (pm != null) {
-				String message= Messages.WorkspacePatcher_0;
-				pm.beginTask(message, diffs.length * WORK_UNIT);
-			}
+			// read and match in parallel, but modify the workspace in one operation
+			IWorkspaceRunnable runnable= this::applyWorkspacePatch;
+			ResourcesPlugin.getWorkspace().run(runnable, null, IWorkspace.AVOID_UPDATE, pm);
+		}
+	}
 
-			for (FilePatch2 diff : diffs) {
-				int workTicks= WORK_UNIT;
-				if (isAccessible(diff)) {
-					IFile file= getTargetFile(diff);
-					IPath path= file.getProjectRelativePath();
-					if (pm != null)
-						pm.subTask(path.toString());
-					createPath(file.getProject(), path);
-
-					List<Hunk> failed= new ArrayList<>();
-
-					int type= diff.getDiffType(isReversed());
-					switch (type) {
-						case FilePatch2.ADDITION :
-							// patch it and collect rejected hunks
-							List<String> result= apply(diff, file, true, failed);
-							if (result != null)
-								store(LineReader.createString(isPreserveLineDelimeters(), result), file, SubMonitor.convert(pm, workTicks));
-							workTicks -= WORK_UNIT;
-							break;
-						case FilePatch2.DELETION :
-							file.delete(true, true, SubMonitor.convert(pm, workTicks));
-							workTicks -= WORK_UNIT;
-							break;
-						case FilePatch2.CHANGE :
-							// patch it and collect rejected hunks
-							result= apply(diff, file, false, failed);
-							if (result != null)
-								store(LineReader.createString(isPreserveLineDelimeters(), result), file, SubMonitor.convert(pm, workTicks));
-							workTicks -= WORK_UNIT;
-							break;
-					}
+	private void applyWorkspacePatch(IProgressMonitor pm) throws CoreException {
+		final int WORK_UNIT= 10;
+		FilePatch2[] diffs = getDiffs();
+		String message= Messages.WorkspacePatcher_0;
+		pm.beginTask(message, diffs.length * (WORK_UNIT + 1));
 
-					if (isGenerateRejectFile() && failed.size() > 0) {
-						IPath pp= null;
-						if (path.segmentCount() > 1) {
-							pp= path.removeLastSegments(1);
-							pp= pp.append(path.lastSegment() + REJECT_FILE_EXTENSION);
-						} else
-							pp= new Path(path.lastSegment() + REJECT_FILE_EXTENSION);
-						file= createPath(file.getProject(), pp);
-						if (file != null) {
-							store(getRejected(failed), file, pm);
-							try {
-								IMarker marker= file.createMarker(MARKER_TYPE);
-								marker.setAttribute(IMarker.MESSAGE, Messages.WorkspacePatcher_1);
-								marker.setAttribute(IMarker.PRIORITY, IMarker.PRIORITY_HIGH);
-							} catch (CoreException ex) {
-								// NeedWork
-							}
-						}
-					}
-				}
+		List<PatchedFile> files= new ArrayList<>();
+		for (FilePatch2 diff : diffs) {
+			if (isAccessible(diff)) {
+				IFile file= getTargetFile(diff);
+				IPath path= file.getProjectRelativePath();
+				createPath(file.getProject(), path);
+				files.add(new PatchedFile(diff, diff.getDiffType(isReversed()), file, path));
+			}
+		}
+		apply(files, pm);
+
+		for (PatchedFile patched : files) {
+			if (pm.isCanceled())
+				break;
+			pm.subTask(patched.path.toString());
+
+			IFile file= patched.file;
+			switch (patched.type) {
+				case FilePatch2.ADDITION :
+				case FilePatch2.CHANGE :
+					if (patched.lines != null)
+						store(LineReader.createString(isPreserveLineDelimeters(), patched.lines), file, SubMonitor.convert(pm, WORK_UNIT));
+					break;
+				case FilePatch2.DELETION :
+					file.delete(true, true, SubMonitor.convert(pm, WORK_UNIT));
+					break;
+			}
 
-				if (pm != null) {
-					if (pm.isCanceled())
-						break;
-					if (workTicks > 0)
-						pm.worked(workTicks);
+			if (isGenerateRejectFile() && patched.failed.size() > 0) {
+				IPath path= patched.path;
+				IPath pp= null;
+				if (path.segmentCount() > 1) {
+					pp= path.removeLastSegments(1);
+					pp= pp.append(path.lastSegment() + REJECT_FILE_EXTENSION);
+				} else
+					pp= new Path(path.lastSegment() + REJECT_FILE_EXTENSION);
+				file= createPath(file.getProject(), pp);
+				if (file != null) {
+					store(getRejected(patched.failed), file, pm);
+					try {
+						IMarker marker= file.createMarker(MARKER_TYPE);
+						marker.setAttribute(IMarker.MESSAGE, Messages.WorkspacePatcher_1);
+						marker.setAttribute(IMarker.PRIORITY, IMarker.PRIORITY_HIGH);
+					} catch (CoreException ex) {
+						// NeedWork
+					}
 				}
 			}
 		}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2017 IBM Corporation and others.
+ * Copyright (c) 2006, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -14,7 +14,7 @@
 package org.eclipse.team.core.diff;
 
 import org.eclipse.core.runtime.IProgressMonitor;
-import org.eclipse.team.core.diff.provider.Diff;
+import org.eclipse.team.internal.core.mapping.DiffClassifier;
 
 /**
  * A specialized <code>DiffNodeFilter</code> that does not require a progress monitor.
@@ -29,18 +29,24 @@ import org.eclipse.team.core.diff.provider.Diff;
 public abstract class FastDiffFilter extends DiffFilter {
 
 	public static final FastDiffFilter getStateFilter(final int[] states, final int mask) {
-		return new FastDiffFilter() {
-			@Override
-			public boolean select(IDiff node) {
-				int status = ((Diff)node).getStatus();
-				for (int state : states) {
-					if ((status & mask) == state) {
-						return true;
-					}
-				}
-				return false;
-			}
-		};
+		return new DiffClassifier.StateFilter(states, mask);
+	}
+
+	/**
+	 * Return a filter that selects the three-way diffs whose direction is one
+	 * of the given directions. Diff trees can determine whether they contain
+	 * diffs matching this filter, or the filter returned by
+	 * {@link #getStateFilter(int[], int)}, without visiting all their diffs.
+	 *
+	 * @param directions the directions, i.e. {@link IThreeWayDiff#INCOMING},
+	 *            {@link IThreeWayDiff#OUTGOING} or
+	 *            {@link IThreeWayDiff#CONFLICTING}
+	 * @return a filter that selects the three-way diffs with the given
+	 *         directions
+	 * @since 3.10
+	 */
+	public static final FastDiffFilter getDirectionFilter(final int[] directions) {
+		return new DiffClassifier.DirectionFilter(directions);
 	}
 
 	@Override
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2017 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -37,6 +37,7 @@ import org.eclipse.team.core.diff.IDiffVisitor;
 import org.eclipse.team.core.diff.IThreeWayDiff;
 import org.eclipse.team.internal.core.Policy;
 import org.eclipse.team.internal.core.mapping.DiffChangeEvent;
+import org.eclipse.team.internal.core.mapping.DiffClassifier;
 import org.eclipse.team.internal.core.mapping.PathTree;
 import org.eclipse.team.internal.core.subscribers.DiffTreeStatistics;
 
@@ -57,7 +58,7 @@ public class DiffTree implements IDiffTree {
 
 	private ListenerList<IDiffChangeListener> listeners = new ListenerList<>();
 
-	private PathTree pathTree = new PathTree();
+	private PathTree pathTree = new PathTree(DiffClassifier::classify);
 
 	private ILock lock = Job.getJobManager().newLock();
 
@@ -405,20 +406,30 @@ public class DiffTree implements IDiffTree {
 
 	@Override
 	public boolean hasMatchingDiffs(IPath path, final FastDiffFilter filter) {
-		final RuntimeException found = new RuntimeException();
-		try {
-			accept(path, delta -> {
-				if (filter.select(delta)) {
-					throw found;
-				}
-				return false;
-			}, IResource.DEPTH_INFINITE);
-		} catch (RuntimeException e) {
-			if (e == found)
-				return true;
-			throw e;
-		}
-		return false;
+		return hasMatchingDiffs(path, filter, IResource.DEPTH_INFINITE);
+	}
+
+	/**
+	 * Return whether the given path or its descendants to the given depth have
+	 * a diff that matches the given filter. As with
+	 * {@link #accept(IPath, IDiffVisitor, int)} and a visitor that does not
+	 * descend below the diffs it visits, only the diffs that are closest to the
+	 * given path are tested. The search stops at the first match. For the
+	 * filters created by {@link FastDiffFilter#getStateFilter(int[], int)} and
+	 * {@link FastDiffFilter#getDirectionFilter(int[])}, the subtrees that have
+	 * no diffs the filter could match are skipped.
+	 *
+	 * @param path the path to search
+	 * @param filter the filter
+	 * @param depth the depth of the search (one of
+	 *            <code>IResource.DEPTH_ZERO</code>,
+	 *            <code>IResource.DEPTH_ONE</code>, or
+	 *            <code>IResource.DEPTH_INFINITE</code>)
+	 * @return whether the path or its descendants have a matching diff
+	 * @since 3.10
+	 */
+	public boolean hasMatchingDiffs(IPath path, final FastDiffFilter filter, int depth) {
+		return pathTree.hasMatch(path, depth, DiffClassifier.getClasses(filter), diff -> filter.select((IDiff) diff));
 	}
 
 	/**
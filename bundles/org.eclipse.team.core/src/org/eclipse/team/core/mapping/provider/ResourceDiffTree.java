@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2017 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -165,18 +165,11 @@ public class ResourceDiffTree extends DiffTree implements IResourceDiffTree {
 
 	@Override
 	public boolean hasMatchingDiffs(ResourceTraversal[] traversals, final FastDiffFilter filter) {
-		final RuntimeException found = new RuntimeException();
-		try {
-			accept(traversals, delta -> {
-				if (filter.select(delta)) {
-					throw found;
-				}
-				return false;
-			});
-		} catch (RuntimeException e) {
-			if (e == found)
-				return true;
-			throw e;
+		for (ResourceTraversal traversal : traversals) {
+			for (IResource resource : traversal.getResources()) {
+				if (hasMatchingDiffs(resource.getFullPath(), filter, traversal.getDepth()))
+					return true;
+			}
 		}
 		return false;
 	}
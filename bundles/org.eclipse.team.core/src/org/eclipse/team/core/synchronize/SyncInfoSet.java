@@ -21,6 +21,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.IWorkspaceRunnable;
@@ -53,7 +54,9 @@ import org.eclipse.team.internal.core.subscribers.SyncInfoStatistics;
 public class SyncInfoSet {
 	// fields used to hold resources of interest
 	// {IPath -> SyncInfo}
-	private Map<IPath, SyncInfo> resources = Collections.synchronizedMap(new HashMap<>());
+	// Modifications are synchronized on the set and made while the ILock is held,
+	// queries read the concurrent map without locking
+	private Map<IPath, SyncInfo> resources = new ConcurrentHashMap<>();
 
 	// keep track of number of sync kinds in the set
 	private SyncInfoStatistics statistics = new SyncInfoStatistics();
@@ -88,8 +91,9 @@ public class SyncInfoSet {
 	 *
 	 * @return an array of <code>SyncInfo</code>
 	 */
-	public synchronized SyncInfo[] getSyncInfos() {
-		return resources.values().toArray(new SyncInfo[resources.size()]);
+	public SyncInfo[] getSyncInfos() {
+		// the size may change while copying, so let the map size the array
+		return resources.values().toArray(new SyncInfo[0]);
 	}
 
 	/**
@@ -116,7 +120,7 @@ public class SyncInfoSet {
 	 * @return the <code>SyncInfo</code> for the resource or <code>null</code> if
 	 * the resource is in-sync or doesn't have synchronization information in this set.
 	 */
-	public synchronized SyncInfo getSyncInfo(IResource resource) {
+	public SyncInfo getSyncInfo(IResource resource) {
 		return resources.get(resource.getFullPath());
 	}
 
@@ -126,7 +130,7 @@ public class SyncInfoSet {
 	 * @return the size of the set.
 	 * @see #countFor(int, int)
 	 */
-	public synchronized int size() {
+	public int size() {
 		return resources.size();
 	}
 
@@ -166,7 +170,7 @@ public class SyncInfoSet {
 	 *
 	 * @return <code>true</code> if the set is empty
 	 */
-	public synchronized boolean isEmpty() {
+	public boolean isEmpty() {
 		return resources.isEmpty();
 	}
 
@@ -235,8 +239,10 @@ public class SyncInfoSet {
 		try {
 			beginInput();
 			errors.clear();
-			resources.clear();
-			statistics.clear();
+			synchronized (this) {
+				resources.clear();
+				statistics.clear();
+			}
 			getChangeEvent().reset();
 		} finally {
 			endInput(null);
@@ -14,21 +14,17 @@
 package org.eclipse.team.core.synchronize;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.eclipse.core.resources.IContainer;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.IWorkspaceRoot;
 import org.eclipse.core.runtime.IPath;
-import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Path;
-import org.eclipse.team.internal.core.Messages;
-import org.eclipse.team.internal.core.TeamPlugin;
 import org.eclipse.team.internal.core.subscribers.SyncInfoTreeChangeEvent;
 
 /**
@@ -42,7 +38,9 @@ import org.eclipse.team.internal.core.subscribers.SyncInfoTreeChangeEvent;
  */
 public class SyncInfoTree extends SyncInfoSet {
 
-	protected Map<IPath, Set<IResource>> parents = Collections.synchronizedMap(new HashMap<>());
+	// {IPath -> out-of-sync descendants}. Modifications are synchronized on the tree
+	// while queries read the concurrent map and sets without locking
+	protected Map<IPath, Set<IResource>> parents = new ConcurrentHashMap<>();
 
 	/**
 	 * Create an empty sync info tree.
@@ -72,7 +70,7 @@ public class SyncInfoTree extends SyncInfoSet {
 	 * @param resource the resource to check for children.
 	 * @return <code>true</code> if the resource has children in the set.
 	 */
-	public synchronized boolean hasMembers(IResource resource) {
+	public boolean hasMembers(IResource resource) {
 		if (resource.getType() == IResource.FILE) return false;
 		IContainer parent = (IContainer)resource;
 		if (parent.getType() == IResource.ROOT) return !isEmpty();
@@ -101,7 +99,7 @@ public class SyncInfoTree extends SyncInfoSet {
 	 * @param depth    the depth of the subtree
 	 * @return the <code>SyncInfo</code> for any out-of-sync resources
 	 */
-	public synchronized SyncInfo[] getSyncInfos(IResource resource, int depth) {
+	public SyncInfo[] getSyncInfos(IResource resource, int depth) {
 		if (depth == IResource.DEPTH_ZERO || resource.getType() == IResource.FILE) {
 			SyncInfo info = getSyncInfo(resource);
 			if (info == null) {
@@ -139,15 +137,14 @@ public class SyncInfoTree extends SyncInfoSet {
 	 * @param resource the root resource
 	 * @return the <code>SyncInfo</code> for all out-of-sync resources at or below the given resource
 	 */
-	private synchronized SyncInfo[] internalGetDeepSyncInfo(IContainer resource) {
+	private SyncInfo[] internalGetDeepSyncInfo(IContainer resource) {
 		List<SyncInfo> infos = new ArrayList<>();
 		IResource[] children = internalGetOutOfSyncDescendants(resource);
 		for (IResource child : children) {
 			SyncInfo info = getSyncInfo(child);
+			// the info may be gone if the child was removed concurrently
 			if(info != null) {
 				infos.add(info);
-			} else {
-				TeamPlugin.log(IStatus.INFO, Messages.SyncInfoTree_0 + child.getFullPath(), null);
 			}
 		}
 		return infos.toArray(new SyncInfo[infos.size()]);
@@ -210,12 +207,15 @@ public class SyncInfoTree extends SyncInfoSet {
 		} else {
 			Set<IResource> children = parents.get(parent.getFullPath());
 			if (children == null) {
-				children = new HashSet<>();
+				children = ConcurrentHashMap.newKeySet();
+				// add the resource first so that readers never see an empty set
+				children.add(resource);
 				parents.put(parent.getFullPath(), children);
 				// this is a new folder in the sync set
 				addedParent = true;
+			} else {
+				children.add(resource);
 			}
-			children.add(resource);
 		}
 		// if the parent already existed and the resource is new, record it
 		if (!addToParents(resource, parent.getParent()) && addedParent) {
@@ -300,14 +300,14 @@ public class SyncInfoTree extends SyncInfoSet {
 	 * This is an internal method and is not intended to be invoked or
 	 * overridden by clients.
 	 */
-	protected synchronized IResource[] internalGetOutOfSyncDescendants(IContainer resource) {
+	protected IResource[] internalGetOutOfSyncDescendants(IContainer resource) {
 		// The parent map contains a set of all out-of-sync children
 		Set<IResource> allChildren = parents.get(resource.getFullPath());
 		if (allChildren == null) return new IResource[0];
-		return allChildren.toArray(new IResource[allChildren.size()]);
+		return allChildren.toArray(new IResource[0]);
 	}
 
-	private synchronized IResource[] internalMembers(IWorkspaceRoot root) {
+	private IResource[] internalMembers(IWorkspaceRoot root) {
 		Set possibleChildren = parents.keySet();
 		Set<IResource> children = new HashSet<>();
 		for (Object next : possibleChildren) {
@@ -327,7 +327,7 @@ public class SyncInfoTree extends SyncInfoSet {
 	 * @return the children of the resource that are either out-of-sync or are ancestors of
 	 * out-of-sync resources contained in the set
 	 */
-	public synchronized IResource[] members(IResource resource) {
+	public IResource[] members(IResource resource) {
 		if (resource.getType() == IResource.FILE) return new IResource[0];
 		IContainer parent = (IContainer)resource;
 		if (parent.getType() == IResource.ROOT) return internalMembers((IWorkspaceRoot)parent);
@@ -18,16 +18,25 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
 
 import org.eclipse.core.resources.IContainer;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.Platform;
 import org.eclipse.osgi.util.NLS;
 import org.eclipse.team.core.TeamException;
 import org.eclipse.team.internal.core.Messages;
@@ -40,6 +49,15 @@ import org.eclipse.team.internal.core.TeamPlugin;
  * This class does not perform the caching but relies on subclasses to do that by
  * overriding the <code>setVariant</code> method. The subclass
  * {@link ResourceVariantTree} does provide caching.
+ * <p>
+ * When a resource is refreshed to infinite depth, the members of sibling
+ * folders can be fetched concurrently on a bounded pool of worker threads, see
+ * {@link #getRefreshConcurrency()}. Only <code>fetchMembers</code> is invoked
+ * from the worker threads. The changes are still collected, and
+ * <code>setVariant</code> and <code>collectedMembers</code> invoked, on the
+ * thread that is refreshing, so any scheduling rule it holds still protects
+ * them.
+ * </p>
  *
  * @see IResourceVariantTree
  * @see ResourceVariantTree
@@ -48,6 +66,12 @@ import org.eclipse.team.internal.core.TeamPlugin;
  */
 public abstract class AbstractResourceVariantTree implements IResourceVariantTree {
 
+	// the seconds to wait for the fetches that are running when a refresh ends
+	private static final int FETCH_TERMINATION_TIMEOUT = 5;
+
+	// the workers that fetch members for the refresh that the current thread is performing
+	private final ThreadLocal<ExecutorService> refreshExecutor = new ThreadLocal<>();
+
 	/**
 	 * Refreshes the resource variant tree for the specified resources and possibly their descendants,
 	 * depending on the depth. The default implementation of this method invokes
@@ -64,12 +88,28 @@ public abstract class AbstractResourceVariantTree implements IResourceVariantTre
 	@Override
 	public IResource[] refresh(IResource[] resources, int depth, IProgressMonitor monitor) throws TeamException {
 		List<IResource> changedResources = new ArrayList<>();
-		monitor.beginTask(null, 100 * resources.length);
-		for (IResource resource : resources) {
-			IResource[] changed = refresh(resource, depth, Policy.subMonitorFor(monitor, 100));
-			changedResources.addAll(Arrays.asList(changed));
+		// share the workers between the resources rather than starting new ones for each
+		ExecutorService executor = null;
+		if (depth == IResource.DEPTH_INFINITE && refreshExecutor.get() == null) {
+			int concurrency = getRefreshConcurrency();
+			if (concurrency > 1) {
+				executor = createRefreshExecutor(concurrency);
+				refreshExecutor.set(executor);
+			}
+		}
+		try {
+			monitor.beginTask(null, 100 * resources.length);
+			for (IResource resource : resources) {
+				IResource[] changed = refresh(resource, depth, Policy.subMonitorFor(monitor, 100));
+				changedResources.addAll(Arrays.asList(changed));
+			}
+			monitor.done();
+		} finally {
+			if (executor != null) {
+				refreshExecutor.remove();
+				shutdown(executor);
+			}
 		}
-		monitor.done();
 		return changedResources.toArray(new IResource[changedResources.size()]);
 	}
 
@@ -125,10 +165,76 @@ public abstract class AbstractResourceVariantTree implements IResourceVariantTre
 	 */
 	protected IResource[] collectChanges(IResource local, IResourceVariant remote, int depth, IProgressMonitor monitor) throws TeamException {
 		List<IResource> changedResources = new ArrayList<>();
-		collectChanges(local, remote, changedResources, depth, monitor);
+		int concurrency = depth == IResource.DEPTH_INFINITE ? getRefreshConcurrency() : 1;
+		MemberFetcher fetcher;
+		ExecutorService executor = null;
+		if (concurrency > 1) {
+			ExecutorService shared = refreshExecutor.get();
+			if (shared == null) {
+				// not invoked from refresh(IResource[], int, IProgressMonitor)
+				executor = createRefreshExecutor(concurrency);
+			}
+			fetcher = new ConcurrentMemberFetcher(shared != null ? shared : executor, concurrency, monitor);
+		} else {
+			fetcher = new MemberFetcher();
+		}
+		try {
+			collectChanges(local, remote, changedResources, depth, fetcher, monitor);
+		} finally {
+			fetcher.dispose();
+			if (executor != null) {
+				shutdown(executor);
+			}
+		}
 		return changedResources.toArray(new IResource[changedResources.size()]);
 	}
 
+	private static ExecutorService createRefreshExecutor(int threads) {
+		return Executors.newFixedThreadPool(threads, runnable -> {
+			Thread thread = new Thread(runnable, "Team refresh worker"); //$NON-NLS-1$
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/*
+	 * Shut down the given workers. The fetches that are still running have
+	 * been canceled, but a fetch that does not check its monitor may take a
+	 * while to return. The workers are daemon threads, so they are abandoned
+	 * if they do not end in time.
+	 */
+	private static void shutdown(ExecutorService executor) {
+		executor.shutdown();
+		try {
+			executor.awaitTermination(FETCH_TERMINATION_TIMEOUT, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Return the maximum number of threads that fetch the members of folders
+	 * while the changes of a refresh to infinite depth are collected. If more
+	 * than one thread is used, the members of the remote folders that will be
+	 * visited next are fetched in advance by worker threads, so
+	 * <code>fetchMembers</code> must be safe to invoke concurrently and must not
+	 * acquire scheduling rules.
+	 * <p>
+	 * The default implementation returns the value of the
+	 * <code>refresh_concurrency</code> preference of the
+	 * <code>org.eclipse.team.core</code> plug-in, which is 1 unless configured
+	 * otherwise, so folders are fetched one at a time. Subclasses may override.
+	 * </p>
+	 *
+	 * @return the maximum number of threads fetching members concurrently
+	 * @since 3.10
+	 */
+	protected int getRefreshConcurrency() {
+		if (TeamPlugin.getPlugin() == null)
+			return 1;
+		return Platform.getPreferencesService().getInt(TeamPlugin.ID, TeamPlugin.PREF_REFRESH_CONCURRENCY, 1, null);
+	}
+
 	/**
 	 * Fetch the members of the given resource variant handle. This method may
 	 * return members that were fetched when <code>fetchVariant</code> was called or
@@ -179,26 +285,70 @@ public abstract class AbstractResourceVariantTree implements IResourceVariantTre
 	 */
 	protected abstract boolean setVariant(IResource local, IResourceVariant remote) throws TeamException;
 
-	private void collectChanges(IResource local, IResourceVariant remote, Collection<IResource> changedResources, int depth, IProgressMonitor monitor) throws TeamException {
+	/**
+	 * Set the variants associated with the given local resources to the newly
+	 * fetched resource variants. This method is invoked during change collection
+	 * with the members of a folder and should return the resources whose variant
+	 * has changed.
+	 * <p>
+	 * The default implementation invokes <code>setVariant</code> for each
+	 * resource. Subclasses may override to set the variants in bulk.
+	 * </p>
+	 * @param locals the local resources
+	 * @param remotes the newly fetched resource variant of the resource in the
+	 * corresponding position, which may be <code>null</code>
+	 * @return the resources whose resource variant changed
+	 * @throws TeamException if an error occurs
+	 * @since 3.10
+	 */
+	protected IResource[] setVariants(IResource[] locals, IResourceVariant[] remotes) throws TeamException {
+		List<IResource> changed = new ArrayList<>();
+		for (int i = 0; i < locals.length; i++) {
+			if (setVariant(locals[i], remotes[i])) {
+				changed.add(locals[i]);
+			}
+		}
+		return changed.toArray(new IResource[changed.size()]);
+	}
+
+	private void collectChanges(IResource local, IResourceVariant remote, Collection<IResource> changedResources, int depth, MemberFetcher fetcher, IProgressMonitor monitor) throws TeamException {
 		boolean changed = setVariant(local, remote);
 		if (changed) {
 			changedResources.add(local);
 		}
 		if (depth == IResource.DEPTH_ZERO) return;
-		Map<IResource, IResourceVariant> children = mergedMembers(local, remote, monitor);
-		for (IResource localChild : children.keySet()) {
-			IResourceVariant remoteChild = children.get(localChild);
-			collectChanges(localChild, remoteChild, changedResources,
-					depth == IResource.DEPTH_INFINITE ? IResource.DEPTH_INFINITE : IResource.DEPTH_ZERO,
-					monitor);
+		collectMemberChanges(local, remote, changedResources, depth, fetcher, monitor);
+	}
+
+	/*
+	 * Collect the changes of the members of the given resource, whose own
+	 * variant has already been set.
+	 */
+	private void collectMemberChanges(IResource local, IResourceVariant remote, Collection<IResource> changedResources, int depth, MemberFetcher fetcher, IProgressMonitor monitor) throws TeamException {
+		Map<IResource, IResourceVariant> children = mergedMembers(local, remote, fetcher, monitor);
+		if (depth == IResource.DEPTH_INFINITE) {
+			fetcher.prefetch(children.values());
+		}
+		IResource[] localChildren = children.keySet().toArray(new IResource[children.size()]);
+		IResourceVariant[] remoteChildren = new IResourceVariant[localChildren.length];
+		for (int i = 0; i < localChildren.length; i++) {
+			remoteChildren[i] = children.get(localChildren[i]);
+		}
+		if (localChildren.length > 0) {
+			changedResources.addAll(Arrays.asList(setVariants(localChildren, remoteChildren)));
+		}
+		if (depth == IResource.DEPTH_INFINITE) {
+			for (int i = 0; i < localChildren.length; i++) {
+				collectMemberChanges(localChildren[i], remoteChildren[i], changedResources, depth, fetcher, monitor);
+			}
 		}
 
-		IResource[] cleared = collectedMembers(local, children.keySet().toArray(new IResource[children.size()]));
+		IResource[] cleared = collectedMembers(local, localChildren);
 		changedResources.addAll(Arrays.asList(cleared));
 		monitor.worked(1);
 	}
 
-	private Map<IResource, IResourceVariant> mergedMembers(IResource local, IResourceVariant remote, IProgressMonitor progress) throws TeamException {
+	private Map<IResource, IResourceVariant> mergedMembers(IResource local, IResourceVariant remote, MemberFetcher fetcher, IProgressMonitor progress) throws TeamException {
 
 		// {IResource -> IResourceVariant}
 		Map<IResource, IResourceVariant> mergedResources = new HashMap<>();
@@ -207,7 +357,7 @@ public abstract class AbstractResourceVariantTree implements IResourceVariantTre
 		if (remote == null) {
 			remoteChildren = new IResourceVariant[0];
 		} else {
-			remoteChildren = fetchMembers(remote, progress);
+			remoteChildren = fetcher.fetch(remote, progress);
 		}
 
 
@@ -273,4 +423,100 @@ public abstract class AbstractResourceVariantTree implements IResourceVariantTre
 		}
 	}
 
+	/*
+	 * Fetches the members of resource variants on the collecting thread when
+	 * they are needed.
+	 */
+	private class MemberFetcher {
+		IResourceVariant[] fetch(IResourceVariant variant, IProgressMonitor progress) throws TeamException {
+			return fetchMembers(variant, progress);
+		}
+
+		void prefetch(Collection<IResourceVariant> variants) {
+			// members are only fetched when needed
+		}
+
+		void dispose() {
+			// nothing to release
+		}
+	}
+
+	/*
+	 * Fetches the members of the remote folders that the collection will visit
+	 * next on a bounded pool of worker threads. A fetch that no worker has
+	 * started yet when its members are needed is run by the collecting thread.
+	 * At most twice as many fetches as there are workers are outstanding, the
+	 * members of the other folders are fetched by the collecting thread.
+	 */
+	private class ConcurrentMemberFetcher extends MemberFetcher {
+		private final Map<IResourceVariant, FutureTask<IResourceVariant[]>> fetches = new IdentityHashMap<>();
+		private final ExecutorService executor;
+		private final int maxOutstanding;
+		private final IProgressMonitor workerMonitor;
+		private volatile boolean disposed;
+
+		ConcurrentMemberFetcher(ExecutorService executor, int threads, IProgressMonitor monitor) {
+			this.executor = executor;
+			maxOutstanding = 2 * threads;
+			// workers only report cancellation, progress is reported by the collecting thread
+			workerMonitor = new NullProgressMonitor() {
+				@Override
+				public boolean isCanceled() {
+					return disposed || monitor.isCanceled();
+				}
+			};
+		}
+
+		@Override
+		void prefetch(Collection<IResourceVariant> variants) {
+			for (IResourceVariant variant : variants) {
+				if (fetches.size() >= maxOutstanding) {
+					return;
+				}
+				if (variant != null && variant.isContainer() && !fetches.containsKey(variant)) {
+					FutureTask<IResourceVariant[]> task = new FutureTask<>(() -> fetchMembers(variant, workerMonitor));
+					fetches.put(variant, task);
+					executor.execute(task);
+				}
+			}
+		}
+
+		@Override
+		IResourceVariant[] fetch(IResourceVariant variant, IProgressMonitor progress) throws TeamException {
+			FutureTask<IResourceVariant[]> task = fetches.remove(variant);
+			if (task == null) {
+				return super.fetch(variant, progress);
+			}
+			// has no effect if a worker has already started the fetch
+			task.run();
+			try {
+				return task.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new OperationCanceledException();
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof TeamException) {
+					throw (TeamException) cause;
+				}
+				if (cause instanceof RuntimeException) {
+					throw (RuntimeException) cause;
+				}
+				if (cause instanceof Error) {
+					throw (Error) cause;
+				}
+				throw new TeamException(cause.getMessage(), cause);
+			}
+		}
+
+		@Override
+		void dispose() {
+			disposed = true;
+			for (FutureTask<IResourceVariant[]> task : fetches.values()) {
+				task.cancel(false);
+			}
+			fetches.clear();
+		}
+	}
+
 }
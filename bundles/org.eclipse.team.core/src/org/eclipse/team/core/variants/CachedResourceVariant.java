@@ -56,7 +56,9 @@ import org.eclipse.team.internal.core.TeamPlugin;
  * an {@link org.eclipse.core.resources.IEncodedStorage}.
  * <p>
  * The cache in which the resource variants reside will occasionally clear
- * cached entries if they have not been accessed for a certain amount of time.
+ * cached entries if they have not been accessed for a certain amount of time
+ * or if the cached contents exceed a size limit. Cached contents are kept
+ * across sessions, the handles are not.
  * </p>
  *
  * @since 3.0
@@ -259,7 +261,8 @@ public abstract class CachedResourceVariant extends PlatformObject implements IR
 	 * Return the cached handle for this resource variant if there is
 	 * one. If there isn't one, then <code>null</code> is returned.
 	 * If there is no cached handle and one is desired, then <code>cacheHandle()</code>
-	 * should be called.
+	 * should be called. If only the contents were cached, in a previous session,
+	 * this handle becomes the cached handle.
 	 *
 	 * @return a cached copy of this resource variant or <code>null</code>
 	 * @nooverride This method is not intended to be overridden by clients.
@@ -267,7 +270,7 @@ public abstract class CachedResourceVariant extends PlatformObject implements IR
 	protected CachedResourceVariant getCachedHandle() {
 		ResourceVariantCacheEntry entry = getCacheEntry();
 		if (entry == null) return null;
-		return entry.getResourceVariant();
+		return entry.getResourceVariant(this);
 	}
 
 	/**
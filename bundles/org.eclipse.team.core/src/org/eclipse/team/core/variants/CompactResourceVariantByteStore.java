@@ -0,0 +1,515 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.core.variants;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspaceRoot;
+import org.eclipse.core.runtime.Assert;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.team.core.TeamException;
+
+/**
+ * A <code>ResourceVariantByteStore</code> that caches the variant bytes in
+ * memory and does not persist them over workbench invocations, like
+ * {@link SessionResourceVariantByteStore}, but in a compact form that is
+ * suitable for the remote state of millions of resources.
+ * <p>
+ * Instead of a map entry with a resource handle and a byte array for each
+ * resource, the store keeps a tree of the path segments of the resources in
+ * arrays of primitives, with each distinct segment name stored once. The
+ * bytes are packed into large buffers that can be allocated outside of the
+ * Java heap. The buffers are compacted when more than half of their space is
+ * no longer used.
+ * </p>
+ *
+ * @since 3.10
+ * @noextend This class is not intended to be subclassed by clients.
+ */
+public class CompactResourceVariantByteStore extends ResourceVariantByteStore {
+
+	// the size of the buffers the bytes are packed into
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private static final int INITIAL_CAPACITY = 64;
+
+	// the node of the workspace root
+	private static final int ROOT = 0;
+
+	private static final int NONE = -1;
+
+	// node flags
+	private static final byte FILE = 1;
+	private static final byte HAS_BYTES = 2;
+
+	private final boolean direct;
+
+	// the nodes of the path tree by index
+	private int[] parents;
+	private int[] names;
+	private byte[] flags;
+	private int[] firstChildren;
+	private int[] lastChildren;
+	private int[] nextSiblings;
+	private int[] previousSiblings;
+	// the buffer index in the upper and the offset in the lower half
+	private long[] locations;
+	private int[] lengths;
+	private int nodeCount;
+	// unused nodes linked by their next sibling
+	private int freeNodes;
+
+	// the child nodes by parent node and name, see childKey
+	private final ChildIndex children = new ChildIndex();
+
+	// the distinct segment names by index with the number of nodes using them
+	private final Map<String, Integer> nameIndex = new HashMap<>();
+	private final List<String> nameList = new ArrayList<>();
+	private int[] nameReferences = new int[INITIAL_CAPACITY];
+	private int freeNames = NONE;
+
+	private final List<ByteBuffer> buffers = new ArrayList<>();
+	// the bytes of the buffers that hold bytes of resources
+	private long liveBytes;
+	// the bytes of the buffers that are in use, including the bytes that were replaced or removed
+	private long usedBytes;
+
+	private int size;
+
+	/*
+	 * An open addressing hash table from long keys to int values.
+	 */
+	private static class ChildIndex {
+		private static final long EMPTY = -1;
+		private long[] keys;
+		private int[] values;
+		private int count;
+
+		ChildIndex() {
+			clear();
+		}
+		void clear() {
+			keys = new long[INITIAL_CAPACITY];
+			Arrays.fill(keys, EMPTY);
+			values = new int[INITIAL_CAPACITY];
+			count = 0;
+		}
+		private int slot(long key) {
+			long hash = key * 0x9E3779B97F4A7C15L;
+			return (int) (hash >>> 32) & (keys.length - 1);
+		}
+		int get(long key) {
+			for (int i = slot(key); keys[i] != EMPTY; i = (i + 1) & (keys.length - 1)) {
+				if (keys[i] == key)
+					return values[i];
+			}
+			return NONE;
+		}
+		void put(long key, int value) {
+			if (2 * (count + 1) > keys.length)
+				rehash(2 * keys.length);
+			int i = slot(key);
+			while (keys[i] != EMPTY && keys[i] != key)
+				i = (i + 1) & (keys.length - 1);
+			if (keys[i] == EMPTY)
+				count++;
+			keys[i] = key;
+			values[i] = value;
+		}
+		void remove(long key) {
+			int i = slot(key);
+			while (keys[i] != key) {
+				if (keys[i] == EMPTY)
+					return;
+				i = (i + 1) & (keys.length - 1);
+			}
+			// shift back the following entries of the probe sequence
+			int mask = keys.length - 1;
+			for (int j = (i + 1) & mask; keys[j] != EMPTY; j = (j + 1) & mask) {
+				int home = slot(keys[j]);
+				if (((j - home) & mask) >= ((j - i) & mask)) {
+					keys[i] = keys[j];
+					values[i] = values[j];
+					i = j;
+				}
+			}
+			keys[i] = EMPTY;
+			count--;
+		}
+		private void rehash(int capacity) {
+			long[] oldKeys = keys;
+			int[] oldValues = values;
+			keys = new long[capacity];
+			Arrays.fill(keys, EMPTY);
+			values = new int[capacity];
+			count = 0;
+			for (int i = 0; i < oldKeys.length; i++) {
+				if (oldKeys[i] != EMPTY)
+					put(oldKeys[i], oldValues[i]);
+			}
+		}
+	}
+
+	/**
+	 * Create a store that keeps the bytes in buffers on the Java heap.
+	 */
+	public CompactResourceVariantByteStore() {
+		this(false);
+	}
+
+	/**
+	 * Create a store that keeps the bytes in buffers on or off the Java heap.
+	 * @param direct whether the bytes are kept in direct buffers outside of
+	 * the Java heap
+	 */
+	public CompactResourceVariantByteStore(boolean direct) {
+		this.direct = direct;
+		initialize();
+	}
+
+	private void initialize() {
+		parents = new int[INITIAL_CAPACITY];
+		names = new int[INITIAL_CAPACITY];
+		flags = new byte[INITIAL_CAPACITY];
+		firstChildren = new int[INITIAL_CAPACITY];
+		lastChildren = new int[INITIAL_CAPACITY];
+		nextSiblings = new int[INITIAL_CAPACITY];
+		previousSiblings = new int[INITIAL_CAPACITY];
+		locations = new long[INITIAL_CAPACITY];
+		lengths = new int[INITIAL_CAPACITY];
+		nodeCount = 0;
+		freeNodes = NONE;
+		children.clear();
+		nameIndex.clear();
+		nameList.clear();
+		nameReferences = new int[INITIAL_CAPACITY];
+		freeNames = NONE;
+		buffers.clear();
+		liveBytes = 0;
+		usedBytes = 0;
+		size = 0;
+		// the root node
+		newNode(NONE, NONE, (byte) 0);
+	}
+
+	@Override
+	public synchronized void dispose() {
+		initialize();
+	}
+
+	@Override
+	public synchronized byte[] getBytes(IResource resource) throws TeamException {
+		int node = findNode(resource);
+		if (node == NONE || (flags[node] & HAS_BYTES) == 0 || lengths[node] == 0) {
+			// A length of 0 means it is known that there is no remote
+			return null;
+		}
+		return readBytes(node);
+	}
+
+	@Override
+	public synchronized boolean setBytes(IResource resource, byte[] bytes) throws TeamException {
+		Assert.isNotNull(bytes);
+		int node = findNode(resource);
+		if (node != NONE && (flags[node] & HAS_BYTES) != 0) {
+			if (equals(readBytes(node), bytes))
+				return false;
+			releaseBytes(node);
+		} else {
+			if (node == NONE)
+				node = addNode(resource);
+			flags[node] |= HAS_BYTES;
+			size++;
+		}
+		writeBytes(node, bytes);
+		return true;
+	}
+
+	@Override
+	public synchronized boolean flushBytes(IResource resource, int depth) throws TeamException {
+		int node = findNode(resource);
+		if (node == NONE || (flags[node] & HAS_BYTES) == 0)
+			return false;
+		flush(node, depth);
+		return true;
+	}
+
+	/*
+	 * Remove the bytes of the given node, which has bytes, and of its descendants
+	 * with bytes to the given depth, as long as their ancestors have bytes.
+	 */
+	private void flush(int node, int depth) {
+		if (depth != IResource.DEPTH_ZERO) {
+			int child = firstChildren[node];
+			while (child != NONE) {
+				int next = nextSiblings[child];
+				if ((flags[child] & HAS_BYTES) != 0)
+					flush(child, depth == IResource.DEPTH_INFINITE ? IResource.DEPTH_INFINITE : IResource.DEPTH_ZERO);
+				child = next;
+			}
+		}
+		releaseBytes(node);
+		flags[node] &= ~HAS_BYTES;
+		size--;
+		prune(node);
+		if (usedBytes - liveBytes > BUFFER_SIZE && usedBytes - liveBytes > liveBytes)
+			compact();
+	}
+
+	@Override
+	public synchronized boolean deleteBytes(IResource resource) throws TeamException {
+		return flushBytes(resource, IResource.DEPTH_ZERO);
+	}
+
+	@Override
+	public synchronized IResource[] members(IResource resource) throws TeamException {
+		int node = findNode(resource);
+		if (node == NONE || resource.getType() == IResource.FILE)
+			return new IResource[0];
+		List<IResource> members = new ArrayList<>();
+		for (int child = firstChildren[node]; child != NONE; child = nextSiblings[child]) {
+			if ((flags[child] & HAS_BYTES) != 0)
+				members.add(getResource((IContainer) resource, child));
+		}
+		return members.toArray(new IResource[members.size()]);
+	}
+
+	/**
+	 * Return <code>true</code> if no bytes are contained in this store.
+	 * @return <code>true</code> if no bytes are contained in this store.
+	 */
+	public synchronized boolean isEmpty() {
+		return size == 0;
+	}
+
+	private IResource getResource(IContainer parent, int node) {
+		String name = nameList.get(names[node]);
+		if (parent.getType() == IResource.ROOT)
+			return ((IWorkspaceRoot) parent).getProject(name);
+		IPath path = new Path(null, name);
+		return (flags[node] & FILE) != 0 ? parent.getFile(path) : parent.getFolder(path);
+	}
+
+	/*
+	 * The key of a child in the child index. Files and folders of the same name
+	 * are different resources.
+	 */
+	private static long childKey(int parent, int name, boolean file) {
+		return ((long) parent << 32) | ((long) name << 1) | (file ? 1 : 0);
+	}
+
+	private int findNode(IResource resource) {
+		IPath path = resource.getFullPath();
+		int segmentCount = path.segmentCount();
+		int node = ROOT;
+		for (int i = 0; i < segmentCount && node != NONE; i++) {
+			Integer name = nameIndex.get(path.segment(i));
+			if (name == null)
+				return NONE;
+			boolean file = i == segmentCount - 1 && resource.getType() == IResource.FILE;
+			node = children.get(childKey(node, name, file));
+		}
+		return node;
+	}
+
+	private int addNode(IResource resource) {
+		IPath path = resource.getFullPath();
+		int segmentCount = path.segmentCount();
+		int node = ROOT;
+		for (int i = 0; i < segmentCount; i++) {
+			String segment = path.segment(i);
+			boolean file = i == segmentCount - 1 && resource.getType() == IResource.FILE;
+			Integer name = nameIndex.get(segment);
+			int child = name == null ? NONE : children.get(childKey(node, name, file));
+			if (child == NONE) {
+				child = newNode(node, addName(segment), file ? FILE : 0);
+			}
+			node = child;
+		}
+		return node;
+	}
+
+	private int newNode(int parent, int name, byte nodeFlags) {
+		int node;
+		if (freeNodes != NONE) {
+			node = freeNodes;
+			freeNodes = nextSiblings[node];
+		} else {
+			if (nodeCount == parents.length)
+				growNodes(2 * parents.length);
+			node = nodeCount++;
+		}
+		parents[node] = parent;
+		names[node] = name;
+		flags[node] = nodeFlags;
+		firstChildren[node] = NONE;
+		lastChildren[node] = NONE;
+		nextSiblings[node] = NONE;
+		previousSiblings[node] = NONE;
+		locations[node] = 0;
+		lengths[node] = 0;
+		if (parent != NONE) {
+			// append to the children of the parent to keep the order of the members
+			int last = lastChildren[parent];
+			if (last == NONE) {
+				firstChildren[parent] = node;
+			} else {
+				nextSiblings[last] = node;
+				previousSiblings[node] = last;
+			}
+			lastChildren[parent] = node;
+			children.put(childKey(parent, name, (nodeFlags & FILE) != 0), node);
+		}
+		return node;
+	}
+
+	private void growNodes(int capacity) {
+		parents = Arrays.copyOf(parents, capacity);
+		names = Arrays.copyOf(names, capacity);
+		flags = Arrays.copyOf(flags, capacity);
+		firstChildren = Arrays.copyOf(firstChildren, capacity);
+		lastChildren = Arrays.copyOf(lastChildren, capacity);
+		nextSiblings = Arrays.copyOf(nextSiblings, capacity);
+		previousSiblings = Arrays.copyOf(previousSiblings, capacity);
+		locations = Arrays.copyOf(locations, capacity);
+		lengths = Arrays.copyOf(lengths, capacity);
+	}
+
+	/*
+	 * Remove the given node and its ancestors as long as they have neither
+	 * bytes nor children.
+	 */
+	private void prune(int node) {
+		while (node != ROOT && (flags[node] & HAS_BYTES) == 0 && firstChildren[node] == NONE) {
+			int parent = parents[node];
+			int previous = previousSiblings[node];
+			int next = nextSiblings[node];
+			if (previous == NONE)
+				firstChildren[parent] = next;
+			else
+				nextSiblings[previous] = next;
+			if (next == NONE)
+				lastChildren[parent] = previous;
+			else
+				previousSiblings[next] = previous;
+			children.remove(childKey(parent, names[node], (flags[node] & FILE) != 0));
+			releaseName(names[node]);
+			parents[node] = NONE;
+			nextSiblings[node] = freeNodes;
+			freeNodes = node;
+			node = parent;
+		}
+	}
+
+	private int addName(String segment) {
+		Integer index = nameIndex.get(segment);
+		int name;
+		if (index != null) {
+			name = index;
+		} else {
+			if (freeNames != NONE) {
+				name = freeNames;
+				freeNames = nameReferences[name];
+				nameList.set(name, segment);
+			} else {
+				name = nameList.size();
+				nameList.add(segment);
+				if (name == nameReferences.length)
+					nameReferences = Arrays.copyOf(nameReferences, 2 * name);
+			}
+			nameReferences[name] = 0;
+			nameIndex.put(segment, name);
+		}
+		nameReferences[name]++;
+		return name;
+	}
+
+	private void releaseName(int name) {
+		if (--nameReferences[name] == 0) {
+			nameIndex.remove(nameList.get(name));
+			nameList.set(name, null);
+			// unused names are linked by their reference count
+			nameReferences[name] = freeNames;
+			freeNames = name;
+		}
+	}
+
+	private byte[] readBytes(int node) {
+		byte[] bytes = new byte[lengths[node]];
+		if (bytes.length > 0) {
+			long location = locations[node];
+			ByteBuffer buffer = buffers.get((int) (location >>> 32)).duplicate();
+			buffer.position((int) location);
+			buffer.get(bytes);
+		}
+		return bytes;
+	}
+
+	private void writeBytes(int node, byte[] bytes) {
+		lengths[node] = bytes.length;
+		if (bytes.length == 0)
+			return;
+		ByteBuffer buffer = buffers.isEmpty() ? null : buffers.get(buffers.size() - 1);
+		if (buffer == null || buffer.remaining() < bytes.length) {
+			if (buffer != null)
+				// the rest of the last buffer is not used
+				usedBytes += buffer.remaining();
+			buffer = allocate(Math.max(BUFFER_SIZE, bytes.length));
+			buffers.add(buffer);
+		}
+		locations[node] = ((long) (buffers.size() - 1) << 32) | buffer.position();
+		buffer.put(bytes);
+		liveBytes += bytes.length;
+		usedBytes += bytes.length;
+	}
+
+	private void releaseBytes(int node) {
+		liveBytes -= lengths[node];
+		lengths[node] = 0;
+	}
+
+	private ByteBuffer allocate(int capacity) {
+		return direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+	}
+
+	/*
+	 * Copy the bytes of all nodes into new buffers, leaving out the space of
+	 * bytes that were replaced or removed.
+	 */
+	private void compact() {
+		List<ByteBuffer> oldBuffers = new ArrayList<>(buffers);
+		buffers.clear();
+		liveBytes = 0;
+		usedBytes = 0;
+		for (int node = 0; node < nodeCount; node++) {
+			if ((flags[node] & HAS_BYTES) != 0 && lengths[node] > 0) {
+				long location = locations[node];
+				ByteBuffer source = oldBuffers.get((int) (location >>> 32)).duplicate();
+				source.position((int) location);
+				source.limit((int) location + lengths[node]);
+				byte[] bytes = new byte[lengths[node]];
+				source.get(bytes);
+				writeBytes(node, bytes);
+			}
+		}
+	}
+}
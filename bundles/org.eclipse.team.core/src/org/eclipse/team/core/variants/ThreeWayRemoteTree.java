@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2017 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -13,6 +13,10 @@
  *******************************************************************************/
 package org.eclipse.team.core.variants;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.team.core.TeamException;
@@ -103,6 +107,57 @@ public abstract class ThreeWayRemoteTree extends ResourceVariantTree {
 		return subscriber;
 	}
 
+	/**
+	 * Return whether the variants of the members of a folder are set and
+	 * removed in bulk in the synchronizer of the subscriber instead of
+	 * invoking <code>setVariant</code> for each member. Subclasses that do
+	 * not override <code>setVariant</code> may override this method to
+	 * return <code>true</code>.
+	 * @return whether the variants are set in bulk
+	 * @since 3.10
+	 */
+	protected boolean isBulkUpdateEnabled() {
+		return false;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * If bulk update is enabled, the remote bytes of the members are set and
+	 * removed in bulk in the synchronizer of the subscriber.
+	 * </p>
+	 * @see #isBulkUpdateEnabled()
+	 * @since 3.10
+	 */
+	@Override
+	protected IResource[] setVariants(IResource[] locals, IResourceVariant[] remotes) throws TeamException {
+		if (!isBulkUpdateEnabled())
+			return super.setVariants(locals, remotes);
+		// Set and remove the remote bytes of all the members in bulk
+		List<IResource> set = new ArrayList<>();
+		List<byte[]> setBytes = new ArrayList<>();
+		List<IResource> removed = new ArrayList<>();
+		for (int i = 0; i < locals.length; i++) {
+			byte[] bytes = getBytes(locals[i], remotes[i]);
+			if (bytes == null) {
+				removed.add(locals[i]);
+			} else {
+				set.add(locals[i]);
+				setBytes.add(bytes);
+			}
+		}
+		ThreeWaySynchronizer synchronizer = getSubscriber().getSynchronizer();
+		List<IResource> changed = new ArrayList<>();
+		if (!set.isEmpty()) {
+			changed.addAll(Arrays.asList(synchronizer.setRemoteBytes(
+					set.toArray(new IResource[set.size()]), setBytes.toArray(new byte[setBytes.size()][]))));
+		}
+		if (!removed.isEmpty()) {
+			changed.addAll(Arrays.asList(synchronizer.removeRemoteBytes(removed.toArray(new IResource[removed.size()]))));
+		}
+		return changed.toArray(new IResource[changed.size()]);
+	}
+
 	@Override
 	protected IResource[] collectChanges(final IResource local,
 			final IResourceVariant remote, final int depth, IProgressMonitor monitor)
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2017 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -21,10 +21,12 @@ import java.util.Set;
 
 import org.eclipse.core.resources.IContainer;
 import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspaceRoot;
 import org.eclipse.core.resources.IWorkspaceRunnable;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.ISafeRunnable;
 import org.eclipse.core.runtime.QualifiedName;
@@ -32,6 +34,7 @@ import org.eclipse.core.runtime.SafeRunner;
 import org.eclipse.core.runtime.jobs.ILock;
 import org.eclipse.core.runtime.jobs.ISchedulingRule;
 import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.core.runtime.jobs.MultiRule;
 import org.eclipse.team.core.TeamException;
 import org.eclipse.team.internal.core.Policy;
 import org.eclipse.team.internal.core.subscribers.BatchingLock;
@@ -47,6 +50,12 @@ import org.eclipse.team.internal.core.subscribers.SyncByteConverter;
  * <li>Change events and event batching (run)
  * <li>Thread-safety
  * </ul>
+ * <p>
+ * The bytes of many resources can be accessed at once with the methods that
+ * take an array of resources. These access the underlying store in a single
+ * operation and, for modifications, fire a single change notification, which
+ * is cheaper than accessing the resources one at a time.
+ * </p>
  *
  * @since 3.0
  */
@@ -133,11 +142,31 @@ public class ThreeWaySynchronizer {
 	public byte[] getBaseBytes(IResource resource) throws TeamException {
 		try {
 			beginOperation();
-			byte[] syncBytes = internalGetSyncBytes(resource);
-			if (syncBytes == null) return null;
-			byte[] baseBytes = getSlot(syncBytes, 1);
-			if (baseBytes == null || baseBytes.length == 0) return null;
-			return baseBytes;
+			return getBaseBytes(internalGetSyncBytes(resource));
+		} finally {
+			endOperation();
+		}
+	}
+
+	/**
+	 * Return the base bytes that are cached for the given resources.
+	 * This is equivalent to calling <code>getBaseBytes(IResource)</code>
+	 * for each resource but accesses the synchronizer only once.
+	 *
+	 * @param resources the resources
+	 * @return the base bytes cached with each resource or <code>null</code>
+	 * in the corresponding position if no base is cached
+	 * @throws TeamException if an error occurs
+	 * @since 3.10
+	 */
+	public byte[][] getBaseBytes(IResource[] resources) throws TeamException {
+		byte[][] result = new byte[resources.length][];
+		try {
+			beginOperation();
+			for (int i = 0; i < resources.length; i++) {
+				result[i] = getBaseBytes(internalGetSyncBytes(resources[i]));
+			}
+			return result;
 		} finally {
 			endOperation();
 		}
@@ -191,9 +220,44 @@ public class ThreeWaySynchronizer {
 	 * @throws TeamException if an error occurs
 	 */
 	public boolean isLocallyModified(IResource resource) throws TeamException {
-		return ((internalGetSyncBytes(resource) == null && ! isIgnored(resource)) ||
-				(getLocalTimestamp(resource) != resource.getModificationStamp()) ||
-				(getBaseBytes(resource) != null && !resource.exists()));
+		try {
+			beginOperation();
+			return isLocallyModified(resource, cache.getBytes(resource));
+		} finally {
+			endOperation();
+		}
+	}
+
+	/**
+	 * Return whether the given local resources have been modified since the
+	 * last time their base bytes were set. This is equivalent to calling
+	 * <code>isLocallyModified(IResource)</code> for each resource but
+	 * accesses the synchronizer only once.
+	 * @param resources the resources
+	 * @return whether the resource in the corresponding position has been
+	 * modified since the last time the base bytes were set
+	 * @throws TeamException if an error occurs
+	 * @since 3.10
+	 */
+	public boolean[] isLocallyModified(IResource[] resources) throws TeamException {
+		boolean[] result = new boolean[resources.length];
+		try {
+			beginOperation();
+			for (int i = 0; i < resources.length; i++) {
+				result[i] = isLocallyModified(resources[i], cache.getBytes(resources[i]));
+			}
+			return result;
+		} finally {
+			endOperation();
+		}
+	}
+
+	private boolean isLocallyModified(IResource resource, byte[] bytes) throws TeamException {
+		boolean ignored = bytes != null && equals(bytes, IGNORED_BYTES);
+		byte[] syncBytes = ignored ? null : bytes;
+		return ((syncBytes == null && !ignored) ||
+				(getLocalTimestamp(syncBytes) != resource.getModificationStamp()) ||
+				(getBaseBytes(syncBytes) != null && !resource.exists()));
 	}
 
 	/**
@@ -209,11 +273,31 @@ public class ThreeWaySynchronizer {
 	public byte[] getRemoteBytes(IResource resource) throws TeamException {
 		try {
 			beginOperation();
-			byte[] syncBytes = internalGetSyncBytes(resource);
-			if (syncBytes == null) return null;
-			byte[] remoteBytes = getSlot(syncBytes, 2);
-			if (remoteBytes == null || remoteBytes.length == 0) return null;
-			return remoteBytes;
+			return getRemoteBytes(internalGetSyncBytes(resource));
+		} finally {
+			endOperation();
+		}
+	}
+
+	/**
+	 * Return the remote bytes that are cached for the given resources.
+	 * This is equivalent to calling <code>getRemoteBytes(IResource)</code>
+	 * for each resource but accesses the synchronizer only once.
+	 *
+	 * @param resources the resources
+	 * @return the remote bytes cached with each resource or <code>null</code>
+	 * in the corresponding position if no remote is cached
+	 * @throws TeamException if an error occurs
+	 * @since 3.10
+	 */
+	public byte[][] getRemoteBytes(IResource[] resources) throws TeamException {
+		byte[][] result = new byte[resources.length][];
+		try {
+			beginOperation();
+			for (int i = 0; i < resources.length; i++) {
+				result[i] = getRemoteBytes(internalGetSyncBytes(resources[i]));
+			}
+			return result;
 		} finally {
 			endOperation();
 		}
@@ -239,28 +323,69 @@ public class ThreeWaySynchronizer {
 			rule = beginBatching(resource, null);
 			try {
 				beginOperation();
-				byte[] syncBytes = internalGetSyncBytes(resource);
-				if (syncBytes == null) {
-					String[] slots = new String[] {
-							"", //$NON-NLS-1$
-							"", //$NON-NLS-1$
-							new String(remoteBytes)
-					};
-					syncBytes = toBytes(slots);
-				} else {
-					byte[] currentRemote = getSlot(syncBytes, 2);
-					if (equals(remoteBytes, currentRemote)) return false;
-					syncBytes = setSlot(syncBytes, 2, remoteBytes);
+				return internalSetRemoteBytes(resource, remoteBytes);
+			} finally {
+				endOperation();
+			}
+		} finally {
+			if (rule != null) endBatching(rule, null);
+		}
+	}
+
+	/**
+	 * Set the remote bytes for the given resources. This is equivalent
+	 * to calling <code>setRemoteBytes(IResource, byte[])</code> for each
+	 * resource but accesses the synchronizer only once and results in
+	 * a single change notification.
+	 *
+	 * @param resources the resources
+	 * @param remoteBytes the bytes that identify the remote resource variant
+	 * of the resource in the corresponding position
+	 * @return the resources whose remote bytes changed as a result of the set
+	 * @throws TeamException if an error occurs
+	 * @since 3.10
+	 */
+	public IResource[] setRemoteBytes(IResource[] resources, byte[][] remoteBytes) throws TeamException {
+		Assert.isTrue(resources.length == remoteBytes.length);
+		if (resources.length == 0) return resources;
+		List<IResource> changed = new ArrayList<>();
+		ISchedulingRule rule = null;
+		try {
+			rule = beginBatching(getBatchingRule(resources), null);
+			try {
+				beginOperation();
+				for (int i = 0; i < resources.length; i++) {
+					Assert.isNotNull(remoteBytes[i]);
+					if (internalSetRemoteBytes(resources[i], remoteBytes[i])) {
+						changed.add(resources[i]);
+					}
 				}
-				internalSetSyncBytes(resource, syncBytes);
-				batchingLock.resourceChanged(resource);
-				return true;
 			} finally {
 				endOperation();
 			}
 		} finally {
 			if (rule != null) endBatching(rule, null);
 		}
+		return changed.toArray(new IResource[changed.size()]);
+	}
+
+	private boolean internalSetRemoteBytes(IResource resource, byte[] remoteBytes) throws TeamException {
+		byte[] syncBytes = internalGetSyncBytes(resource);
+		if (syncBytes == null) {
+			String[] slots = new String[] {
+					"", //$NON-NLS-1$
+					"", //$NON-NLS-1$
+					new String(remoteBytes)
+			};
+			syncBytes = toBytes(slots);
+		} else {
+			byte[] currentRemote = getSlot(syncBytes, 2);
+			if (equals(remoteBytes, currentRemote)) return false;
+			syncBytes = setSlot(syncBytes, 2, remoteBytes);
+		}
+		internalSetSyncBytes(resource, syncBytes);
+		batchingLock.resourceChanged(resource);
+		return true;
 	}
 
 	/**
@@ -276,22 +401,58 @@ public class ThreeWaySynchronizer {
 			rule = beginBatching(resource, null);
 			try {
 				beginOperation();
-				byte[] syncBytes = internalGetSyncBytes(resource);
-				if (syncBytes != null) {
-					String currentRemote = new String(getSlot(syncBytes, 2));
-					if (currentRemote.length() == 0) return false;
-					syncBytes = setSlot(syncBytes, 2, new byte[0]);
-					internalSetSyncBytes(resource, syncBytes);
-					batchingLock.resourceChanged(resource);
-					return true;
+				return internalRemoveRemoteBytes(resource);
+			} finally {
+				endOperation();
+			}
+		} finally {
+			if (rule != null) endBatching(rule, null);
+		}
+	}
+
+	/**
+	 * Remove the remote bytes associated with the given resources. This is
+	 * equivalent to calling <code>removeRemoteBytes(IResource)</code> for each
+	 * resource but accesses the synchronizer only once and results in a single
+	 * change notification.
+	 * @param resources the resources
+	 * @return the resources whose remote bytes changed as a result of the removal
+	 * @throws TeamException if an error occurs
+	 * @since 3.10
+	 */
+	public IResource[] removeRemoteBytes(IResource[] resources) throws TeamException {
+		if (resources.length == 0) return resources;
+		List<IResource> changed = new ArrayList<>();
+		ISchedulingRule rule = null;
+		try {
+			rule = beginBatching(getBatchingRule(resources), null);
+			try {
+				beginOperation();
+				for (IResource resource : resources) {
+					if (internalRemoveRemoteBytes(resource)) {
+						changed.add(resource);
+					}
 				}
-				return false;
 			} finally {
 				endOperation();
 			}
 		} finally {
 			if (rule != null) endBatching(rule, null);
 		}
+		return changed.toArray(new IResource[changed.size()]);
+	}
+
+	private boolean internalRemoveRemoteBytes(IResource resource) throws TeamException {
+		byte[] syncBytes = internalGetSyncBytes(resource);
+		if (syncBytes != null) {
+			String currentRemote = new String(getSlot(syncBytes, 2));
+			if (currentRemote.length() == 0) return false;
+			syncBytes = setSlot(syncBytes, 2, new byte[0]);
+			internalSetSyncBytes(resource, syncBytes);
+			batchingLock.resourceChanged(resource);
+			return true;
+		}
+		return false;
 	}
 
 	/**
@@ -457,17 +618,25 @@ public class ThreeWaySynchronizer {
 		return SyncByteConverter.toBytes(slots);
 	}
 
-	private long getLocalTimestamp(IResource resource) throws TeamException {
-		try {
-			beginOperation();
-			byte[] syncBytes = internalGetSyncBytes(resource);
-			if (syncBytes == null) return -1;
-			byte[] bytes = getSlot(syncBytes, 0);
-			if (bytes == null || bytes.length == 0) return -1;
-			return Long.parseLong(new String(bytes));
-		} finally {
-			endOperation();
-		}
+	private long getLocalTimestamp(byte[] syncBytes) {
+		if (syncBytes == null) return -1;
+		byte[] bytes = getSlot(syncBytes, 0);
+		if (bytes == null || bytes.length == 0) return -1;
+		return Long.parseLong(new String(bytes));
+	}
+
+	private byte[] getBaseBytes(byte[] syncBytes) {
+		if (syncBytes == null) return null;
+		byte[] baseBytes = getSlot(syncBytes, 1);
+		if (baseBytes == null || baseBytes.length == 0) return null;
+		return baseBytes;
+	}
+
+	private byte[] getRemoteBytes(byte[] syncBytes) {
+		if (syncBytes == null) return null;
+		byte[] remoteBytes = getSlot(syncBytes, 2);
+		if (remoteBytes == null || remoteBytes.length == 0) return null;
+		return remoteBytes;
 	}
 
 	private boolean equals(byte[] syncBytes, byte[] oldBytes) {
@@ -510,6 +679,35 @@ public class ThreeWaySynchronizer {
 		return batchingLock.acquire(resourceRule, flushOperation /* IFlushOperation */, monitor);
 	}
 
+	/*
+	 * Return the rule to batch the changes of the given resources with.
+	 * The batching lock locks the parent of a resource, so any of the resources
+	 * is used if they have the same parent and the deepest container that
+	 * contains all of them otherwise. Projects are locked themselves.
+	 */
+	private ISchedulingRule getBatchingRule(IResource[] resources) {
+		IPath parent = resources[0].getFullPath().removeLastSegments(1);
+		boolean siblings = true;
+		for (IResource resource : resources) {
+			IPath path = resource.getFullPath().removeLastSegments(1);
+			if (!path.equals(parent)) {
+				parent = parent.uptoSegment(parent.matchingFirstSegments(path));
+				siblings = false;
+			}
+		}
+		if (siblings && (resources.length == 1 || parent.segmentCount() > 0)) return resources[0];
+		IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
+		switch (parent.segmentCount()) {
+			case 0:
+				// Lock the projects of the resources rather than the whole workspace
+				return MultiRule.combine(resources);
+			case 1:
+				return root.getProject(parent.segment(0));
+			default:
+				return root.getFolder(parent);
+		}
+	}
+
 	/*
 	 * Ends a batch of operations. The provided rule must be the one that was returned
 	 * by the corresponding call to beginBatching.
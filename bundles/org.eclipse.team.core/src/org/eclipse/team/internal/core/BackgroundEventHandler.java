@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2017 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -13,12 +13,15 @@
  *******************************************************************************/
 package org.eclipse.team.internal.core;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
 
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.IWorkspaceRunnable;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.jobs.IJobChangeEvent;
@@ -42,15 +45,19 @@ import org.eclipse.team.core.TeamException;
  * The event handler has the following characteristics:
  * </p>
  * <ol>
- * <li>Incoming events are placed in an incoming queue.</li>
+ * <li>Incoming events are placed in an incoming queue. A resource event that is
+ * covered by a pending event of the same kind on the resource or one of its ancestors
+ * is dropped (see <code>isCoveredBy</code>).</li>
  * <li>Each event is processed by calling the <code>processEvent</code> method
  * which is implemented by the subclass. The implementation may choose to process events
  * directly or queue events on an outgoing event queue</li>
  * <li>The <code>doDispatchEvents</code> method of the subclass is called at certain intervals
- * to give the subclass a chance to dispatch the events in it's outgoing queue. The interval between
- * the first 3 dispatches will be the <code>shortDispatchDelay</code> and subsequent intervals will be
- * the <code>longDispatchDelay</code>. This is done to avoid constantly hammering the UI for long running
- * operations.<li>
+ * to give the subclass a chance to dispatch the events in it's outgoing queue. The interval starts
+ * at the <code>dispatchLatencyTarget</code>. While events are waiting or keep arriving closer
+ * together than the wait delay, the interval doubles after the first 3 dispatches, and it is
+ * never shorter than a few times the measured cost of a dispatch, up to the
+ * <code>longDispatchDelay</code>. This is done to avoid constantly hammering the UI for long
+ * running operations. Once events stop arriving, the interval returns to the target.<li>
  * <li>Errors that occur during event processing or dispatch can be accumulated by calling the <code>handle</code>
  * method. Accumulated errors are used to form the status that is returned when the job completes.<li>
  * </ol>
@@ -65,7 +72,20 @@ public abstract class BackgroundEventHandler {
 	public static final int RUNNABLE_EVENT = 1000;
 
 	// Events that need to be processed
-	private List<Event> awaitingProcessing = new ArrayList<>();
+	private Deque<Event> awaitingProcessing = new ArrayDeque<>();
+
+	// The pending resource events that may cover events queued after them by
+	// path. They all belong to the run of events of the same kind at the end of
+	// the queue, any other event queued at the end starts a new run.
+	private Map<IPath, ResourceEvent> coveringEvents = new HashMap<>();
+
+	// Counters for the events passing through the queue
+	private long queuedCount;
+	private long coalescedCount;
+	private long processedCount;
+	private int maxQueueDepth;
+	private long totalLatency;
+	private long maxLatency;
 
 	// The job that runs when events need to be processed
 	private Job eventHandlerJob;
@@ -82,6 +102,19 @@ public abstract class BackgroundEventHandler {
 	// the number of dispatches that have occurred since the job started
 	private int dispatchCount;
 
+	// the time between dispatches chosen after the last dispatch, which is
+	// 0 if the dispatch latency target applies
+	private long dispatchDelay;
+
+	// moving averages of the time between queued events and of the time a
+	// dispatch takes, in milliseconds. The time between events is negative
+	// until it has been measured.
+	private double averageArrivalInterval = -1;
+	private double averageDispatchCost;
+
+	// time the last event was queued
+	private long timeOfLastArrival;
+
 	// time between event dispatches
 	private static final long DISPATCH_DELAY = 1500;
 
@@ -94,6 +127,12 @@ public abstract class BackgroundEventHandler {
 	// time to wait for messages to be queued
 	private static final long WAIT_DELAY = 100;
 
+	// the minimum time between dispatches as a multiple of the dispatch cost
+	private static final int DISPATCH_COST_FACTOR = 4;
+
+	// the weight of a new measurement in the moving averages
+	private static final double SMOOTHING = 0.25;
+
 	private String jobName;
 
 	/**
@@ -101,6 +140,8 @@ public abstract class BackgroundEventHandler {
 	 */
 	public static class Event {
 		private int type;
+		// the time the event was queued in nanoseconds
+		private long queueTime;
 		public Event(int type) {
 			this.type = type;
 		}
@@ -265,6 +306,7 @@ public abstract class BackgroundEventHandler {
 			// The handler has been shutdown. Clean up the queue.
 			synchronized(this) {
 				awaitingProcessing.clear();
+				coveringEvents.clear();
 			}
 		} else if (! isQueueEmpty()) {
 			// An event squeaked in as the job was finishing. Reschedule the job.
@@ -305,11 +347,22 @@ public abstract class BackgroundEventHandler {
 		if (Policy.DEBUG_BACKGROUND_EVENTS) {
 			System.out.println("Event queued on " + getName() + ":" + event.toString()); //$NON-NLS-1$ //$NON-NLS-2$
 		}
+		if (!front && isCovered(event)) {
+			coalescedCount++;
+			if (Policy.DEBUG_BACKGROUND_EVENTS) {
+				System.out.println("Event coalesced on " + getName() + ":" + event.toString()); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+			return;
+		}
+		event.queueTime = System.nanoTime();
+		recordArrival();
 		if (front) {
-			awaitingProcessing.add(0, event);
+			awaitingProcessing.addFirst(event);
 		} else {
-			awaitingProcessing.add(event);
+			awaitingProcessing.addLast(event);
 		}
+		queuedCount++;
+		maxQueueDepth = Math.max(maxQueueDepth, awaitingProcessing.size());
 		if (!isShutdown() && eventHandlerJob != null) {
 			if(eventHandlerJob.getState() == Job.NONE) {
 				schedule();
@@ -319,6 +372,76 @@ public abstract class BackgroundEventHandler {
 		}
 	}
 
+	/*
+	 * Update the average time between queued events. Idle periods count as
+	 * a bit more than the wait delay so that the average recovers quickly
+	 * at the start of the next burst of events.
+	 */
+	private void recordArrival() {
+		long now = System.currentTimeMillis();
+		if (timeOfLastArrival != 0) {
+			long interval = Math.min(now - timeOfLastArrival, 2 * getDispatchWaitDelay());
+			averageArrivalInterval = averageArrivalInterval < 0 ? interval
+					: averageArrivalInterval + SMOOTHING * (interval - averageArrivalInterval);
+		}
+		timeOfLastArrival = now;
+	}
+
+	/*
+	 * Return whether the given event, which is to be queued at the end of the
+	 * queue, is covered by a pending event. Otherwise, the event is recorded so
+	 * that it can cover the events queued after it.
+	 */
+	private boolean isCovered(Event event) {
+		ResourceEvent resourceEvent = event instanceof ResourceEvent ? (ResourceEvent) event : null;
+		// All covering events are of the same kind so any of them tells the kind of the run
+		ResourceEvent last = coveringEvents.isEmpty() ? null : coveringEvents.values().iterator().next();
+		if (resourceEvent == null || last == null || last.getClass() != event.getClass() || last.getType() != event.getType()) {
+			// The event starts a new run. Coalescing across other events could
+			// change the order in which the events take effect.
+			coveringEvents.clear();
+		} else {
+			IPath path = resourceEvent.getResource().getFullPath();
+			for (int i = path.segmentCount(); i >= 0; i--) {
+				ResourceEvent pending = coveringEvents.get(path.uptoSegment(i));
+				if (pending != null && isCoveredBy(resourceEvent, pending)) {
+					return true;
+				}
+			}
+		}
+		if (resourceEvent != null) {
+			IPath path = resourceEvent.getResource().getFullPath();
+			ResourceEvent pending = coveringEvents.get(path);
+			if (pending == null || pending.getDepth() < resourceEvent.getDepth()) {
+				coveringEvents.put(path, resourceEvent);
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Return whether processing the given pending event also takes care of the
+	 * given event. The events are of the same class and type and the resource of
+	 * the pending event is the resource of the event or one of its ancestors.
+	 * By default, an event is covered if the depth of the pending event includes
+	 * its resource and the descendants it applies to. Subclasses whose events
+	 * must all be processed can override this method to return <code>false</code>.
+	 * @param event the event to be queued
+	 * @param pending an event that has been queued before but not processed yet
+	 * @return whether the event can be dropped
+	 */
+	protected boolean isCoveredBy(ResourceEvent event, ResourceEvent pending) {
+		int distance = event.getResource().getFullPath().segmentCount() - pending.getResource().getFullPath().segmentCount();
+		switch (pending.getDepth()) {
+			case IResource.DEPTH_INFINITE :
+				return true;
+			case IResource.DEPTH_ONE :
+				return distance == 0 ? event.getDepth() != IResource.DEPTH_INFINITE : distance == 1 && event.getDepth() == IResource.DEPTH_ZERO;
+			default :
+				return distance == 0 && event.getDepth() == IResource.DEPTH_ZERO;
+		}
+	}
+
 	/**
 	 * Return the name that is to be associated with the background job.
 	 * @return the job name
@@ -335,14 +458,24 @@ public abstract class BackgroundEventHandler {
 		if (isShutdown() || isQueueEmpty()) {
 			return null;
 		}
-		return awaitingProcessing.remove(0);
+		Event event = awaitingProcessing.removeFirst();
+		if (event instanceof ResourceEvent) {
+			// A resource event that is being processed may already have passed
+			// the resources of the events queued from now on
+			coveringEvents.remove(event.getResource().getFullPath(), event);
+		}
+		long latency = System.nanoTime() - event.queueTime;
+		processedCount++;
+		totalLatency += latency;
+		maxLatency = Math.max(maxLatency, latency);
+		return event;
 	}
 
 	protected synchronized Event peek() {
 		if (isShutdown() || isQueueEmpty()) {
 			return null;
 		}
-		return awaitingProcessing.get(0);
+		return awaitingProcessing.peekFirst();
 	}
 
 	/**
@@ -378,6 +511,7 @@ public abstract class BackgroundEventHandler {
 			Event event;
 			timeOfLastDispatch = System.currentTimeMillis();
 			dispatchCount = 1;
+			dispatchDelay = 0;
 			while ((event = nextElement()) != null && ! isShutdown()) {
 				try {
 					processEvent(event, subMonitor);
@@ -394,6 +528,9 @@ public abstract class BackgroundEventHandler {
 			}
 		} finally {
 			monitor.done();
+			if (Policy.DEBUG_BACKGROUND_EVENTS) {
+				System.out.println("Event statistics of " + getName() + ": " + getStatistics()); //$NON-NLS-1$ //$NON-NLS-2$
+			}
 		}
 		return errors.getStatus();
 	}
@@ -405,13 +542,59 @@ public abstract class BackgroundEventHandler {
 	 * @throws TeamException
 	 */
 	protected final void dispatchEvents(IProgressMonitor monitor) throws TeamException {
+		long start = System.currentTimeMillis();
 		if (doDispatchEvents(monitor)) {
 			// something was dispatched so adjust dispatch count.
 			dispatchCount++;
+			long cost = System.currentTimeMillis() - start;
+			averageDispatchCost = averageDispatchCost + SMOOTHING * (cost - averageDispatchCost);
+			dispatchDelay = computeDispatchDelay();
 		}
 		timeOfLastDispatch = System.currentTimeMillis();
 	}
 
+	/*
+	 * Return the time to wait before the next dispatch or 0 if the latency
+	 * target applies. The target applies as long as the handler keeps up with
+	 * the incoming events and dispatches are cheap. Otherwise, the delay grows
+	 * so that the dispatches batch more events.
+	 */
+	private long computeDispatchDelay() {
+		long target = getDispatchLatencyTarget();
+		long delay = 0;
+		if (dispatchCount > DISPATCH_THRESHOLD && isEventStreamActive()) {
+			delay = Math.max(target, 2 * dispatchDelay);
+		}
+		// Spend most of the time processing events rather than dispatching them
+		long minimumDelay = (long) (averageDispatchCost * DISPATCH_COST_FACTOR);
+		if (minimumDelay > target) {
+			delay = Math.max(delay, minimumDelay);
+		}
+		delay = Math.min(delay, getLongDispatchDelay());
+		if (Policy.DEBUG_DISPATCH) {
+			double interval;
+			synchronized (this) {
+				interval = averageArrivalInterval;
+			}
+			System.out.println("Dispatch delay of " + getName() + ": " + Math.max(delay, target) + "ms (target: " + target //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+					+ "ms, dispatch cost: " + Math.round(averageDispatchCost) + "ms, event interval: " //$NON-NLS-1$ //$NON-NLS-2$
+					+ Math.round(interval) + "ms, dispatches: " + dispatchCount + ", pending events: " + getQueueDepth() + ")"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		}
+		return delay;
+	}
+
+	/*
+	 * Return whether events keep arriving: events are waiting to be processed
+	 * or they have been queued closer together than the wait delay, up to now.
+	 */
+	private synchronized boolean isEventStreamActive() {
+		if (!isQueueEmpty())
+			return true;
+		long sinceLastArrival = System.currentTimeMillis() - timeOfLastArrival;
+		return averageArrivalInterval >= 0
+				&& Math.max(averageArrivalInterval, sinceLastArrival) < getDispatchWaitDelay();
+	}
+
 	/**
 	 * Notify clients of processed events. Return <code>true</code> if there
 	 * was something to dispatch and false otherwise. This is used to help
@@ -442,9 +625,17 @@ public abstract class BackgroundEventHandler {
 				return false;
 			}
 			// There are no incoming events but we want to wait a little before
-			// dispatching in case more events come in.
+			// dispatching in case more events come in. If events have been
+			// arriving further apart than that, dispatch right away.
+			long waitDelay = getDispatchWaitDelay();
+			if (averageArrivalInterval >= waitDelay) {
+				if (Policy.DEBUG_DISPATCH) {
+					System.out.println("Dispatching without waiting on " + getName() + ", event interval: " + Math.round(averageArrivalInterval) + "ms"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				}
+				return true;
+			}
 			try {
-				wait(getDispatchWaitDelay());
+				wait(waitDelay);
 			} catch (InterruptedException e) {
 				// just continue
 			}
@@ -454,8 +645,18 @@ public abstract class BackgroundEventHandler {
 
 	private boolean isDispatchDelayExceeded() {
 		long duration = System.currentTimeMillis() - timeOfLastDispatch;
-		return ((dispatchCount < DISPATCH_THRESHOLD && duration >= getShortDispatchDelay()) ||
-				duration >= getLongDispatchDelay());
+		return duration >= getDispatchDelay();
+	}
+
+	/**
+	 * Return the time to wait after a dispatch before the next one. It is
+	 * the dispatch latency target unless dispatches are expensive or events
+	 * keep arriving.
+	 * @return the current dispatch delay in milliseconds
+	 */
+	protected final long getDispatchDelay() {
+		// The target may change between dispatches so it is not part of the chosen delay
+		return Math.max(dispatchDelay, getDispatchLatencyTarget());
 	}
 
 	/**
@@ -467,21 +668,30 @@ public abstract class BackgroundEventHandler {
 	}
 
 	/**
-	 * Return the value that is used to determine how often
-	 * the events are dispatched (i.e. how often the UI is
-	 * updated) for the first 3 cycles. The default value is 1.5 seconds.
-	 * After the first 3 cycles, a longer delay is used
-	 * @return the dispatch delay used for the first 3 cycles.
+	 * Return the time that processed events should at most wait before they
+	 * are dispatched (i.e. before the UI is updated) while the handler keeps
+	 * up with the incoming events. The delay between dispatches grows beyond
+	 * the target when dispatches are expensive or events keep arriving.
+	 * The default is the short dispatch delay.
+	 * @return the dispatch latency target in milliseconds
+	 */
+	protected long getDispatchLatencyTarget() {
+		return getShortDispatchDelay();
+	}
+
+	/**
+	 * Return the value that is used as the default dispatch latency
+	 * target. The default value is 1.5 seconds.
+	 * @return the default dispatch latency target.
 	 */
 	protected long getShortDispatchDelay() {
 		return DISPATCH_DELAY;
 	}
 
 	/**
-	 * Return the value that is used to determine how often
-	 * the events are dispatched (i.e. how often the UI is
-	 * updated) after the first 3 cycles. The default value is 10 seconds.
-	 * @return the dispatch delay used after the first 3 cycles.
+	 * Return the longest delay between dispatches when events keep arriving
+	 * or dispatches are expensive. The default value is 10 seconds.
+	 * @return the maximum dispatch delay.
 	 */
 	protected long getLongDispatchDelay() {
 		return LONG_DISPATCH_DELAY;
@@ -511,6 +721,80 @@ public abstract class BackgroundEventHandler {
 	 */
 	protected abstract void processEvent(Event event, IProgressMonitor monitor) throws CoreException;
 
+	/**
+	 * Return the number of events that are waiting to be processed.
+	 * @return the number of events in the queue
+	 */
+	public synchronized int getQueueDepth() {
+		return awaitingProcessing.size();
+	}
+
+	/**
+	 * Return the largest number of events that were waiting to be processed
+	 * at the same time.
+	 * @return the maximum number of events in the queue
+	 */
+	public synchronized int getMaxQueueDepth() {
+		return maxQueueDepth;
+	}
+
+	/**
+	 * Return the number of events that were queued, not counting the events
+	 * that were dropped because a pending event covered them.
+	 * @return the number of queued events
+	 */
+	public synchronized long getQueuedEventCount() {
+		return queuedCount;
+	}
+
+	/**
+	 * Return the number of events that were dropped because a pending event
+	 * covered them.
+	 * @return the number of coalesced events
+	 */
+	public synchronized long getCoalescedEventCount() {
+		return coalescedCount;
+	}
+
+	/**
+	 * Return the number of events that were removed from the queue for
+	 * processing.
+	 * @return the number of processed events
+	 */
+	public synchronized long getProcessedEventCount() {
+		return processedCount;
+	}
+
+	/**
+	 * Return the average time in nanoseconds the processed events waited in
+	 * the queue.
+	 * @return the average queue latency in nanoseconds
+	 */
+	public synchronized long getAverageLatency() {
+		return processedCount == 0 ? 0 : totalLatency / processedCount;
+	}
+
+	/**
+	 * Return the longest time in nanoseconds a processed event waited in the
+	 * queue.
+	 * @return the maximum queue latency in nanoseconds
+	 */
+	public synchronized long getMaxLatency() {
+		return maxLatency;
+	}
+
+	private synchronized String getStatistics() {
+		StringBuilder buffer = new StringBuilder();
+		buffer.append("queued: ").append(queuedCount); //$NON-NLS-1$
+		buffer.append(" coalesced: ").append(coalescedCount); //$NON-NLS-1$
+		buffer.append(" processed: ").append(processedCount); //$NON-NLS-1$
+		buffer.append(" depth: ").append(awaitingProcessing.size()); //$NON-NLS-1$
+		buffer.append(" max depth: ").append(maxQueueDepth); //$NON-NLS-1$
+		buffer.append(" average latency: ").append(getAverageLatency() / 1000000).append("ms"); //$NON-NLS-1$ //$NON-NLS-2$
+		buffer.append(" max latency: ").append(maxLatency / 1000000).append("ms"); //$NON-NLS-1$ //$NON-NLS-2$
+		return buffer.toString();
+	}
+
 	/**
 	 * Return the job from which the <code>processedEvent</code> method is invoked.
 	 * @return Returns the background event handling job.
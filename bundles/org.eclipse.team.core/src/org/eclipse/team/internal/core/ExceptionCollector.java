@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2017 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -61,7 +61,7 @@ public class ExceptionCollector {
 	/**
 	 * Clears the exceptions collected.
 	 */
-	public void clear() {
+	public synchronized void clear() {
 		statuses.clear();
 	}
 
@@ -72,7 +72,7 @@ public class ExceptionCollector {
 	 * @return a multistatus containing the exceptions collected or IStatus.OK if
 	 * the collector is empty.
 	 */
-	public IStatus getStatus() {
+	public synchronized IStatus getStatus() {
 		if(statuses.isEmpty()) {
 			return Status.OK_STATUS;
 		} else {
@@ -93,7 +93,7 @@ public class ExceptionCollector {
 	 *
 	 * @param exception the exception to collect
 	 */
-	public void handleException(CoreException exception) {
+	public synchronized void handleException(CoreException exception) {
 		// log the exception if we have a log
 		if(log != null) {
 			log.log(new Status(severity, pluginId, 0, message, exception));
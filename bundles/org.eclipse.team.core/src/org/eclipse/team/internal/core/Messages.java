@@ -88,7 +88,6 @@ public class Messages extends NLS {
 	public static String SubscriberEventHandler_11;
 	public static String CachedResourceVariant_0;
 	public static String CachedResourceVariant_1;
-	public static String SyncInfoTree_0;
 	public static String ResourceVariantTreeSubscriber_1;
 	public static String ResourceVariantTreeSubscriber_2;
 	public static String ResourceVariantTreeSubscriber_3;
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2018 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -26,14 +26,18 @@ public class Policy {
 	public static boolean DEBUG_STREAMS = false;
 	public static boolean DEBUG_REFRESH_JOB = true;
 	public static boolean DEBUG_BACKGROUND_EVENTS = false;
+	public static boolean DEBUG_DISPATCH = false;
 	public static boolean DEBUG_THREADING = false;
+	public static boolean DEBUG_CONTENT_CACHE = false;
 
 	static final DebugOptionsListener DEBUG_OPTIONS_LISTENER = options -> {
 		DEBUG = options.getBooleanOption(TeamPlugin.ID + "/debug", false); //$NON-NLS-1$
 		DEBUG_STREAMS = DEBUG && options.getBooleanOption(TeamPlugin.ID + "/streams", false); //$NON-NLS-1$
 		DEBUG_REFRESH_JOB = DEBUG && options.getBooleanOption(TeamPlugin.ID + "/refreshjob", false); //$NON-NLS-1$
 		DEBUG_BACKGROUND_EVENTS = DEBUG && options.getBooleanOption(TeamPlugin.ID + "/backgroundevents", false); //$NON-NLS-1$
+		DEBUG_DISPATCH = DEBUG && options.getBooleanOption(TeamPlugin.ID + "/dispatch", false); //$NON-NLS-1$
 		DEBUG_THREADING = DEBUG && options.getBooleanOption(TeamPlugin.ID + "/threading", false); //$NON-NLS-1$
+		DEBUG_CONTENT_CACHE = DEBUG && options.getBooleanOption(TeamPlugin.ID + "/contentcache", false); //$NON-NLS-1$
 	};
 
 	/**
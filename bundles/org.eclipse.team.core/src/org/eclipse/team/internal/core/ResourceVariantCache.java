@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2017 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -13,51 +13,85 @@
  *******************************************************************************/
 package org.eclipse.team.internal.core;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.eclipse.core.runtime.IPath;
-import org.eclipse.core.runtime.jobs.ILock;
-import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.core.runtime.Platform;
 import org.eclipse.osgi.util.NLS;
 import org.eclipse.team.core.TeamException;
 import org.eclipse.team.core.variants.CachedResourceVariant;
 
 /**
- * This class implements a caching facility that can be used by TeamProviders to cache contents
+ * This class implements a caching facility that can be used by TeamProviders to cache contents.
+ * <p>
+ * The contents are stored in files named by the hash of the contents, so entries
+ * with the same contents share a file. An index of the entries with contents is
+ * written when the cache is shut down and read when it is enabled again, so the
+ * contents survive restarts. When the contents exceed the size limit, the least
+ * recently used entries are removed.
+ * </p>
  */
 public class ResourceVariantCache {
 
 	// Directory to cache file contents
 	private static final String CACHE_DIRECTORY = ".cache"; //$NON-NLS-1$
-	// Maximum lifespan of local cache file, in milliseconds
+	// File listing the entries with contents, in the directory of the cache
+	private static final String INDEX_FILE = "index"; //$NON-NLS-1$
+	// First line of the index file, change when the format changes
+	private static final String INDEX_HEADER = "ResourceVariantCache 1"; //$NON-NLS-1$
+	// Suffix of files that are being written
+	private static final String TEMP_FILE_SUFFIX = ".tmp"; //$NON-NLS-1$
+	// Algorithm used to name content files
+	private static final String CONTENT_HASH_ALGORITHM = "SHA-256"; //$NON-NLS-1$
+	// Maximum lifespan of a cache entry without contents, in milliseconds
 	private static final long CACHE_FILE_LIFESPAN = 60*60*1000; // 1hr
+	// Default maximum size of the cached contents, in megabytes
+	private static final long DEFAULT_SIZE_LIMIT = 256;
 
 	// Map of registered caches indexed by local name of a QualifiedName
 	private static Map<String, ResourceVariantCache> caches = new HashMap<>(); // String (local name) > RemoteContentsCache
 
 	private String name;
+	// Entries in least recently used order
 	private Map<String, ResourceVariantCacheEntry> cacheEntries;
+	// {content hash -> number of entries with these contents}
+	private Map<String, Integer> contentReferences;
+	// Size of the content files in bytes
+	private long contentSize;
+	private long sizeLimit;
 	private long lastCacheCleanup;
-	private int cacheDirSize;
-
-	// Lock used to serialize the writing of cache contents
-	private ILock lock = Job.getJobManager().newLock();
 
 	/**
 	 * Enables the use of remote contents caching for the given cacheId. The cache ID must be unique.
 	 * A good candidate for this ID is the plugin ID of the plugin performing the caching.
+	 * Contents cached in a previous session are available again.
 	 *
 	 * @param cacheId the unique Id of the cache being enabled
 	 */
 	public static synchronized void enableCaching(String cacheId) {
 		if (isCachingEnabled(cacheId)) return;
 		ResourceVariantCache cache = new ResourceVariantCache(cacheId);
-		cache.createCacheDirectory();
+		cache.openCacheDirectory();
 		caches.put(cacheId, cache);
 	}
 
@@ -97,15 +131,25 @@ public class ResourceVariantCache {
 		return caches.get(cacheId);
 	}
 
+	/**
+	 * Close all caches, keeping their contents for the next session.
+	 */
 	public static synchronized void shutdown() {
-		String[] keys = caches.keySet().toArray(new String[caches.size()]);
-		for (String id : keys) {
-			disableCache(id);
+		for (ResourceVariantCache cache : caches.values()) {
+			cache.closeCacheDirectory();
 		}
+		caches.clear();
 	}
 
 	private ResourceVariantCache(String name) {
 		this.name = name;
+		this.sizeLimit = getDefaultSizeLimit() * 1024 * 1024;
+	}
+
+	private static long getDefaultSizeLimit() {
+		if (TeamPlugin.getPlugin() == null)
+			return DEFAULT_SIZE_LIMIT;
+		return Platform.getPreferencesService().getLong(TeamPlugin.ID, TeamPlugin.PREF_CACHE_SIZE_LIMIT, DEFAULT_SIZE_LIMIT, null);
 	}
 
 	/**
@@ -125,59 +169,185 @@ public class ResourceVariantCache {
 		return TeamPlugin.getPlugin().getStateLocation();
 	}
 
-	private synchronized void clearOldCacheEntries() {
-		long current = new Date().getTime();
-		if ((lastCacheCleanup!=-1) && (current - lastCacheCleanup < CACHE_FILE_LIFESPAN)) return;
+	private void clearOldCacheEntries() {
+		for (ResourceVariantCacheEntry entry : getOldCacheEntries()) {
+			entry.dispose();
+		}
+	}
+
+	/*
+	 * Return the entries without contents that have not been accessed for a while.
+	 * The entries are disposed after the monitor of this cache has been released,
+	 * as disposing requires the monitor of the entry.
+	 */
+	private synchronized List<ResourceVariantCacheEntry> getOldCacheEntries() {
 		List<ResourceVariantCacheEntry> stale = new ArrayList<>();
+		long current = new Date().getTime();
+		if ((lastCacheCleanup!=-1) && (current - lastCacheCleanup < CACHE_FILE_LIFESPAN)) return stale;
+		lastCacheCleanup = current;
 		for (ResourceVariantCacheEntry entry : cacheEntries.values()) {
 			long lastHit = entry.getLastAccessTimeStamp();
-			if ((current - lastHit) > CACHE_FILE_LIFESPAN){
+			if (entry.getState() == ResourceVariantCacheEntry.UNINITIALIZED && (current - lastHit) > CACHE_FILE_LIFESPAN){
 				stale.add(entry);
 			}
 		}
-		for (ResourceVariantCacheEntry entry : stale) {
-			entry.dispose();
+		return stale;
+	}
+
+	/*
+	 * Return the least recently used entries that have to be removed for the
+	 * contents to fit the size limit. The given entry is never removed.
+	 */
+	private synchronized List<ResourceVariantCacheEntry> getEntriesToEvict(ResourceVariantCacheEntry added) {
+		List<ResourceVariantCacheEntry> evicted = new ArrayList<>();
+		if (cacheEntries == null || contentSize <= sizeLimit) return evicted;
+		long size = contentSize;
+		Map<String, Integer> references = new HashMap<>();
+		for (ResourceVariantCacheEntry entry : cacheEntries.values()) {
+			if (size <= sizeLimit) break;
+			String hash = entry.getContentHash();
+			if (entry == added || hash == null) continue;
+			evicted.add(entry);
+			int count = references.getOrDefault(hash, contentReferences.get(hash)) - 1;
+			references.put(hash, count);
+			if (count == 0) {
+				size -= entry.getStoredSize();
+			}
 		}
+		return evicted;
 	}
 
-	private synchronized void purgeFromCache(String id) {
-		ResourceVariantCacheEntry entry = cacheEntries.get(id);
-		File f = entry.getFile();
+	private synchronized void purgeFromCache(String id, ResourceVariantCacheEntry entry) {
+		// The entry may have been replaced by a new entry for the id
+		if (cacheEntries == null || cacheEntries.get(id) != entry) return;
+		cacheEntries.remove(id);
+		String hash = entry.getContentHash();
+		if (hash != null) {
+			releaseContents(hash, entry.getStoredSize());
+		}
+	}
+
+	private void releaseContents(String hash, long size) {
+		Integer count = contentReferences.get(hash);
+		if (count == null) return;
+		if (count > 1) {
+			contentReferences.put(hash, count - 1);
+			return;
+		}
+		contentReferences.remove(hash);
+		contentSize -= size;
 		try {
-			deleteFile(f);
+			deleteFile(getContentFile(hash));
 		} catch (TeamException e) {
 			// Ignore the deletion failure.
-			// A failure only really matters when purging the directory on startup
+			// Unreferenced files are removed when the cache is enabled again
 		}
-		cacheEntries.remove(id);
 	}
 
-	private synchronized void createCacheDirectory() {
+	private synchronized void openCacheDirectory() {
+		cacheEntries = new LinkedHashMap<>(16, 0.75f, true);
+		contentReferences = new HashMap<>();
+		contentSize = 0;
+		lastCacheCleanup = -1;
 		IPath cacheLocation = getCachePath();
 		File file = cacheLocation.toFile();
-		if (file.exists()) {
+		if (file.isDirectory()) {
+			readIndex(file);
+			deleteUnreferencedFiles(file);
+		} else if (file.exists()) {
 			try {
 				deleteFile(file);
 			} catch (TeamException e) {
-				// Check to see if were in an acceptable state
-				File[] fileList = file.listFiles();
-				if (file.exists() && (!file.isDirectory() || (fileList != null && fileList.length != 0))) {
-					TeamPlugin.log(e);
-				}
+				TeamPlugin.log(e);
 			}
 		}
 		if (! file.exists() && ! file.mkdirs()) {
 			TeamPlugin.log(new TeamException(NLS.bind(Messages.RemoteContentsCache_fileError, new String[] { file.getAbsolutePath() })));
 		}
-		cacheEntries = new HashMap<>();
-		lastCacheCleanup = -1;
-		cacheDirSize = 0;
+	}
+
+	/*
+	 * Restore the entries with contents from the index. Each line of the index
+	 * holds the hash and size of the contents, the last access time stamp and
+	 * the id of an entry. The lines are in least recently used order.
+	 */
+	private void readIndex(File directory) {
+		File indexFile = new File(directory, INDEX_FILE);
+		if (!indexFile.exists()) return;
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(indexFile), StandardCharsets.UTF_8))) {
+			if (!INDEX_HEADER.equals(reader.readLine())) {
+				// An index of an unknown format, start over
+				return;
+			}
+			String line;
+			while ((line = reader.readLine()) != null) {
+				String[] fields = line.split(" ", 4); //$NON-NLS-1$
+				if (fields.length != 4) continue;
+				String hash = fields[0];
+				long size = Long.parseLong(fields[1]);
+				long lastAccess = Long.parseLong(fields[2]);
+				String id = fields[3];
+				if (getContentFile(hash).length() != size || cacheEntries.containsKey(id)) continue;
+				cacheEntries.put(id, new ResourceVariantCacheEntry(this, id, hash, size, lastAccess));
+				addContents(hash, size);
+			}
+		} catch (IOException | NumberFormatException e) {
+			// Keep the entries read so far, the contents of the others are deleted
+			TeamPlugin.log(new TeamException(NLS.bind(Messages.RemoteContentsCache_fileError, new String[] { indexFile.getAbsolutePath() }), e));
+		}
+	}
+
+	private void deleteUnreferencedFiles(File directory) {
+		File[] files = directory.listFiles();
+		if (files == null) return;
+		for (File file : files) {
+			String fileName = file.getName();
+			if (!fileName.equals(INDEX_FILE) && !contentReferences.containsKey(fileName)) {
+				try {
+					deleteFile(file);
+				} catch (TeamException e) {
+					// Ignore, the file will be deleted the next time the cache is enabled
+				}
+			}
+		}
+	}
+
+	private synchronized void closeCacheDirectory() {
+		if (cacheEntries == null) return;
+		writeIndex();
+		cacheEntries = null;
+		contentReferences = null;
+	}
+
+	private void writeIndex() {
+		File indexFile = getCachePath().append(INDEX_FILE).toFile();
+		File tempFile = new File(indexFile.getPath() + TEMP_FILE_SUFFIX);
+		try {
+			try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(tempFile), StandardCharsets.UTF_8))) {
+				writer.write(INDEX_HEADER);
+				writer.write('\n');
+				List<ResourceVariantCacheEntry> entries = new ArrayList<>(cacheEntries.values());
+				// The access order is lost when the index is read, so sort by time stamp
+				entries.sort(Comparator.comparingLong(ResourceVariantCacheEntry::getLastAccessTimeStamp));
+				for (ResourceVariantCacheEntry entry : entries) {
+					String id = entry.getId();
+					String hash = entry.getContentHash();
+					if (hash == null || id.indexOf('\n') != -1 || id.indexOf('\r') != -1) continue;
+					writer.write(hash + ' ' + entry.getStoredSize() + ' ' + entry.getLastAccessTimeStamp() + ' ' + id + '\n');
+				}
+			}
+			Files.move(tempFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			tempFile.delete();
+			TeamPlugin.log(new TeamException(NLS.bind(Messages.RemoteContentsCache_fileError, new String[] { indexFile.getAbsolutePath() }), e));
+		}
 	}
 
 	private synchronized void deleteCacheDirectory() {
 		cacheEntries = null;
+		contentReferences = null;
+		contentSize = 0;
 		lastCacheCleanup = -1;
-		cacheDirSize = 0;
 		IPath cacheLocation = getCachePath();
 		File file = cacheLocation.toFile();
 		if (file.exists()) {
@@ -211,7 +381,81 @@ public class ResourceVariantCache {
 	 * @param entry
 	 */
 	protected void purgeFromCache(ResourceVariantCacheEntry entry) {
-		purgeFromCache(entry.getId());
+		purgeFromCache(entry.getId(), entry);
+	}
+
+	/**
+	 * Return the file holding the contents with the given hash.
+	 * @param hash the hash of the contents
+	 * @return the content file
+	 */
+	protected File getContentFile(String hash) {
+		return new File(getCachePath().toFile(), hash);
+	}
+
+	/**
+	 * Create a file for contents that are about to be cached.
+	 * @return the new file
+	 * @throws IOException if the file cannot be created
+	 */
+	protected File createTempFile() throws IOException {
+		return Files.createTempFile(getCachePath().toFile().toPath(), "contents", TEMP_FILE_SUFFIX).toFile(); //$NON-NLS-1$
+	}
+
+	/**
+	 * Return a digest for computing the hash of cached contents.
+	 * @return a new digest
+	 */
+	protected static MessageDigest newContentDigest() {
+		try {
+			return MessageDigest.getInstance(CONTENT_HASH_ALGORITHM);
+		} catch (NoSuchAlgorithmException e) {
+			// Every Java platform supports SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Move the given file with the contents of the given entry to the file named by
+	 * the hash of the contents, unless other entries already share the contents.
+	 * This method should only be invoked from an instance of ResourceVariantCacheEntry.
+	 * @param entry the entry the contents were written for
+	 * @param tempFile the file the contents were written to
+	 * @param hash the hash of the contents
+	 * @return whether the contents were stored, <code>false</code> if the entry has been removed
+	 * @throws IOException if the file cannot be moved
+	 */
+	protected boolean storeContents(ResourceVariantCacheEntry entry, File tempFile, String hash) throws IOException {
+		synchronized (this) {
+			if (cacheEntries == null || cacheEntries.get(entry.getId()) != entry) {
+				// The entry has been removed while its contents were written
+				Files.delete(tempFile.toPath());
+				return false;
+			}
+			if (contentReferences.containsKey(hash)) {
+				Files.delete(tempFile.toPath());
+			} else {
+				Files.move(tempFile.toPath(), getContentFile(hash).toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			}
+			long size = getContentFile(hash).length();
+			addContents(hash, size);
+			// The entry holds a reference to the contents once it knows their hash
+			entry.contentsStored(hash, size);
+		}
+		for (ResourceVariantCacheEntry evicted : getEntriesToEvict(entry)) {
+			evicted.dispose();
+		}
+		return true;
+	}
+
+	private void addContents(String hash, long size) {
+		Integer count = contentReferences.get(hash);
+		if (count == null) {
+			contentReferences.put(hash, 1);
+			contentSize += size;
+		} else {
+			contentReferences.put(hash, count + 1);
+		}
 	}
 
 	private synchronized ResourceVariantCacheEntry internalGetCacheEntry(String id) {
@@ -234,23 +478,43 @@ public class ResourceVariantCache {
 		return internalGetCacheEntry(id);
 	}
 
-	public synchronized ResourceVariantCacheEntry add(String id, CachedResourceVariant resource) {
+	/**
+	 * Cache the given handle. If there is already an entry for the id, its handle is
+	 * replaced and its contents remain.
+	 * @param id the id that uniquely identifies the remote resource that is cached.
+	 * @param resource the handle to cache
+	 * @return the cache entry
+	 */
+	public ResourceVariantCacheEntry add(String id, CachedResourceVariant resource) {
 		clearOldCacheEntries();
-		String filePath = String.valueOf(cacheDirSize++);
-		ResourceVariantCacheEntry entry = new ResourceVariantCacheEntry(this, lock, id, filePath);
-		entry.setResourceVariant(resource);
-		cacheEntries.put(id, entry);
-		return entry;
+		synchronized (this) {
+			ResourceVariantCacheEntry entry = internalGetCacheEntry(id);
+			if (entry == null) {
+				entry = new ResourceVariantCacheEntry(this, id);
+				cacheEntries.put(id, entry);
+			}
+			entry.setResourceVariant(resource);
+			return entry;
+		}
 	}
 
 	public String getName() {
 		return name;
 	}
 
+	/**
+	 * Set the maximum size of the cached contents. Least recently used entries
+	 * are removed when new contents exceed the limit.
+	 * @param sizeLimit the limit in bytes
+	 */
+	public synchronized void setSizeLimit(long sizeLimit) {
+		this.sizeLimit = sizeLimit;
+	}
+
 	/*
 	 * Method used for testing only
 	 */
-	public ResourceVariantCacheEntry[] getEntries() {
+	public synchronized ResourceVariantCacheEntry[] getEntries() {
 		return cacheEntries.values().toArray(new ResourceVariantCacheEntry[cacheEntries.size()]);
 	}
 
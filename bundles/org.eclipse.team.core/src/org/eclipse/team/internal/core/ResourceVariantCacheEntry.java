@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2009 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -13,20 +13,25 @@
  *******************************************************************************/
 package org.eclipse.team.internal.core;
 
-import java.io.BufferedOutputStream;
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
 import java.util.Date;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.eclipse.core.runtime.IProgressMonitor;
-import org.eclipse.core.runtime.jobs.ILock;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.osgi.util.NLS;
 import org.eclipse.team.core.TeamException;
 import org.eclipse.team.core.variants.CachedResourceVariant;
@@ -40,23 +45,42 @@ public class ResourceVariantCacheEntry {
 	public static final int READY = 1;
 	public static final int DISPOSED = 2;
 
+	// Number of bytes transferred between checks for cancellation
+	private static final long TRANSFER_SIZE = 64 * 1024;
+	// Time between checks for cancellation while waiting for another write, in milliseconds
+	private static final long WAIT_INTERVAL = 100;
+
 	private String id;
-	private String filePath;
+	// the hash of the contents, which names the file holding them
+	private volatile String contentHash;
+	private volatile long size;
 	private ResourceVariantCache cache;
-	private int state = UNINITIALIZED;
-	private long lastAccess;
+	private volatile int state = UNINITIALIZED;
+	private volatile long lastAccess;
 	private CachedResourceVariant resourceVariant;
-	private ILock lock;
+	// the write in progress, completed with whether the contents were cached
+	private CompletableFuture<Boolean> write;
 
-	public ResourceVariantCacheEntry(ResourceVariantCache cache, ILock lock, String id, String filePath) {
-		this.lock = lock;
+	public ResourceVariantCacheEntry(ResourceVariantCache cache, String id) {
 		state = UNINITIALIZED;
 		this.cache = cache;
 		this.id = id;
-		this.filePath = filePath;
 		registerHit();
 	}
 
+	/**
+	 * Create an entry for contents that were cached in a previous session.
+	 * The entry has no resource variant until one is set.
+	 */
+	ResourceVariantCacheEntry(ResourceVariantCache cache, String id, String contentHash, long size, long lastAccess) {
+		state = READY;
+		this.cache = cache;
+		this.id = id;
+		this.contentHash = contentHash;
+		this.size = size;
+		this.lastAccess = lastAccess;
+	}
+
 	public InputStream getContents() throws TeamException {
 		if (state != READY) return null;
 		registerHit();
@@ -80,89 +104,122 @@ public class ResourceVariantCacheEntry {
 	}
 
 	protected File getFile() {
-		return new File(cache.getCachePath().toFile(), filePath);
+		return cache.getContentFile(contentHash);
 	}
 
 	/**
-	 * Set the contents of for this cache entry. This method supports concurrency by only allowing
-	 * one cache entry to be written at a time. In the case of two concurrent writes to the same cache entry,
-	 * the contents from the first write is used and the content from subsequent writes is ignored.
+	 * Set the contents of for this cache entry. Only one write at a time is allowed
+	 * for each entry, entries are written concurrently. In the case of two concurrent
+	 * writes to the same cache entry, the contents from the first write is used and
+	 * the second write waits for the first one. Its stream is only read if the first
+	 * write fails.
 	 * @param stream an InputStream that provides the contents to be cached
 	 * @param monitor a progress monitor
-	 * @throws TeamException if the entry is DISPOSED or an I/O error occurred
+	 * @throws TeamException if the entry is or becomes DISPOSED or an I/O error occurred
 	 */
 	public void setContents(InputStream stream, IProgressMonitor monitor) throws TeamException {
-		// Use a lock to only allow one write at a time
-		beginOperation();
 		try {
-			internalSetContents(stream, monitor);
+			CompletableFuture<Boolean> future;
+			while (true) {
+				synchronized (this) {
+					// if the state is DISPOSED then there is a problem
+					if (state == DISPOSED) {
+						throw new TeamException(NLS.bind(Messages.RemoteContentsCacheEntry_3, new String[] { cache.getName(), id }));
+					}
+					// If the entry is READY, the contents must have been read in another thread.
+					// They can be ignored since presumably they are the same
+					if (state == READY) {
+						registerHit();
+						return;
+					}
+					if (write == null) {
+						write = future = new CompletableFuture<>();
+						break;
+					}
+					future = write;
+				}
+				if (waitForWrite(future, monitor)) {
+					return;
+				}
+			}
+			boolean cached = false;
+			try {
+				internalSetContents(stream, monitor);
+				cached = state == READY;
+			} finally {
+				synchronized (this) {
+					write = null;
+				}
+				future.complete(cached);
+			}
 		} finally {
-			endOperation();
+			try {
+				stream.close();
+			} catch (IOException e1) {
+				// Ignore close errors
+			}
 		}
 	}
 
-	private void endOperation() {
-		lock.release();
-	}
-
-	private void beginOperation() {
-		lock.acquire();
+	/*
+	 * Wait for the write of another thread and return whether it cached the contents.
+	 * If it did not, the caller checks the state of the entry again, which reports an
+	 * entry that was disposed in the meantime.
+	 */
+	private boolean waitForWrite(CompletableFuture<Boolean> future, IProgressMonitor monitor) {
+		while (true) {
+			Policy.checkCanceled(monitor);
+			try {
+				return future.get(WAIT_INTERVAL, TimeUnit.MILLISECONDS);
+			} catch (TimeoutException e) {
+				// check for cancellation and wait again
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new OperationCanceledException();
+			} catch (ExecutionException e) {
+				// the future is always completed normally
+				return false;
+			}
+		}
 	}
 
 	private void internalSetContents(InputStream stream, IProgressMonitor monitor) throws TeamException {
-		// if the state is DISPOSED then there is a problem
-		if (state == DISPOSED) {
-			throw new TeamException(NLS.bind(Messages.RemoteContentsCacheEntry_3, new String[] { cache.getName(), id }));
-		}
-		// Otherwise, the state is UNINITIALIZED or READY so we can proceed
 		registerHit();
-		File ioFile = getFile();
+		File ioFile = null;
 		try {
-
-			// Open the cache file for writing
-			OutputStream out;
-			try {
-				if (state == UNINITIALIZED) {
-					out = new BufferedOutputStream(new FileOutputStream(ioFile));
-				} else {
-					// If the entry is READY, the contents must have been read in another thread.
-					// We still need to red the contents but they can be ignored since presumably they are the same
-					out = new ByteArrayOutputStream();
+			// Write to a new file, it is named by the hash of the contents once they are written
+			ioFile = cache.createTempFile();
+			MessageDigest digest = ResourceVariantCache.newContentDigest();
+			try (FileChannel out = FileChannel.open(ioFile.toPath(), StandardOpenOption.WRITE);
+					ReadableByteChannel in = Channels.newChannel(new DigestInputStream(stream, digest))) {
+				long position = 0;
+				long transferred;
+				while ((transferred = out.transferFrom(in, position, TRANSFER_SIZE)) > 0) {
+					position += transferred;
+					Policy.checkCanceled(monitor);
 				}
-			} catch (FileNotFoundException e) {
-				throw new TeamException(NLS.bind(Messages.RemoteContentsCache_fileError, new String[] { ioFile.getAbsolutePath() }), e);
 			}
 
-			// Transfer the contents
-			try {
-				try {
-					byte[] buffer = new byte[1024];
-					int read;
-					while ((read = stream.read(buffer)) >= 0) {
-						Policy.checkCanceled(monitor);
-						out.write(buffer, 0, read);
-					}
-				} finally {
-					out.close();
+			if (!cache.storeContents(this, ioFile, toHexString(digest.digest()))) {
+				// The entry was removed from the cache while its contents were written
+				ioFile = null;
+				throw new TeamException(NLS.bind(Messages.RemoteContentsCacheEntry_3, new String[] { cache.getName(), id }));
+			}
+			synchronized (this) {
+				// Mark the cache entry as ready unless it was disposed in the meantime
+				if (state != DISPOSED) {
+					state = READY;
 				}
-			} catch (IOException e) {
-				// Make sure we don't leave the cache file around as it may not have the right contents
-				cache.purgeFromCache(this);
-				throw e;
 			}
-
-			// Mark the cache entry as ready
-			state = READY;
+			ioFile = null;
 		} catch (IOException e) {
-			throw new TeamException(NLS.bind(Messages.RemoteContentsCache_fileError, new String[] { ioFile.getAbsolutePath() }), e);
+			throw new TeamException(NLS.bind(Messages.RemoteContentsCache_fileError, new String[] { ioFile != null ? ioFile.getAbsolutePath() : cache.getCachePath().toOSString() }), e);
 		} finally {
-			try {
-				stream.close();
-			} catch (IOException e1) {
-				// Ignore close errors
+			// Make sure we don't leave a file around that may not have the right contents
+			if (ioFile != null) {
+				ioFile.delete();
 			}
 		}
-
 	}
 
 	/*
@@ -177,11 +234,34 @@ public class ResourceVariantCacheEntry {
 	 */
 	public long getSize() {
 		if (state != READY) return 0;
-		File ioFile = getFile();
-		if (ioFile.exists()) {
-			return ioFile.length();
-		}
-		return 0;
+		return size;
+	}
+
+	/**
+	 * Return the hash of the contents of this entry or <code>null</code> if no
+	 * contents have been cached.
+	 * @return the hash of the contents or <code>null</code>
+	 */
+	public String getContentHash() {
+		return contentHash;
+	}
+
+	/*
+	 * Return the size of the stored contents regardless of the state of the entry.
+	 */
+	long getStoredSize() {
+		return size;
+	}
+
+	/**
+	 * Record the contents stored for this entry. This method is intended to only be
+	 * invoked from the cache while it counts the reference to the contents.
+	 * @param hash the hash of the contents
+	 * @param length the size of the contents in bytes
+	 */
+	void contentsStored(String hash, long length) {
+		size = length;
+		contentHash = hash;
 	}
 
 	/*
@@ -201,17 +281,13 @@ public class ResourceVariantCacheEntry {
 	}
 
 	public void dispose() {
-		// Use a lock to avoid changing state while another thread may be writing
-		beginOperation();
-		try {
+		// A write in progress notices that the entry is gone when it stores the contents
+		synchronized (this) {
 			state = DISPOSED;
-			cache.purgeFromCache(this);
-		} finally {
-			endOperation();
 		}
+		cache.purgeFromCache(this);
 	}
 
-
 	public String getId() {
 		return id;
 	}
@@ -223,4 +299,27 @@ public class ResourceVariantCacheEntry {
 	public void setResourceVariant(CachedResourceVariant resourceVariant) {
 		this.resourceVariant = resourceVariant;
 	}
+
+	/**
+	 * Return the resource variant of this entry. If the contents were cached in
+	 * a previous session and there is no resource variant yet, the given one
+	 * becomes the resource variant of this entry.
+	 * @param handle the resource variant to use if there is none
+	 * @return the resource variant of this entry
+	 */
+	public synchronized CachedResourceVariant getResourceVariant(CachedResourceVariant handle) {
+		if (resourceVariant == null) {
+			resourceVariant = handle;
+		}
+		return resourceVariant;
+	}
+
+	private static String toHexString(byte[] bytes) {
+		StringBuilder result = new StringBuilder(bytes.length * 2);
+		for (byte b : bytes) {
+			result.append(Character.forDigit((b >> 4) & 0xF, 16));
+			result.append(Character.forDigit(b & 0xF, 16));
+		}
+		return result.toString();
+	}
 }
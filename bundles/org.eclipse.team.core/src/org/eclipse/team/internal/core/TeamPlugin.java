@@ -84,6 +84,15 @@ final public class TeamPlugin extends Plugin {
 	// The id for the Bundle Import extension point
 	public static final String EXTENSION_POINT_BUNDLE_IMPORTERS = ID + ".bundleImporters"; //$NON-NLS-1$
 
+	// The maximum number of threads fetching remote folders during a refresh
+	public static final String PREF_REFRESH_CONCURRENCY = "refresh_concurrency"; //$NON-NLS-1$
+
+	// The maximum number of threads collecting the synchronization state of a subscriber
+	public static final String PREF_COLLECTION_CONCURRENCY = "collection_concurrency"; //$NON-NLS-1$
+
+	// The maximum size of the cached contents of resource variants, in megabytes
+	public static final String PREF_CACHE_SIZE_LIMIT = "cache_size_limit"; //$NON-NLS-1$
+
 	// The one and only plug-in instance
 	private static TeamPlugin plugin;
 
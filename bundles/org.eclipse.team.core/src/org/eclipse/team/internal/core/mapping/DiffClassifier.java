@@ -0,0 +1,165 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.internal.core.mapping;
+
+import org.eclipse.team.core.diff.FastDiffFilter;
+import org.eclipse.team.core.diff.IDiff;
+import org.eclipse.team.core.diff.IThreeWayDiff;
+import org.eclipse.team.core.diff.provider.Diff;
+
+/**
+ * Classifies diffs so that a {@link PathTree} can count the diffs of each
+ * class below a path, which allows the common filters created by
+ * {@link FastDiffFilter} to skip the subtrees that contain no diffs they
+ * could select.
+ * <p>
+ * Each diff has one class bit for the kind and the direction bits of its
+ * status and one class bit for its three-way direction. A filter has the class
+ * bits of the diffs it could select, all bits if that is unknown.
+ * </p>
+ */
+public class DiffClassifier {
+
+	/**
+	 * The class bits of all diffs.
+	 */
+	public static final int ALL = -1;
+
+	// the status bits that determine the status class
+	private static final int STATUS_MASK = Diff.KIND_MASK | IThreeWayDiff.DIRECTION_MASK;
+	private static final int[] KINDS = { IDiff.NO_CHANGE, IDiff.ADD, IDiff.REMOVE, IDiff.CHANGE };
+	private static final int DIRECTION_SHIFT = 8;
+	// bits 0 to 15 are the status classes of diffs of a known kind, by kind and direction bits
+	private static final int OTHER_STATUS = 1 << 16;
+	// bits 17 to 19 are the directions of three-way diffs
+	private static final int DIRECTION_CLASS_SHIFT = 16;
+	private static final int NO_DIRECTION = 1 << 20;
+
+	/**
+	 * A filter that selects the diffs with one of the given states.
+	 * @see FastDiffFilter#getStateFilter(int[], int)
+	 */
+	public static class StateFilter extends FastDiffFilter {
+		private final int[] states;
+		private final int mask;
+
+		public StateFilter(int[] states, int mask) {
+			this.states = states;
+			this.mask = mask;
+		}
+		@Override
+		public boolean select(IDiff node) {
+			return matches(((Diff)node).getStatus());
+		}
+		private boolean matches(int status) {
+			for (int state : states) {
+				if ((status & mask) == state) {
+					return true;
+				}
+			}
+			return false;
+		}
+		int getClasses() {
+			if ((mask & ~STATUS_MASK) != 0)
+				return ALL;
+			int classes = OTHER_STATUS;
+			for (int kind = 0; kind < KINDS.length; kind++) {
+				for (int direction = 0; direction < 4; direction++) {
+					if (matches(KINDS[kind] | direction << DIRECTION_SHIFT))
+						classes |= 1 << (kind * 4 + direction);
+				}
+			}
+			return classes;
+		}
+	}
+
+	/**
+	 * A filter that selects the three-way diffs with one of the given
+	 * directions.
+	 * @see FastDiffFilter#getDirectionFilter(int[])
+	 */
+	public static class DirectionFilter extends FastDiffFilter {
+		private final int[] directions;
+
+		public DirectionFilter(int[] directions) {
+			this.directions = directions;
+		}
+		@Override
+		public boolean select(IDiff diff) {
+			if (diff instanceof IThreeWayDiff) {
+				int direction = ((IThreeWayDiff) diff).getDirection();
+				for (int d : directions) {
+					if (direction == d)
+						return true;
+				}
+			}
+			return false;
+		}
+		int getClasses() {
+			int classes = 0;
+			for (int direction : directions) {
+				classes |= getDirectionClass(direction);
+			}
+			return classes & ~NO_DIRECTION;
+		}
+	}
+
+	/**
+	 * Return the class bits of the given diff.
+	 * @param diff a diff
+	 * @return the class bits of the diff
+	 */
+	public static int classify(Object diff) {
+		int classes = OTHER_STATUS;
+		if (diff instanceof Diff) {
+			int status = ((Diff) diff).getStatus();
+			int kind = status & Diff.KIND_MASK;
+			for (int i = 0; i < KINDS.length; i++) {
+				if (KINDS[i] == kind) {
+					classes = 1 << (i * 4 + ((status & IThreeWayDiff.DIRECTION_MASK) >> DIRECTION_SHIFT));
+					break;
+				}
+			}
+		}
+		if (diff instanceof IThreeWayDiff) {
+			classes |= getDirectionClass(((IThreeWayDiff) diff).getDirection());
+		} else {
+			classes |= NO_DIRECTION;
+		}
+		return classes;
+	}
+
+	private static int getDirectionClass(int direction) {
+		if (direction != 0 && (direction & ~IThreeWayDiff.DIRECTION_MASK) == 0)
+			return 1 << (DIRECTION_CLASS_SHIFT + (direction >> DIRECTION_SHIFT));
+		return NO_DIRECTION;
+	}
+
+	/**
+	 * Return the class bits of the diffs the given filter could select.
+	 * @param filter a filter
+	 * @return the class bits of the diffs the filter could select
+	 */
+	public static int getClasses(FastDiffFilter filter) {
+		if (filter instanceof StateFilter)
+			return ((StateFilter) filter).getClasses();
+		if (filter instanceof DirectionFilter)
+			return ((DirectionFilter) filter).getClasses();
+		return ALL;
+	}
+
+	private DiffClassifier() {
+		// not instantiated
+	}
+}
@@ -21,7 +21,9 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
 
+import org.eclipse.compare.rangedifferencer.IInternedRangeComparator;
 import org.eclipse.compare.rangedifferencer.IRangeComparator;
+import org.eclipse.compare.rangedifferencer.RangeInterner;
 import org.eclipse.core.resources.IEncodedStorage;
 import org.eclipse.core.resources.IStorage;
 import org.eclipse.core.runtime.CoreException;
@@ -31,9 +33,11 @@ import org.eclipse.core.runtime.CoreException;
  * Copied from org.eclipse.compare.internal.merge.LineComparator 1.4 and
  * modified for {@link IStorage}.
  */
-class LineComparator implements IRangeComparator {
+class LineComparator implements IInternedRangeComparator {
 
 	private String[] fLines;
+	private RangeInterner fInterner;
+	private int[] fLineIds;
 
 	/*
 	 * An input stream reader that detects a trailing LF in the wrapped stream.
@@ -82,10 +86,15 @@ class LineComparator implements IRangeComparator {
 
 	public static LineComparator create(IStorage storage, String outputEncoding)
 			throws CoreException, IOException {
+		return create(storage, outputEncoding, null);
+	}
+
+	public static LineComparator create(IStorage storage, String outputEncoding, RangeInterner interner)
+			throws CoreException, IOException {
 		InputStream is = new BufferedInputStream(storage.getContents());
 		try {
 			String encoding = getEncoding(storage, outputEncoding);
-			return new LineComparator(is, encoding);
+			return new LineComparator(is, encoding, interner);
 		} finally {
 			try {
 				is.close();
@@ -107,6 +116,10 @@ class LineComparator implements IRangeComparator {
 	}
 
 	public LineComparator(InputStream is, String encoding) throws IOException {
+		this(is, encoding, null);
+	}
+
+	public LineComparator(InputStream is, String encoding, RangeInterner interner) throws IOException {
 
 		TrailingLineFeedDetector trailingLineFeedDetector = new TrailingLineFeedDetector(
 				is);
@@ -126,6 +139,13 @@ class LineComparator implements IRangeComparator {
 			}
 			fLines = ar.toArray(new String[ar.size()]);
 		}
+		if (interner != null) {
+			fLineIds = new int[fLines.length];
+			for (int i = 0; i < fLines.length; i++) {
+				fLineIds[i] = interner.intern(fLines[i]);
+			}
+			fInterner = interner;
+		}
 	}
 
 	String getLine(int ix) {
@@ -140,8 +160,11 @@ class LineComparator implements IRangeComparator {
 	@Override
 	public boolean rangesEqual(int thisIndex, IRangeComparator other,
 			int otherIndex) {
+		LineComparator otherComparator = (LineComparator) other;
+		if (fInterner != null && fInterner == otherComparator.fInterner)
+			return fLineIds[thisIndex] == otherComparator.fLineIds[otherIndex];
 		String s1 = fLines[thisIndex];
-		String s2 = ((LineComparator) other).fLines[otherIndex];
+		String s2 = otherComparator.fLines[otherIndex];
 		return s1.equals(s2);
 	}
 
@@ -150,4 +173,14 @@ class LineComparator implements IRangeComparator {
 			IRangeComparator other) {
 		return false;
 	}
+
+	@Override
+	public RangeInterner getInterner() {
+		return fInterner;
+	}
+
+	@Override
+	public int[] getRangeIds() {
+		return fLineIds;
+	}
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2017 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -16,57 +16,124 @@ package org.eclipse.team.internal.core.mapping;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
 
+import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
 
 /**
- * A tree of objects keyed by path
+ * A tree of objects keyed by path.
+ * <p>
+ * The tree is a trie of path segments. Instead of the paths of all
+ * descendants with an object, each node only counts them, and counts how many
+ * of them have each property bit set. Memory is therefore proportional to the
+ * number of nodes and updates only touch the ancestors of the changed path.
+ * </p>
+ * <p>
+ * In the same way, each node counts the descendants with an object of each
+ * class, as determined by the classifier of the tree, so searches for objects
+ * of given classes only visit the subtrees that contain such objects.
+ * </p>
  */
 public class PathTree {
 
-	class Node {
+	static class Node {
+		final Node parent;
+		final String name;
+		Map<String, Node> children;
+		// the path the payload was put at, null if there is no payload
+		IPath path;
 		Object payload;
-		Set<IPath> descendantsWithPayload;
+		// the number of descendants with a payload
+		int descendantsWithPayload;
 		int flags;
+		// the number of descendants with a payload by property bit index
+		int[] descendantFlagCounts;
+		// the class bits of the payload
+		int classes;
+		// the number of descendants with a payload by class bit index
+		int[] descendantClassCounts;
+
+		Node(Node parent, String name) {
+			this.parent = parent;
+			this.name = name;
+		}
 		public boolean isEmpty() {
-			return payload == null && (descendantsWithPayload == null || descendantsWithPayload.isEmpty());
+			return payload == null && descendantsWithPayload == 0;
 		}
 		public Object getPayload() {
 			return payload;
 		}
-		public void setPayload(Object payload) {
-			this.payload = payload;
-		}
 		public boolean hasDescendants() {
-			return descendantsWithPayload != null && !descendantsWithPayload.isEmpty();
+			return descendantsWithPayload > 0;
 		}
 		public boolean hasFlag(int propertyBit) {
 			return (flags & propertyBit) != 0;
 		}
 		public void setProperty(int propertyBit, boolean value) {
-			if (value)
-				flags |= propertyBit;
-			else
-				flags ^= propertyBit;
+			int newFlags = value ? flags | propertyBit : flags ^ propertyBit;
+			if (payload != null)
+				countFlags(parent, flags ^ newFlags, newFlags);
+			flags = newFlags;
 		}
 		public boolean descendantHasFlag(int property) {
-			if (hasDescendants()) {
-				for (IPath path : descendantsWithPayload) {
-					Node child = getNode(path);
-					if (child.hasFlag(property)) {
+			return hasCount(descendantFlagCounts, property);
+		}
+		/*
+		 * Return whether this node or one of its descendants has a payload
+		 * of one of the given classes.
+		 */
+		boolean mayContain(int classBits) {
+			if (payload != null)
+				return (classes & classBits) != 0;
+			return hasCount(descendantClassCounts, classBits);
+		}
+		private static boolean hasCount(int[] counts, int bits) {
+			if (counts != null) {
+				for (int i = 0; i < counts.length; i++) {
+					if ((bits & (1 << i)) != 0 && counts[i] > 0)
 						return true;
-					}
 				}
 			}
 			return false;
 		}
+		Node getChild(String segment) {
+			return children == null ? null : children.get(segment);
+		}
+		Node addChild(String segment) {
+			if (children == null)
+				children = new HashMap<>(4);
+			Node child = new Node(this, segment);
+			children.put(segment, child);
+			return child;
+		}
+	}
+
+	// the root nodes by device and absolute/relative status of their paths
+	private Map<IPath, Node> roots = new HashMap<>(4);
+	private int size;
+	private final ToIntFunction<Object> classifier;
+
+	/**
+	 * Create a tree in which all objects have the same class.
+	 */
+	public PathTree() {
+		this(object -> 1);
 	}
 
-	private Map<IPath, Node> objects = new HashMap<>();
+	/**
+	 * Create a tree that counts the objects of each class, as determined by
+	 * the given classifier. The classifier must return at least one class bit
+	 * for each object.
+	 * @param classifier returns the class bits of an object
+	 */
+	public PathTree(ToIntFunction<Object> classifier) {
+		this.classifier = classifier;
+	}
 
 	/**
 	 * Return the object at the given path or <code>null</code>
@@ -95,9 +162,23 @@ public class PathTree {
 			node = addNode(path);
 		}
 		Object previous = node.getPayload();
-		node.setPayload(object);
-		if(previous == null) {
-			addToParents(path, path);
+		node.payload = object;
+		if (previous == null && object != null) {
+			node.path = path;
+			node.classes = classifier.applyAsInt(object);
+			size++;
+			addToParents(node, 1);
+		} else if (previous != null && object == null) {
+			removePayload(node);
+		} else if (object != null) {
+			int classes = classifier.applyAsInt(object);
+			if (classes != node.classes) {
+				countClasses(node.parent, node.classes, -1);
+				node.classes = classes;
+				countClasses(node.parent, classes, 1);
+			}
+		} else {
+			prune(node);
 		}
 		return previous;
 	}
@@ -115,12 +196,9 @@ public class PathTree {
 		if (node == null)
 			return null;
 		Object previous = node.getPayload();
-		node.setPayload(null);
+		node.payload = null;
 		if(previous != null) {
-			removeFromParents(path, path);
-			if (node.isEmpty()) {
-				removeNode(path);
-			}
+			removePayload(node);
 		}
 		return previous;
 
@@ -132,7 +210,7 @@ public class PathTree {
 	 * @return whether there are children for the given path
 	 */
 	public synchronized boolean hasChildren(IPath path) {
-		if (path.isEmpty()) return !objects.isEmpty();
+		if (path.isEmpty()) return size > 0;
 		Node node = getNode(path);
 		if (node == null)
 			return false;
@@ -145,92 +223,107 @@ public class PathTree {
 	 * @return the paths for any children of the given path in this set
 	 */
 	public synchronized IPath[] getChildren(IPath path) {
-		// OPTIMIZE: could be optimized so that we don't traverse all the deep
-		// children to find the immediate ones.
-		Set<IPath> children = new HashSet<>();
 		Node node = getNode(path);
-		if (node != null) {
-			Set possibleChildren = node.descendantsWithPayload;
-			if(possibleChildren != null) {
-				for (Object next : possibleChildren) {
-					IPath descendantPath = (IPath)next;
-					IPath childPath = null;
-					if(descendantPath.segmentCount() == (path.segmentCount() +  1)) {
-						childPath = descendantPath;
-					} else if (descendantPath.segmentCount() > path.segmentCount()) {
-						childPath = descendantPath.removeLastSegments(descendantPath.segmentCount() - path.segmentCount() - 1);
-					}
-					if (childPath != null) {
-						children.add(childPath);
-					}
-				}
-			}
+		if (node == null || node.children == null)
+			return new IPath[0];
+		IPath[] children = new IPath[node.children.size()];
+		int i = 0;
+		for (Node child : node.children.values()) {
+			children[i++] = child.path != null ? child.path : path.append(child.name);
 		}
-		return children.toArray(new IPath[children.size()]);
+		return children;
 	}
 
-	private boolean addToParents(IPath path, IPath parent) {
-		// this flag is used to indicate if the parent was previously in the set
-		boolean addedParent = false;
-		if (path == parent) {
-			// this is the leaf that was just added
-			addedParent = true;
-		} else {
-			Node node = getNode(parent);
-			if (node == null)
-				node = addNode(parent);
-			Set<IPath> children = node.descendantsWithPayload;
-			if (children == null) {
-				children = new HashSet<>();
-				node.descendantsWithPayload = children;
-				// this is a new folder in the sync set
-				addedParent = true;
-			}
-			children.add(path);
+	/*
+	 * Adds the given payload change to the descendant counts of the ancestors
+	 * of the given node.
+	 */
+	private void addToParents(Node node, int delta) {
+		for (Node parent = node.parent; parent != null; parent = parent.parent) {
+			parent.descendantsWithPayload += delta;
 		}
-		// if the parent already existed and the resource is new, record it
-		if ((parent.segmentCount() == 0 || !addToParents(path, parent.removeLastSegments(1))) && addedParent) {
-			// TODO: we may not need to record the removed subtree
-			// internalAddedSubtreeRoot(parent);
+		if (node.flags != 0)
+			countFlags(node.parent, node.flags, delta > 0 ? node.flags : 0);
+		countClasses(node.parent, node.classes, delta);
+	}
+
+	/*
+	 * Adds the given change of the number of descendants with a payload of
+	 * the given classes to the class counts of the given node and its
+	 * ancestors.
+	 */
+	private static void countClasses(Node node, int classes, int delta) {
+		for (int i = 0; i < Integer.SIZE; i++) {
+			if ((classes & (1 << i)) == 0)
+				continue;
+			for (Node ancestor = node; ancestor != null; ancestor = ancestor.parent) {
+				int[] counts = ancestor.descendantClassCounts;
+				if (counts == null || counts.length <= i) {
+					int[] newCounts = new int[i + 1];
+					if (counts != null)
+						System.arraycopy(counts, 0, newCounts, 0, counts.length);
+					ancestor.descendantClassCounts = counts = newCounts;
+				}
+				counts[i] += delta;
+			}
 		}
-		return addedParent;
 	}
 
-	private boolean removeFromParents(IPath path, IPath parent) {
-		// this flag is used to indicate if the parent was removed from the set
-		boolean removedParent = false;
-		Node node = getNode(parent);
-		if (node == null) {
-			// this is the leaf
-			removedParent = true;
-		} else {
-			Set children = node.descendantsWithPayload;
-			if (children == null) {
-				// this is the leaf
-				removedParent = true;
-			} else {
-				children.remove(path);
-				if (children.isEmpty()) {
-					node.descendantsWithPayload = null;
-					if (node.isEmpty())
-						removeNode(parent);
-					removedParent = true;
+	/*
+	 * Updates the flag counts of the given node and its ancestors for the
+	 * changed bits of a descendant with a payload. The bits that are set in
+	 * the new flags are counted, the others are uncounted.
+	 */
+	private static void countFlags(Node node, int changedBits, int newFlags) {
+		for (int i = 0; i < Integer.SIZE; i++) {
+			int bit = 1 << i;
+			if ((changedBits & bit) == 0)
+				continue;
+			int delta = (newFlags & bit) != 0 ? 1 : -1;
+			for (Node ancestor = node; ancestor != null; ancestor = ancestor.parent) {
+				int[] counts = ancestor.descendantFlagCounts;
+				if (counts == null || counts.length <= i) {
+					int[] newCounts = new int[i + 1];
+					if (counts != null)
+						System.arraycopy(counts, 0, newCounts, 0, counts.length);
+					ancestor.descendantFlagCounts = counts = newCounts;
 				}
+				counts[i] += delta;
 			}
 		}
-		//	if the parent wasn't removed and the resource was, record it
-		if ((parent.segmentCount() == 0 || !removeFromParents(path, parent.removeLastSegments(1))) && removedParent) {
-			// TODO: may not need to record this
-			//internalRemovedSubtreeRoot(parent);
+	}
+
+	private void removePayload(Node node) {
+		node.path = null;
+		size--;
+		addToParents(node, -1);
+		node.classes = 0;
+		prune(node);
+	}
+
+	/*
+	 * Removes the given node and any ancestors that are no longer needed.
+	 */
+	private void prune(Node node) {
+		while (node.isEmpty()) {
+			Node parent = node.parent;
+			if (parent == null) {
+				roots.values().remove(node);
+				break;
+			}
+			parent.children.remove(node.name);
+			if (parent.children.isEmpty())
+				parent.children = null;
+			node = parent;
 		}
-		return removedParent;
 	}
 
 	/**
 	 * Clear all entries from the path tree.
 	 */
 	public synchronized void clear() {
-		objects.clear();
+		roots.clear();
+		size = 0;
 	}
 
 	/**
@@ -238,7 +331,7 @@ public class PathTree {
 	 * @return whether the path tree is empty
 	 */
 	public synchronized boolean isEmpty() {
-		return objects.isEmpty();
+		return size == 0;
 	}
 
 	/**
@@ -246,13 +339,12 @@ public class PathTree {
 	 * @return the paths in this tree that contain diffs.
 	 */
 	public synchronized IPath[] getPaths() {
-		List<IPath> result = new ArrayList<>();
-		for (IPath path : objects.keySet()) {
-			Node node = getNode(path);
-			if (node.getPayload() != null)
-				result.add(path);
+		List<Node> nodes = getNodesWithPayload();
+		IPath[] result = new IPath[nodes.size()];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = nodes.get(i).path;
 		}
-		return result.toArray(new IPath[result.size()]);
+		return result;
 	}
 
 	/**
@@ -260,11 +352,10 @@ public class PathTree {
 	 * @return all the values in the tree
 	 */
 	public synchronized Collection<Object> values() {
-		List<Object> result = new ArrayList<>();
-		for (IPath path : objects.keySet()) {
-			Node node = getNode(path);
-			if (node.getPayload() != null)
-				result.add(node.getPayload());
+		List<Node> nodes = getNodesWithPayload();
+		List<Object> result = new ArrayList<>(nodes.size());
+		for (Node node : nodes) {
+			result.add(node.getPayload());
 		}
 		return result;
 	}
@@ -273,23 +364,52 @@ public class PathTree {
 	 * Return the number of nodes contained in this path tree.
 	 * @return the number of nodes contained in this path tree
 	 */
-	public int size() {
-		return values().size();
+	public synchronized int size() {
+		return size;
 	}
 
-	private Node getNode(IPath path) {
-		return objects.get(path);
+	private List<Node> getNodesWithPayload() {
+		List<Node> result = new ArrayList<>(size);
+		List<Node> stack = new ArrayList<>(roots.values());
+		while (!stack.isEmpty()) {
+			Node node = stack.remove(stack.size() - 1);
+			if (node.payload != null)
+				result.add(node);
+			if (node.children != null)
+				stack.addAll(node.children.values());
+		}
+		return result;
 	}
 
-	private Node addNode(IPath path) {
-		Node node;
-		node = new Node();
-		objects.put(path, node);
+	private static IPath getRootPath(IPath path) {
+		if (path.getDevice() == null && !path.isUNC())
+			return path.isAbsolute() ? Path.ROOT : Path.EMPTY;
+		return path.uptoSegment(0);
+	}
+
+	private Node getNode(IPath path) {
+		Node node = roots.get(getRootPath(path));
+		int segmentCount = path.segmentCount();
+		for (int i = 0; i < segmentCount && node != null; i++) {
+			node = node.getChild(path.segment(i));
+		}
 		return node;
 	}
 
-	private Object removeNode(IPath path) {
-		return objects.remove(path);
+	private Node addNode(IPath path) {
+		IPath rootPath = getRootPath(path);
+		Node node = roots.get(rootPath);
+		if (node == null) {
+			node = new Node(null, null);
+			roots.put(rootPath, node);
+		}
+		int segmentCount = path.segmentCount();
+		for (int i = 0; i < segmentCount; i++) {
+			String segment = path.segment(i);
+			Node child = node.getChild(segment);
+			node = child != null ? child : node.addChild(segment);
+		}
+		return node;
 	}
 
 	/**
@@ -302,26 +422,55 @@ public class PathTree {
 	 * @return the paths whose bit changed
 	 */
 	public synchronized IPath[] setPropogatedProperty(IPath path, int property, boolean value) {
-		Set<IPath> changed = new HashSet<>();
-		internalSetPropertyBit(path, property, value, changed);
+		List<IPath> changed = new ArrayList<>();
+		Node node = getNode(path);
+		while (node != null && node.parent != null) {
+			// No need to set it if the value hans't changed
+			if (value == node.hasFlag(property))
+				break;
+			// Only unset the property if no descendants have the flag set
+			if (!value && node.descendantHasFlag(property))
+				break;
+			node.setProperty(property, value);
+			changed.add(path);
+			node = node.parent;
+			path = path.removeLastSegments(1);
+		}
 		return changed.toArray(new IPath[changed.size()]);
 	}
 
-	private void internalSetPropertyBit(IPath path, int property, boolean value, Set<IPath> changed) {
-		if (path.segmentCount() == 0)
-			return;
+	/**
+	 * Return whether the given path or its descendants to the given depth have
+	 * an object of the given classes that matches the given predicate. Only the
+	 * objects that are closest to the given path are considered, i.e. the
+	 * descendants of a path with an object are not searched. The search stops
+	 * at the first match and skips the subtrees without objects of the given
+	 * classes.
+	 * @param path the path
+	 * @param depth the depth (one of <code>IResource.DEPTH_ZERO</code>,
+	 * <code>IResource.DEPTH_ONE</code>, or <code>IResource.DEPTH_INFINITE</code>)
+	 * @param classes the class bits of the objects the predicate could match
+	 * @param predicate the predicate
+	 * @return whether a matching object was found
+	 */
+	public synchronized boolean hasMatch(IPath path, int depth, int classes, Predicate<Object> predicate) {
 		Node node = getNode(path);
-		if (node == null)
-			return;
-		// No need to set it if the value hans't changed
-		if (value == node.hasFlag(property))
-			return;
-		// Only unset the property if no descendants have the flag set
-		if (!value && node.descendantHasFlag(property))
-			return;
-		node.setProperty(property, value);
-		changed.add(path);
-		internalSetPropertyBit(path.removeLastSegments(1), property, value, changed);
+		return node != null && hasMatch(node, depth, classes, predicate);
+	}
+
+	private static boolean hasMatch(Node node, int depth, int classes, Predicate<Object> predicate) {
+		if (node.payload != null)
+			return (node.classes & classes) != 0 && predicate.test(node.payload);
+		if (depth == IResource.DEPTH_ZERO || node.children == null)
+			return false;
+		int childDepth = depth == IResource.DEPTH_ONE ? IResource.DEPTH_ZERO : IResource.DEPTH_INFINITE;
+		for (Node child : node.children.values()) {
+			if (child.mayContain(classes)
+					&& (childDepth != IResource.DEPTH_ZERO || child.payload != null)
+					&& hasMatch(child, childDepth, classes, predicate))
+				return true;
+		}
+		return false;
 	}
 
 	public synchronized boolean getProperty(IPath path, int property) {
@@ -19,6 +19,7 @@ import java.io.UnsupportedEncodingException;
 
 import org.eclipse.compare.rangedifferencer.RangeDifference;
 import org.eclipse.compare.rangedifferencer.RangeDifferencer;
+import org.eclipse.compare.rangedifferencer.RangeInterner;
 import org.eclipse.core.resources.IStorage;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -38,9 +39,10 @@ public class TextStorageMerger implements IStorageMerger {
 		LineComparator a, t, o;
 
 		try {
-			a= LineComparator.create(ancestor, outputEncoding);
-			t= LineComparator.create(target, outputEncoding);
-			o= LineComparator.create(other,outputEncoding);
+			RangeInterner interner= new RangeInterner();
+			a= LineComparator.create(ancestor, outputEncoding, interner);
+			t= LineComparator.create(target, outputEncoding, interner);
+			o= LineComparator.create(other, outputEncoding, interner);
 		} catch (UnsupportedEncodingException e) {
 			throw new CoreException (new Status(IStatus.ERROR, TeamPlugin.ID, UNSUPPORTED_ENCODING, Messages.TextAutoMerge_inputEncodingError, e));
 		} catch (IOException e) {
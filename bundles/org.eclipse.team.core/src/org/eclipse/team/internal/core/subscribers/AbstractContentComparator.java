@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011 IBM Corporation and others.
+ * Copyright (c) 2011, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -87,7 +87,16 @@ public abstract class AbstractContentComparator {
 	abstract protected boolean contentsEqual(IProgressMonitor monitor, InputStream is1, InputStream is2,
 			boolean ignoreWhitespace);
 
-	private InputStream getContents(Object resource, IProgressMonitor monitor)
+	/**
+	 * Return the contents of the given local file, resource variant or
+	 * file revision.
+	 * @param resource an <code>IFile</code>, <code>IResourceVariant</code>
+	 * or <code>IFileRevision</code>
+	 * @param monitor a progress monitor
+	 * @return the contents or <code>null</code> if the resource has no contents
+	 * @throws TeamException if the contents cannot be obtained
+	 */
+	protected InputStream getContents(Object resource, IProgressMonitor monitor)
 			throws TeamException {
 		try {
 			if (resource instanceof IFile) {
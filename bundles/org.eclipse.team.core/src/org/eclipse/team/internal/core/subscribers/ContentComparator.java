@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2017 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -15,21 +15,211 @@ package org.eclipse.team.internal.core.subscribers;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
 
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.team.core.TeamException;
+import org.eclipse.team.core.history.IFileRevision;
+import org.eclipse.team.core.variants.IResourceVariant;
+import org.eclipse.team.internal.core.Policy;
+import org.eclipse.team.internal.core.subscribers.ContentDigestCache.Digest;
+import org.eclipse.team.internal.core.subscribers.ContentDigestCache.Digester;
 
 /**
  * This is an internal class that is used by the
  * {@link org.eclipse.team.core.synchronize.SyncInfoFilter.ContentComparisonSyncInfoFilter}
  * and {@link ContentComparisonDiffFilter} to compare the contents of the local
  * and remote resources.
+ * <p>
+ * The contents are read and compared a block at a time. When whitespace is
+ * ignored, the whitespace is removed from each block before it is compared.
+ * The digests of the contents of files are kept in the
+ * {@link ContentDigestCache}, so files whose modification stamp or content
+ * identifier did not change are compared without reading them again.
+ * </p>
  */
 public class ContentComparator extends AbstractContentComparator{
 
+	// the number of bytes that are read from each stream at a time
+	static final int BLOCK_SIZE = 64 * 1024;
+
+	// whether a byte is whitespace, as determined by Character.isWhitespace
+	private static final boolean[] WHITESPACE = new boolean[256];
+	static {
+		for (int c = 0; c < WHITESPACE.length; c++) {
+			WHITESPACE[c] = Character.isWhitespace((char) c);
+		}
+	}
+
+	/*
+	 * A block of the contents of a stream, with the whitespace removed
+	 * if whitespace is ignored.
+	 */
+	private static class Block {
+		private final InputStream stream;
+		private final boolean ignoreWhitespace;
+		private final Digester digester;
+		final byte[] bytes = new byte[BLOCK_SIZE];
+		int position;
+		int limit;
+		private boolean end;
+
+		Block(InputStream stream, boolean ignoreWhitespace, Digester digester) {
+			this.stream = stream;
+			this.ignoreWhitespace = ignoreWhitespace;
+			this.digester = digester;
+		}
+
+		/*
+		 * Read the next block if all bytes of this block were consumed.
+		 * Return false if there are no more bytes.
+		 */
+		boolean fill() throws IOException {
+			while (position == limit && !end) {
+				int count = read();
+				if (digester != null)
+					digester.update(bytes, count);
+				position = 0;
+				limit = ignoreWhitespace ? removeWhitespace(bytes, count) : count;
+			}
+			return position < limit;
+		}
+
+		private int read() throws IOException {
+			int count = 0;
+			while (count < bytes.length) {
+				int read = stream.read(bytes, count, bytes.length - count);
+				if (read == -1) {
+					end = true;
+					break;
+				}
+				count += read;
+			}
+			return count;
+		}
+
+	}
+
 	public ContentComparator(boolean ignoreWhitespace) {
 		super(ignoreWhitespace);
 	}
 
+	/*
+	 * Move the bytes that are not whitespace to the front of the given bytes
+	 * and return their number.
+	 */
+	static int removeWhitespace(byte[] bytes, int count) {
+		int length = 0;
+		for (int i = 0; i < count; i++) {
+			byte b = bytes[i];
+			if (!WHITESPACE[b & 0xFF]) {
+				bytes[length++] = b;
+			}
+		}
+		return length;
+	}
+
+	@Override
+	public boolean compare(IResource e1, IResourceVariant e2, IProgressMonitor monitor) {
+		SubMonitor progress = SubMonitor.convert(monitor, 100);
+		if (!e2.isContainer()) {
+			Boolean equal = compareDigests(e1, e2, e2.getContentIdentifier(), progress.newChild(100));
+			if (equal != null)
+				return equal;
+			progress.setWorkRemaining(100);
+		}
+		return super.compare(e1, e2, progress.newChild(100));
+	}
+
+	@Override
+	public boolean compare(IResource e1, IFileRevision e2, IProgressMonitor monitor) {
+		SubMonitor progress = SubMonitor.convert(monitor, 100);
+		Boolean equal = compareDigests(e1, e2, e2.getContentIdentifier(), progress.newChild(100));
+		if (equal != null)
+			return equal;
+		progress.setWorkRemaining(100);
+		return super.compare(e1, e2, progress.newChild(100));
+	}
+
+	/*
+	 * Compare the local file and the remote using the digest cache. If the
+	 * digest of either of them is cached, the digest of the other one is
+	 * computed if needed and the digests are compared. Otherwise, the
+	 * contents are compared directly and digested while they are read, so
+	 * the digests are cached if the contents are equal. Return null if the
+	 * digests cannot be cached or the contents cannot be read, in which case
+	 * the contents are compared directly.
+	 */
+	private Boolean compareDigests(IResource local, Object remote, String contentIdentifier, IProgressMonitor monitor) {
+		if (local.getType() != IResource.FILE || contentIdentifier == null || contentIdentifier.isEmpty())
+			return null;
+		long modificationStamp = local.getModificationStamp();
+		if (modificationStamp == IResource.NULL_STAMP)
+			return null;
+		IPath path = local.getFullPath();
+		ContentDigestCache cache = ContentDigestCache.getInstance();
+		Digest localDigest = cache.getLocalDigest(path, modificationStamp);
+		Digest remoteDigest = cache.getRemoteDigest(path, contentIdentifier);
+		try {
+			monitor.beginTask(null, 100);
+			if (localDigest == null && remoteDigest == null)
+				return compareAndDigest(local, remote, contentIdentifier, modificationStamp, monitor);
+			if (localDigest == null) {
+				localDigest = computeDigest(local, Policy.subMonitorFor(monitor, 50));
+				putLocalDigest(local, modificationStamp, localDigest);
+			}
+			if (remoteDigest == null) {
+				remoteDigest = computeDigest(remote, Policy.subMonitorFor(monitor, 50));
+				cache.putRemoteDigest(path, contentIdentifier, remoteDigest);
+			}
+			return localDigest.contentsEqual(remoteDigest, shouldIgnoreWhitespace());
+		} catch (TeamException | IOException e) {
+			// The direct comparison reports the failure if it persists
+			return null;
+		} finally {
+			monitor.done();
+		}
+	}
+
+	private Boolean compareAndDigest(IResource local, Object remote, String contentIdentifier, long modificationStamp,
+			IProgressMonitor monitor) throws TeamException, IOException {
+		try (InputStream is1 = getContents(local, Policy.subMonitorFor(monitor, 30));
+				InputStream is2 = getContents(remote, Policy.subMonitorFor(monitor, 30))) {
+			if (is1 == null || is2 == null)
+				return null;
+			Digester localDigester = new Digester();
+			Digester remoteDigester = new Digester();
+			boolean equal = blocksEqual(new Block(is1, shouldIgnoreWhitespace(), localDigester),
+					new Block(is2, shouldIgnoreWhitespace(), remoteDigester));
+			// Unequal contents are not read to the end so they are not digested
+			if (equal) {
+				putLocalDigest(local, modificationStamp, localDigester.digest());
+				ContentDigestCache.getInstance().putRemoteDigest(local.getFullPath(), contentIdentifier, remoteDigester.digest());
+			}
+			return equal;
+		}
+	}
+
+	/*
+	 * Cache the digest of the local file unless the file changed while it
+	 * was read.
+	 */
+	private void putLocalDigest(IResource local, long modificationStamp, Digest digest) {
+		if (local.getModificationStamp() == modificationStamp)
+			ContentDigestCache.getInstance().putLocalDigest(local.getFullPath(), modificationStamp, digest);
+	}
+
+	private Digest computeDigest(Object resource, IProgressMonitor monitor) throws TeamException, IOException {
+		try (InputStream contents = getContents(resource, monitor)) {
+			if (contents == null)
+				throw new IOException();
+			return ContentDigestCache.computeDigest(contents);
+		}
+	}
+
 	/**
 	 * Returns <code>true</code> if both input streams byte contents is
 	 * identical.
@@ -53,18 +243,7 @@ public class ContentComparator extends AbstractContentComparator{
 			if (is1 == null || is2 == null)
 				return false;
 
-			while (true) {
-				int c1 = is1.read();
-				while (shouldIgnoreWhitespace() && isWhitespace(c1))
-					c1 = is1.read();
-				int c2 = is2.read();
-				while (shouldIgnoreWhitespace() && isWhitespace(c2))
-					c2 = is2.read();
-				if (c1 == -1 && c2 == -1)
-					return true;
-				if (c1 != c2)
-					break;
-			}
+			return blocksEqual(new Block(is1, shouldIgnoreWhitespace(), null), new Block(is2, shouldIgnoreWhitespace(), null));
 		} catch (IOException ex) {
 		} finally {
 			try {
@@ -84,9 +263,22 @@ public class ContentComparator extends AbstractContentComparator{
 		return false;
 	}
 
-	private boolean isWhitespace(int c) {
-		if (c == -1)
-			return false;
-		return Character.isWhitespace((char) c);
+	/*
+	 * Compare the remaining contents of the streams of the given blocks.
+	 */
+	private static boolean blocksEqual(Block block1, Block block2) throws IOException {
+		while (true) {
+			boolean more1 = block1.fill();
+			boolean more2 = block2.fill();
+			if (!more1 || !more2)
+				return more1 == more2;
+			// compare as much as is available in both blocks
+			int length = Math.min(block1.limit - block1.position, block2.limit - block2.position);
+			if (Arrays.mismatch(block1.bytes, block1.position, block1.position + length,
+					block2.bytes, block2.position, block2.position + length) != -1)
+				return false;
+			block1.position += length;
+			block2.position += length;
+		}
 	}
 }
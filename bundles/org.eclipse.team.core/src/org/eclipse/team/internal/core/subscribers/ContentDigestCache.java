@@ -0,0 +1,280 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.internal.core.subscribers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.team.internal.core.Policy;
+
+/**
+ * A cache of the digests of the contents of local files and their remote
+ * counterparts. The digest of a local file is keyed by the path and the
+ * modification stamp of the file and the digest of a remote file by the path
+ * of the corresponding local file and the content identifier of the remote,
+ * so the contents of files that did not change since they were last compared
+ * do not need to be read again.
+ * <p>
+ * Each entry holds the digest of the contents and the digest of the contents
+ * with the whitespace removed, so the cache serves comparisons that ignore
+ * whitespace as well as those that don't. The least recently used entries are
+ * removed when the cache is full.
+ * </p>
+ */
+public class ContentDigestCache {
+
+	private static final String ALGORITHM = "SHA-256"; //$NON-NLS-1$
+
+	// the maximum number of digests in the cache
+	private static final int MAX_SIZE = 20000;
+
+	// the number of lookups after which the statistics are traced
+	private static final int TRACE_INTERVAL = 1000;
+
+	private static final ContentDigestCache instance = new ContentDigestCache(MAX_SIZE);
+
+	private final Map<Key, Digest> digests;
+
+	private long hitCount;
+	private long missCount;
+
+	/*
+	 * The key of a local file or a remote file in the cache.
+	 */
+	private static class Key {
+		private final IPath path;
+		private final boolean remote;
+		private final long modificationStamp;
+		private final String contentIdentifier;
+
+		Key(IPath path, boolean remote, long modificationStamp, String contentIdentifier) {
+			this.path = path;
+			this.remote = remote;
+			this.modificationStamp = modificationStamp;
+			this.contentIdentifier = contentIdentifier;
+		}
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key))
+				return false;
+			Key other = (Key) obj;
+			return remote == other.remote && modificationStamp == other.modificationStamp
+					&& path.equals(other.path) && Objects.equals(contentIdentifier, other.contentIdentifier);
+		}
+		@Override
+		public int hashCode() {
+			return path.hashCode() * 31 + Objects.hashCode(contentIdentifier) + Long.hashCode(modificationStamp);
+		}
+	}
+
+	/**
+	 * The digests of the contents of a file.
+	 */
+	public static class Digest {
+		private final byte[] raw;
+		private final byte[] normalized;
+
+		Digest(byte[] raw, byte[] normalized) {
+			this.raw = raw;
+			this.normalized = normalized;
+		}
+
+		/**
+		 * Return whether the contents of this digest and the given digest are
+		 * equal.
+		 * @param other the other digest
+		 * @param ignoreWhitespace whether whitespace is ignored
+		 * @return whether the contents are equal
+		 */
+		public boolean contentsEqual(Digest other, boolean ignoreWhitespace) {
+			if (ignoreWhitespace)
+				return Arrays.equals(normalized, other.normalized);
+			return Arrays.equals(raw, other.raw);
+		}
+	}
+
+	/**
+	 * Return the cache that is shared by the content comparators.
+	 * @return the shared cache
+	 */
+	public static ContentDigestCache getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Create a cache that holds the given number of digests.
+	 * @param maxSize the maximum number of digests in the cache
+	 */
+	public ContentDigestCache(int maxSize) {
+		digests = new LinkedHashMap<Key, Digest>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, Digest> eldest) {
+				return size() > maxSize;
+			}
+		};
+	}
+
+	/**
+	 * Return the cached digest of the contents of the local file with the
+	 * given path and modification stamp or <code>null</code>.
+	 * @param path the path of the local file
+	 * @param modificationStamp the modification stamp of the local file
+	 * @return the cached digest or <code>null</code>
+	 */
+	public Digest getLocalDigest(IPath path, long modificationStamp) {
+		return get(new Key(path, false, modificationStamp, null));
+	}
+
+	/**
+	 * Cache the digest of the contents of the local file with the given path
+	 * and modification stamp.
+	 * @param path the path of the local file
+	 * @param modificationStamp the modification stamp of the local file
+	 * @param digest the digest
+	 */
+	public synchronized void putLocalDigest(IPath path, long modificationStamp, Digest digest) {
+		digests.put(new Key(path, false, modificationStamp, null), digest);
+	}
+
+	/**
+	 * Return the cached digest of the contents of the remote file of the
+	 * local file with the given path or <code>null</code>.
+	 * @param path the path of the local file
+	 * @param contentIdentifier the content identifier of the remote file
+	 * @return the cached digest or <code>null</code>
+	 */
+	public Digest getRemoteDigest(IPath path, String contentIdentifier) {
+		return get(new Key(path, true, 0, contentIdentifier));
+	}
+
+	/**
+	 * Cache the digest of the contents of the remote file of the local file
+	 * with the given path.
+	 * @param path the path of the local file
+	 * @param contentIdentifier the content identifier of the remote file
+	 * @param digest the digest
+	 */
+	public synchronized void putRemoteDigest(IPath path, String contentIdentifier, Digest digest) {
+		digests.put(new Key(path, true, 0, contentIdentifier), digest);
+	}
+
+	private synchronized Digest get(Key key) {
+		Digest digest = digests.get(key);
+		if (digest == null) {
+			missCount++;
+		} else {
+			hitCount++;
+		}
+		if (Policy.DEBUG_CONTENT_CACHE && (hitCount + missCount) % TRACE_INTERVAL == 0) {
+			System.out.println("[" + Thread.currentThread().getName() + "] content digest cache: " + getStatistics()); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		return digest;
+	}
+
+	/**
+	 * Remove all digests from the cache.
+	 */
+	public synchronized void clear() {
+		digests.clear();
+	}
+
+	/**
+	 * Return the number of lookups that found a digest.
+	 * @return the number of lookups that found a digest
+	 */
+	public synchronized long getHitCount() {
+		return hitCount;
+	}
+
+	/**
+	 * Return the number of lookups that did not find a digest.
+	 * @return the number of lookups that did not find a digest
+	 */
+	public synchronized long getMissCount() {
+		return missCount;
+	}
+
+	/**
+	 * Return the fraction of the lookups that found a digest.
+	 * @return the hit rate between 0 and 1
+	 */
+	public synchronized double getHitRate() {
+		long lookups = hitCount + missCount;
+		return lookups == 0 ? 0 : (double) hitCount / lookups;
+	}
+
+	private String getStatistics() {
+		return digests.size() + " digests, " + hitCount + " hits, " + missCount + " misses, hit rate " //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				+ Math.round(getHitRate() * 100) + "%"; //$NON-NLS-1$
+	}
+
+	/**
+	 * Compute the digest of the given contents. The stream is read to the
+	 * end but not closed.
+	 * @param contents the contents
+	 * @return the digest of the contents
+	 * @throws IOException if the contents cannot be read
+	 */
+	public static Digest computeDigest(InputStream contents) throws IOException {
+		Digester digester = new Digester();
+		byte[] buffer = new byte[ContentComparator.BLOCK_SIZE];
+		int count;
+		while ((count = contents.read(buffer)) != -1) {
+			digester.update(buffer, count);
+		}
+		return digester.digest();
+	}
+
+	/*
+	 * Computes the digest of contents that are passed to it a block at a time.
+	 */
+	static class Digester {
+		private final MessageDigest raw = newMessageDigest();
+		private final MessageDigest normalized = newMessageDigest();
+		private byte[] buffer = new byte[0];
+
+		/*
+		 * Add the given number of bytes at the start of the given block to
+		 * the digest. The block is not changed.
+		 */
+		void update(byte[] bytes, int count) {
+			raw.update(bytes, 0, count);
+			if (buffer.length < count)
+				buffer = new byte[count];
+			System.arraycopy(bytes, 0, buffer, 0, count);
+			normalized.update(buffer, 0, ContentComparator.removeWhitespace(buffer, count));
+		}
+
+		Digest digest() {
+			return new Digest(raw.digest(), normalized.digest());
+		}
+	}
+
+	private static MessageDigest newMessageDigest() {
+		try {
+			return MessageDigest.getInstance(ALGORITHM);
+		} catch (NoSuchAlgorithmException e) {
+			// Every Java platform is required to support SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+}
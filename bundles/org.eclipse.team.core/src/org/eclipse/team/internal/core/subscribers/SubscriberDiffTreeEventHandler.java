@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2017 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -276,9 +276,11 @@ public class SubscriberDiffTreeEventHandler extends SubscriberEventHandler {
 
 	@Override
 	protected void handleException(CoreException e, IResource resource, int code, String message) {
-		super.handleException(e, resource, code, message);
-		tree.reportError(new TeamStatus(IStatus.ERROR, TeamPlugin.ID, code, message, e, resource));
-		exceptionState = EXCEPTION_ERROR;
+		reportError(() -> {
+			super.handleException(e, resource, code, message);
+			tree.reportError(new TeamStatus(IStatus.ERROR, TeamPlugin.ID, code, message, e, resource));
+			exceptionState = EXCEPTION_ERROR;
+		});
 	}
 
 	@Override
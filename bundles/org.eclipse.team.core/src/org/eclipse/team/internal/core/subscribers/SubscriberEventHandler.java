@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2017 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -14,14 +14,27 @@
 package org.eclipse.team.internal.core.subscribers;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.IWorkspaceRunnable;
 import org.eclipse.core.resources.mapping.ResourceTraversal;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.jobs.IJobChangeEvent;
 import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.osgi.util.NLS;
@@ -33,6 +46,7 @@ import org.eclipse.team.core.subscribers.Subscriber;
 import org.eclipse.team.internal.core.BackgroundEventHandler;
 import org.eclipse.team.internal.core.Messages;
 import org.eclipse.team.internal.core.Policy;
+import org.eclipse.team.internal.core.TeamPlugin;
 
 /**
  * This handler collects changes and removals to resources and calculates their
@@ -40,11 +54,24 @@ import org.eclipse.team.internal.core.Policy;
  *
  * Exceptions that occur when the job is processing the events are collected and
  * returned as part of the Job's status.
+ * <p>
+ * If enabled (see {@link #getCollectionConcurrency()}), consecutive change and
+ * initialization events that are not limited to a single resource are collected
+ * concurrently on a bounded pool of worker threads, one partition per event or,
+ * for a single event, per member of its resource. Only <code>handleChange</code>
+ * and <code>collectAll</code> are invoked from the workers. Errors they report
+ * through {@link #reportError(Runnable)} are handled by the job. The job waits
+ * for the workers, dispatching their results and handling preemptive events
+ * meanwhile.
+ * </p>
  */
 public abstract class SubscriberEventHandler extends BackgroundEventHandler {
 
-	// Changes accumulated by the event handler
-	private List<Event> resultCache = new ArrayList<>();
+	// Changes accumulated by the event handler, possibly by several collection workers
+	private List<Event> resultCache = Collections.synchronizedList(new ArrayList<>());
+
+	// Errors reported by collection workers, which are handled by the job
+	private final List<Runnable> workerErrors = new ArrayList<>();
 
 	private boolean started = false;
 	private boolean initializing = true;
@@ -238,6 +265,8 @@ public abstract class SubscriberEventHandler extends BackgroundEventHandler {
 	protected abstract void handleChange(IResource resource) throws CoreException;
 
 	protected void handlePendingDispatch(IProgressMonitor monitor) {
+		if (isCollectionWorker())
+			return;
 		if (isReadyForDispatch(false /*don't wait if queue is empty*/)) {
 			try {
 				dispatchEvents(Policy.subMonitorFor(monitor, 5));
@@ -254,7 +283,40 @@ public abstract class SubscriberEventHandler extends BackgroundEventHandler {
 	 * The resource passed may be null.
 	 */
 	protected void handleException(CoreException e, IResource resource, int code, String message) {
-		handleException(e);
+		reportError(() -> handleException(e));
+	}
+
+	/**
+	 * Report an error by running the given runnable. If called from a
+	 * collection worker, the runnable is run by the job once the worker's
+	 * partition completes, so the error state of the handler and its output
+	 * is only modified by the job.
+	 * @param report the runnable that reports the error
+	 */
+	protected final void reportError(Runnable report) {
+		if (isCollectionWorker()) {
+			synchronized (workerErrors) {
+				workerErrors.add(report);
+			}
+		} else {
+			report.run();
+		}
+	}
+
+	/*
+	 * Report the errors that the collection workers deferred to the job.
+	 */
+	private void handleWorkerErrors() {
+		Runnable[] reports;
+		synchronized (workerErrors) {
+			if (workerErrors.isEmpty())
+				return;
+			reports = workerErrors.toArray(new Runnable[workerErrors.size()]);
+			workerErrors.clear();
+		}
+		for (Runnable report : reports) {
+			report.run();
+		}
 	}
 
 	/**
@@ -305,17 +367,15 @@ public abstract class SubscriberEventHandler extends BackgroundEventHandler {
 					queueDispatchEvent(event);
 					break;
 				case SubscriberEvent.CHANGE :
-					collect(
-						event.getResource(),
-						((ResourceEvent)event).getDepth(),
-						monitor);
-					break;
 				case SubscriberEvent.INITIALIZE :
-					monitor.subTask(NLS.bind(Messages.SubscriberEventHandler_2, new String[] { event.getResource().getFullPath().toString() }));
-					collectAll(
-							event.getResource(),
-							((ResourceEvent)event).getDepth(),
-							Policy.subMonitorFor(monitor, 64));
+					if (((ResourceEvent)event).getDepth() != IResource.DEPTH_ZERO) {
+						int concurrency = getCollectionConcurrency();
+						if (concurrency > 1) {
+							collectConcurrently((SubscriberEvent) event, concurrency, monitor);
+							break;
+						}
+					}
+					collect((SubscriberEvent) event, monitor);
 					break;
 			}
 		} catch (OperationCanceledException e) {
@@ -332,6 +392,188 @@ public abstract class SubscriberEventHandler extends BackgroundEventHandler {
 		}
 	}
 
+	/*
+	 * Collect the synchronization state for the given change or initialization event.
+	 */
+	private void collect(SubscriberEvent event, IProgressMonitor monitor) {
+		switch (event.getType()) {
+			case SubscriberEvent.CHANGE :
+				collect(
+					event.getResource(),
+					event.getDepth(),
+					monitor);
+				break;
+			case SubscriberEvent.INITIALIZE :
+				monitor.subTask(NLS.bind(Messages.SubscriberEventHandler_2, new String[] { event.getResource().getFullPath().toString() }));
+				collectAll(
+						event.getResource(),
+						event.getDepth(),
+						Policy.subMonitorFor(monitor, 64));
+				break;
+		}
+	}
+
+	/*
+	 * Collect the given event and the change or initialization events of the
+	 * same type that follow it in the queue on a pool of worker threads.
+	 */
+	private void collectConcurrently(SubscriberEvent event, int concurrency, IProgressMonitor monitor) {
+		List<SubscriberEvent> partitions = getPartitions(event);
+		if (partitions.size() < 2) {
+			collect(event, monitor);
+			return;
+		}
+		int threads = Math.min(concurrency, partitions.size());
+		ExecutorService executor = Executors.newFixedThreadPool(threads, CollectionWorker::new);
+		// workers only report cancellation, progress is reported by the job
+		IProgressMonitor workerMonitor = new NullProgressMonitor() {
+			@Override
+			public boolean isCanceled() {
+				return monitor.isCanceled() || isShutdown();
+			}
+		};
+		try {
+			CompletionService<SubscriberEvent> completion = new ExecutorCompletionService<>(executor);
+			for (SubscriberEvent partition : partitions) {
+				completion.submit(() -> {
+					collect(partition, workerMonitor);
+					return partition;
+				});
+			}
+			int remaining = partitions.size();
+			while (remaining > 0) {
+				Future<SubscriberEvent> done;
+				try {
+					done = completion.poll(getDispatchWaitDelay(), TimeUnit.MILLISECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new OperationCanceledException();
+				}
+				handleWorkerErrors();
+				Policy.checkCanceled(monitor);
+				handlePreemptiveEvents(monitor);
+				handlePendingDispatch(monitor);
+				if (done == null)
+					continue;
+				remaining--;
+				try {
+					SubscriberEvent partition = done.get();
+					monitor.subTask(NLS.bind(Messages.SubscriberEventHandler_2, new String[] { partition.getResource().getFullPath().toString() }));
+					monitor.worked(1);
+				} catch (ExecutionException e) {
+					Throwable cause = e.getCause();
+					if (cause instanceof RuntimeException)
+						throw (RuntimeException) cause;
+					if (cause instanceof Error)
+						throw (Error) cause;
+					throw new RuntimeException(cause);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new OperationCanceledException();
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+			try {
+				// the results of workers that are still running must not be dispatched
+				// after a cancellation has cleared the results
+				executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			handleWorkerErrors();
+		}
+	}
+
+	/*
+	 * Return the partitions to collect for the given event. These are the given
+	 * event and any events of the same type that follow it in the queue, or the
+	 * members of its resource if it is the only one. Partitions covered by
+	 * another partition are left out.
+	 */
+	private List<SubscriberEvent> getPartitions(SubscriberEvent event) {
+		List<SubscriberEvent> events = new ArrayList<>();
+		events.add(event);
+		synchronized (this) {
+			// the queue cannot change between peeking and removing the event
+			Event next;
+			while ((next = peek()) instanceof SubscriberEvent
+					&& next.getType() == event.getType()
+					&& ((SubscriberEvent) next).getDepth() != IResource.DEPTH_ZERO) {
+				events.add((SubscriberEvent) nextElement());
+			}
+		}
+		if (events.size() == 1 && event.getDepth() == IResource.DEPTH_INFINITE
+				&& event.getResource().getType() != IResource.FILE) {
+			try {
+				IResource[] members = getSubscriber().members(event.getResource());
+				if (members.length > 1) {
+					events.set(0, new SubscriberEvent(event.getResource(), event.getType(), IResource.DEPTH_ZERO));
+					for (IResource member : members) {
+						events.add(new SubscriberEvent(member, event.getType(), IResource.DEPTH_INFINITE));
+					}
+				}
+			} catch (TeamException e) {
+				// Collect the event as a whole, which reports the failure
+			}
+			return events;
+		}
+		Set<IPath> deepPaths = new HashSet<>();
+		for (SubscriberEvent e : events) {
+			if (e.getDepth() == IResource.DEPTH_INFINITE)
+				deepPaths.add(e.getResource().getFullPath());
+		}
+		List<SubscriberEvent> partitions = new ArrayList<>(events.size());
+		for (SubscriberEvent e : events) {
+			IPath path = e.getResource().getFullPath();
+			boolean covered = false;
+			for (int i = path.segmentCount() - 1; i >= 0 && !covered; i--) {
+				covered = deepPaths.contains(path.uptoSegment(i));
+			}
+			if (!covered)
+				partitions.add(e);
+		}
+		return partitions;
+	}
+
+	/**
+	 * Return the maximum number of threads that collect the synchronization
+	 * state of consecutive change and initialization events. If more than one
+	 * thread is used, <code>handleChange</code> and <code>collectAll</code> are
+	 * invoked concurrently for disjoint resources, so the subscriber must be
+	 * safe to use from several threads.
+	 * <p>
+	 * The default implementation returns the value of the
+	 * <code>collection_concurrency</code> preference of the
+	 * <code>org.eclipse.team.core</code> plug-in, which is 1 unless configured
+	 * otherwise, so that events are collected by the job alone.
+	 * </p>
+	 * @return the maximum number of threads collecting concurrently
+	 */
+	protected int getCollectionConcurrency() {
+		if (TeamPlugin.getPlugin() == null)
+			return 1;
+		return Platform.getPreferencesService().getInt(TeamPlugin.ID, TeamPlugin.PREF_COLLECTION_CONCURRENCY, 1, null);
+	}
+
+	/*
+	 * A thread that collects synchronization state for the handler.
+	 */
+	private static class CollectionWorker extends Thread {
+		CollectionWorker(Runnable runnable) {
+			super(runnable, "Team collection worker"); //$NON-NLS-1$
+			setDaemon(true);
+		}
+	}
+
+	/*
+	 * Return whether the current thread is a collection worker. Preemptive
+	 * events and dispatches are only handled by the job.
+	 */
+	private static boolean isCollectionWorker() {
+		return Thread.currentThread() instanceof CollectionWorker;
+	}
+
 	/**
 	 * Queue the event to be handle during the dispatch phase.
 	 * @param event the event
@@ -367,12 +609,15 @@ public abstract class SubscriberEventHandler extends BackgroundEventHandler {
 
 	@Override
 	protected boolean  doDispatchEvents(IProgressMonitor monitor) {
-		if (!resultCache.isEmpty()) {
-			dispatchEvents(resultCache.toArray(new SubscriberEvent[resultCache.size()]), monitor);
+		SubscriberEvent[] events;
+		synchronized (resultCache) {
+			if (resultCache.isEmpty())
+				return false;
+			events = resultCache.toArray(new SubscriberEvent[resultCache.size()]);
 			resultCache.clear();
-			return true;
 		}
-		return false;
+		dispatchEvents(events, monitor);
+		return true;
 	}
 
 	/**
@@ -395,6 +640,8 @@ public abstract class SubscriberEventHandler extends BackgroundEventHandler {
 	}
 
 	protected void handlePreemptiveEvents(IProgressMonitor monitor) {
+		if (isCollectionWorker())
+			return;
 		Event event = peek();
 		if (event instanceof RunnableEvent && ((RunnableEvent)event).isPreemtive()) {
 			executeRunnable(nextElement(), monitor);
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2017 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -41,6 +41,10 @@ public class SubscriberSyncInfoEventHandler extends SubscriberEventHandler {
 	// has been calculated by the job.
 	private final SyncSetInputFromSubscriber syncSetInput;
 
+	// The sync info is shown in the synchronize views so it is dispatched sooner
+	// than the default. Expensive dispatches still increase the delay.
+	private static final long DISPATCH_LATENCY_TARGET = 500;
+
 	private class SubscriberSyncInfoEvent extends SubscriberEvent {
 		private final SyncInfo result;
 
@@ -72,8 +76,10 @@ public class SubscriberSyncInfoEventHandler extends SubscriberEventHandler {
 
 	@Override
 	protected void handleException(CoreException e, IResource resource, int code, String message) {
-		super.handleException(e, resource, code, message);
-		syncSetInput.handleError(new TeamStatus(IStatus.ERROR, TeamPlugin.ID, code, message, e, resource));
+		reportError(() -> {
+			super.handleException(e, resource, code, message);
+			syncSetInput.handleError(new TeamStatus(IStatus.ERROR, TeamPlugin.ID, code, message, e, resource));
+		});
 	}
 
 	@Override
@@ -82,6 +88,11 @@ public class SubscriberSyncInfoEventHandler extends SubscriberEventHandler {
 		syncSetInput.handleError(new TeamStatus(IStatus.ERROR, TeamPlugin.ID, ITeamStatus.SYNC_INFO_SET_CANCELLATION, Messages.SubscriberEventHandler_12, e, ResourcesPlugin.getWorkspace().getRoot()));
 	}
 
+	@Override
+	protected long getDispatchLatencyTarget() {
+		return DISPATCH_LATENCY_TARGET;
+	}
+
 	/**
 	 * Return the sync set input that was created by this event handler
 	 * @return the sync set input
@@ -158,7 +169,7 @@ public class SubscriberSyncInfoEventHandler extends SubscriberEventHandler {
 					}
 					super.addError(status);
 					TeamPlugin.getPlugin().getLog().log(status);
-					syncSetInput.handleError(status);
+					reportError(() -> syncSetInput.handleError(status));
 				}
 				@Override
 				public void remove(IResource resource) {
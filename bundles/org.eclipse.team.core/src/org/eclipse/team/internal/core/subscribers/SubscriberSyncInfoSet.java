@@ -24,8 +24,8 @@ import org.eclipse.team.internal.core.Policy;
  * It also provides the ability
  * to batch changes in a single change notification as well as optimizations for sync info retrieval.
  *
- * This class uses synchronized methods and synchronized blocks to protect internal data structures during both access
- * and modify operations and uses an <code>ILock</code> to make modification operations thread-safe. The events
+ * This class uses concurrent maps so that access operations do not block, synchronized methods to protect internal
+ * data structures during modify operations and an <code>ILock</code> to make modification operations thread-safe. The events
  * are fired while this lock is held so clients responding to these events should not obtain their own internal locks
  * while processing change events.
  *
@@ -13,9 +13,8 @@
  *******************************************************************************/
 package org.eclipse.team.internal.core.subscribers;
 
-import java.util.HashMap;
-import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.eclipse.team.core.synchronize.SyncInfo;
 
@@ -24,7 +23,8 @@ import org.eclipse.team.core.synchronize.SyncInfo;
  */
 public class SyncInfoStatistics {
 	//	{int sync kind -> int number of infos with that sync kind in this sync set}
-	protected Map<Integer, Long> stats = new HashMap<>();
+	// Updates are made by one thread at a time but counts may be queried concurrently
+	protected Map<Integer, Long> stats = new ConcurrentHashMap<>();
 
 	/**
 	 * Count this sync kind. Only the type of the sync info is stored.
@@ -75,12 +75,10 @@ public class SyncInfoStatistics {
 			Long count = stats.get(Integer.valueOf(kind));
 			return count == null ? 0 : count.longValue();
 		} else {
-			Iterator it = stats.keySet().iterator();
 			long count = 0;
-			while (it.hasNext()) {
-				Integer key = (Integer) it.next();
-				if((key.intValue() & mask) == kind) {
-					count += stats.get(key).intValue();
+			for (Map.Entry<Integer, Long> entry : stats.entrySet()) {
+				if((entry.getKey().intValue() & mask) == kind) {
+					count += entry.getValue().intValue();
 				}
 			}
 			return count;
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -20,8 +20,8 @@ import org.eclipse.core.runtime.QualifiedName;
 import org.eclipse.osgi.util.NLS;
 import org.eclipse.team.core.TeamException;
 import org.eclipse.team.core.subscribers.*;
+import org.eclipse.team.core.variants.CompactResourceVariantByteStore;
 import org.eclipse.team.core.variants.IResourceVariantTree;
-import org.eclipse.team.core.variants.SessionResourceVariantByteStore;
 import org.eclipse.team.internal.ccvs.core.resources.CVSWorkspaceRoot;
 import org.eclipse.team.internal.ccvs.core.syncinfo.CVSResourceVariantTree;
 import org.eclipse.team.internal.ccvs.core.syncinfo.MultiTagResourceVariantTree;
@@ -44,7 +44,7 @@ public class CVSCompareSubscriber extends CVSSyncTreeSubscriber implements ISubs
 	public CVSCompareSubscriber(IResource[] resources, CVSTag tag) {
 		super(getUniqueId(), NLS.bind(CVSMessages.CVSCompareSubscriber_2, new String[] { tag.getName() })); // 
 		this.resources = resources;
-		tree = new CVSResourceVariantTree(new SessionResourceVariantByteStore(), tag, getCacheFileContentsHint());
+		tree = new CVSResourceVariantTree(new CompactResourceVariantByteStore(), tag, getCacheFileContentsHint());
 		initialize();
 	}
 
@@ -72,7 +72,7 @@ public class CVSCompareSubscriber extends CVSSyncTreeSubscriber implements ISubs
 			}
 		}
 		this.resources = resources;
-		MultiTagResourceVariantTree multiTree = new MultiTagResourceVariantTree(new SessionResourceVariantByteStore(), getCacheFileContentsHint());
+		MultiTagResourceVariantTree multiTree = new MultiTagResourceVariantTree(new CompactResourceVariantByteStore(), getCacheFileContentsHint());
 		for (int i = 0; i < tags.length; i++) {
 			multiTree.addResource(resources[i], tags[i]);
 		}
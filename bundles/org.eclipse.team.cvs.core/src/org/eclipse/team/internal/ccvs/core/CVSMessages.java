@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2011 IBM Corporation and others.
+ * Copyright (c) 2005, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -55,6 +55,7 @@ public class CVSMessages extends NLS {
 	public static String Connection_readUnestablishedConnection;
 	public static String Connection_writeUnestablishedConnection;
 	public static String Connection_0;
+	public static String ConnectionPool_0;
 	public static String PrepareForReplaceVisitor_DeletedFileWithoutHistoryCannotBeRestoredWhileRevertToBase;
 	public static String PrepareForReplaceVisitor_FileCannotBeReplacedWithBase;
 
@@ -191,6 +192,7 @@ public class CVSMessages extends NLS {
 	public static String CVSProvider_Scrubbing_local_project_1;
 	public static String CVSProvider_Scrubbing_projects_1;
 	public static String CVSProvider_Creating_projects_2;
+	public static String CVSProvider_errorsDuringCheckout;
 
 	public static String EclipseFile_Problem_deleting_resource;
 	public static String EclipseFile_Problem_accessing_resource;
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2018 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -35,10 +35,13 @@ import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.MultiStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.Path;
-import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.jobs.ISchedulingRule;
 import org.eclipse.core.runtime.jobs.MultiRule;
+import org.eclipse.osgi.util.NLS;
 import org.eclipse.team.core.ProjectSetCapability;
 import org.eclipse.team.core.ProjectSetSerializationContext;
 import org.eclipse.team.core.RepositoryProvider;
@@ -57,6 +60,7 @@ import org.eclipse.team.internal.ccvs.core.resources.RemoteFolder;
 import org.eclipse.team.internal.ccvs.core.resources.RemoteModule;
 import org.eclipse.team.internal.ccvs.core.syncinfo.FolderSyncInfo;
 import org.eclipse.team.internal.ccvs.core.util.KnownRepositories;
+import org.eclipse.team.internal.ccvs.core.util.RepositoryTaskRunner;
 
 /**
  * An object for serializing and deserializing of references to CVS based
@@ -236,7 +240,8 @@ public class CVSProjectSetCapability extends ProjectSetCapability {
 	}
 
 	/**
-	 * Checkout projects from the CVS repository
+	 * Checkout projects from the CVS repository. If the monitor is canceled,
+	 * the projects that were loaded until then are returned.
 	 * 
 	 * @param projects the projects to be loaded from the repository
 	 * @param infoMap a mapping of project to project load information
@@ -248,26 +253,26 @@ public class CVSProjectSetCapability extends ProjectSetCapability {
 		IProgressMonitor monitor)
 		throws TeamException {
 		
-		final List result = new ArrayList();
+		// Check out all projects at once so that they can be loaded in parallel
+		List result = new ArrayList();
+		List resources = new ArrayList();
+		for (IProject project : projects) {
+			LoadInfo info = (LoadInfo) infoMap.get(project);
+			if (info != null && info.repositoryLocation != null) {
+				result.add(project);
+				resources.add(info.asRemoteFolder());
+			}
+		}
+		IProject[] targets = (IProject[]) result.toArray(new IProject[result.size()]);
+		boolean[] loaded = new boolean[targets.length];
 		try {
-			ResourcesPlugin.getWorkspace().run((IWorkspaceRunnable) monitor1 -> {
-				monitor1.beginTask("", 1000 * projects.length); //$NON-NLS-1$
-				try {
-					for (int i = 0; i < projects.length; i++) {
-						if (monitor1.isCanceled())
-							break;
-						IProject project = projects[i];
-						LoadInfo info = (LoadInfo) infoMap.get(project);
-						if (info != null && info.checkout(SubMonitor.convert(monitor1, 1000)))
-							result.add(project);
-					}
-				}
-				finally {
-					monitor1.done();
-				}
-			}, getCheckoutRule(projects), IResource.NONE, monitor);
-		} catch (CoreException e) {
-			throw TeamException.asTeamException(e);
+			checkout((ICVSRemoteFolder[]) resources.toArray(new ICVSRemoteFolder[resources.size()]), targets, loaded, monitor);
+		} catch (OperationCanceledException e) {
+			result.clear();
+			for (int i = 0; i < targets.length; i++) {
+				if (loaded[i])
+					result.add(targets[i]);
+			}
 		}
 		return (IProject[])result.toArray(new IProject[result.size()]);
 	}
@@ -317,23 +322,14 @@ public class CVSProjectSetCapability extends ProjectSetCapability {
 		}
 		
 		/**
-		 * Checkout the project specified by this reference.
+		 * Return the remote folder that is checked out into the project.
 		 * 
-		 * @param monitor project monitor
-		 * @return true if loaded, else false
-		 * @throws TeamException
+		 * @return the remote folder
 		 */
-		boolean checkout(IProgressMonitor monitor) throws TeamException {
-			if (repositoryLocation == null)
-				return false;
-			CVSProjectSetCapability.checkout(
-				repositoryLocation,
-				project,
-				module,
-				tag,
-				monitor);
-			return true;
+		ICVSRemoteFolder asRemoteFolder() {
+			return new RemoteFolder(null, repositoryLocation, module, tag);
 		}
+		
 	}
 
 	/**
@@ -401,116 +397,162 @@ public class CVSProjectSetCapability extends ProjectSetCapability {
 	 * known to the workbench will be overwritten.
 	 */
 	public static void checkout(final ICVSRemoteFolder[] resources, final IProject[] projects, final IProgressMonitor monitor) throws TeamException {
-		final TeamException[] eHolder = new TeamException[1];
+		checkout(resources, projects, new boolean[resources.length], monitor);
+	}
+
+	/*
+	 * Checkout the remote resources and record which of them were checked out,
+	 * so that the loaded projects are known if the monitor is canceled.
+	 */
+	private static void checkout(final ICVSRemoteFolder[] resources, final IProject[] projects, final boolean[] loaded, final IProgressMonitor monitor) throws TeamException {
+		// Get the location of the workspace root
+		final ICVSFolder root = CVSWorkspaceRoot.getCVSFolderFor(ResourcesPlugin.getWorkspace().getRoot());
+		
+		// Check out each resource on its own so that several projects can be checked out at once
+		RepositoryTaskRunner.ITask[] tasks = new RepositoryTaskRunner.ITask[resources.length];
+		for (int i = 0; i < resources.length; i++) {
+			final RemoteFolder resource = (RemoteFolder)resources[i];
+			// Determine the provided target project if there is one
+			final IProject project = projects == null ? null : projects[i];
+			final int index = i;
+			tasks[i] = new RepositoryTaskRunner.ITask() {
+				@Override
+				public ICVSRepositoryLocation getRepository() {
+					return resource.getRepository();
+				}
+				@Override
+				public IStatus run(IProgressMonitor pm) throws CVSException {
+					checkout(root, resource, project, pm);
+					loaded[index] = true;
+					return Status.OK_STATUS;
+				}
+			};
+		}
+		IStatus[] results;
+		try {
+			results = new RepositoryTaskRunner(CVSProviderPlugin.getPlugin().getCheckoutParallelism()).run(tasks, monitor);
+		} finally {
+			monitor.done();
+		}
+		
+		// Throw the errors that occurred
+		List errors = new ArrayList();
+		for (IStatus result : results) {
+			if (!result.isOK())
+				errors.add(result);
+		}
+		if (errors.size() == 1) {
+			throw new CVSException((IStatus) errors.get(0));
+		} else if (!errors.isEmpty()) {
+			MultiStatus multi = new MultiStatus(CVSProviderPlugin.ID, 0, NLS.bind(CVSMessages.CVSProvider_errorsDuringCheckout, new String[] { String.valueOf(errors.size()), String.valueOf(results.length) }), null);
+			for (Iterator iter = errors.iterator(); iter.hasNext();) {
+				multi.merge((IStatus) iter.next());
+			}
+			throw new CVSException(multi);
+		}
+	}
+
+	/*
+	 * Checkout the remote resource into the given project or, if the project is
+	 * null, into the projects of the module expansions. Only the target projects
+	 * are locked while the resources are loaded.
+	 */
+	private static void checkout(final ICVSFolder root, final RemoteFolder resource, final IProject project, IProgressMonitor pm) throws CVSException {
+		pm.beginTask(null, 1000);
+		
+		// Determine the remote module to be checked out
+		final String moduleName;
+		if (resource instanceof RemoteModule) {
+			moduleName = ((RemoteModule)resource).getName();
+		} else {
+			moduleName = resource.getRepositoryRelativePath();
+		}
+		
+		// Open a connection session to the repository
+		ICVSRepositoryLocation repository = resource.getRepository();
+		final Session session = new Session(repository, root);
 		try {
-			IWorkspaceRunnable workspaceRunnable = pm -> {
+			session.open(Policy.subMonitorFor(pm, 50), false /* read-only */);
+			
+			// Determine the local target projects (either the project provider or the module expansions) 
+			final Set targetProjects = new HashSet();
+			if (project == null) {
+				
+				// Fetch the module expansions
+				IStatus status1 = Request.EXPAND_MODULES.execute(session, new String[] {moduleName}, Policy.subMonitorFor(pm, 50));
+				if (status1.getCode() == CVSStatus.SERVER_ERROR) {
+					throw new CVSServerException(status1);
+				}
+				
+				// Convert the module expansions to local projects
+				String[] expansions = session.getModuleExpansions();
+				for (int j = 0; j < expansions.length; j++) {
+					targetProjects.add(ResourcesPlugin.getWorkspace().getRoot().getProject(new Path(null, expansions[j]).segment(0)));
+				}
+				
+			} else {
+				targetProjects.add(project);
+			}
+			final IProject[] targets = (IProject[]) targetProjects.toArray(new IProject[targetProjects.size()]);
+			
+			final TeamException[] eHolder = new TeamException[1];
+			IWorkspaceRunnable workspaceRunnable = monitor -> {
 				try {
-					pm.beginTask(null, 1000 * resources.length);
+					monitor.beginTask(null, 1000);
 					
-					// Get the location of the workspace root
-					ICVSFolder root = CVSWorkspaceRoot.getCVSFolderFor(ResourcesPlugin.getWorkspace().getRoot());
+					// Prepare the target projects to receive resources
+					root.run(monitor1 -> scrubProjects(targets, monitor1), Policy.subMonitorFor(monitor, 100));
 					
-					for (int i=0;i<resources.length;i++) {
-						IProject project = null;
-						RemoteFolder resource = (RemoteFolder)resources[i];
-						
-						// Determine the provided target project if there is one
-						if (projects != null) 
-							project = projects[i];
-						
-						// Determine the remote module to be checked out
-						String moduleName;
-						if (resource instanceof RemoteModule) {
-							moduleName = ((RemoteModule)resource).getName();
-						} else {
-							moduleName = resource.getRepositoryRelativePath();
-						}
-						
-						// Open a connection session to the repository
-						ICVSRepositoryLocation repository = resource.getRepository();
-						Session session = new Session(repository, root);
-						try {
-							session.open(Policy.subMonitorFor(pm, 50), false /* read-only */);
-							
-							// Determine the local target projects (either the project provider or the module expansions) 
-							final Set targetProjects = new HashSet();
-							if (project == null) {
-								
-								// Fetch the module expansions
-								IStatus status1 = Request.EXPAND_MODULES.execute(session, new String[] {moduleName}, Policy.subMonitorFor(pm, 50));
-								if (status1.getCode() == CVSStatus.SERVER_ERROR) {
-									throw new CVSServerException(status1);
-								}
-								
-								// Convert the module expansions to local projects
-								String[] expansions = session.getModuleExpansions();
-								for (int j = 0; j < expansions.length; j++) {
-									targetProjects.add(ResourcesPlugin.getWorkspace().getRoot().getProject(new Path(null, expansions[j]).segment(0)));
-								}
-								
-							} else {
-								targetProjects.add(project);
-							}
-							
-							// Prepare the target projects to receive resources
-							root.run(monitor1 -> scrubProjects(
-									(IProject[]) targetProjects.toArray(new IProject[targetProjects.size()]), monitor1),
-									Policy.subMonitorFor(pm, 100));
-
-							// Build the local options
-							List localOptions = new ArrayList();
-							// Add the option to load into the target project if one was supplied
-							if (project != null) {
-								localOptions.add(Checkout.makeDirectoryNameOption(project.getName()));
-							}
-							// Prune empty directories if pruning enabled
-							if (CVSProviderPlugin.getPlugin().getPruneEmptyDirectories()) 
-								localOptions.add(Command.PRUNE_EMPTY_DIRECTORIES);
-							// Add the options related to the CVSTag
-							CVSTag tag = resource.getTag();
-							if (tag == null) {
-								// A null tag in a remote resource indicates HEAD
-								tag = CVSTag.DEFAULT;
-							}
-							localOptions.add(Update.makeTagOption(tag));
-
-							// Perform the checkout
-							IStatus status2 = Command.CHECKOUT.execute(session,
-								Command.NO_GLOBAL_OPTIONS,
-								(LocalOption[])localOptions.toArray(new LocalOption[localOptions.size()]),
-								new String[]{moduleName},
-								null,
-								Policy.subMonitorFor(pm, 800));
-							if (status2.getCode() == CVSStatus.SERVER_ERROR) {
-								// XXX Should we cleanup any partially checked out projects?
-								throw new CVSServerException(status2);
-							}
-							
-							// Bring the project into the workspace
-							refreshProjects((IProject[])targetProjects.toArray(new IProject[targetProjects.size()]), Policy.subMonitorFor(pm, 100));
-
-						} finally {
-							session.close();
-						}
+					// Build the local options
+					List localOptions = new ArrayList();
+					// Add the option to load into the target project if one was supplied
+					if (project != null) {
+						localOptions.add(Checkout.makeDirectoryNameOption(project.getName()));
+					}
+					// Prune empty directories if pruning enabled
+					if (CVSProviderPlugin.getPlugin().getPruneEmptyDirectories()) 
+						localOptions.add(Command.PRUNE_EMPTY_DIRECTORIES);
+					// Add the options related to the CVSTag
+					CVSTag tag = resource.getTag();
+					if (tag == null) {
+						// A null tag in a remote resource indicates HEAD
+						tag = CVSTag.DEFAULT;
+					}
+					localOptions.add(Update.makeTagOption(tag));
+					
+					// Perform the checkout
+					IStatus status2 = Command.CHECKOUT.execute(session,
+						Command.NO_GLOBAL_OPTIONS,
+						(LocalOption[])localOptions.toArray(new LocalOption[localOptions.size()]),
+						new String[]{moduleName},
+						null,
+						Policy.subMonitorFor(monitor, 800));
+					if (status2.getCode() == CVSStatus.SERVER_ERROR) {
+						// XXX Should we cleanup any partially checked out projects?
+						throw new CVSServerException(status2);
 					}
+					
+					// Bring the project into the workspace
+					refreshProjects(targets, Policy.subMonitorFor(monitor, 100));
 				}
 				catch (TeamException e) {
 					// Pass it outside the workspace runnable
 					eHolder[0] = e;
 				} finally {
-					pm.done();
+					monitor.done();
 				}
 				// CoreException and OperationCanceledException are propagated
 			};
-			ResourcesPlugin.getWorkspace().run(workspaceRunnable, getCheckoutRule(projects), 0, monitor);
+			ResourcesPlugin.getWorkspace().run(workspaceRunnable, getCheckoutRule(targets), 0, Policy.subMonitorFor(pm, 900));
+			// Re-throw the TeamException, if one occurred
+			if (eHolder[0] != null) {
+				throw CVSException.wrapException(eHolder[0]);
+			}
 		} catch (CoreException e) {
 			throw CVSException.wrapException(e);
 		} finally {
-			monitor.done();
-		}		
-		// Re-throw the TeamException, if one occurred
-		if (eHolder[0] != null) {
-			throw eHolder[0];
+			session.close();
+			pm.done();
 		}
 	}
 
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2014 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -32,6 +32,7 @@ import org.eclipse.team.internal.ccvs.core.client.*;
 import org.eclipse.team.internal.ccvs.core.client.Command.KSubstOption;
 import org.eclipse.team.internal.ccvs.core.client.Command.QuietOption;
 import org.eclipse.team.internal.ccvs.core.client.listeners.IConsoleListener;
+import org.eclipse.team.internal.ccvs.core.connection.ConnectionPool;
 import org.eclipse.team.internal.ccvs.core.mapping.CVSActiveChangeSetCollector;
 import org.eclipse.team.internal.ccvs.core.resources.FileModificationManager;
 import org.eclipse.team.internal.ccvs.core.util.*;
@@ -64,6 +65,8 @@ public class CVSProviderPlugin extends Plugin {
 	public static final int DEFAULT_COMPRESSION_LEVEL = 0;
 	// default text keyword substitution mode
 	public static final KSubstOption DEFAULT_TEXT_KSUBST_OPTION = Command.KSUBST_TEXT_EXPAND;
+	// number of projects checked out from a repository at once
+	public static final int DEFAULT_CHECKOUT_PARALLELISM = 4;
 
 	// cvs plugin extension points and ids
 	public static final String ID = "org.eclipse.team.cvs.core"; //$NON-NLS-1$
@@ -86,6 +89,9 @@ public class CVSProviderPlugin extends Plugin {
 	private String cvsRshParameters = DEFAULT_CVS_RSH_PARAMETERS;
 	private String cvsServer = DEFAULT_CVS_SERVER;
 	private boolean determineVersionEnabled = true;
+	private boolean pipelinedTreeBuildingEnabled = false;
+	private boolean connectionPoolingEnabled = false;
+	private int checkoutParallelism = DEFAULT_CHECKOUT_PARALLELISM;
 	
 	private static volatile CVSProviderPlugin instance;
 	
@@ -337,6 +343,9 @@ public class CVSProviderPlugin extends Plugin {
 			
 			getChangeSetManager().dispose();
 			
+			// close the idle connections to the repositories
+			ConnectionPool.closeAll();
+			
 			tracker.close();
 			
 			deleteCrashFile();
@@ -564,6 +573,62 @@ public class CVSProviderPlugin extends Plugin {
 	public void setDetermineVersionEnabled(boolean determineVersionEnabled) {
 		this.determineVersionEnabled = determineVersionEnabled;
 	}
+
+	/**
+	 * Gets the pipelinedTreeBuildingEnabled. If enabled, remote trees are
+	 * built with one request per level of new directories and the file
+	 * revisions are fetched over several connections.
+	 * @return boolean
+	 */
+	public boolean isPipelinedTreeBuildingEnabled() {
+		return pipelinedTreeBuildingEnabled;
+	}
+
+	/**
+	 * Sets the pipelinedTreeBuildingEnabled.
+	 * @param pipelinedTreeBuildingEnabled The pipelinedTreeBuildingEnabled to set
+	 */
+	public void setPipelinedTreeBuildingEnabled(boolean pipelinedTreeBuildingEnabled) {
+		this.pipelinedTreeBuildingEnabled = pipelinedTreeBuildingEnabled;
+	}
+	
+	/**
+	 * Gets the connectionPoolingEnabled. If enabled, sessions return their
+	 * connection to the pool of the repository location when they are closed
+	 * and later sessions reuse the idle connections.
+	 * @return boolean
+	 */
+	public boolean isConnectionPoolingEnabled() {
+		return connectionPoolingEnabled;
+	}
+
+	/**
+	 * Sets the connectionPoolingEnabled. Disabling pooling closes the idle
+	 * connections.
+	 * @param connectionPoolingEnabled The connectionPoolingEnabled to set
+	 */
+	public void setConnectionPoolingEnabled(boolean connectionPoolingEnabled) {
+		this.connectionPoolingEnabled = connectionPoolingEnabled;
+		if (!connectionPoolingEnabled)
+			ConnectionPool.closeAll();
+	}
+	
+	/**
+	 * Gets the checkoutParallelism, the number of projects that are checked
+	 * out from a repository at once when several projects are checked out.
+	 * @return int
+	 */
+	public int getCheckoutParallelism() {
+		return checkoutParallelism;
+	}
+
+	/**
+	 * Sets the checkoutParallelism.
+	 * @param checkoutParallelism The checkoutParallelism to set
+	 */
+	public void setCheckoutParallelism(int checkoutParallelism) {
+		this.checkoutParallelism = checkoutParallelism;
+	}
 	
 	/**
 	 * Returns the fileModificationManager.
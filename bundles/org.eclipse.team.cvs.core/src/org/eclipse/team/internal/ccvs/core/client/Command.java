@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2007 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -379,6 +379,7 @@ public abstract class Command extends Request {
 
 			/*** initiate command ***/
 			// send global options
+			session.prepareGlobalOptions(globalOptions, Policy.subMonitorFor(monitor, 0));
 			for (GlobalOption globalOption : globalOptions) {
 				globalOption.send(session);
 			}
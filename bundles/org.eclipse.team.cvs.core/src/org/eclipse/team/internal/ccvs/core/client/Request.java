@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2010 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -28,6 +28,7 @@ import org.eclipse.team.internal.ccvs.core.connection.CVSServerException;
 public abstract class Request {
 	public static final ExpandModules EXPAND_MODULES = new ExpandModules();
 	public static final ValidRequests VALID_REQUESTS = new ValidRequests();
+	public static final Ping PING = new Ping();
 
 	/*** Response handler map ***/
 	private static final Map<String,ResponseHandler> responseHandlers = new HashMap<>();
@@ -152,8 +153,11 @@ public abstract class Request {
 
 			// handle completion responses
 			if (response.equals("ok")) {  //$NON-NLS-1$
+				session.requestCompleted();
 				break;
 			} else if (response.equals("error") || (isCVSNT && response.isEmpty())) {  //$NON-NLS-1$
+				// the server may be in an unknown state so the connection is not reused
+				session.requestFailed();
 				argument = argument.trim();
 				boolean serious = false;
 				if (argument.length() == 0) {
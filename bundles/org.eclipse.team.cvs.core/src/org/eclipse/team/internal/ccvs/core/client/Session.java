@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2007 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -19,9 +19,11 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
@@ -35,6 +37,7 @@ import org.eclipse.team.internal.ccvs.core.client.Command.GlobalOption;
 import org.eclipse.team.internal.ccvs.core.client.Command.QuietOption;
 import org.eclipse.team.internal.ccvs.core.connection.CVSRepositoryLocation;
 import org.eclipse.team.internal.ccvs.core.connection.Connection;
+import org.eclipse.team.internal.ccvs.core.connection.ConnectionPool;
 import org.eclipse.team.internal.ccvs.core.syncinfo.NotifyInfo;
 import org.eclipse.team.internal.ccvs.core.syncinfo.ResourceSyncInfo;
 import org.eclipse.team.internal.ccvs.core.util.Util;
@@ -78,6 +81,9 @@ public class Session {
 	private ICVSFolder localRoot;
 	private boolean outputToConsole;
 	private Connection connection = null;
+	// whether the connection was reused and no command was executed on it yet
+	private boolean reusedConnection = false;
+	private boolean writeAccess;
 	private String validRequests = null;
 	private Date modTime = null;
 	private boolean noLocalChanges = false;
@@ -153,12 +159,20 @@ public class Session {
 	}
 	
 	public void open(IProgressMonitor monitor, boolean writeAccess) throws CVSException {
+		open(monitor, writeAccess, true /* reuse idle connections */);
+	}
+	
+	private void open(IProgressMonitor monitor, boolean writeAccess, boolean reuse) throws CVSException {
 		if (connection != null) throw new IllegalStateException();
 		monitor = Policy.subMonitorFor(monitor, 100);
+		this.writeAccess = writeAccess;
 		boolean opened = false;	
 	
 		try {
-			connection = getLocationForConnection(writeAccess).openConnection(Policy.subMonitorFor(monitor, 50));
+			CVSRepositoryLocation location = getLocationForConnection(writeAccess);
+			// idle connections and the valid requests are only shared if pooling is enabled
+			boolean pooling = CVSProviderPlugin.getPlugin().isConnectionPoolingEnabled();
+			ConnectionPool pool = location.getConnectionPool();
 			
 			// If we're connected to a CVSNT server or we don't know the platform, 
 			// accept MT. Otherwise don't.
@@ -166,23 +180,50 @@ public class Session {
 			if ( ! useMT) {
 				removeResponseHandler("MT"); //$NON-NLS-1$
 			}
+			String responseList = makeResponseList();
+			int requestedCompressionLevel = CVSProviderPlugin.getPlugin().getCompressionLevel();
+			String handshake = requestedCompressionLevel + " " + responseList; //$NON-NLS-1$
+			
+			// reuse an idle connection that was initialized in the same way
+			if (pooling && reuse) {
+				connection = pool.acquire(handshake);
+				if (connection != null) {
+					validRequests = connection.getValidRequests();
+					compressionLevel = connection.getCompressionLevel();
+					if (isHealthy(Policy.subMonitorFor(monitor, 10))) {
+						reusedConnection = true;
+						opened = true;
+						return;
+					}
+					// the connection died while it was idle so retry once on a new connection
+					discardConnection();
+				}
+			}
+			
+			connection = location.openConnection(Policy.subMonitorFor(monitor, 50));
+			reusedConnection = false;
 			
 			// tell the server the names of the responses we can handle
-			connection.writeLine("Valid-responses " + makeResponseList()); //$NON-NLS-1$
-			// Flush in order to recieve the valid requests
-			connection.flush();
+			connection.writeLine("Valid-responses " + responseList); //$NON-NLS-1$
 	
-			// ask for the set of valid requests
-			IStatus status = Request.VALID_REQUESTS.execute(this, Policy.subMonitorFor(monitor, 40));
-			if (!status.isOK()) {
-				throw new CVSException(status);
+			// ask for the set of valid requests unless a previous connection did
+			validRequests = pooling ? pool.getValidRequests() : null;
+			if (validRequests == null) {
+				// Flush in order to recieve the valid requests
+				connection.flush();
+				IStatus status = Request.VALID_REQUESTS.execute(this, Policy.subMonitorFor(monitor, 40));
+				if (!status.isOK()) {
+					throw new CVSException(status);
+				}
+				if (pooling)
+					pool.setValidRequests(validRequests);
 			}
 			
 			// set the root directory on the server for this connection
 			connection.writeLine("Root " + getRepositoryRoot()); //$NON-NLS-1$
 
 			// enable compression
-			compressionLevel = CVSProviderPlugin.getPlugin().getCompressionLevel();
+			compressionLevel = requestedCompressionLevel;
 			if (compressionLevel != 0 && isValidRequest("gzip-file-contents")) { //$NON-NLS-1$
 				// Enable the use of CVS 1.8 per-file compression mechanism.
 				// The newer Gzip-stream request seems to be problematic due to Java's
@@ -199,14 +240,65 @@ public class Session {
 			if (CVSProviderPlugin.getPlugin().isDetermineVersionEnabled() && location.getServerPlatform() == CVSRepositoryLocation.UNDETERMINED_PLATFORM) {
 				Command.VERSION.execute(this, location, Policy.subMonitorFor(monitor, 10));
 			}
+			// the connection can be reused by sessions that send the same initial requests
+			connection.setHandshake(handshake, validRequests, compressionLevel);
+			connection.setIdle();
 			opened = true;
 		} finally {
 			if (connection != null && ! opened) {
-				close();
+				discardConnection();
 			}
 			monitor.done();
 		}
-	}		
+	}
+	
+	/*
+	 * Return whether the idle connection taken from the pool still works. The
+	 * server may have closed the connection at any time, so it is checked with
+	 * a noop request before it is reused.
+	 */
+	private boolean isHealthy(IProgressMonitor monitor) {
+		if (!connection.isIdle() || !isValidRequest("noop")) //$NON-NLS-1$
+			return false;
+		try {
+			return Request.PING.execute(this, monitor).isOK();
+		} catch (CVSException e) {
+			return false;
+		}
+	}
+	
+	/*
+	 * Close the connection without returning it to the pool.
+	 */
+	private void discardConnection() {
+		connection.close();
+		connection = null;
+		validRequests = null;
+	}
+	
+	/**
+	 * Prepares the connection for a command that sends the given global
+	 * options. Global options remain in effect on the server, so a connection
+	 * that was reused from a previous session is replaced if that session sent
+	 * global options that the command does not send.
+	 * 
+	 * @param globalOptions the global options of the command
+	 * @param monitor the progress monitor
+	 * @throws CVSException if a new connection cannot be opened
+	 */
+	void prepareGlobalOptions(GlobalOption[] globalOptions, IProgressMonitor monitor) throws CVSException {
+		if (!reusedConnection)
+			return;
+		reusedConnection = false;
+		Set<String> options = new HashSet<>();
+		for (GlobalOption option : globalOptions) {
+			options.add(option.getOption());
+		}
+		if (!connection.hasOnlyGlobalOptions(options)) {
+			discardConnection();
+			open(monitor, writeAccess, false /* open a new connection */);
+		}
+	}
 	
 	/*
 	 * Return the location to be used for this connection
@@ -222,7 +314,12 @@ public class Session {
 	 */
 	public void close() {
 		if (connection != null) {
-			connection.close();
+			if (CVSProviderPlugin.getPlugin().isConnectionPoolingEnabled()) {
+				// the pool closes the connection unless it can be reused
+				location.getConnectionPool().release(connection);
+			} else {
+				connection.close();
+			}
 			connection = null;
 			validRequests = null;
 		}
@@ -501,6 +598,7 @@ public class Session {
 	 */
 	public void sendGlobalOption(String option) throws CVSException {
 		connection.writeLine("Global_option " + option); //$NON-NLS-1$
+		connection.addGlobalOption(option);
 	}
 
 	/**
@@ -840,6 +938,22 @@ public class Session {
 		return noLocalChanges;
 	}
 	
+	/**
+	 * Callback hook for Request to record that the server answered all
+	 * requests that were sent, so the connection can be reused.
+	 */
+	void requestCompleted() {
+		connection.setIdle();
+	}
+	
+	/**
+	 * Callback hook for Request to record that the server answered a request
+	 * with an error, so the connection is closed rather than reused.
+	 */
+	void requestFailed() {
+		connection.setReusable(false);
+	}
+	
 	/**
 	 * Callback hook for the ValidRequestsHandler to specify the set of valid
 	 * requests for this session.
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -16,7 +16,7 @@
  *******************************************************************************/
 package org.eclipse.team.internal.ccvs.core.client.listeners;
 
-import java.text.*;
+import java.text.ParseException;
 import java.util.*;
 
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -27,6 +27,7 @@ import org.eclipse.team.internal.ccvs.core.*;
 import org.eclipse.team.internal.ccvs.core.client.CommandOutputListener;
 import org.eclipse.team.internal.ccvs.core.resources.RemoteFile;
 import org.eclipse.team.internal.ccvs.core.syncinfo.ResourceSyncInfo;
+import org.eclipse.team.internal.ccvs.core.util.CVSDateFormatter;
 import org.eclipse.team.internal.ccvs.core.util.Util;
 
 /**
@@ -35,15 +36,6 @@ import org.eclipse.team.internal.ccvs.core.util.Util;
  */
 public class LogListener extends CommandOutputListener {
 	
-	/*
-	 * A new format for log dates was introduced in 1.12.9
-	 */
-	private static final String LOG_TIMESTAMP_FORMAT_OLD= "yyyy/MM/dd HH:mm:ss zzz";//$NON-NLS-1$
-	private static final String LOG_TIMESTAMP_FORMAT= "yyyy-MM-dd HH:mm:ss zzz";//$NON-NLS-1$
-	private static final Locale LOG_TIMESTAMP_LOCALE= Locale.US;
-	private final DateFormat LOG_DATE_FORMATTER_OLD = new SimpleDateFormat(LOG_TIMESTAMP_FORMAT_OLD, LOG_TIMESTAMP_LOCALE);
-	private final DateFormat LOG_DATE_FORMATTER = new SimpleDateFormat(LOG_TIMESTAMP_FORMAT, LOG_TIMESTAMP_LOCALE);
-	
 	// Server message prefix used for error detection
 	private static final String NOTHING_KNOWN_ABOUT = "nothing known about "; //$NON-NLS-1$
 
@@ -166,7 +158,7 @@ public class LogListener extends CommandOutputListener {
 				// date: 2000/06/19 04:56:21;  author: somebody;  state: Exp;  lines: +114 -45
 				// get the creation date
 				int endOfDateIndex = line.indexOf(';', 6);
-				creationDate = convertFromLogTime(line.substring(6, endOfDateIndex) + " GMT"); //$NON-NLS-1$
+				creationDate = convertFromLogTime(line.substring(6, endOfDateIndex));
 	
 				// get the author name
 				int endOfAuthorIndex = line.indexOf(';', endOfDateIndex + 1);
@@ -294,13 +286,8 @@ public class LogListener extends CommandOutputListener {
 	 * <code>Date</code>.
 	 */
 	private Date convertFromLogTime(String modTime) {
-		DateFormat format = LOG_DATE_FORMATTER;
-		// Compatibility for older cvs version (pre 1.12.9)
-		if (modTime.length() > 4 && modTime.charAt(4) == '/')
-			format = LOG_DATE_FORMATTER_OLD;
-		
 		try {
-			return format.parse(modTime);
+			return CVSDateFormatter.logStampToDate(modTime);
 		} catch (ParseException e) {
 			// fallback is to return null
 			return null;
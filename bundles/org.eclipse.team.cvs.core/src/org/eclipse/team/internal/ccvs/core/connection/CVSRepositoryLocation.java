@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -141,6 +141,9 @@ public class CVSRepositoryLocation extends PlatformObject implements ICVSReposit
 	 */
 	private boolean previousAuthenticationFailed = false;
 	
+	// The idle connections to this location
+	private final ConnectionPool connectionPool = new ConnectionPool();
+	
 	/**
 	 * Return the preferences node whose child nodes are the know repositories
 	 * @return a preferences node
@@ -543,6 +546,7 @@ public class CVSRepositoryLocation extends PlatformObject implements ICVSReposit
 	 * down or a connection is being validated.
 	 */
 	public void dispose() {
+		connectionPool.clear();
 		removeNode();
 		try {
 			if (hasPreferences()) {
@@ -620,6 +624,8 @@ public class CVSRepositoryLocation extends PlatformObject implements ICVSReposit
 
 	@Override
 	public void setEncoding(String encoding) {
+		// The pooled connections use the previous encoding
+		connectionPool.clear();
 		if (encoding == null || encoding == getDefaultEncoding()) {
 			if (hasPreferences()) {
 				internalGetPreferences().remove(PREF_SERVER_ENCODING);
@@ -793,6 +799,15 @@ public class CVSRepositoryLocation extends PlatformObject implements ICVSReposit
 		}
 	}
 
+	/**
+	 * Return the pool of idle connections to this location.
+	 * 
+	 * @return the connection pool
+	 */
+	public ConnectionPool getConnectionPool() {
+		return connectionPool;
+	}
+
 	/*
 	 * Prompt for the user authentication information (i.e. user name and password).
 	 */
@@ -931,6 +946,7 @@ public class CVSRepositoryLocation extends PlatformObject implements ICVSReposit
 		// We set the password here but it will be cleared 
 		// if the user info is cached using updateCache()
 		this.password = password;
+		connectionPool.clear();
 		// The password has been changed, reset the flag, so we won't 
 		// prompt before attempting to connect
 		previousAuthenticationFailed = false;
@@ -941,6 +957,7 @@ public class CVSRepositoryLocation extends PlatformObject implements ICVSReposit
 		if (userFixed)
 			throw new UnsupportedOperationException();
 		this.user = user;
+		connectionPool.clear();
 	}
 	
 	public void setUserMuteable(boolean muteable) {
@@ -1056,6 +1073,7 @@ public class CVSRepositoryLocation extends PlatformObject implements ICVSReposit
 	
 	@Override
 	public void flushUserInfo() {
+		connectionPool.clear();
 		removeNode();
 	}
 	
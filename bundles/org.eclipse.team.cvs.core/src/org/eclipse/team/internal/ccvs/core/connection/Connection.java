@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2014 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -16,6 +16,8 @@ package org.eclipse.team.internal.ccvs.core.connection;
 
  
 import java.io.*;
+import java.util.HashSet;
+import java.util.Set;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
@@ -48,6 +50,17 @@ public class Connection {
 	private InputStream fResponseStream;
 	private String fServerEncoding;
 	private byte[] readLineBuffer = new byte[256];
+	// the state established by the initial requests of the session that opened the connection
+	private String fHandshake;
+	private String fValidRequests;
+	private int fCompressionLevel;
+	// the global options that were sent, which remain in effect on the server
+	private final Set<String> fGlobalOptions = new HashSet<>();
+	// whether all requests that were sent were answered by the server
+	private boolean fIdle;
+	// whether the server answered all requests without an error
+	private boolean fReusable = true;
+	private long fReleaseTime;
 
 	public Connection(ICVSRepositoryLocation cvsroot, IServerConnection serverConnection) {
 		fCVSRoot = cvsroot;
@@ -81,6 +94,7 @@ public class Connection {
 		} finally {
 			fResponseStream = null;
 			fIsEstablished = false;
+			fIdle = false;
 		}
 	}
 	/**
@@ -125,6 +139,114 @@ public class Connection {
 		return fIsEstablished;
 	}
 
+	/**
+	 * Returns <code>true</code> if all requests that were sent on the
+	 * connection were answered by the server and no unexpected responses are
+	 * waiting to be read; otherwise <code>false</code>.
+	 */
+	public boolean isIdle() {
+		if (!fIdle || !isEstablished())
+			return false;
+		try {
+			return getInputStream().available() == 0;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Records that all requests that were sent on the connection were
+	 * answered by the server.
+	 */
+	public void setIdle() {
+		fIdle = true;
+	}
+
+	/**
+	 * Returns <code>false</code> if the server answered a request on the
+	 * connection with an error; otherwise <code>true</code>.
+	 */
+	public boolean isReusable() {
+		return fReusable;
+	}
+
+	/**
+	 * Records whether the connection can be returned to its pool. A
+	 * connection on which the server reported an error is not reused.
+	 */
+	public void setReusable(boolean reusable) {
+		fReusable = reusable;
+	}
+
+	/**
+	 * Records the state that the initial requests of a session established on
+	 * the server, so the connection can be reused by sessions that would
+	 * establish the same state.
+	 *
+	 * @param handshake identifies the initial requests
+	 * @param validRequests the valid requests reported by the server
+	 * @param compressionLevel the compression level that was requested
+	 */
+	public void setHandshake(String handshake, String validRequests, int compressionLevel) {
+		fHandshake = handshake;
+		fValidRequests = validRequests;
+		fCompressionLevel = compressionLevel;
+	}
+
+	/**
+	 * Returns the handshake of the connection or <code>null</code> if the
+	 * initial requests were not completed.
+	 */
+	public String getHandshake() {
+		return fHandshake;
+	}
+
+	/**
+	 * Returns the valid requests reported by the server.
+	 */
+	public String getValidRequests() {
+		return fValidRequests;
+	}
+
+	/**
+	 * Returns the compression level that was requested.
+	 */
+	public int getCompressionLevel() {
+		return fCompressionLevel;
+	}
+
+	/**
+	 * Records that the given global option was sent. Global options remain in
+	 * effect on the server until the connection is closed.
+	 */
+	public void addGlobalOption(String option) {
+		fGlobalOptions.add(option);
+	}
+
+	/**
+	 * Returns whether only global options from the given set were sent on the
+	 * connection.
+	 */
+	public boolean hasOnlyGlobalOptions(Set<String> options) {
+		return options.containsAll(fGlobalOptions);
+	}
+
+	/**
+	 * Returns the number of milliseconds since the connection was returned to
+	 * its pool.
+	 */
+	public long getIdleTime() {
+		return System.currentTimeMillis() - fReleaseTime;
+	}
+
+	long getReleaseTime() {
+		return fReleaseTime;
+	}
+
+	void setReleaseTime(long releaseTime) {
+		fReleaseTime = releaseTime;
+	}
+
 	/**
 	 * Opens the connection.
 	 */	
@@ -226,6 +348,7 @@ public class Connection {
 		if (Policy.isDebugProtocol())
 			Policy.printProtocol(new String(b, off, len), newline);
 	
+		fIdle = false;
 		try {
 			OutputStream out= getOutputStream();
 			out.write(b, off, len);
@@ -0,0 +1,216 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.internal.ccvs.core.connection;
+
+import java.util.*;
+
+import org.eclipse.core.runtime.*;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.team.internal.ccvs.core.CVSMessages;
+
+/**
+ * The idle connections to a repository location. If connection pooling is
+ * enabled, a session returns its connection to the pool of the location when
+ * it is closed, so the next session can skip the authentication and the
+ * initial requests. Only connections whose requests were all answered by the
+ * server without an error are kept, and they are checked with a noop request
+ * before they are reused.
+ * <p>
+ * At most {@link #MAX_IDLE_CONNECTIONS} connections are kept per location and
+ * connections are closed when they were idle for {@link #IDLE_TIMEOUT}
+ * milliseconds. The pool also caches the valid requests that the server
+ * reported, so new connections to the location do not need to ask for them.
+ * </p>
+ */
+public class ConnectionPool {
+
+	/**
+	 * The maximum number of idle connections kept for a location.
+	 */
+	public static final int MAX_IDLE_CONNECTIONS = 4;
+
+	/**
+	 * The number of milliseconds after which idle connections are closed.
+	 */
+	public static final long IDLE_TIMEOUT = 60000;
+
+	// the pools with idle connections, for the eviction job
+	private static final Set<ConnectionPool> pools = new HashSet<>();
+
+	private static final Job evictionJob = new Job(CVSMessages.ConnectionPool_0) {
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			ConnectionPool[] toEvict;
+			synchronized (pools) {
+				toEvict = pools.toArray(new ConnectionPool[pools.size()]);
+			}
+			for (ConnectionPool pool : toEvict) {
+				pool.evict(false);
+			}
+			synchronized (pools) {
+				if (!pools.isEmpty())
+					schedule(IDLE_TIMEOUT);
+			}
+			return Status.OK_STATUS;
+		}
+	};
+	static {
+		evictionJob.setSystem(true);
+	}
+
+	// the idle connections, the most recently used first
+	private final LinkedList<Connection> idleConnections = new LinkedList<>();
+	private String validRequests;
+
+	/**
+	 * Return an idle connection that was opened with the given handshake or
+	 * <code>null</code> if there is none. The connections that were opened
+	 * with a different handshake are closed.
+	 *
+	 * @param handshake the handshake, i.e. the state that the initial requests
+	 *            of a session established on the server
+	 * @return an idle connection or <code>null</code>
+	 */
+	public Connection acquire(String handshake) {
+		evict(false);
+		List<Connection> toClose = new ArrayList<>();
+		Connection result = null;
+		synchronized (this) {
+			while (result == null && !idleConnections.isEmpty()) {
+				Connection connection = idleConnections.removeFirst();
+				if (connection.isEstablished() && handshake.equals(connection.getHandshake())) {
+					result = connection;
+				} else {
+					toClose.add(connection);
+				}
+			}
+			unregisterIfEmpty();
+		}
+		close(toClose);
+		return result;
+	}
+
+	/**
+	 * Return the given connection to the pool. The connection is closed if it
+	 * is not idle, the server reported an error on it or the pool is full.
+	 *
+	 * @param connection the connection
+	 */
+	public void release(Connection connection) {
+		if (!connection.isEstablished() || !connection.isIdle() || !connection.isReusable() || connection.getHandshake() == null) {
+			connection.close();
+			return;
+		}
+		connection.setReleaseTime(System.currentTimeMillis());
+		List<Connection> toClose = new ArrayList<>();
+		synchronized (this) {
+			idleConnections.addFirst(connection);
+			while (idleConnections.size() > MAX_IDLE_CONNECTIONS) {
+				toClose.add(idleConnections.removeLast());
+			}
+		}
+		close(toClose);
+		synchronized (pools) {
+			if (pools.add(this) && pools.size() == 1)
+				evictionJob.schedule(IDLE_TIMEOUT);
+		}
+	}
+
+	/**
+	 * Close all idle connections and forget the valid requests. This is
+	 * called when the information used to connect to the location changes.
+	 */
+	public void clear() {
+		synchronized (this) {
+			validRequests = null;
+		}
+		evict(true);
+	}
+
+	/**
+	 * Return the valid requests that the server reported for a previous
+	 * connection or <code>null</code>.
+	 *
+	 * @return the valid requests or <code>null</code>
+	 */
+	public synchronized String getValidRequests() {
+		return validRequests;
+	}
+
+	/**
+	 * Remember the valid requests that the server reported.
+	 *
+	 * @param validRequests the valid requests
+	 */
+	public synchronized void setValidRequests(String validRequests) {
+		this.validRequests = validRequests;
+	}
+
+	/**
+	 * Return the number of idle connections in the pool.
+	 *
+	 * @return the number of idle connections
+	 */
+	public synchronized int getIdleCount() {
+		return idleConnections.size();
+	}
+
+	/**
+	 * Close the idle connections of all locations.
+	 */
+	public static void closeAll() {
+		ConnectionPool[] toClear;
+		synchronized (pools) {
+			toClear = pools.toArray(new ConnectionPool[pools.size()]);
+		}
+		for (ConnectionPool pool : toClear) {
+			pool.evict(true);
+		}
+		evictionJob.cancel();
+	}
+
+	/*
+	 * Close the connections that were idle for too long or all connections.
+	 */
+	private void evict(boolean all) {
+		List<Connection> toClose = new ArrayList<>();
+		long now = System.currentTimeMillis();
+		synchronized (this) {
+			for (Iterator<Connection> iter = idleConnections.iterator(); iter.hasNext();) {
+				Connection connection = iter.next();
+				if (all || now - connection.getReleaseTime() >= IDLE_TIMEOUT) {
+					iter.remove();
+					toClose.add(connection);
+				}
+			}
+			unregisterIfEmpty();
+		}
+		close(toClose);
+	}
+
+	private void unregisterIfEmpty() {
+		if (idleConnections.isEmpty()) {
+			synchronized (pools) {
+				pools.remove(this);
+			}
+		}
+	}
+
+	private static void close(List<Connection> connections) {
+		// Closing may block so it is done outside of the pool lock
+		for (Connection connection : connections) {
+			connection.close();
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -926,14 +926,7 @@ public class EclipseSynchronizer implements IFlushOperation {
 	 * @return byte[]
 	 */
 	private byte[] getSyncBytesFromDisk(IResource resource) throws CVSException {
-		byte[][] infos = SyncFileWriter.readAllResourceSync(resource.getParent());
-		if (infos == null) return null;
-		for (byte[] syncBytes : infos) {
-			if (resource.getName().equals(getName(syncBytes))) {
-				return syncBytes;
-			}
-		}
-		return null;
+		return SyncFileWriter.readResourceSync(resource.getParent(), resource.getName());
 	}
 	
 	/**
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2008 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -27,6 +27,7 @@ import org.eclipse.team.internal.ccvs.core.connection.CVSRepositoryLocation;
 import org.eclipse.team.internal.ccvs.core.connection.CVSServerException;
 import org.eclipse.team.internal.ccvs.core.syncinfo.FolderSyncInfo;
 import org.eclipse.team.internal.ccvs.core.syncinfo.ResourceSyncInfo;
+import org.eclipse.team.internal.ccvs.core.util.RepositoryTaskRunner;
 import org.eclipse.team.internal.ccvs.core.util.Util;
 
 /*
@@ -44,8 +45,16 @@ public class RemoteFolderTreeBuilder {
 
 	private static final int MAX_REVISION_FETCHES_PER_CONNECTION = 1024;
 	
+	// In pipelined mode, the number of connections used to fetch file revisions
+	// and the minimum number of revisions fetched per connection
+	private static final int MAX_PARALLEL_REVISION_FETCHES = 4;
+	private static final int MIN_REVISION_FETCHES_PER_CONNECTION = 64;
+	
+	// In pipelined mode, the maximum number of new directories fetched with one request
+	private static final int MAX_DIRECTORY_FETCHES_PER_REQUEST = 1024;
+	
 	private Map<String, Map<String, DeltaNode>> fileDeltas;
-	private List<String> changedFiles;
+	private Set<String> changedFiles;
 	private Map<String, RemoteFolderTree> remoteFolderTable;
 	
 	private ICVSFolder root;
@@ -67,6 +76,22 @@ public class RemoteFolderTreeBuilder {
 	
 	private boolean newFolderExist = false;
 	
+	/*
+	 * A folder of the remote tree that is being built in pipelined mode
+	 */
+	static class FolderNode {
+		final ICVSFolder local;
+		final RemoteFolderTree remote;
+		final String localPath;
+		List<FolderNode> children;
+		
+		FolderNode(ICVSFolder local, RemoteFolderTree remote, String localPath) {
+			this.local = local;
+			this.remote = remote;
+			this.localPath = localPath;
+		}
+	}
+	
 	static class DeltaNode {
 		int syncState = Update.STATE_NONE;
 		String name;
@@ -97,7 +122,7 @@ public class RemoteFolderTreeBuilder {
 		this.root = root;
 		this.tag = tag;
 		this.fileDeltas = new HashMap<>();
-		this.changedFiles = new ArrayList<>();
+		this.changedFiles = new LinkedHashSet<>();
 		this.remoteFolderTable = new HashMap<>();
 		
 		// Build the local options
@@ -247,7 +272,11 @@ public class RemoteFolderTreeBuilder {
 			IProgressMonitor subProgress = Policy.infiniteSubMonitorFor(monitor, 90);
 			subProgress.beginTask(null, 512);
 			// Build the remote tree
-			buildRemoteTree(session, root, remoteRoot, "", subProgress); //$NON-NLS-1$
+			if (isPipelined()) {
+				buildRemoteTreeByLevel(session, root, remoteRoot, subProgress);
+			} else {
+				buildRemoteTree(session, root, remoteRoot, "", subProgress); //$NON-NLS-1$
+			}
 		} finally {
 			if (session != null) {
 				session.close();
@@ -262,20 +291,76 @@ public class RemoteFolderTreeBuilder {
 			String[] allChangedFiles = changedFiles.toArray(new String[changedFiles.size()]);
 			int iterations = (allChangedFiles.length / MAX_REVISION_FETCHES_PER_CONNECTION) 
 				+ (allChangedFiles.length % MAX_REVISION_FETCHES_PER_CONNECTION == 0 ? 0 : 1);
-			for (int i = 0; i < iterations ; i++) {
-				int length = Math.min(MAX_REVISION_FETCHES_PER_CONNECTION, 
-					allChangedFiles.length - (MAX_REVISION_FETCHES_PER_CONNECTION * i));
-				String buffer[] = new String[length];
-				System.arraycopy(allChangedFiles, i * MAX_REVISION_FETCHES_PER_CONNECTION, buffer, 0, length);
-				Session session = new Session(repository, remoteRoot, false);
-				session.open(Policy.subMonitorFor(monitor, 1), false /* read-only */);
-				try {
-					fetchFileRevisions(session, buffer, Policy.subMonitorFor(monitor, 2));
-				} finally {
-					session.close();
+			if (isPipelined()) {
+				// Use more, smaller groups that are fetched over several connections at once
+				int parallelFetches = Math.min(MAX_PARALLEL_REVISION_FETCHES, 
+					(allChangedFiles.length + MIN_REVISION_FETCHES_PER_CONNECTION - 1) / MIN_REVISION_FETCHES_PER_CONNECTION);
+				iterations = Math.max(iterations, parallelFetches);
+			}
+			int groupSize = (allChangedFiles.length + iterations - 1) / iterations;
+			List<String[]> groups = new ArrayList<>();
+			for (int start = 0; start < allChangedFiles.length; start += groupSize) {
+				groups.add(Arrays.copyOfRange(allChangedFiles, start, Math.min(start + groupSize, allChangedFiles.length)));
+			}
+			if (groups.size() > 1 && isPipelined()) {
+				fetchFileRevisionsInParallel(groups, monitor);
+			} else {
+				for (String[] group : groups) {
+					fetchFileRevisionsInSession(group, Policy.subMonitorFor(monitor, 1), Policy.subMonitorFor(monitor, 2));
+				}
+			}
+		}
+	}
+	
+	private void fetchFileRevisionsInSession(String[] fileNames, IProgressMonitor openMonitor, IProgressMonitor monitor) throws CVSException {
+		Session session = new Session(repository, remoteRoot, false);
+		session.open(openMonitor, false /* read-only */);
+		try {
+			fetchFileRevisions(session, fileNames, monitor);
+		} finally {
+			session.close();
+		}
+	}
+	
+	/*
+	 * Fetch the revisions of each group of files over its own connection, with
+	 * up to MAX_PARALLEL_REVISION_FETCHES connections at once.
+	 */
+	private void fetchFileRevisionsInParallel(List<String[]> groups, IProgressMonitor monitor) throws CVSException {
+		RepositoryTaskRunner.ITask[] tasks = new RepositoryTaskRunner.ITask[groups.size()];
+		for (int i = 0; i < tasks.length; i++) {
+			final String[] group = groups.get(i);
+			tasks[i] = new RepositoryTaskRunner.ITask() {
+				public ICVSRepositoryLocation getRepository() {
+					return repository;
 				}
+				public IStatus run(IProgressMonitor taskMonitor) throws CVSException {
+					taskMonitor.beginTask(null, 3);
+					try {
+						fetchFileRevisionsInSession(group, Policy.subMonitorFor(taskMonitor, 1), Policy.subMonitorFor(taskMonitor, 2));
+					} finally {
+						taskMonitor.done();
+					}
+					return org.eclipse.core.runtime.Status.OK_STATUS;
+				}
+			};
+		}
+		IStatus[] results = new RepositoryTaskRunner(MAX_PARALLEL_REVISION_FETCHES).run(tasks, Policy.subMonitorFor(monitor, 3 * tasks.length));
+		List<IStatus> errors = new ArrayList<>();
+		for (IStatus result : results) {
+			if (!result.isOK()) {
+				errors.add(result);
 			}
 		}
+		if (errors.size() == 1) {
+			throw new CVSException(errors.get(0));
+		} else if (!errors.isEmpty()) {
+			MultiStatus multi = new MultiStatus(CVSProviderPlugin.ID, 0, CVSMessages.RemoteFolder_errorFetchingRevisions, null); 
+			for (IStatus error : errors) {
+				multi.merge(error);
+			}
+			throw new CVSException(multi);
+		}
 	}
 	
 	/* package */ RemoteFile buildTree(ICVSFile file, IProgressMonitor monitor) throws CVSException {
@@ -441,14 +526,67 @@ public class RemoteFolderTreeBuilder {
 		// Add the remote folder to the remote folder lookup table (used to update file revisions)
 		recordRemoteFolder(remote);
 		
-		// Create a map to contain the created children
-		Map<String, RemoteResource> children = new HashMap<>();
-		
 		// If there's no corresponding local resource then we need to fetch its contents in order to populate the deltas
 		if (local == null) {
 			fetchNewDirectory(session, remote, localPath, monitor);
 		}
 		
+		List<FolderNode> childFolders = buildChildren(local, remote, localPath, monitor);
+		
+		// We have to delay building the child folders to support the proper fetching of new directories
+		// due to the fact that the same CVS home directory (i.e. the same root directory) must
+		// be used for all requests sent over the same connection
+		for (FolderNode child : childFolders) {
+			buildRemoteTree(session, child.local, child.remote, child.localPath, monitor);
+		}
+		pruneEmptyChildren(remote, childFolders);
+	}
+	
+	/*
+	 * Build the remote tree one level at a time. The contents of the new
+	 * directories of a level are fetched with one request (or a few for very
+	 * wide levels) before the level is built, so the number of round trips
+	 * to the server depends on the depth of the new directories rather than
+	 * on their number.
+	 */
+	private void buildRemoteTreeByLevel(Session session, ICVSFolder local, RemoteFolderTree remote, IProgressMonitor monitor) throws CVSException {
+		List<FolderNode> level = Collections.singletonList(new FolderNode(local, remote, "")); //$NON-NLS-1$
+		List<FolderNode> built = new ArrayList<>();
+		while (!level.isEmpty()) {
+			Policy.checkCanceled(monitor);
+			List<FolderNode> newFolders = new ArrayList<>();
+			for (FolderNode node : level) {
+				// Add the remote folder to the remote folder lookup table (used to update file revisions)
+				recordRemoteFolder(node.remote);
+				if (node.local == null) {
+					newFolders.add(node);
+				}
+			}
+			fetchNewDirectoryContents(session, newFolders, monitor);
+			List<FolderNode> nextLevel = new ArrayList<>();
+			for (FolderNode node : level) {
+				node.children = buildChildren(node.local, node.remote, node.localPath, monitor);
+				nextLevel.addAll(node.children);
+			}
+			built.addAll(level);
+			level = nextLevel;
+		}
+		// Prune from the bottom up, so that the children are pruned before their parent
+		for (int i = built.size() - 1; i >= 0; i--) {
+			FolderNode node = built.get(i);
+			pruneEmptyChildren(node.remote, node.children);
+		}
+	}
+	
+	/*
+	 * Set the children of the given remote folder from the local folder and the
+	 * deltas and return the child folders, which are not built yet.
+	 */
+	private List<FolderNode> buildChildren(ICVSFolder local, RemoteFolderTree remote, String localPath, IProgressMonitor monitor) throws CVSException {
+		
+		// Create a map to contain the created children
+		Map<String, RemoteResource> children = new HashMap<>();
+		
 		// Fetch the delta's for the folder
 		Map deltas = fileDeltas.get(localPath);
 		if (deltas == null)
@@ -528,16 +666,10 @@ public class RemoteFolderTreeBuilder {
 		// Add the children to the remote folder tree
 		remote.setChildren(children.values().toArray(new ICVSRemoteResource[children.size()]));
 		
-		// We have to delay building the child folders to support the proper fetching of new directories
-		// due to the fact that the same CVS home directory (i.e. the same root directory) must
-		// be used for all requests sent over the same connection
-		Iterator childIterator = children.entrySet().iterator();
-		List<RemoteFolderTree> emptyChildren = new ArrayList<>();
-		while (childIterator.hasNext()) {
-			Map.Entry entry = (Map.Entry)childIterator.next();
-			if (((RemoteResource)entry.getValue()).isFolder()) {
-				RemoteFolderTree remoteFolder = (RemoteFolderTree)entry.getValue();
-				String name = (String)entry.getKey();
+		List<FolderNode> childFolders = new ArrayList<>();
+		for (Map.Entry<String, RemoteResource> entry : children.entrySet()) {
+			if (entry.getValue().isFolder()) {
+				String name = entry.getKey();
 				ICVSFolder localFolder;
 				DeltaNode d = (DeltaNode)deltas.get(name);
 				// for directories that are new on the server 
@@ -545,24 +677,39 @@ public class RemoteFolderTreeBuilder {
 					localFolder = null;
 				else
 					localFolder = local.getFolder(name);
-				buildRemoteTree(session, localFolder, remoteFolder, Util.appendPath(localPath, name), monitor);
-				// Record any children that are empty
-				if (isPruneEmptyDirectories() && remoteFolder.getChildren().length == 0) {
-					// Prune if the local folder is also empty.
-					if (localFolder == null || (localFolder.members(ICVSFolder.ALL_EXISTING_MEMBERS).length == 0))
+				childFolders.add(new FolderNode(localFolder, (RemoteFolderTree)entry.getValue(), Util.appendPath(localPath, name)));
+			}
+		}
+		return childFolders;
+	}
+	
+	/*
+	 * Remove the given child folders of the remote folder that were built
+	 * without children, if empty directories are pruned.
+	 */
+	private void pruneEmptyChildren(RemoteFolderTree remote, List<FolderNode> childFolders) throws CVSException {
+		if (!isPruneEmptyDirectories())
+			return;
+		// Record any children that are empty
+		List<RemoteFolderTree> emptyChildren = new ArrayList<>();
+		for (FolderNode child : childFolders) {
+			RemoteFolderTree remoteFolder = child.remote;
+			ICVSFolder localFolder = child.local;
+			if (remoteFolder.getChildren().length == 0) {
+				// Prune if the local folder is also empty.
+				if (localFolder == null || (localFolder.members(ICVSFolder.ALL_EXISTING_MEMBERS).length == 0))
+					emptyChildren.add(remoteFolder);
+				else {
+					// Also prune if the tag we are fetching is not HEAD and differs from the tag of the local folder
+					FolderSyncInfo info = localFolder.getFolderSyncInfo();
+					if (tag != null && info != null && ! tag.equals(CVSTag.DEFAULT) && ! tag.equals(info.getTag()))
 						emptyChildren.add(remoteFolder);
-					else {
-						// Also prune if the tag we are fetching is not HEAD and differs from the tag of the local folder
-						FolderSyncInfo info = localFolder.getFolderSyncInfo();
-						if (tag != null && info != null && ! tag.equals(CVSTag.DEFAULT) && ! tag.equals(info.getTag()))
-							emptyChildren.add(remoteFolder);
-					}
 				}
 			}
 		}
 		
 		// Prune any empty child folders
-		if (isPruneEmptyDirectories() && !emptyChildren.isEmpty()) {
+		if (!emptyChildren.isEmpty()) {
 			List<ICVSRemoteResource> newChildren = new ArrayList<>();
 			newChildren.addAll(Arrays.asList(remote.getChildren()));
 			newChildren.removeAll(emptyChildren);
@@ -577,7 +724,7 @@ public class RemoteFolderTreeBuilder {
 	 * 
 	 * Returns the list of changed files
 	 */
-	private List<String> fetchDelta(Session session, String[] arguments, final IProgressMonitor monitor) throws CVSException {
+	private Set<String> fetchDelta(Session session, String[] arguments, final IProgressMonitor monitor) throws CVSException {
 		
 		// Create an listener that will accumulate new and removed files and folders
 		IUpdateMessageListener listener = new IUpdateMessageListener() {
@@ -657,26 +804,7 @@ public class RemoteFolderTreeBuilder {
 	private void fetchNewDirectory(Session session, RemoteFolderTree newFolder, String localPath, final IProgressMonitor monitor) throws CVSException {
 		
 		// Create an listener that will accumulate new files and folders
-		IUpdateMessageListener listener = new IUpdateMessageListener() {
-			public void directoryInformation(ICVSFolder root, String path, boolean newDirectory) {
-				if (newDirectory) {
-					// Record new directory with parent so it can be retrieved when building the parent
-					// NOTE: Check path prefix
-					recordDelta(path, FOLDER, Update.STATE_NONE);
-					monitor.subTask(NLS.bind(CVSMessages.RemoteFolderTreeBuilder_receivingDelta, new String[] { Util.toTruncatedPath(path, 3) })); 
-				}
-			}
-			public void directoryDoesNotExist(ICVSFolder root, String path) {
-			}
-			public void fileInformation(int type, ICVSFolder root, String filename) {
-				// NOTE: Check path prefix
-				changedFiles.add(filename);
-				recordDelta(filename, ADDED, type);
-				monitor.subTask(NLS.bind(CVSMessages.RemoteFolderTreeBuilder_receivingDelta, new String[] { Util.toTruncatedPath(filename, 3) })); 
-			}
-			public void fileDoesNotExist(ICVSFolder root, String filename) {
-			}
-		};
+		IUpdateMessageListener listener = createNewDirectoryListener(monitor);
 
 		// NOTE: Should use the path relative to the remoteRoot
 		IStatus status = Command.UPDATE.execute(session,
@@ -705,6 +833,94 @@ public class RemoteFolderTreeBuilder {
 		}
 	}
 	
+	/*
+	 * Fetch the children of the given previously unknown directories with as
+	 * few requests as possible. The directories that a request could not fetch
+	 * are fetched one at a time, which handles the directories that have no
+	 * files for the tag.
+	 */
+	private void fetchNewDirectoryContents(Session session, List<FolderNode> newFolders, IProgressMonitor monitor) throws CVSException {
+		for (int start = 0; start < newFolders.size(); start += MAX_DIRECTORY_FETCHES_PER_REQUEST) {
+			List<FolderNode> batch = newFolders.subList(start, Math.min(start + MAX_DIRECTORY_FETCHES_PER_REQUEST, newFolders.size()));
+			List<FolderNode> remaining = batch;
+			if (batch.size() > 1) {
+				remaining = fetchNewDirectories(session, batch, monitor);
+			}
+			// The deltas recorded by a failed request are recorded again
+			for (FolderNode node : remaining) {
+				Policy.checkCanceled(monitor);
+				fetchNewDirectory(session, node.remote, node.localPath, monitor);
+			}
+		}
+	}
+	
+	/*
+	 * Fetch the children of the given previously unknown directories with one
+	 * request and return the directories that must be fetched one at a time.
+	 * These are all of the directories if the request failed. When a tag is
+	 * fetched, they are also the directories that nothing was received for,
+	 * since the server does not report the subdirectories of a directory
+	 * that has no files for the tag.
+	 */
+	private List<FolderNode> fetchNewDirectories(Session session, List<FolderNode> newFolders, IProgressMonitor monitor) throws CVSException {
+		String[] localPaths = new String[newFolders.size()];
+		for (int i = 0; i < localPaths.length; i++) {
+			localPaths[i] = newFolders.get(i).localPath;
+		}
+		IStatus status;
+		try {
+			status = Command.UPDATE.execute(session,
+				new GlobalOption[] { Command.DO_NOT_CHANGE },
+				updateLocalOptions,
+				localPaths,
+				new UpdateListener(createNewDirectoryListener(monitor)),
+				Policy.subMonitorFor(monitor, 1));
+		} catch (CVSServerException e) {
+			// A serious error about one directory fails the request for all of them
+			return newFolders;
+		}
+		if (status.getCode() == CVSStatus.SERVER_ERROR) {
+			return newFolders;
+		}
+		if (tag == null || tag.getType() == CVSTag.HEAD) {
+			return Collections.emptyList();
+		}
+		List<FolderNode> remaining = new ArrayList<>();
+		for (FolderNode node : newFolders) {
+			Map<String, DeltaNode> deltas = fileDeltas.get(node.localPath);
+			if (deltas == null || deltas.isEmpty()) {
+				remaining.add(node);
+			}
+		}
+		return remaining;
+	}
+	
+	/*
+	 * Create a listener that records the files and folders of new directories
+	 */
+	private IUpdateMessageListener createNewDirectoryListener(final IProgressMonitor monitor) {
+		return new IUpdateMessageListener() {
+			public void directoryInformation(ICVSFolder root, String path, boolean newDirectory) {
+				if (newDirectory) {
+					// Record new directory with parent so it can be retrieved when building the parent
+					// NOTE: Check path prefix
+					recordDelta(path, FOLDER, Update.STATE_NONE);
+					monitor.subTask(NLS.bind(CVSMessages.RemoteFolderTreeBuilder_receivingDelta, new String[] { Util.toTruncatedPath(path, 3) })); 
+				}
+			}
+			public void directoryDoesNotExist(ICVSFolder root, String path) {
+			}
+			public void fileInformation(int type, ICVSFolder root, String filename) {
+				// NOTE: Check path prefix
+				changedFiles.add(filename);
+				recordDelta(filename, ADDED, type);
+				monitor.subTask(NLS.bind(CVSMessages.RemoteFolderTreeBuilder_receivingDelta, new String[] { Util.toTruncatedPath(filename, 3) })); 
+			}
+			public void fileDoesNotExist(ICVSFolder root, String filename) {
+			}
+		};
+	}
+	
 	// Get the file revisions for the given filenames
 	private void fetchFileRevisions(Session session, String[] fileNames, final IProgressMonitor monitor) throws CVSException {
 		
@@ -749,6 +965,14 @@ public class RemoteFolderTreeBuilder {
 	protected boolean isPruneEmptyDirectories() {
 		return false;
 	}
+	
+	/*
+	 * Return whether new directories are fetched one level at a time and
+	 * file revisions over several connections.
+	 */
+	protected boolean isPipelined() {
+		return CVSProviderPlugin.getPlugin().isPipelinedTreeBuildingEnabled();
+	}
 	/*
 	 * Record the deltas in a double map where the outer key is the parent directory
 	 * and the inner key is the file name. The value is the revision of the file or
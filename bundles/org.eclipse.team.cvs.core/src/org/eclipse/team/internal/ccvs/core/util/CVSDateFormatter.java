@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2006 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -16,6 +16,8 @@ package org.eclipse.team.internal.ccvs.core.util;
 
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.time.DateTimeException;
+import java.time.LocalDate;
 import java.util.Date;
 import java.util.Locale;
 import java.util.TimeZone;
@@ -25,29 +27,56 @@ import java.util.TimeZone;
  * required in the Entry file is ISO C asctime() function (Sun Apr  7 01:29:26 1996).
  * <p>
  * To be compatible with asctime(), the day field in the entryline format is
- * padded with a space and not a zero. Most other CVS clients use string comparison 
+ * padded with a space and not a zero. Most other CVS clients use string comparison
  * for timestamps based on the result of the C function asctime().
  * </p>
+ * <p>
+ * The methods are thread-safe and do not lock. Well-formed dates are converted
+ * directly by scanning the digits; anything else, such as an out-of-range field
+ * that a lenient <code>SimpleDateFormat</code> rolls over, is handed to a new
+ * <code>SimpleDateFormat</code> so the result does not change.
+ * </p>
  */
 public class CVSDateFormatter {
-	
+
 	private static final String ENTRYLINE_FORMAT = "E MMM dd HH:mm:ss yyyy"; //$NON-NLS-1$
 	private static final String SERVER_FORMAT = "dd MMM yyyy HH:mm:ss";//$NON-NLS-1$
+	/*
+	 * A new format for log dates was introduced in 1.12.9
+	 */
+	private static final String LOG_FORMAT_OLD = "yyyy/MM/dd HH:mm:ss zzz";//$NON-NLS-1$
+	private static final String LOG_FORMAT = "yyyy-MM-dd HH:mm:ss zzz";//$NON-NLS-1$
 	private static final int ENTRYLINE_TENS_DAY_OFFSET = 8;
-	
-	private static final SimpleDateFormat serverFormat = new SimpleDateFormat(SERVER_FORMAT, Locale.US);
-	private static SimpleDateFormat entryLineFormat = new SimpleDateFormat(ENTRYLINE_FORMAT, Locale.US);
-	
-	static {
-		entryLineFormat.setTimeZone(TimeZone.getTimeZone("GMT")); //$NON-NLS-1$
-	}
-	static synchronized public Date serverStampToDate(String text) throws ParseException {
+	private static final int ENTRYLINE_LENGTH = 24;
+	private static final int SERVER_LENGTH = 20;
+	private static final int LOG_LENGTH = 19;
+	// the length of a time zone offset such as " -0000"
+	private static final int OFFSET_LENGTH = 6;
+
+	private static final String[] DAYS = { "Mon", "Tue", "Wed", "Thu", "Fri", "Sat", "Sun" }; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$
+	private static final String[] MONTHS = { "Jan", "Feb", "Mar", "Apr", "May", "Jun", "Jul", "Aug", "Sep", "Oct", "Nov", "Dec" }; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$ //$NON-NLS-8$ //$NON-NLS-9$ //$NON-NLS-10$ //$NON-NLS-11$ //$NON-NLS-12$
+	// SimpleDateFormat uses the Julian calendar before the Gregorian cutover
+	private static final int FIRST_GREGORIAN_YEAR = 1583;
+	private static final int LAST_YEAR = 9999;
+	private static final long MILLIS_PER_SECOND = 1000;
+	private static final long MILLIS_PER_DAY = 24 * 60 * 60 * MILLIS_PER_SECOND;
+	// returned by the scanners for dates that are handed to SimpleDateFormat
+	private static final long NO_DATE = Long.MIN_VALUE;
+	private static final int NO_OFFSET = Integer.MIN_VALUE;
+
+	static public Date serverStampToDate(String text) throws ParseException {
+		long time = scanServerStamp(text);
+		if (time != NO_DATE)
+			return new Date(time);
+		SimpleDateFormat serverFormat = new SimpleDateFormat(SERVER_FORMAT, Locale.US);
 		serverFormat.setTimeZone(getTimeZone(text));
-		Date date = serverFormat.parse(text);
-		return date;
+		return serverFormat.parse(text);
 	}
-	
-	static synchronized public Date entryLineToDate(String text) throws ParseException {
+
+	static public Date entryLineToDate(String text) throws ParseException {
+		long time = scanEntryLine(text);
+		if (time != NO_DATE)
+			return new Date(time);
 		try {
 			if (text.charAt(ENTRYLINE_TENS_DAY_OFFSET) == ' ') {
 				StringBuilder buf = new StringBuilder(text);
@@ -57,23 +86,80 @@ public class CVSDateFormatter {
 		} catch (StringIndexOutOfBoundsException e) {
 			throw new ParseException(e.getMessage(), ENTRYLINE_TENS_DAY_OFFSET);
 		}
-		return entryLineFormat.parse(text);
+		return newEntryLineFormat().parse(text);
 	}
 
-	static synchronized public String dateToEntryLine(Date date) {
+	static public String dateToEntryLine(Date date) {
 		if (date == null) return ""; //$NON-NLS-1$
-		String passOne = entryLineFormat.format(date);
-		if (passOne.charAt(ENTRYLINE_TENS_DAY_OFFSET) != '0') return passOne;
-		StringBuilder passTwo = new StringBuilder(passOne);
-		passTwo.setCharAt(ENTRYLINE_TENS_DAY_OFFSET, ' ');
-		return passTwo.toString();
-	}
-	
-	static synchronized public String dateToNotifyServer(Date date) {
-		serverFormat.setTimeZone(TimeZone.getTimeZone("GMT"));//$NON-NLS-1$
-		return serverFormat.format(date) + " GMT"; //$NON-NLS-1$
-	}
-	
+		LocalDate day = toLocalDate(date.getTime());
+		if (day == null) {
+			String passOne = newEntryLineFormat().format(date);
+			if (passOne.charAt(ENTRYLINE_TENS_DAY_OFFSET) != '0') return passOne;
+			StringBuilder passTwo = new StringBuilder(passOne);
+			passTwo.setCharAt(ENTRYLINE_TENS_DAY_OFFSET, ' ');
+			return passTwo.toString();
+		}
+		char[] buffer = new char[ENTRYLINE_LENGTH];
+		DAYS[day.getDayOfWeek().ordinal()].getChars(0, 3, buffer, 0);
+		buffer[3] = ' ';
+		MONTHS[day.getMonthValue() - 1].getChars(0, 3, buffer, 4);
+		buffer[7] = ' ';
+		putNumber(buffer, 8, 2, day.getDayOfMonth());
+		if (buffer[ENTRYLINE_TENS_DAY_OFFSET] == '0')
+			buffer[ENTRYLINE_TENS_DAY_OFFSET] = ' ';
+		buffer[10] = ' ';
+		putTime(buffer, 11, date.getTime());
+		buffer[19] = ' ';
+		putNumber(buffer, 20, 4, day.getYear());
+		return new String(buffer);
+	}
+
+	static public String dateToNotifyServer(Date date) {
+		LocalDate day = toLocalDate(date.getTime());
+		if (day == null) {
+			SimpleDateFormat serverFormat = new SimpleDateFormat(SERVER_FORMAT, Locale.US);
+			serverFormat.setTimeZone(TimeZone.getTimeZone("GMT"));//$NON-NLS-1$
+			return serverFormat.format(date) + " GMT"; //$NON-NLS-1$
+		}
+		char[] buffer = new char[SERVER_LENGTH + 4];
+		putNumber(buffer, 0, 2, day.getDayOfMonth());
+		buffer[2] = ' ';
+		MONTHS[day.getMonthValue() - 1].getChars(0, 3, buffer, 3);
+		buffer[6] = ' ';
+		putNumber(buffer, 7, 4, day.getYear());
+		buffer[11] = ' ';
+		putTime(buffer, 12, date.getTime());
+		" GMT".getChars(0, 4, buffer, SERVER_LENGTH); //$NON-NLS-1$
+		return new String(buffer);
+	}
+
+	/**
+	 * Converts a time stamp as sent from a cvs server for a "log" command, e.g.
+	 * <code>2005-03-30 15:43:25 +0000</code> or, before 1.12.9,
+	 * <code>2000/06/19 04:56:21</code>, into a <code>Date</code>. A time stamp
+	 * without a time zone is in GMT.
+	 * @param text the time stamp
+	 * @return the date
+	 * @throws ParseException if the time stamp is not in a log date format
+	 */
+	static public Date logStampToDate(String text) throws ParseException {
+		long time = scanLogStamp(text);
+		if (time != NO_DATE)
+			return new Date(time);
+		// Compatibility for older cvs version (pre 1.12.9)
+		String format = text.length() > 4 && text.charAt(4) == '/' ? LOG_FORMAT_OLD : LOG_FORMAT;
+		return new SimpleDateFormat(format, Locale.US).parse(text + " GMT"); //$NON-NLS-1$
+	}
+
+	/*
+	 * Return whether the given entry line date is written as dateToEntryLine
+	 * writes the date it is parsed into.
+	 */
+	static boolean isCanonicalEntryLine(String text) {
+		return text.length() == ENTRYLINE_LENGTH && text.charAt(ENTRYLINE_TENS_DAY_OFFSET) != '0'
+				&& scanEntryLine(text) != NO_DATE;
+	}
+
 	/*
 	 * Converts timezone text from date string from CVS server and
 	 * returns a timezone representing the received timezone.
@@ -81,7 +167,7 @@ public class CVSDateFormatter {
 	 */
 	static private TimeZone getTimeZone(String dateFromServer) {
 		if (dateFromServer.contains("0000"))  //$NON-NLS-1$
-			return TimeZone.getTimeZone("GMT");//$NON-NLS-1$ 
+			return TimeZone.getTimeZone("GMT");//$NON-NLS-1$
 		String tz = null;
 		StringBuilder resultTz = new StringBuilder("GMT");//$NON-NLS-1$
 		if (dateFromServer.contains("-")) {//$NON-NLS-1$
@@ -101,4 +187,151 @@ public class CVSDateFormatter {
 		}
 		return TimeZone.getTimeZone("GMT");//$NON-NLS-1$
 	}
+
+	private static SimpleDateFormat newEntryLineFormat() {
+		SimpleDateFormat entryLineFormat = new SimpleDateFormat(ENTRYLINE_FORMAT, Locale.US);
+		entryLineFormat.setTimeZone(TimeZone.getTimeZone("GMT")); //$NON-NLS-1$
+		return entryLineFormat;
+	}
+
+	/*
+	 * Scan an entry line date, e.g. "Sun Apr  7 01:29:26 1996". The day of the
+	 * week must match the date.
+	 */
+	private static long scanEntryLine(String text) {
+		if (text.length() != ENTRYLINE_LENGTH || text.charAt(3) != ' ' || text.charAt(7) != ' '
+				|| text.charAt(10) != ' ' || text.charAt(19) != ' ')
+			return NO_DATE;
+		// the day is padded with a space
+		int day = text.charAt(ENTRYLINE_TENS_DAY_OFFSET) == ' ' ? getNumber(text, 9, 1) : getNumber(text, 8, 2);
+		LocalDate date = toLocalDate(getNumber(text, 20, 4), getMonth(text, 4), day);
+		if (date == null || !text.startsWith(DAYS[date.getDayOfWeek().ordinal()]))
+			return NO_DATE;
+		return toTime(date, text, 11, 0);
+	}
+
+	/*
+	 * Scan a server date, e.g. "18 Oct 2002 20:21:13 -0000", whose time zone
+	 * offset is optional.
+	 */
+	private static long scanServerStamp(String text) {
+		if (text.length() != SERVER_LENGTH && text.length() != SERVER_LENGTH + OFFSET_LENGTH
+				|| text.charAt(2) != ' ' || text.charAt(6) != ' ' || text.charAt(11) != ' ')
+			return NO_DATE;
+		int offset = text.length() == SERVER_LENGTH ? 0 : getOffset(text, SERVER_LENGTH);
+		LocalDate date = toLocalDate(getNumber(text, 7, 4), getMonth(text, 3), getNumber(text, 0, 2));
+		if (date == null || offset == NO_OFFSET)
+			return NO_DATE;
+		return toTime(date, text, 12, offset);
+	}
+
+	/*
+	 * Scan a log date, e.g. "2005-03-30 15:43:25 +0000" or "2000/06/19 04:56:21",
+	 * whose time zone offset is optional.
+	 */
+	private static long scanLogStamp(String text) {
+		if (text.length() != LOG_LENGTH && text.length() != LOG_LENGTH + OFFSET_LENGTH
+				|| text.charAt(4) != '-' && text.charAt(4) != '/' || text.charAt(7) != text.charAt(4)
+				|| text.charAt(10) != ' ')
+			return NO_DATE;
+		int offset = text.length() == LOG_LENGTH ? 0 : getOffset(text, LOG_LENGTH);
+		LocalDate date = toLocalDate(getNumber(text, 0, 4), getNumber(text, 5, 2), getNumber(text, 8, 2));
+		if (date == null || offset == NO_OFFSET)
+			return NO_DATE;
+		return toTime(date, text, 11, offset);
+	}
+
+	/*
+	 * Return the time zone offset in minutes of a time zone such as " +0130".
+	 */
+	private static int getOffset(String text, int start) {
+		char sign = text.charAt(start + 1);
+		int hours = getNumber(text, start + 2, 2);
+		int minutes = getNumber(text, start + 4, 2);
+		if (text.charAt(start) != ' ' || sign != '+' && sign != '-' || hours < 0 || hours > 23 || minutes < 0
+				|| minutes > 59)
+			return NO_OFFSET;
+		return (sign == '-' ? -60 : 60) * hours + (sign == '-' ? -minutes : minutes);
+	}
+
+	/*
+	 * Return the date with the given fields or null if the fields are not in
+	 * their range.
+	 */
+	private static LocalDate toLocalDate(int year, int month, int day) {
+		if (year < FIRST_GREGORIAN_YEAR || month < 1 || day < 1)
+			return null;
+		try {
+			return LocalDate.of(year, month, day);
+		} catch (DateTimeException e) {
+			// the day does not exist in the month
+			return null;
+		}
+	}
+
+	/*
+	 * Return the day in GMT of the given time or null if the year can not be
+	 * written with four digits.
+	 */
+	private static LocalDate toLocalDate(long time) {
+		LocalDate date = LocalDate.ofEpochDay(Math.floorDiv(time, MILLIS_PER_DAY));
+		if (date.getYear() < FIRST_GREGORIAN_YEAR || date.getYear() > LAST_YEAR)
+			return null;
+		return date;
+	}
+
+	/*
+	 * Return the time of the given day and the time of day "HH:mm:ss" at the
+	 * given position in the text, in a time zone with the given offset in
+	 * minutes.
+	 */
+	private static long toTime(LocalDate date, String text, int start, int offset) {
+		int hour = getNumber(text, start, 2);
+		int minute = getNumber(text, start + 3, 2);
+		int second = getNumber(text, start + 6, 2);
+		if (text.charAt(start + 2) != ':' || text.charAt(start + 5) != ':' || hour < 0 || hour > 23 || minute < 0
+				|| minute > 59 || second < 0 || second > 59)
+			return NO_DATE;
+		long seconds = ((hour * 60L + minute - offset) * 60) + second;
+		return date.toEpochDay() * MILLIS_PER_DAY + seconds * MILLIS_PER_SECOND;
+	}
+
+	private static void putTime(char[] buffer, int start, long time) {
+		int seconds = (int) (Math.floorMod(time, MILLIS_PER_DAY) / MILLIS_PER_SECOND);
+		putNumber(buffer, start, 2, seconds / 3600);
+		buffer[start + 2] = ':';
+		putNumber(buffer, start + 3, 2, seconds / 60 % 60);
+		buffer[start + 5] = ':';
+		putNumber(buffer, start + 6, 2, seconds % 60);
+	}
+
+	private static void putNumber(char[] buffer, int start, int digits, int value) {
+		for (int i = start + digits - 1; i >= start; i--) {
+			buffer[i] = (char) ('0' + value % 10);
+			value /= 10;
+		}
+	}
+
+	/*
+	 * Return the number written with the given count of digits at the given
+	 * position or -1 if there is a character that is not a digit.
+	 */
+	private static int getNumber(String text, int start, int digits) {
+		int result = 0;
+		for (int i = start; i < start + digits; i++) {
+			char c = text.charAt(i);
+			if (c < '0' || c > '9')
+				return -1;
+			result = result * 10 + c - '0';
+		}
+		return result;
+	}
+
+	private static int getMonth(String text, int start) {
+		for (int i = 0; i < MONTHS.length; i++) {
+			if (text.startsWith(MONTHS[i], start))
+				return i + 1;
+		}
+		return -1;
+	}
 }
@@ -0,0 +1,279 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.internal.ccvs.core.util;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.osgi.util.NLS;
+import org.eclipse.team.internal.ccvs.core.*;
+import org.eclipse.team.internal.ccvs.core.syncinfo.ResourceSyncInfo;
+
+/**
+ * Reads the contents of the CVS/Entries and CVS/Entries.Log files of a folder
+ * into sync bytes.
+ * <p>
+ * The entry lines are not parsed into <code>ResourceSyncInfo</code> instances.
+ * A line that is in the format that <code>ResourceSyncInfo</code> writes is
+ * used as the sync bytes as it is, so only the name of the resource is
+ * extracted from it; the other fields are parsed when the sync bytes are
+ * accessed. Only the other lines are parsed and written again, which brings
+ * them into that format.
+ * </p>
+ */
+public class EntriesReader {
+
+	// Some older CVS clients may of added a line to the entries file consisting
+	// of only a 'D'. It is safe to ignore these entries.
+	private static final byte FOLDER_TAG = 'D';
+
+	// Command characters found in the Entries.log file
+	private static final byte ADD_TAG = 'A';
+	private static final byte REMOVE_TAG = 'R';
+
+	private static final byte SEPARATOR = '/';
+
+	// The timestamps and the keyword mode written by ResourceSyncInfo
+	private static final byte[] TIMESTAMP_DUMMY = "dummy timestamp".getBytes(StandardCharsets.US_ASCII); //$NON-NLS-1$
+	private static final byte[] TIMESTAMP_MERGED = "Result of merge".getBytes(StandardCharsets.US_ASCII); //$NON-NLS-1$
+	private static final byte[] TIMESTAMP_MERGED_WITH_CONFLICT = "Result of merge+".getBytes(StandardCharsets.US_ASCII); //$NON-NLS-1$
+	private static final byte[] TIMESTAMP_DELETED_AND_RESTORED = "restored+".getBytes(StandardCharsets.US_ASCII); //$NON-NLS-1$
+	private static final byte[] KSUBST_TEXT_EXPAND = "-kkv".getBytes(StandardCharsets.US_ASCII); //$NON-NLS-1$
+
+	// The entry line date format is that of asctime(), e.g. "Sun Apr  7 01:29:26 1996"
+	private static final int DATE_LENGTH = 24;
+
+	private final IContainer parent;
+	private final Map<String, byte[]> infos = new TreeMap<>();
+
+	/**
+	 * Create a reader for the entries of the given folder.
+	 * @param parent the folder whose CVS subdirectory contains the files
+	 */
+	public EntriesReader(IContainer parent) {
+		this.parent = parent;
+	}
+
+	/**
+	 * Add the entries in the given contents of a CVS/Entries file. The lines
+	 * that cannot be parsed are logged and skipped.
+	 * @param contents the contents of the file
+	 */
+	public void readEntries(byte[] contents) {
+		int start = 0;
+		while (start < contents.length) {
+			int end = endOfLine(contents, start);
+			if (end > start && !(end == start + 1 && contents[start] == FOLDER_TAG)) {
+				try {
+					add(contents, start, end);
+				} catch (CVSException e) {
+					// There was a problem parsing the entry line.
+					// Log the problem and skip the entry
+					CVSProviderPlugin.log(new CVSStatus(IStatus.ERROR, NLS.bind(CVSMessages.SyncFileWriter_0, new String[] { parent.getFullPath().toString() }), e));
+				}
+			}
+			start = end + 1;
+		}
+	}
+
+	/**
+	 * Apply the additions and removals in the given contents of a
+	 * CVS/Entries.Log file to the entries.
+	 * @param contents the contents of the file
+	 * @throws CVSException if a line cannot be parsed
+	 */
+	public void readEntriesLog(byte[] contents) throws CVSException {
+		int start = 0;
+		while (start < contents.length) {
+			int end = endOfLine(contents, start);
+			if (end - start >= 2 && contents[start + 1] == ' ') {
+				if (contents[start] == ADD_TAG) {
+					add(contents, start + 2, end);
+				} else if (contents[start] == REMOVE_TAG) {
+					infos.remove(getName(contents, start + 2, end));
+				}
+			}
+			start = end + 1;
+		}
+	}
+
+	/**
+	 * Return the sync bytes of the entries, sorted by the names of the
+	 * resources.
+	 * @return the sync bytes of the entries
+	 */
+	public byte[][] getSyncBytes() {
+		return infos.values().toArray(new byte[infos.size()][]);
+	}
+
+	/**
+	 * Return the names of the resources of the entries, in the order of
+	 * {@link #getSyncBytes()}.
+	 * @return the names of the resources
+	 */
+	public String[] getNames() {
+		return infos.keySet().toArray(new String[infos.size()]);
+	}
+
+	private void add(byte[] contents, int start, int end) throws CVSException {
+		if (isCanonical(contents, start, end)) {
+			infos.put(getFieldString(contents, start, end, 1), Arrays.copyOfRange(contents, start, end));
+		} else {
+			ResourceSyncInfo info = new ResourceSyncInfo(new String(contents, start, end - start), null);
+			infos.put(info.getName(), info.getBytes());
+		}
+	}
+
+	private String getName(byte[] contents, int start, int end) throws CVSException {
+		if (isCanonical(contents, start, end)) {
+			return getFieldString(contents, start, end, 1);
+		}
+		return new ResourceSyncInfo(new String(contents, start, end - start), null).getName();
+	}
+
+	/**
+	 * Read the given stream to the end and close it.
+	 * @param in the stream
+	 * @return the contents of the stream
+	 * @throws IOException if the stream cannot be read
+	 */
+	public static byte[] readContents(InputStream in) throws IOException {
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream(4096);
+			byte[] buffer = new byte[4096];
+			int count;
+			while ((count = in.read(buffer)) != -1) {
+				out.write(buffer, 0, count);
+			}
+			return out.toByteArray();
+		} finally {
+			in.close();
+		}
+	}
+
+	/*
+	 * Return the index of the line terminator of the line that starts at the
+	 * given index. Like BufferedReader, a line is terminated by '\n', '\r' or
+	 * "\r\n"; the empty line between '\r' and '\n' is skipped by the callers.
+	 */
+	private static int endOfLine(byte[] contents, int start) {
+		for (int i = start; i < contents.length; i++) {
+			if (contents[i] == '\n' || contents[i] == '\r')
+				return i;
+		}
+		return contents.length;
+	}
+
+	/**
+	 * Return whether the given entry line is in the format that
+	 * <code>ResourceSyncInfo</code> writes, so that the bytes of the line can
+	 * be used as sync bytes without parsing it. A line that is not is valid
+	 * but written differently or malformed.
+	 * @param line the bytes that contain the line
+	 * @param start the index of the first byte of the line
+	 * @param end the index after the last byte of the line
+	 * @return whether the line can be used as it is
+	 */
+	static boolean isCanonical(byte[] line, int start, int end) {
+		// Lines with characters other than printable ASCII are decoded with
+		// the default encoding when they are parsed
+		for (int i = start; i < end; i++) {
+			if (line[i] < 0x20)
+				return false;
+		}
+		int[] slots = new int[5];
+		int count = 0;
+		for (int i = start; i < end && count < slots.length; i++) {
+			if (line[i] == SEPARATOR)
+				slots[count++] = i;
+		}
+		if (count < slots.length)
+			return false;
+		// the name must not be empty
+		if (slots[1] == slots[0] + 1)
+			return false;
+		if (slots[0] == start + 1 && line[start] == FOLDER_TAG) {
+			// a folder entry is written as D/name////
+			return end == slots[4] + 1 && slots[2] == slots[1] + 1 && slots[3] == slots[2] + 1 && slots[4] == slots[3] + 1;
+		}
+		return slots[0] == start
+				&& isCanonicalRevision(line, slots[1] + 1, slots[2])
+				&& isCanonicalTimestamp(line, slots[2] + 1, slots[3])
+				&& !equals(line, slots[3] + 1, slots[4], KSUBST_TEXT_EXPAND)
+				&& isCanonicalTag(line, slots[4] + 1, end);
+	}
+
+	private static boolean isCanonicalRevision(byte[] line, int start, int end) {
+		if (end == start)
+			return false;
+		if (line[start] == '-')
+			start++;
+		for (int i = start; i < end; i++) {
+			if (line[i] != '.' && (line[i] < '0' || line[i] > '9'))
+				return false;
+		}
+		return true;
+	}
+
+	private static boolean isCanonicalTimestamp(byte[] line, int start, int end) {
+		if (equals(line, start, end, TIMESTAMP_DUMMY) || equals(line, start, end, TIMESTAMP_MERGED))
+			return true;
+		if (startsWith(line, start, end, TIMESTAMP_MERGED_WITH_CONFLICT))
+			return isCanonicalDate(line, start + TIMESTAMP_MERGED_WITH_CONFLICT.length, end);
+		if (startsWith(line, start, end, TIMESTAMP_DELETED_AND_RESTORED))
+			return isCanonicalDate(line, start + TIMESTAMP_DELETED_AND_RESTORED.length, end);
+		return isCanonicalDate(line, start, end);
+	}
+
+	private static boolean isCanonicalDate(byte[] line, int start, int end) {
+		return end - start == DATE_LENGTH
+				&& CVSDateFormatter.isCanonicalEntryLine(new String(line, start, DATE_LENGTH, StandardCharsets.US_ASCII));
+	}
+
+	private static boolean isCanonicalTag(byte[] line, int start, int end) {
+		// version tags are written with the branch prefix
+		return end == start || line[start] == 'T' || line[start] == 'D';
+	}
+
+	private static String getFieldString(byte[] line, int start, int end, int field) {
+		int count = 0;
+		int fieldStart = start;
+		for (int i = start; i < end; i++) {
+			if (line[i] == SEPARATOR) {
+				if (count == field)
+					return new String(line, fieldStart, i - fieldStart, StandardCharsets.US_ASCII);
+				count++;
+				fieldStart = i + 1;
+			}
+		}
+		return new String(line, fieldStart, end - fieldStart, StandardCharsets.US_ASCII);
+	}
+
+	private static boolean equals(byte[] line, int start, int end, byte[] expected) {
+		return end - start == expected.length && startsWith(line, start, end, expected);
+	}
+
+	private static boolean startsWith(byte[] line, int start, int end, byte[] prefix) {
+		if (end - start < prefix.length)
+			return false;
+		for (int i = 0; i < prefix.length; i++) {
+			if (line[start + i] != prefix[i])
+				return false;
+		}
+		return true;
+	}
+}
@@ -0,0 +1,158 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.internal.ccvs.core.util;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.eclipse.core.runtime.*;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.team.internal.ccvs.core.*;
+
+/**
+ * Runs tasks that each talk to a repository, such as the checkout of a
+ * project, with up to a given number of tasks per repository at once. The
+ * progress and the results of the tasks are reported in the calling thread.
+ * <p>
+ * The tasks run one after another in the calling thread if it owns a
+ * scheduling rule, since the tasks could otherwise wait for the rule forever,
+ * or if only one task may run at once.
+ * </p>
+ */
+public class RepositoryTaskRunner {
+
+	/**
+	 * A task that is run by the runner.
+	 */
+	public interface ITask {
+		/**
+		 * Return the repository that the task talks to.
+		 * @return the repository
+		 */
+		ICVSRepositoryLocation getRepository();
+
+		/**
+		 * Run the task. The monitor reports the cancelation of the runner
+		 * but the progress is only shown if the task runs in the calling
+		 * thread.
+		 * @param monitor a progress monitor
+		 * @return the result of the task
+		 * @throws CVSException if the task failed
+		 */
+		IStatus run(IProgressMonitor monitor) throws CVSException;
+	}
+
+	private final int parallelism;
+
+	/**
+	 * Create a runner that runs up to the given number of tasks per
+	 * repository at once.
+	 * @param parallelism the number of tasks per repository
+	 */
+	public RepositoryTaskRunner(int parallelism) {
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * Run the given tasks and return their results in the same order. The
+	 * result of a task that failed is the status of its exception. All tasks
+	 * are run even if some of them fail.
+	 * @param tasks the tasks
+	 * @param monitor a progress monitor
+	 * @return the results of the tasks
+	 * @throws OperationCanceledException if the monitor was canceled
+	 */
+	public IStatus[] run(ITask[] tasks, IProgressMonitor monitor) {
+		IStatus[] results = new IStatus[tasks.length];
+		monitor.beginTask(null, tasks.length * 100);
+		try {
+			if (parallelism <= 1 || tasks.length <= 1 || Job.getJobManager().currentRule() != null) {
+				for (int i = 0; i < tasks.length; i++) {
+					Policy.checkCanceled(monitor);
+					results[i] = run(tasks[i], Policy.subMonitorFor(monitor, 100));
+				}
+			} else {
+				runInParallel(tasks, results, monitor);
+			}
+		} finally {
+			monitor.done();
+		}
+		return results;
+	}
+
+	private void runInParallel(ITask[] tasks, final IStatus[] results, final IProgressMonitor monitor) {
+		// The workers report cancelation of the provided monitor but no progress
+		final IProgressMonitor workerMonitor = new NullProgressMonitor() {
+			@Override
+			public boolean isCanceled() {
+				return monitor.isCanceled();
+			}
+		};
+		Map<ICVSRepositoryLocation, List<Integer>> tasksByRepository = new LinkedHashMap<>();
+		for (int i = 0; i < tasks.length; i++) {
+			tasksByRepository.computeIfAbsent(tasks[i].getRepository(), repository -> new ArrayList<>()).add(i);
+		}
+		// Each repository has its own workers, which report to a shared queue
+		BlockingQueue<Future<Integer>> completed = new LinkedBlockingQueue<>();
+		List<ExecutorService> executors = new ArrayList<>();
+		try {
+			for (List<Integer> indices : tasksByRepository.values()) {
+				ExecutorService executor = Executors.newFixedThreadPool(Math.min(indices.size(), parallelism), runnable -> {
+					Thread thread = new Thread(runnable, "CVS checkout worker"); //$NON-NLS-1$
+					thread.setDaemon(true);
+					return thread;
+				});
+				executors.add(executor);
+				CompletionService<Integer> service = new ExecutorCompletionService<>(executor, completed);
+				for (final int index : indices) {
+					final ITask task = tasks[index];
+					service.submit(() -> {
+						Policy.checkCanceled(workerMonitor);
+						results[index] = run(task, workerMonitor);
+						return index;
+					});
+				}
+			}
+			RuntimeException failure = null;
+			for (int i = 0; i < tasks.length; i++) {
+				try {
+					completed.take().get();
+				} catch (ExecutionException e) {
+					Throwable cause = e.getCause();
+					if (failure == null || failure instanceof OperationCanceledException && !(cause instanceof OperationCanceledException)) {
+						failure = cause instanceof RuntimeException ? (RuntimeException) cause : new RuntimeException(cause);
+					}
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new OperationCanceledException();
+				}
+				monitor.worked(100);
+			}
+			if (failure != null)
+				throw failure;
+		} finally {
+			for (ExecutorService executor : executors) {
+				executor.shutdownNow();
+			}
+		}
+	}
+
+	private static IStatus run(ITask task, IProgressMonitor monitor) {
+		try {
+			return task.run(monitor);
+		} catch (CVSException e) {
+			return e.getStatus();
+		}
+	}
+}
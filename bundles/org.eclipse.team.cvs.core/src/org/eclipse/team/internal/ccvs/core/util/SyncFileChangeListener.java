@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2006 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -122,6 +122,9 @@ public class SyncFileChangeListener implements IResourceChangeListener {
 					}
 										
 					if(name.equals(SyncFileWriter.CVS_DIRNAME)) {
+						if(kind == IResourceDelta.REMOVED) {
+							SyncFileWriter.flushEntries(resource.getParent());
+						}
 						handleCVSDir((IContainer)resource, kind);
 						// if the project is opening there is no need to notify about chagned CVs/ meta files
 						// they will all be read from disk.
@@ -132,6 +135,7 @@ public class SyncFileChangeListener implements IResourceChangeListener {
 					}
 					
 					if(isMetaFile(resource)) {
+						SyncFileWriter.flushEntries((IFile)resource);
 						IResource[] toBeNotified = handleChangedMetaFile(resource);
 						if(toBeNotified.length>0 && isModifiedBy3rdParty(resource)) {
 							Collections.addAll(changedContainers, toBeNotified);
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -20,6 +20,7 @@ import java.net.URI;
 import java.util.*;
 
 import org.eclipse.core.filesystem.EFS;
+import org.eclipse.core.filesystem.IFileInfo;
 import org.eclipse.core.filesystem.IFileStore;
 import org.eclipse.core.resources.*;
 import org.eclipse.core.runtime.*;
@@ -53,89 +54,207 @@ public class SyncFileWriter {
 	// the local workspace file that contains pattern for ignored resources
 	public static final String IGNORE_FILE = ".cvsignore"; //$NON-NLS-1$
 
-	// Some older CVS clients may of added a line to the entries file consisting
-	// of only a 'D'. It is safe to ignore these entries.	
-	private static final String FOLDER_TAG="D"; //$NON-NLS-1$
-	
-	// Command characters found in the Entries.log file
-	private static final String ADD_TAG="A "; //$NON-NLS-1$
-	private static final String REMOVE_TAG="R "; //$NON-NLS-1$	
-	
 	// key for saving the mod stamp for each written meta file
 	public static final QualifiedName MODSTAMP_KEY = new QualifiedName("org.eclipse.team.cvs.core", "meta-file-modtime"); //$NON-NLS-1$ //$NON-NLS-2$
 	
+	// the number of folders whose entries are kept in the entries cache
+	private static final int MAX_CACHED_ENTRIES = 1000;
+	
+	// the entries of the folders that were read recently, by folder path
+	private static final Map<IPath, CachedEntries> entriesCache = new LinkedHashMap<IPath, CachedEntries>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<IPath, CachedEntries> eldest) {
+			return size() > MAX_CACHED_ENTRIES;
+		}
+	};
+	
+	/*
+	 * The entries read from the CVS/Entries and CVS/Entries.log files of a folder
+	 * along with the state of the files when they were read. 
+	 */
+	private static class CachedEntries {
+		private final FileState entriesState;
+		private final FileState logState;
+		private final String[] names;
+		private final byte[][] syncBytes;
+		
+		CachedEntries(FileState entriesState, FileState logState, String[] names, byte[][] syncBytes) {
+			this.entriesState = entriesState;
+			this.logState = logState;
+			this.names = names;
+			this.syncBytes = syncBytes;
+		}
+	}
+	
+	/*
+	 * The modification stamp of a file in the workspace along with the time
+	 * stamp and length of the file on disk. The modification stamps restart
+	 * when a file is deleted and created again and do not change when a file
+	 * is modified outside of the workspace, which the time stamp and length
+	 * catch.
+	 */
+	private static class FileState {
+		private final long modificationStamp;
+		private final long lastModified;
+		private final long length;
+		
+		FileState(IFile file) throws CVSException {
+			modificationStamp = file.getModificationStamp();
+			IFileInfo info = fetchInfo(file);
+			if (info != null && info.exists()) {
+				lastModified = info.getLastModified();
+				length = info.getLength();
+			} else {
+				lastModified = 0;
+				length = -1;
+			}
+		}
+		
+		boolean exists() {
+			return length != -1;
+		}
+		
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof FileState)) return false;
+			FileState other = (FileState) obj;
+			return modificationStamp == other.modificationStamp
+				&& lastModified == other.lastModified
+				&& length == other.length;
+		}
+		
+		@Override
+		public int hashCode() {
+			return Long.hashCode(modificationStamp) ^ Long.hashCode(lastModified) ^ Long.hashCode(length);
+		}
+	}
+	
 	/**
 	 * Reads the CVS/Entries, CVS/Entries.log and CVS/Permissions files from the
 	 * specified folder and returns ResourceSyncInfo instances for the data stored therein.
 	 * If the folder does not have a CVS subdirectory then <code>null</code> is returned.
 	 */
 	public static byte[][] readAllResourceSync(IContainer parent) throws CVSException {
+		CachedEntries entries = readEntries(parent);
+		if (entries == null) return null;
+		byte[][] syncBytes = new byte[entries.syncBytes.length][];
+		for (int i = 0; i < syncBytes.length; i++) {
+			syncBytes[i] = entries.syncBytes[i].clone();
+		}
+		return syncBytes;
+	}
+	
+	/**
+	 * Reads the sync bytes of the resource with the given name from the
+	 * CVS/Entries and CVS/Entries.log files of the specified folder. If the
+	 * folder does not have a CVS subdirectory or the files have no entry for
+	 * the resource then <code>null</code> is returned.
+	 */
+	public static byte[] readResourceSync(IContainer parent, String name) throws CVSException {
+		CachedEntries entries = readEntries(parent);
+		if (entries == null) return null;
+		int index = Arrays.binarySearch(entries.names, name);
+		return index < 0 ? null : entries.syncBytes[index].clone();
+	}
+	
+	/*
+	 * Return the entries of the given folder. The entries that were read
+	 * before are reused as long as neither the modification stamps of the
+	 * files nor their time stamps and lengths on disk changed.
+	 */
+	private static CachedEntries readEntries(IContainer parent) throws CVSException {
 		IFolder cvsSubDir = getCVSSubdirectory(parent);
 		
 		if (!folderExists(cvsSubDir)){
+			flushEntries(parent);
 			return null;
 		}
 		
+		IFile entriesFile = cvsSubDir.getFile(ENTRIES);
+		IFile logFile = cvsSubDir.getFile(ENTRIES_LOG);
+		FileState entriesState = new FileState(entriesFile);
+		FileState logState = new FileState(logFile);
+		if (entriesState.exists()) {
+			synchronized (entriesCache) {
+				CachedEntries cached = entriesCache.get(parent.getFullPath());
+				if (cached != null && cached.entriesState.equals(entriesState) && cached.logState.equals(logState)) {
+					return cached;
+				}
+			}
+		}
+		
 		if (Policy.DEBUG_METAFILE_CHANGES) {
 			System.out.println("Reading Entries file for " + parent.getFullPath()); //$NON-NLS-1$
 		}
 
 		// process Entries file contents
-		String[] entries = readLines(cvsSubDir.getFile(ENTRIES));
-		if (entries == null) return null;
-		Map infos = new TreeMap();
-		for (String line : entries) {
-			if(!FOLDER_TAG.equals(line) && !"".equals(line)) { //$NON-NLS-1$
-				try {
-					ResourceSyncInfo info = new ResourceSyncInfo(line, null);
-					infos.put(info.getName(), info);
-				} catch (CVSException e) {
-					// There was a problem parsing the entry line.
-					// Log the problem and skip the entry
-					CVSProviderPlugin.log(new CVSStatus(IStatus.ERROR, NLS.bind(CVSMessages.SyncFileWriter_0, new String[] { parent.getFullPath().toString() }), e));
-				}			
-			}
+		byte[] contents = readContents(entriesFile);
+		if (contents == null) {
+			flushEntries(parent);
+			return null;
 		}
+		EntriesReader reader = new EntriesReader(parent);
+		reader.readEntries(contents);
 		
 		// process Entries.log file contents
-		String[] entriesLog = readLines(cvsSubDir.getFile(ENTRIES_LOG));
-		if (entriesLog != null) {
-			for (String line : entriesLog) {
-				if (line.startsWith(ADD_TAG)) {
-					line = line.substring(ADD_TAG.length());
-					ResourceSyncInfo info = new ResourceSyncInfo(line, null);
-					infos.put(info.getName(), info);
-				} else if (line.startsWith(REMOVE_TAG)) {
-					line = line.substring(REMOVE_TAG.length());
-					ResourceSyncInfo info = new ResourceSyncInfo(line, null);
-					infos.remove(info.getName());
-				}
-			}
+		byte[] logContents = readContents(logFile);
+		if (logContents != null) {
+			reader.readEntriesLog(logContents);
 		}
 		
-		//return (ResourceSyncInfo[])infos.values().toArray(new ResourceSyncInfo[infos.size()]);
-		byte[][] result = new byte[infos.size()][];
-		int i = 0;
-		for (Iterator iter = infos.values().iterator(); iter.hasNext();) {
-			ResourceSyncInfo info = (ResourceSyncInfo) iter.next();
-			result[i++] = info.getBytes();
+		CachedEntries entries = new CachedEntries(entriesState, logState, reader.getNames(), reader.getSyncBytes());
+		synchronized (entriesCache) {
+			if (entriesState.exists()) {
+				entriesCache.put(parent.getFullPath(), entries);
+			} else {
+				entriesCache.remove(parent.getFullPath());
+			}
 		}
-		return result;
+		return entries;
 	}
 	
-	private static boolean folderExists(IFolder cvsSubDir) throws CVSException {
+	/*
+	 * Forget the entries of the given folder that were read before.
+	 */
+	static void flushEntries(IContainer parent) {
+		synchronized (entriesCache) {
+			entriesCache.remove(parent.getFullPath());
+		}
+	}
+	
+	/*
+	 * Forget the entries that were read before if the given file is one of
+	 * the files they were read from.
+	 */
+	static void flushEntries(IFile metaFile) {
+		String name = metaFile.getName();
+		if (name.equals(ENTRIES) || name.equals(ENTRIES_LOG)) {
+			IContainer cvsSubDir = metaFile.getParent();
+			if (cvsSubDir.getName().equals(CVS_DIRNAME) && cvsSubDir.getType() == IResource.FOLDER) {
+				flushEntries(cvsSubDir.getParent());
+			}
+		}
+	}
+	
+	private static IFileInfo fetchInfo(IResource resource) throws CVSException {
 		try {
-			URI uri = cvsSubDir.getLocationURI();
+			URI uri = resource.getLocationURI();
 			if (uri != null){
 				IFileStore store = EFS.getStore(uri);
 				if (store != null){
-					return store.fetchInfo().exists();
+					return store.fetchInfo();
 				}
 			}
 		} catch (CoreException e) {
 			throw CVSException.wrapException(e);
 		} 
-		return false;
+		return null;
+	}
+	
+	private static boolean folderExists(IFolder cvsSubDir) throws CVSException {
+		IFileInfo info = fetchInfo(cvsSubDir);
+		return info != null && info.exists();
 	}
 
 	public static void writeAllResourceSync(IContainer parent, byte[][] infos) throws CVSException {
@@ -159,6 +278,8 @@ public class SyncFileWriter {
 			cvsSubDir.getFile(ENTRIES_LOG).delete(IResource.NONE, null);
 		} catch(CoreException e) {
 			throw CVSException.wrapException(e);
+		} finally {
+			flushEntries(parent);
 		}
 	}
 	/**
@@ -315,6 +436,8 @@ public class SyncFileWriter {
 			getCVSSubdirectory(folder).delete(IResource.NONE, null);
 		} catch(CoreException e) {
 			throw CVSException.wrapException(e);
+		} finally {
+			flushEntries(folder);
 		}
 	}
 
@@ -538,6 +661,33 @@ public class SyncFileWriter {
 		return null;
 	}
 	
+	/*
+	 * Reads the contents of the specified file.
+	 * Returns null if the file does not exist.
+	 */
+	private static byte[] readContents(IFile file) throws CVSException {
+		try {
+			InputStream in = getInputStream(file);
+			if (in != null) {
+				return EntriesReader.readContents(in);
+			}
+			return null;
+		} catch (IOException e) {
+			throw CVSException.wrapException(e);
+		} catch (CoreException e) {
+			// If the IFile doesn't exist or the underlying File doesn't exist,
+			// just return null to indicate the absence of the file
+			switch (e.getStatus().getCode()) {
+			case IResourceStatus.RESOURCE_NOT_FOUND:
+			case IResourceStatus.NOT_FOUND_LOCAL:
+			case IResourceStatus.FAILED_READ_LOCAL:
+				return null;
+			default:
+				throw CVSException.wrapException(e);
+			}
+		}
+	}
+	
 	/*
 	 * Reads all lines of the specified file.
 	 * Returns null if the file does not exist.
@@ -601,6 +751,8 @@ public class SyncFileWriter {
 			}, ResourcesPlugin.getWorkspace().getRuleFactory().createRule(file), 0, null);
 		} catch (CoreException e) {
 			throw CVSException.wrapException(e);
+		} finally {
+			flushEntries(file);
 		}
 	}
 	
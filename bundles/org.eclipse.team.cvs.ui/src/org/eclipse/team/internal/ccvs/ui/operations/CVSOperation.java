@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2020 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -103,13 +103,13 @@ public abstract class CVSOperation extends TeamOperation implements IShellProvid
 	 */
 	protected abstract void execute(IProgressMonitor monitor) throws CVSException, InterruptedException;
 
-	protected void addError(IStatus status) {
+	protected synchronized void addError(IStatus status) {
 		if (status.isOK()) return;
 		if (isLastError(status)) return;
 		errors.add(status);
 	}
 
-	protected void collectStatus(IStatus status)  {
+	protected synchronized void collectStatus(IStatus status)  {
 		if (isLastError(status)) return;
 		statusCount++;
 		if (!status.isOK()) addError(status);
@@ -216,7 +216,7 @@ public abstract class CVSOperation extends TeamOperation implements IShellProvid
 	 * @param project
 	 * @return
 	 */
-	protected boolean promptToOverwrite(final String title, final String message, IResource resource) {
+	protected synchronized boolean promptToOverwrite(final String title, final String message, IResource resource) {
 		if (prompter == null) {
 			prompter = new MultipleYesNoPrompter(this, title, involvesMultipleResources(), false);
 		} else {
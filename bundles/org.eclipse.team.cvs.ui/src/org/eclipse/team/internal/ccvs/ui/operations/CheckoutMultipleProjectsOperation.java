@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2008 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -15,8 +15,9 @@ package org.eclipse.team.internal.ccvs.ui.operations;
 
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.runtime.*;
-import org.eclipse.team.internal.ccvs.core.CVSException;
-import org.eclipse.team.internal.ccvs.core.ICVSRemoteFolder;
+import org.eclipse.team.internal.ccvs.core.*;
+import org.eclipse.team.internal.ccvs.core.util.RepositoryTaskRunner;
+import org.eclipse.team.internal.ccvs.ui.Policy;
 import org.eclipse.ui.IWorkbenchPart;
 import org.eclipse.ui.IWorkingSet;
 
@@ -55,6 +56,34 @@ public class CheckoutMultipleProjectsOperation extends CheckoutProjectOperation
 		return targetLocation.append(project.getName());
 	}
 
+	/**
+	 * Check out the remote folders with up to the configured number of
+	 * folders per repository at once.
+	 * @see CVSProviderPlugin#getCheckoutParallelism()
+	 */
+	@Override
+	protected void checkout(ICVSRemoteFolder[] folders, IProgressMonitor monitor) throws CVSException {
+		RepositoryTaskRunner.ITask[] tasks = new RepositoryTaskRunner.ITask[folders.length];
+		for (int i = 0; i < folders.length; i++) {
+			final ICVSRemoteFolder folder = folders[i];
+			tasks[i] = new RepositoryTaskRunner.ITask() {
+				@Override
+				public ICVSRepositoryLocation getRepository() {
+					return folder.getRepository();
+				}
+				@Override
+				public IStatus run(IProgressMonitor pm) throws CVSException {
+					return checkout(folder, pm);
+				}
+			};
+		}
+		IStatus[] results = new RepositoryTaskRunner(CVSProviderPlugin.getPlugin().getCheckoutParallelism()).run(tasks, monitor);
+		for (IStatus result : results) {
+			collectStatus(result);
+		}
+		Policy.checkCanceled(monitor);
+	}
+
 	@Override
 	protected IStatus checkout(ICVSRemoteFolder folder, IProgressMonitor monitor) throws CVSException {
 		return checkout(folder, null, monitor);
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2017 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -52,16 +52,7 @@ import org.eclipse.ui.navigator.ICommonContentExtensionSite;
 public class ResourceModelLabelProvider extends
 		SynchronizationLabelProvider implements IFontProvider, IResourceChangeListener, ITreePathLabelProvider {
 
-	public static final FastDiffFilter CONFLICT_FILTER = new FastDiffFilter() {
-		@Override
-		public boolean select(IDiff diff) {
-			if (diff instanceof IThreeWayDiff) {
-				IThreeWayDiff twd = (IThreeWayDiff) diff;
-				return twd.getDirection() == IThreeWayDiff.CONFLICTING;
-			}
-			return false;
-		}
-	};
+	public static final FastDiffFilter CONFLICT_FILTER = FastDiffFilter.getDirectionFilter(new int[] { IThreeWayDiff.CONFLICTING });
 
 	private ILabelProvider provider;
 	private ResourceModelContentProvider contentProvider;
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2017 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -75,6 +75,9 @@ public class SynchronizeModelUpdateHandler extends BackgroundEventHandler implem
 
 	private static final int EARLY_DISPATCH_INCREMENT = 100;
 
+	// Label updates are posted to the UI thread so they are cheap to dispatch
+	private static final int DISPATCH_LATENCY_TARGET = 250;
+
 	/**
 	 * Custom event for posting marker changes
 	 */
@@ -251,7 +254,7 @@ public class SynchronizeModelUpdateHandler extends BackgroundEventHandler implem
 
 	@Override
 	protected boolean doDispatchEvents(IProgressMonitor monitor) throws TeamException {
-		// Fire label changed
+		// Fire label changed, which shows any busy elements
 		dispatchEarly = false;
 		if (pendingLabelUpdates.isEmpty()) {
 			return false;
@@ -394,12 +397,9 @@ public class SynchronizeModelUpdateHandler extends BackgroundEventHandler implem
 	}
 
 	@Override
-	protected long getShortDispatchDelay() {
-		if (dispatchEarly) {
-			dispatchEarly = false;
-			return EARLY_DISPATCH_INCREMENT;
-		}
-		return super.getShortDispatchDelay();
+	protected long getDispatchLatencyTarget() {
+		// the flag is reset by the dispatch that shows the busy elements
+		return dispatchEarly ? EARLY_DISPATCH_INCREMENT : DISPATCH_LATENCY_TARGET;
 	}
 
 	/**
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2009 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -35,6 +35,11 @@ public class FileSystemRemoteTree extends ThreeWayRemoteTree {
 		super(subscriber);
 	}
 
+	@Override
+	protected boolean isBulkUpdateEnabled() {
+		return true;
+	}
+
 	@Override
 	protected IResourceVariant[] fetchMembers(IResourceVariant variant, IProgressMonitor progress) {
 		return ((FileSystemResourceVariant)variant).members();
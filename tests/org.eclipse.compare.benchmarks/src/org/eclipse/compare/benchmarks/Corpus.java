@@ -0,0 +1,276 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.compare.benchmarks;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.eclipse.compare.rangedifferencer.IRangeComparator;
+import org.eclipse.compare.rangedifferencer.RangeDifference;
+import org.eclipse.compare.rangedifferencer.RangeDifferencer;
+
+/**
+ * Creates the inputs of the benchmarks.
+ * <p>
+ * By default the lines are synthetic, Java like statements drawn from a
+ * limited vocabulary, so that a realistic share of the lines (braces, blank
+ * lines, common statements) occurs more than once. If a source directory is
+ * given, the lines of all <code>.java</code> files found below it are used
+ * instead, in a fixed order.
+ * </p>
+ * <p>
+ * Edits are applied line by line: with the given density a line is changed,
+ * deleted or preceded by a new line. All randomness is seeded, so every fork
+ * of a benchmark works on the same input.
+ * </p>
+ */
+public final class Corpus {
+
+	private static final String[] STATEMENTS = {
+		"\t\tint %s = %s.size();", //$NON-NLS-1$
+		"\t\tif (%s == null)", //$NON-NLS-1$
+		"\t\t\treturn %s;", //$NON-NLS-1$
+		"\t\tfor (int i = 0; i < %s.length; i++) {", //$NON-NLS-1$
+		"\t\t%s.add(%s);", //$NON-NLS-1$
+		"\t\tString %s = %s.getName();", //$NON-NLS-1$
+		"\t\t%s = new ArrayList<>(%s);", //$NON-NLS-1$
+		"\t\tthrow new IllegalArgumentException(%s);", //$NON-NLS-1$
+	};
+
+	private static final String[] COMMON_LINES = {
+		"", //$NON-NLS-1$
+		"\t}", //$NON-NLS-1$
+		"\t\t}", //$NON-NLS-1$
+		"\t\treturn true;", //$NON-NLS-1$
+		"\t\treturn null;", //$NON-NLS-1$
+		"\t@Override", //$NON-NLS-1$
+		"\t\t} else {", //$NON-NLS-1$
+		"\t\tbreak;", //$NON-NLS-1$
+	};
+
+	private static final int IDENTIFIERS = 500;
+
+	/**
+	 * The size of the blocks used by {@link #edit(String[], double, long, int, int)}.
+	 */
+	public static final int BLOCK_SIZE = 50;
+
+	private Corpus() {
+		// static helpers only
+	}
+
+	/**
+	 * Returns the lines of the corpus.
+	 *
+	 * @param count the number of lines
+	 * @param sourceDir a directory containing <code>.java</code> files, or an
+	 *            empty string for synthetic lines
+	 * @param seed the seed of the generator
+	 * @return the lines of the corpus
+	 */
+	public static String[] lines(int count, String sourceDir, long seed) {
+		if (sourceDir != null && !sourceDir.isEmpty())
+			return sourceLines(count, Paths.get(sourceDir));
+		Random random = new Random(seed);
+		String[] lines = new String[count];
+		for (int i = 0; i < count; i++)
+			lines[i] = randomLine(random);
+		return lines;
+	}
+
+	/**
+	 * Returns a copy of the given lines with edits applied with the given
+	 * density.
+	 *
+	 * @param lines the lines to edit
+	 * @param density the probability that a line is edited
+	 * @param seed the seed of the generator
+	 * @return the edited lines
+	 */
+	public static String[] edit(String[] lines, double density, long seed) {
+		return edit(lines, density, seed, 0, 1);
+	}
+
+	/**
+	 * Returns a copy of the given lines with edits applied with the given
+	 * density. Only the lines of every <code>stride</code>-th block of
+	 * {@link #BLOCK_SIZE} lines starting at block <code>offset</code> are
+	 * edited. Two copies edited with different offsets and the same stride
+	 * merge without conflicts.
+	 *
+	 * @param lines the lines to edit
+	 * @param density the probability that a line is edited
+	 * @param seed the seed of the generator
+	 * @param offset the index of the first edited block
+	 * @param stride the distance between edited blocks
+	 * @return the edited lines
+	 */
+	public static String[] edit(String[] lines, double density, long seed, int offset, int stride) {
+		Random random = new Random(seed);
+		List<String> result = new ArrayList<>(lines.length + lines.length / 10);
+		for (int i = 0; i < lines.length; i++) {
+			int block = i / BLOCK_SIZE;
+			// keep the first and last line of a block so that edits of adjacent
+			// blocks never touch
+			boolean editable = block % stride == offset && i % BLOCK_SIZE != 0 && i % BLOCK_SIZE != BLOCK_SIZE - 1;
+			if (!editable || random.nextDouble() >= density) {
+				result.add(lines[i]);
+				continue;
+			}
+			switch (random.nextInt(3)) {
+			case 0: // change
+				result.add(lines[i] + " // " + random.nextInt(IDENTIFIERS)); //$NON-NLS-1$
+				break;
+			case 1: // delete
+				break;
+			default: // insert
+				result.add(randomLine(random));
+				result.add(lines[i]);
+				break;
+			}
+		}
+		return result.toArray(new String[result.size()]);
+	}
+
+	/**
+	 * Joins the given lines into a text where every line is terminated by a
+	 * line feed.
+	 *
+	 * @param lines the lines
+	 * @return the text
+	 */
+	public static String text(String[] lines) {
+		StringBuilder builder = new StringBuilder(lines.length * 40);
+		for (String line : lines)
+			builder.append(line).append('\n');
+		return builder.toString();
+	}
+
+	/**
+	 * Appends a unified diff between the given lines to the builder.
+	 *
+	 * @param builder the builder receiving the diff
+	 * @param path the path of the compared file
+	 * @param before the lines before the change
+	 * @param after the lines after the change
+	 * @param context the number of context lines
+	 */
+	public static void unifiedDiff(StringBuilder builder, String path, String[] before, String[] after, int context) {
+		RangeDifference[] diffs = RangeDifferencer.findDifferences(new LinesComparator(before), new LinesComparator(after));
+		if (diffs.length == 0)
+			return;
+		builder.append("--- a/").append(path).append('\n'); //$NON-NLS-1$
+		builder.append("+++ b/").append(path).append('\n'); //$NON-NLS-1$
+		int i = 0;
+		while (i < diffs.length) {
+			// collect the differences whose context overlaps into one hunk
+			int j = i;
+			while (j + 1 < diffs.length && diffs[j + 1].leftStart() - diffs[j].leftEnd() <= 2 * context)
+				j++;
+			int beforeStart = Math.max(0, diffs[i].leftStart() - context);
+			int afterStart = Math.max(0, diffs[i].rightStart() - context);
+			int beforeEnd = Math.min(before.length, diffs[j].leftEnd() + context);
+			int afterEnd = Math.min(after.length, diffs[j].rightEnd() + context);
+			builder.append("@@ -").append(beforeStart + 1).append(',').append(beforeEnd - beforeStart) //$NON-NLS-1$
+					.append(" +").append(afterStart + 1).append(',').append(afterEnd - afterStart).append(" @@\n"); //$NON-NLS-1$ //$NON-NLS-2$
+			int line = beforeStart;
+			for (int k = i; k <= j; k++) {
+				RangeDifference diff = diffs[k];
+				for (; line < diff.leftStart(); line++)
+					builder.append(' ').append(before[line]).append('\n');
+				for (int l = diff.leftStart(); l < diff.leftEnd(); l++)
+					builder.append('-').append(before[l]).append('\n');
+				for (int r = diff.rightStart(); r < diff.rightEnd(); r++)
+					builder.append('+').append(after[r]).append('\n');
+				line = diff.leftEnd();
+			}
+			for (; line < beforeEnd; line++)
+				builder.append(' ').append(before[line]).append('\n');
+			i = j + 1;
+		}
+	}
+
+	private static String randomLine(Random random) {
+		if (random.nextInt(3) == 0)
+			return COMMON_LINES[random.nextInt(COMMON_LINES.length)];
+		String statement = STATEMENTS[random.nextInt(STATEMENTS.length)];
+		return String.format(statement, identifier(random), identifier(random));
+	}
+
+	private static String identifier(Random random) {
+		return "value" + random.nextInt(IDENTIFIERS); //$NON-NLS-1$
+	}
+
+	private static String[] sourceLines(int count, Path root) {
+		List<Path> files;
+		try (Stream<Path> stream = Files.walk(root)) {
+			files = stream.filter(p -> p.toString().endsWith(".java")).sorted().collect(Collectors.toList()); //$NON-NLS-1$
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		if (files.isEmpty())
+			throw new IllegalArgumentException("No .java files found in " + root); //$NON-NLS-1$
+		// shuffle the files with a fixed seed so that related files are spread out
+		Collections.shuffle(files, new Random(files.size()));
+		List<String> lines = new ArrayList<>(count);
+		try {
+			while (lines.size() < count) {
+				for (Path file : files) {
+					for (String line : Files.readAllLines(file, StandardCharsets.ISO_8859_1)) {
+						lines.add(line);
+						if (lines.size() == count)
+							return lines.toArray(new String[count]);
+					}
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return lines.toArray(new String[count]);
+	}
+
+	private static class LinesComparator implements IRangeComparator {
+
+		private final String[] fLines;
+
+		LinesComparator(String[] lines) {
+			fLines = lines;
+		}
+
+		@Override
+		public int getRangeCount() {
+			return fLines.length;
+		}
+
+		@Override
+		public boolean rangesEqual(int thisIndex, IRangeComparator other, int otherIndex) {
+			return fLines[thisIndex].equals(((LinesComparator) other).fLines[otherIndex]);
+		}
+
+		@Override
+		public boolean skipRangeComparison(int length, int maxLength, IRangeComparator other) {
+			return false;
+		}
+	}
+}
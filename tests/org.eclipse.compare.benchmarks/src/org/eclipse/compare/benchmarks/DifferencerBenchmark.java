@@ -0,0 +1,158 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.compare.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.compare.IStreamContentAccessor;
+import org.eclipse.compare.ITypedElement;
+import org.eclipse.compare.structuremergeviewer.Differencer;
+import org.eclipse.compare.structuremergeviewer.IStructureComparator;
+import org.eclipse.swt.graphics.Image;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the structure compare of folder trees as done when comparing
+ * projects or folders with each other. Changed files differ in their last
+ * byte only, so their contents have to be read completely.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DifferencerBenchmark {
+
+	private static final int FILES_PER_FOLDER = 20;
+
+	@Param({ "1000", "10000" })
+	public int files;
+
+	@Param({ "4096" })
+	public int fileSize;
+
+	@Param({ "0.01", "0.1" })
+	public double editDensity;
+
+	@Param({ "false", "true" })
+	public boolean threeWay;
+
+	private Node fAncestor;
+	private Node fLeft;
+	private Node fRight;
+
+	@Setup
+	public void setUp() {
+		Random random = new Random(1);
+		byte[][] contents = new byte[files][];
+		for (int i = 0; i < files; i++) {
+			contents[i] = new byte[fileSize];
+			random.nextBytes(contents[i]);
+		}
+		fAncestor = createTree(contents, 0, 0);
+		fLeft = createTree(contents, editDensity, 2);
+		fRight = createTree(contents, editDensity, 3);
+	}
+
+	@Benchmark
+	public Object findDifferences() {
+		return new Differencer().findDifferences(threeWay, null, null, fAncestor, fLeft, fRight);
+	}
+
+	private Node createTree(byte[][] contents, double density, long seed) {
+		Random random = new Random(seed);
+		Node root = new Node("root", null); //$NON-NLS-1$
+		Node folder = null;
+		for (int i = 0; i < contents.length; i++) {
+			if (i % FILES_PER_FOLDER == 0) {
+				folder = new Node("folder" + i / FILES_PER_FOLDER, null); //$NON-NLS-1$
+				root.fChildren.add(folder);
+			}
+			byte[] content = contents[i];
+			if (random.nextDouble() < density) {
+				content = content.clone();
+				content[content.length - 1]++;
+			}
+			folder.fChildren.add(new Node("file" + i, content)); //$NON-NLS-1$
+		}
+		return root;
+	}
+
+	/*
+	 * A folder if it has no contents, otherwise a file. Nodes are matched by
+	 * name.
+	 */
+	private static class Node implements IStructureComparator, ITypedElement, IStreamContentAccessor {
+
+		private final String fName;
+		private final byte[] fContents;
+		private final List<Node> fChildren = new ArrayList<>();
+
+		Node(String name, byte[] contents) {
+			fName = name;
+			fContents = contents;
+		}
+
+		@Override
+		public Object[] getChildren() {
+			return fContents != null ? null : fChildren.toArray();
+		}
+
+		@Override
+		public String getName() {
+			return fName;
+		}
+
+		@Override
+		public Image getImage() {
+			return null;
+		}
+
+		@Override
+		public String getType() {
+			return fContents != null ? ITypedElement.TEXT_TYPE : ITypedElement.FOLDER_TYPE;
+		}
+
+		@Override
+		public InputStream getContents() {
+			return fContents != null ? new ByteArrayInputStream(fContents) : null;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			return other instanceof Node && fName.equals(((Node) other).fName);
+		}
+
+		@Override
+		public int hashCode() {
+			return fName.hashCode();
+		}
+	}
+}
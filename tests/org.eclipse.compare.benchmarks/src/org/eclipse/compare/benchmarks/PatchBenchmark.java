@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.compare.benchmarks;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.compare.internal.core.patch.FileDiffResult;
+import org.eclipse.compare.internal.core.patch.FilePatch2;
+import org.eclipse.compare.internal.core.patch.LineReader;
+import org.eclipse.compare.internal.core.patch.PatchReader;
+import org.eclipse.compare.patch.PatchConfiguration;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures parsing a multi-file unified diff and matching its hunks against
+ * the target files.
+ * <p>
+ * With a <code>drift</code> greater than zero the target files have been
+ * edited after the patch was created, so hunks have to be searched for with a
+ * shift and some of them only match with fuzz.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PatchBenchmark {
+
+	@Param({ "10", "200" })
+	public int files;
+
+	@Param({ "2000" })
+	public int linesPerFile;
+
+	@Param({ "0.01", "0.05" })
+	public double editDensity;
+
+	@Param({ "0", "0.01" })
+	public double drift;
+
+	private String fPatch;
+	private FilePatch2[] fDiffs;
+	private List<List<String>> fTargets;
+	private PatchConfiguration fConfiguration;
+
+	@Setup
+	public void setUp() throws IOException {
+		StringBuilder patch = new StringBuilder();
+		List<String> paths = new ArrayList<>(files);
+		List<String> targets = new ArrayList<>(files);
+		for (int i = 0; i < files; i++) {
+			String[] before = Corpus.lines(linesPerFile, null, i);
+			String[] after = Corpus.edit(before, editDensity, files + i);
+			String path = "src/File" + i + ".java"; //$NON-NLS-1$ //$NON-NLS-2$
+			Corpus.unifiedDiff(patch, path, before, after, 3);
+			paths.add(path);
+			String[] target = drift > 0 ? Corpus.edit(before, drift, 2 * files + i) : before;
+			targets.add(Corpus.text(target));
+		}
+		fPatch = patch.toString();
+		fDiffs = parse();
+		fTargets = new ArrayList<>(fDiffs.length);
+		for (FilePatch2 diff : fDiffs) {
+			String path = diff.getPath(false).removeFirstSegments(1).toString();
+			String target = targets.get(paths.indexOf(path));
+			fTargets.add(LineReader.readLines(new BufferedReader(new StringReader(target))));
+		}
+		fConfiguration = new PatchConfiguration();
+		fConfiguration.setPrefixSegmentStripCount(1);
+		fConfiguration.setFuzz(2);
+	}
+
+	@Benchmark
+	public FilePatch2[] parse() throws IOException {
+		PatchReader reader = new PatchReader();
+		reader.parse(new BufferedReader(new StringReader(fPatch)));
+		return reader.getDiffs();
+	}
+
+	@Benchmark
+	public int calculateFuzz() {
+		int fuzz = -1;
+		for (int i = 0; i < fDiffs.length; i++) {
+			FileDiffResult result = new FileDiffResult(fDiffs[i], fConfiguration);
+			// hunks are applied to the lines in place
+			fuzz = Math.max(fuzz, result.calculateFuzz(new ArrayList<>(fTargets.get(i)), new NullProgressMonitor()));
+		}
+		return fuzz;
+	}
+}
@@ -0,0 +1,97 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.compare.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.compare.internal.DocLineComparator;
+import org.eclipse.compare.rangedifferencer.DiffAlgorithm;
+import org.eclipse.compare.rangedifferencer.RangeDifference;
+import org.eclipse.compare.rangedifferencer.RangeDifferencer;
+import org.eclipse.compare.rangedifferencer.RangeInterner;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.IDocument;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures two-way and three-way line comparisons the way the text merge
+ * viewer performs them: documents are tokenized into interned lines and
+ * compared with the given diff algorithm.
+ * <p>
+ * Set <code>-p sourceDir=&lt;dir&gt;</code> to compare real sources instead of
+ * synthetic lines.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RangeDifferencerBenchmark {
+
+	@Param({ "1000", "20000", "100000" })
+	public int lines;
+
+	@Param({ "0.01", "0.1" })
+	public double editDensity;
+
+	@Param({ DiffAlgorithm.MYERS, DiffAlgorithm.HISTOGRAM, DiffAlgorithm.PATIENCE })
+	public String algorithm;
+
+	@Param({ "" })
+	public String sourceDir;
+
+	private IDocument fAncestor;
+	private IDocument fLeft;
+	private IDocument fRight;
+	private DiffAlgorithm fAlgorithm;
+
+	@Setup
+	public void setUp() {
+		String[] ancestor = Corpus.lines(lines, sourceDir, 1);
+		fAncestor = new Document(Corpus.text(ancestor));
+		fLeft = new Document(Corpus.text(Corpus.edit(ancestor, editDensity, 2, 0, 2)));
+		fRight = new Document(Corpus.text(Corpus.edit(ancestor, editDensity, 3, 1, 2)));
+		fAlgorithm = DiffAlgorithm.forId(algorithm);
+	}
+
+	@Benchmark
+	public RangeDifference[] twoWay() {
+		RangeInterner interner = new RangeInterner();
+		DocLineComparator left = new DocLineComparator(fLeft, null, false, null, 'L', interner);
+		DocLineComparator right = new DocLineComparator(fRight, null, false, null, 'R', interner);
+		return RangeDifferencer.findRanges(fAlgorithm, new NullProgressMonitor(), null, left, right);
+	}
+
+	@Benchmark
+	public RangeDifference[] threeWay() {
+		RangeInterner interner = new RangeInterner();
+		DocLineComparator ancestor = new DocLineComparator(fAncestor, null, false, null, 'A', interner);
+		DocLineComparator left = new DocLineComparator(fLeft, null, false, null, 'L', interner);
+		DocLineComparator right = new DocLineComparator(fRight, null, false, null, 'R', interner);
+		return RangeDifferencer.findRanges(fAlgorithm, new NullProgressMonitor(), ancestor, left, right);
+	}
+}
@@ -0,0 +1,69 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.compare.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.compare.internal.core.TextLineLCS;
+import org.eclipse.compare.internal.core.TextLineLCS.TextLine;
+import org.eclipse.core.runtime.SubMonitor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the line LCS used to compare patch hunks with the patched file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TextLineLCSBenchmark {
+
+	@Param({ "1000", "20000" })
+	public int lines;
+
+	@Param({ "0.01", "0.1" })
+	public double editDensity;
+
+	@Param({ "" })
+	public String sourceDir;
+
+	private String fLeft;
+	private String fRight;
+
+	@Setup
+	public void setUp() {
+		String[] left = Corpus.lines(lines, sourceDir, 1);
+		fLeft = Corpus.text(left);
+		fRight = Corpus.text(Corpus.edit(left, editDensity, 2));
+	}
+
+	@Benchmark
+	public TextLine[][] longestCommonSubsequence() {
+		TextLineLCS lcs = new TextLineLCS(TextLineLCS.getTextLines(fLeft), TextLineLCS.getTextLines(fRight));
+		lcs.longestCommonSubsequence(SubMonitor.convert(null));
+		return lcs.getResult();
+	}
+}
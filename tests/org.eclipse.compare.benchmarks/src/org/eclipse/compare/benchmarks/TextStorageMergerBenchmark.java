@@ -0,0 +1,123 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.compare.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.resources.IStorage;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.team.internal.core.mapping.TextStorageMerger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the automatic three-way merge of text files. The left and right
+ * sides edit disjoint blocks of the ancestor, so the merge succeeds and
+ * writes the complete result.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TextStorageMergerBenchmark {
+
+	private static final String ENCODING = "UTF-8"; //$NON-NLS-1$
+
+	@Param({ "1000", "20000", "100000" })
+	public int lines;
+
+	@Param({ "0.01", "0.1" })
+	public double editDensity;
+
+	@Param({ "" })
+	public String sourceDir;
+
+	private IStorage fAncestor;
+	private IStorage fTarget;
+	private IStorage fOther;
+
+	@Setup
+	public void setUp() throws CoreException {
+		String[] ancestor = Corpus.lines(lines, sourceDir, 1);
+		fAncestor = new Storage("ancestor", Corpus.text(ancestor)); //$NON-NLS-1$
+		fTarget = new Storage("target", Corpus.text(Corpus.edit(ancestor, editDensity, 2, 0, 2))); //$NON-NLS-1$
+		fOther = new Storage("other", Corpus.text(Corpus.edit(ancestor, editDensity, 3, 1, 2))); //$NON-NLS-1$
+		IStatus status = new TextStorageMerger().merge(new ByteArrayOutputStream(), ENCODING, fAncestor, fTarget, fOther, new NullProgressMonitor());
+		if (!status.isOK())
+			throw new IllegalStateException(status.getMessage());
+	}
+
+	@Benchmark
+	public void merge(Blackhole blackhole) throws CoreException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		blackhole.consume(new TextStorageMerger().merge(output, ENCODING, fAncestor, fTarget, fOther, new NullProgressMonitor()));
+		blackhole.consume(output);
+	}
+
+	private static class Storage implements IStorage {
+
+		private final String fName;
+		private final byte[] fContents;
+
+		Storage(String name, String contents) {
+			fName = name;
+			fContents = contents.getBytes(StandardCharsets.UTF_8);
+		}
+
+		@Override
+		public InputStream getContents() {
+			return new ByteArrayInputStream(fContents);
+		}
+
+		@Override
+		public IPath getFullPath() {
+			return new Path(fName);
+		}
+
+		@Override
+		public String getName() {
+			return fName;
+		}
+
+		@Override
+		public boolean isReadOnly() {
+			return true;
+		}
+
+		@Override
+		public <T> T getAdapter(Class<T> adapter) {
+			return null;
+		}
+	}
+}
@@ -37,6 +37,7 @@ import org.junit.runners.Suite.SuiteClasses;
 	PatchLinesTest.class,
 	PatchUITest.class,
 	RangeDifferencerThreeWayDiffTest.class,
+	DiffAlgorithmTest.class,
 	CompareUIPluginTest.class,
 	StructureCreatorTest.class,
 	CompareFileRevisionEditorInputTest.class})
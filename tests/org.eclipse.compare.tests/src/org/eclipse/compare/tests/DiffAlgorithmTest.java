@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.compare.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.eclipse.compare.internal.DocLineComparator;
+import org.eclipse.compare.rangedifferencer.DiffAlgorithm;
+import org.eclipse.compare.rangedifferencer.RangeDifference;
+import org.eclipse.compare.rangedifferencer.RangeDifferencer;
+import org.eclipse.compare.rangedifferencer.RangeInterner;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.jface.text.Document;
+import org.junit.Test;
+
+public class DiffAlgorithmTest {
+
+	private static final String[] ALGORITHMS = { DiffAlgorithm.MYERS, DiffAlgorithm.HISTOGRAM, DiffAlgorithm.PATIENCE };
+
+	static final String S = System.lineSeparator();
+
+	@Test
+	public void testForId() {
+		for (String id : ALGORITHMS) {
+			assertEquals(id, DiffAlgorithm.forId(id).getId());
+		}
+		assertEquals(DiffAlgorithm.MYERS, DiffAlgorithm.forId(null).getId());
+		assertEquals(DiffAlgorithm.MYERS, DiffAlgorithm.forId("unknown").getId()); //$NON-NLS-1$
+		assertSame(DiffAlgorithm.forId(DiffAlgorithm.HISTOGRAM), DiffAlgorithm.forId(DiffAlgorithm.HISTOGRAM));
+	}
+
+	@Test
+	public void testSimpleChanges() {
+		String l = "A" + S + "B" + S + "C" + S + "D" + S + "E" + S; //$NON-NLS-1$
+		String r = "A" + S + "x" + S + "C" + S + "E" + S + "F" + S; //$NON-NLS-1$
+		for (String id : ALGORITHMS) {
+			RangeDifference[] diffs = findRanges(id, null, l, r);
+			assertEquals(id, 7, diffs.length);
+			for (int i = 0; i < diffs.length; i++) {
+				assertEquals(id, i % 2 == 0 ? RangeDifference.NOCHANGE : RangeDifference.CHANGE, diffs[i].kind());
+			}
+		}
+	}
+
+	@Test
+	public void testIdentical() {
+		String l = "A" + S + "B" + S + "A"; //$NON-NLS-1$
+		for (String id : ALGORITHMS) {
+			RangeDifference[] diffs = findRanges(id, null, l, l);
+			assertEquals(id, 1, diffs.length);
+			assertEquals(id, RangeDifference.NOCHANGE, diffs[0].kind());
+		}
+	}
+
+	@Test
+	public void testThreeWayConflict() {
+		String a = "A" + S + "B" + S + "C" + S + "D"; //$NON-NLS-1$
+		String l = "A" + S + "b1" + S + "C" + S + "D"; //$NON-NLS-1$
+		String r = "A" + S + "b2" + S + "C" + S + "D"; //$NON-NLS-1$
+		for (String id : ALGORITHMS) {
+			RangeDifference[] diffs = findRanges(id, a, l, r);
+			assertEquals(id, 3, diffs.length);
+			assertEquals(id, RangeDifference.NOCHANGE, diffs[0].kind());
+			assertEquals(id, RangeDifference.CONFLICT, diffs[1].kind());
+			assertEquals(id, RangeDifference.NOCHANGE, diffs[2].kind());
+		}
+	}
+
+	@Test
+	public void testRandomEdits() {
+		Random random = new Random(42);
+		for (int run = 0; run < 200; run++) {
+			String l = createText(random, random.nextInt(80), 1 + random.nextInt(12));
+			String r = createText(random, random.nextInt(80), 1 + random.nextInt(12));
+			for (String id : ALGORITHMS) {
+				assertConsistent(id, l, r);
+			}
+		}
+	}
+
+	@Test
+	public void testFallbackWithoutInterner() {
+		String l = "A" + S + "B" + S + "C"; //$NON-NLS-1$
+		String r = "A" + S + "x" + S + "C"; //$NON-NLS-1$
+		DocLineComparator left = new DocLineComparator(new Document(l), null, false);
+		DocLineComparator right = new DocLineComparator(new Document(r), null, false);
+		RangeDifference[] diffs = RangeDifferencer.findRanges(DiffAlgorithm.forId(DiffAlgorithm.HISTOGRAM),
+				new NullProgressMonitor(), null, left, right);
+		assertEquals(3, diffs.length);
+		assertEquals(RangeDifference.CHANGE, diffs[1].kind());
+	}
+
+	private void assertConsistent(String id, String l, String r) {
+		RangeInterner interner = new RangeInterner();
+		DocLineComparator left = new DocLineComparator(new Document(l), null, false, null, 'L', interner);
+		DocLineComparator right = new DocLineComparator(new Document(r), null, false, null, 'R', interner);
+		RangeDifference[] diffs = RangeDifferencer.findRanges(DiffAlgorithm.forId(id), new NullProgressMonitor(),
+				null, left, right);
+		int leftEnd = 0;
+		int rightEnd = 0;
+		for (RangeDifference diff : diffs) {
+			assertEquals(id, leftEnd, diff.leftStart());
+			assertEquals(id, rightEnd, diff.rightStart());
+			if (diff.kind() == RangeDifference.NOCHANGE) {
+				assertEquals(id, diff.leftLength(), diff.rightLength());
+				for (int i = 0; i < diff.leftLength(); i++) {
+					assertTrue(id, left.rangesEqual(diff.leftStart() + i, right, diff.rightStart() + i));
+				}
+			}
+			leftEnd = diff.leftEnd();
+			rightEnd = diff.rightEnd();
+		}
+		assertEquals(id, left.getRangeCount(), leftEnd);
+		assertEquals(id, right.getRangeCount(), rightEnd);
+	}
+
+	private String createText(Random random, int lines, int distinct) {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < lines; i++) {
+			if (i > 0)
+				sb.append(S);
+			sb.append("line").append(random.nextInt(distinct)); //$NON-NLS-1$
+		}
+		return sb.toString();
+	}
+
+	private RangeDifference[] findRanges(String id, String a, String l, String r) {
+		RangeInterner interner = new RangeInterner();
+		DocLineComparator ancestor = a == null ? null : new DocLineComparator(new Document(a), null, false, null, 'A', interner);
+		DocLineComparator left = new DocLineComparator(new Document(l), null, false, null, 'L', interner);
+		DocLineComparator right = new DocLineComparator(new Document(r), null, false, null, 'R', interner);
+		return RangeDifferencer.findRanges(DiffAlgorithm.forId(id), new NullProgressMonitor(), ancestor, left, right);
+	}
+}
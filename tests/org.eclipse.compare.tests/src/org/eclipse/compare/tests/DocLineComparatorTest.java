@@ -18,6 +18,7 @@ import java.util.HashMap;
 import org.eclipse.compare.ICompareFilter;
 import org.eclipse.compare.internal.DocLineComparator;
 import org.eclipse.compare.rangedifferencer.IRangeComparator;
+import org.eclipse.compare.rangedifferencer.RangeInterner;
 import org.eclipse.jface.text.*;
 import org.junit.Assert;
 import org.junit.Test;
@@ -267,6 +268,61 @@ public class DocLineComparatorTest {
 				}
 	}
 
+	@Test
+	public void testInternedLines() {
+		String[] contents = new String[] { "if (s.strip))\r\n", "if (s.strip))\n", "if (s .strip))\n", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				"if (s.str ip))\r", "if (s.strip))", "if (s.stri p))", "", "    " }; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+
+		for (boolean ignoreWhiteSpace : new boolean[] { false, true }) {
+			RangeInterner interner = new RangeInterner();
+			DocLineComparator[] plain = new DocLineComparator[contents.length];
+			DocLineComparator[] interned = new DocLineComparator[contents.length];
+			for (int i = 0; i < contents.length; i++) {
+				IDocument doc = new Document(contents[i]);
+				plain[i] = new DocLineComparator(doc, null, ignoreWhiteSpace);
+				interned[i] = new DocLineComparator(doc, null, ignoreWhiteSpace, null, 'L', interner);
+				Assert.assertSame(interner, interned[i].getInterner());
+				Assert.assertEquals(plain[i].getRangeCount(), interned[i].getRangeIds().length);
+			}
+			for (int i = 0; i < contents.length; i++)
+				for (int j = 0; j < contents.length; j++)
+					for (int line = 0; line < plain[i].getRangeCount() && line < plain[j].getRangeCount(); line++)
+						Assert.assertEquals(plain[i].rangesEqual(line, plain[j], line),
+								interned[i].rangesEqual(line, interned[j], line));
+		}
+	}
+
+	@Test
+	public void testNoInterningWithCompareFilters() {
+		ICompareFilter filter = new ICompareFilter() {
+
+			@Override
+			public void setInput(Object input, Object ancestor, Object left, Object right) {
+				// EMPTY
+			}
+
+			@Override
+			public IRegion[] getFilteredRegions(HashMap lineComparison) {
+				return new IRegion[] { new Region(0, 2) };
+			}
+
+			@Override
+			public boolean isEnabledInitially() {
+				return false;
+			}
+
+			@Override
+			public boolean canCacheFilteredRegions() {
+				return true;
+			}
+		};
+
+		DocLineComparator comp = new DocLineComparator(new Document("line1"), null, false, //$NON-NLS-1$
+				new ICompareFilter[] { filter }, 'L', new RangeInterner());
+		Assert.assertNull(comp.getInterner());
+		Assert.assertNull(comp.getRangeIds());
+	}
+
 	@Test
 	public void testEmpty() {
 		IDocument doc1 = new Document();
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2018 IBM Corporation and others.
+ * Copyright (c) 2005, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -14,10 +14,12 @@
 package org.eclipse.compare.tests;
 
 import java.io.BufferedInputStream;
+import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.StringReader;
 import java.util.ArrayList;
 
 import org.eclipse.compare.internal.Utilities;
@@ -25,6 +27,7 @@ import org.eclipse.compare.internal.core.patch.FilePatch2;
 import org.eclipse.compare.internal.core.patch.FileDiffResult;
 import org.eclipse.compare.internal.core.patch.Hunk;
 import org.eclipse.compare.internal.patch.Patcher;
+import org.eclipse.compare.internal.patch.WorkspacePatcher;
 import org.eclipse.compare.patch.ApplyPatchOperation;
 import org.eclipse.compare.patch.IFilePatch;
 import org.eclipse.compare.patch.IFilePatchResult;
@@ -55,6 +58,8 @@ public class FileDiffResultTest extends WorkspaceTest {
 
 	private static final String NEW_FILE_CONTENT = "Hi There";
 
+	private static final String NUMBERS = "1\n2\n3\n4\n5\n6\n7\n8\n9\n10\n";
+
 	private IProgressMonitor nullProgressMonitor = new NullProgressMonitor();
 
 	private PatchConfiguration patchConfiguration = new PatchConfiguration();
@@ -214,6 +219,81 @@ public class FileDiffResultTest extends WorkspaceTest {
 		}
 	}
 
+	/**
+	 * Tests applying a patch with two diffs for the same file. Both diffs have
+	 * to be applied, the second one to the contents that the first one left.
+	 *
+	 * @throws Exception
+	 */
+	public void testApplySeveralDiffsToOneFile() throws Exception {
+		IProject project = createProject("FileDiffResultTest", new String[0]);
+		IFile file = createFile(project, "file.txt", NUMBERS);
+		IFile other = createFile(project, "other.txt", NUMBERS);
+
+		Patcher patcher = new Patcher();
+		patcher.setTarget(project);
+		patcher.parse(new BufferedReader(new StringReader(createNumbersPatch("file.txt", 2, "two")
+				+ createNumbersPatch("other.txt", 5, "five") + createNumbersPatch("file.txt", 8, "eight"))));
+		assertEquals(3, patcher.getDiffs().length);
+		patcher.applyAll(nullProgressMonitor, files -> true);
+
+		assertEquals(NUMBERS.replace("2\n", "two\n").replace("8\n", "eight\n"), getStringFromIFile(file));
+		assertEquals(NUMBERS.replace("5\n", "five\n"), getStringFromIFile(other));
+	}
+
+	/**
+	 * Tests applying a workspace patch that changes files in two projects.
+	 *
+	 * @throws Exception
+	 */
+	public void testApplyWorkspacePatchToSeveralProjects() throws Exception {
+		IProject project1 = createProject("FileDiffResultTest1", new String[0]);
+		IProject project2 = createProject("FileDiffResultTest2", new String[0]);
+		IFile file1 = createFile(project1, "file.txt", NUMBERS);
+		IFile file2 = createFile(project2, "file.txt", NUMBERS);
+
+		WorkspacePatcher patcher = new WorkspacePatcher(ResourcesPlugin.getWorkspace().getRoot());
+		patcher.parse(new BufferedReader(new StringReader(WorkspacePatcherUI.getWorkspacePatchHeader() + "\n"
+				+ WorkspacePatcherUI.getWorkspacePatchProjectHeader(project1) + "\n"
+				+ createNumbersPatch("file.txt", 2, "two") + createNumbersPatch("file.txt", 8, "eight")
+				+ WorkspacePatcherUI.getWorkspacePatchProjectHeader(project2) + "\n"
+				+ createNumbersPatch("file.txt", 5, "five"))));
+		assertTrue(patcher.isWorkspacePatch());
+		patcher.applyAll(nullProgressMonitor, files -> true);
+
+		assertEquals(NUMBERS.replace("2\n", "two\n").replace("8\n", "eight\n"), getStringFromIFile(file1));
+		assertEquals(NUMBERS.replace("5\n", "five\n"), getStringFromIFile(file2));
+	}
+
+	/**
+	 * Tests that no file is changed when applying a patch is canceled while
+	 * the hunks are matched.
+	 *
+	 * @throws Exception
+	 */
+	public void testCancelApply() throws Exception {
+		IProject project = createProject("FileDiffResultTest", new String[0]);
+		IFile file = createFile(project, "file.txt", NUMBERS);
+		IFile other = createFile(project, "other.txt", NUMBERS);
+
+		Patcher patcher = new Patcher();
+		patcher.setTarget(project);
+		patcher.parse(new BufferedReader(new StringReader(createNumbersPatch("file.txt", 2, "two")
+				+ createNumbersPatch("other.txt", 5, "five"))));
+		// cancel as soon as the first file has been matched
+		IProgressMonitor monitor = new NullProgressMonitor() {
+			@Override
+			public void worked(int work) {
+				setCanceled(true);
+			}
+		};
+		patcher.applyAll(monitor, files -> true);
+
+		assertTrue(monitor.isCanceled());
+		assertEquals(NUMBERS, getStringFromIFile(file));
+		assertEquals(NUMBERS, getStringFromIFile(other));
+	}
+
 	// utility methods
 
 	/**
@@ -227,6 +307,30 @@ public class FileDiffResultTest extends WorkspaceTest {
 		}
 	}
 
+	private static IFile createFile(IProject project, String name, String contents) throws CoreException {
+		IFile file = project.getFile(name);
+		file.create(new ByteArrayInputStream(contents.getBytes()), true, null);
+		return file;
+	}
+
+	/**
+	 * Returns a diff of the file created with {@link #NUMBERS} that replaces
+	 * the given line.
+	 */
+	private static String createNumbersPatch(String filename, int line, String replacement) {
+		StringBuilder sb = new StringBuilder();
+		sb.append("Index: " + filename + "\n");
+		sb.append("===================================================================\n");
+		sb.append("--- " + filename + "\n");
+		sb.append("+++ " + filename + "\n");
+		sb.append("@@ -" + (line - 1) + ",3 +" + (line - 1) + ",3 @@\n");
+		sb.append(" " + (line - 1) + "\n");
+		sb.append("-" + line + "\n");
+		sb.append("+" + replacement + "\n");
+		sb.append(" " + (line + 1) + "\n");
+		return sb.toString();
+	}
+
 	/**
 	 * @param project
 	 *            The project for which the patch is prepared.
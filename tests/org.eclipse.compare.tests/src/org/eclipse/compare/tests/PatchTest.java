@@ -120,6 +120,93 @@ public class PatchTest {
 		assertEquals(LineReader.createString(false, expected), LineReader.createString(false, lines));
 	}
 
+	@Test
+	public void testShiftedHunks() throws IOException {
+		String patch = "--- a/file.txt\n"
+				+ "+++ b/file.txt\n"
+				+ "@@ -2,3 +2,3 @@\n"
+				+ " a\n"
+				+ "-b\n"
+				+ "+B\n"
+				+ " c\n"
+				+ "@@ -6,3 +6,3 @@\n"
+				+ " d\n"
+				+ "-e\n"
+				+ "+E\n"
+				+ " f\n";
+		// the first hunk has moved down, the second one up, and both have
+		// near matches on the way that must not be taken
+		List<String> lines = new ArrayList<>(Arrays.asList("d\n", "e\n", "x\n", "a\n", "b\n", "x\n", "x\n",
+				"x\n", "x\n", "a\n", "b\n", "c\n", "d\n", "e\n", "f\n", "x\n"));
+		PatchReader reader = new PatchReader();
+		reader.parse(new BufferedReader(new StringReader(patch)));
+		FilePatch2[] diffs = reader.getDiffs();
+		assertEquals(1, diffs.length);
+
+		PatchConfiguration configuration = new PatchConfiguration();
+		configuration.setPrefixSegmentStripCount(1);
+		FileDiffResult result = new FileDiffResult(diffs[0], configuration);
+		result.patch(lines, null);
+		HunkResult[] hunkResults = result.getHunkResults();
+		assertTrue(hunkResults[0].isOK());
+		assertTrue(hunkResults[1].isOK());
+		assertEquals(Arrays.asList("d\n", "e\n", "x\n", "a\n", "b\n", "x\n", "x\n", "x\n", "x\n", "a\n", "B\n", "c\n",
+				"d\n", "E\n", "f\n", "x\n"), lines);
+
+		// with fuzz the context lines do not have to match
+		lines = new ArrayList<>(Arrays.asList("q\n", "q\n", "q\n", "q\n", "q\n", "q\n", "q\n", "x\n", "b\n", "y\n",
+				"q\n", "d\n", "e\n", "f\n"));
+		configuration.setFuzz(1);
+		result = new FileDiffResult(diffs[0], configuration);
+		assertEquals(1, result.calculateFuzz(new ArrayList<>(lines), null));
+		result.patch(lines, null);
+		assertEquals(Arrays.asList("q\n", "q\n", "q\n", "q\n", "q\n", "q\n", "q\n", "x\n", "B\n", "y\n", "q\n",
+				"d\n", "E\n", "f\n"), lines);
+	}
+
+	@Test
+	public void testParsePatchWithListener() throws CoreException {
+		String patch = "### Eclipse Workspace Patch 1.0\n"
+				+ "#P p1\n"
+				+ "Index: a.txt\n"
+				+ "--- a.txt\n"
+				+ "+++ a.txt\n"
+				+ "@@ -1,2 +1,2 @@\n"
+				+ " a\n"
+				+ "-b\n"
+				+ "+B\n"
+				+ "@@ -5,2 +5,2 @@\n"
+				+ " c\n"
+				+ "-d\n"
+				+ "+D\n"
+				+ "#P p2\n"
+				+ "Index: dir/b.txt\n"
+				+ "--- dir/b.txt\n"
+				+ "+++ dir/b.txt\n"
+				+ "@@ -1,1 +1,1 @@\n"
+				+ "-e\n"
+				+ "+E\n";
+		ReaderCreator content = new ReaderCreator() {
+			@Override
+			public Reader createReader() {
+				return new StringReader(patch);
+			}
+		};
+		List<IFilePatch2> parsed = new ArrayList<>();
+		PatchParser.parsePatch(content, parsed::add);
+		IFilePatch2[] expected = PatchParser.parsePatch(content);
+		assertEquals(2, expected.length);
+		assertEquals(expected.length, parsed.size());
+		PatchConfiguration configuration = new PatchConfiguration();
+		for (int i = 0; i < expected.length; i++) {
+			assertEquals(expected[i].getTargetPath(configuration), parsed.get(i).getTargetPath(configuration));
+			assertEquals(expected[i].getHunks().length, parsed.get(i).getHunks().length);
+		}
+		assertEquals("p1/a.txt", parsed.get(0).getTargetPath(configuration).toString());
+		assertEquals(2, parsed.get(0).getHunks().length);
+		assertEquals("p2/dir/b.txt", parsed.get(1).getTargetPath(configuration).toString());
+	}
+
 	@Test
 	public void testDateUnknown() throws CoreException {
 		IStorage patchStorage = new StringStorage("patch_dateunknown.txt");
@@ -13,13 +13,24 @@
  *******************************************************************************/
 package org.eclipse.compare.tests;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
 
 import org.eclipse.compare.contentmergeviewer.ITokenComparator;
 import org.eclipse.compare.internal.DocLineComparator;
+import org.eclipse.compare.rangedifferencer.AbstractRangeDifferenceFactory;
+import org.eclipse.compare.rangedifferencer.DiffAlgorithm;
 import org.eclipse.compare.rangedifferencer.RangeDifference;
 import org.eclipse.compare.rangedifferencer.RangeDifferencer;
+import org.eclipse.compare.rangedifferencer.RangeInterner;
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.jface.text.Document;
 import org.junit.Test;
 
@@ -27,6 +38,15 @@ public class RangeDifferencerThreeWayDiffTest {
 
 	static final String S = System.lineSeparator();
 
+	private static final AbstractRangeDifferenceFactory FACTORY = new AbstractRangeDifferenceFactory() {
+		@Override
+		protected RangeDifference createRangeDifference() {
+			return new RangeDifference(RangeDifference.NOCHANGE) {
+				// use the protected constructor
+			};
+		}
+	};
+
 	@Test
 	public void testInsertConflict() {
 		String a = "A" + S + "B" + S + "C" + S + "D"; //$NON-NLS-1$
@@ -127,6 +147,92 @@ public class RangeDifferencerThreeWayDiffTest {
 		assertEquals(RangeDifference.RIGHT, diffs[2].kind());
 	}
 
+	@Test
+	public void testConcurrent() {
+		Random random = new Random(7);
+		String a = createText(random, 6000);
+		String l = edit(random, a);
+		String r = edit(random, a);
+		DiffAlgorithm algorithm = DiffAlgorithm.forId(DiffAlgorithm.MYERS);
+
+		RangeDifference[] expected = RangeDifferencer.findDifferences(algorithm, FACTORY, new NullProgressMonitor(),
+				new DocLineComparator(new Document(a), null, false),
+				new DocLineComparator(new Document(l), null, false),
+				new DocLineComparator(new Document(r), null, false));
+
+		RangeInterner interner = new RangeInterner();
+		DocLineComparator ancestor = new DocLineComparator(new Document(a), null, false, null, 'A', interner);
+		DocLineComparator left = new DocLineComparator(new Document(l), null, false, null, 'L', interner);
+		DocLineComparator right = new DocLineComparator(new Document(r), null, false, null, 'R', interner);
+		assertArrayEquals(expected, RangeDifferencer.findDifferencesConcurrently(algorithm, FACTORY, new NullProgressMonitor(), ancestor, left, right));
+	}
+
+	@Test(expected = OperationCanceledException.class)
+	public void testConcurrentCanceled() {
+		String a = createText(new Random(7), 6000);
+		IProgressMonitor monitor = new NullProgressMonitor();
+		monitor.setCanceled(true);
+		RangeInterner interner = new RangeInterner();
+		RangeDifferencer.findDifferencesConcurrently(DiffAlgorithm.forId(DiffAlgorithm.MYERS), FACTORY, monitor,
+				new DocLineComparator(new Document(a), null, false, null, 'A', interner),
+				new DocLineComparator(new Document(a + "x"), null, false, null, 'L', interner), //$NON-NLS-1$
+				new DocLineComparator(new Document("x" + a), null, false, null, 'R', interner)); //$NON-NLS-1$
+	}
+
+	@Test
+	public void testConcurrentProgress() {
+		Random random = new Random(7);
+		String a = createText(random, 6000);
+		RangeInterner interner = new RangeInterner();
+		Thread caller = Thread.currentThread();
+		List<Thread> reportingThreads = new ArrayList<>();
+		List<Double> reportedWork = new ArrayList<>();
+		int[] totalWork = new int[1];
+		IProgressMonitor monitor = new NullProgressMonitor() {
+			private double work;
+			@Override
+			public void beginTask(String name, int total) {
+				totalWork[0] = total;
+			}
+			@Override
+			public void internalWorked(double amount) {
+				reportingThreads.add(Thread.currentThread());
+				work += amount;
+				reportedWork.add(work);
+			}
+			@Override
+			public void worked(int amount) {
+				internalWorked(amount);
+			}
+		};
+		RangeDifferencer.findDifferencesConcurrently(DiffAlgorithm.forId(DiffAlgorithm.MYERS), FACTORY, monitor,
+				new DocLineComparator(new Document(a), null, false, null, 'A', interner),
+				new DocLineComparator(new Document(edit(random, a)), null, false, null, 'L', interner),
+				new DocLineComparator(new Document(edit(random, a)), null, false, null, 'R', interner));
+		assertTrue(reportingThreads.stream().allMatch(thread -> thread == caller));
+		// the comparison on the calling thread reports its progress as it goes
+		assertTrue(reportedWork.stream().anyMatch(work -> work > 0 && work < totalWork[0] * 0.4));
+		assertTrue(reportedWork.get(reportedWork.size() - 1) <= totalWork[0]);
+	}
+
+	private String createText(Random random, int lines) {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < lines; i++)
+			sb.append("line").append(random.nextInt(lines / 4)).append(S); //$NON-NLS-1$
+		return sb.toString();
+	}
+
+	private String edit(Random random, String text) {
+		StringBuilder sb = new StringBuilder();
+		for (String line : text.split(S)) {
+			int edit = random.nextInt(50);
+			if (edit == 0)
+				continue;
+			sb.append(edit == 1 ? "changed" : line).append(S); //$NON-NLS-1$
+		}
+		return sb.toString();
+	}
+
 	private RangeDifference[] findRange(String a, String l, String r) {
 		ITokenComparator ancestor = new DocLineComparator(new Document(a), null, false);
 		ITokenComparator left = new DocLineComparator(new Document(l), null, false);
@@ -0,0 +1,231 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.cvs.benchmarks;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.team.internal.ccvs.core.util.CVSDateFormatter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the conversion of the dates of CVS entry lines, server responses
+ * and log output, compared with the conversion before it was lock-free: the
+ * synchronized <code>SimpleDateFormat</code>s of <code>CVSDateFormatter</code>
+ * and the log date formats that each <code>LogListener</code> created.
+ * <p>
+ * The benchmarks run on 4 threads, since entry lines are read by several
+ * threads at once; pass <code>-t 1</code> to measure a single thread.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class CVSDateFormatterBenchmark {
+
+	private static final int DATES = 1000;
+
+	private final Date[] fDates = new Date[DATES];
+	private final String[] fEntryLines = new String[DATES];
+	private final String[] fServerStamps = new String[DATES];
+	private final String[] fLogStamps = new String[DATES];
+
+	/**
+	 * The log date formats of a log listener, which were created for each
+	 * listener.
+	 */
+	@State(Scope.Thread)
+	public static class LogFormats {
+		final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss zzz", Locale.US); //$NON-NLS-1$
+		final SimpleDateFormat oldDateFormat = new SimpleDateFormat("yyyy/MM/dd HH:mm:ss zzz", Locale.US); //$NON-NLS-1$
+
+		// the conversion of LogListener before it used CVSDateFormatter
+		Date convertFromDateString(String modTime) throws ParseException {
+			if (modTime.length() > 4 && modTime.charAt(4) == '/') {
+				return oldDateFormat.parse(modTime + " GMT"); //$NON-NLS-1$
+			}
+			return dateFormat.parse(modTime + " GMT"); //$NON-NLS-1$
+		}
+	}
+
+	@Setup
+	public void setUp() {
+		Random random = new Random(1);
+		SimpleDateFormat logFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.US); //$NON-NLS-1$
+		logFormat.setTimeZone(TimeZone.getTimeZone("GMT")); //$NON-NLS-1$
+		for (int i = 0; i < DATES; i++) {
+			// dates of the last 20 years, in seconds like the CVS dates
+			fDates[i] = new Date(1000L * (1000000000 + random.nextInt(630000000)));
+			fEntryLines[i] = CVSDateFormatter.dateToEntryLine(fDates[i]);
+			fServerStamps[i] = CVSDateFormatter.dateToNotifyServer(fDates[i]).replace("GMT", "-0000"); //$NON-NLS-1$ //$NON-NLS-2$
+			fLogStamps[i] = logFormat.format(fDates[i]) + " +0000"; //$NON-NLS-1$
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(DATES)
+	public void entryLineToDate(Blackhole blackhole) throws ParseException {
+		for (String entryLine : fEntryLines) {
+			blackhole.consume(CVSDateFormatter.entryLineToDate(entryLine));
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(DATES)
+	public void entryLineToDateSynchronized(Blackhole blackhole) throws ParseException {
+		for (String entryLine : fEntryLines) {
+			blackhole.consume(SynchronizedFormatter.entryLineToDate(entryLine));
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(DATES)
+	public void dateToEntryLine(Blackhole blackhole) {
+		for (Date date : fDates) {
+			blackhole.consume(CVSDateFormatter.dateToEntryLine(date));
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(DATES)
+	public void dateToEntryLineSynchronized(Blackhole blackhole) {
+		for (Date date : fDates) {
+			blackhole.consume(SynchronizedFormatter.dateToEntryLine(date));
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(DATES)
+	public void serverStampToDate(Blackhole blackhole) throws ParseException {
+		for (String serverStamp : fServerStamps) {
+			blackhole.consume(CVSDateFormatter.serverStampToDate(serverStamp));
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(DATES)
+	public void serverStampToDateSynchronized(Blackhole blackhole) throws ParseException {
+		for (String serverStamp : fServerStamps) {
+			blackhole.consume(SynchronizedFormatter.serverStampToDate(serverStamp));
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(DATES)
+	public void logStampToDate(Blackhole blackhole) throws ParseException {
+		for (String logStamp : fLogStamps) {
+			blackhole.consume(CVSDateFormatter.logStampToDate(logStamp));
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(DATES)
+	public void logStampToDateSimpleDateFormat(LogFormats formats, Blackhole blackhole) throws ParseException {
+		for (String logStamp : fLogStamps) {
+			blackhole.consume(formats.convertFromDateString(logStamp));
+		}
+	}
+
+	/*
+	 * CVSDateFormatter before it was lock-free.
+	 */
+	private static class SynchronizedFormatter {
+		private static final String ENTRYLINE_FORMAT = "E MMM dd HH:mm:ss yyyy"; //$NON-NLS-1$
+		private static final String SERVER_FORMAT = "dd MMM yyyy HH:mm:ss";//$NON-NLS-1$
+		private static final int ENTRYLINE_TENS_DAY_OFFSET = 8;
+
+		private static final SimpleDateFormat serverFormat = new SimpleDateFormat(SERVER_FORMAT, Locale.US);
+		private static SimpleDateFormat entryLineFormat = new SimpleDateFormat(ENTRYLINE_FORMAT, Locale.US);
+
+		static {
+			entryLineFormat.setTimeZone(TimeZone.getTimeZone("GMT")); //$NON-NLS-1$
+		}
+		static synchronized public Date serverStampToDate(String text) throws ParseException {
+			serverFormat.setTimeZone(getTimeZone(text));
+			Date date = serverFormat.parse(text);
+			return date;
+		}
+
+		static synchronized public Date entryLineToDate(String text) throws ParseException {
+			try {
+				if (text.charAt(ENTRYLINE_TENS_DAY_OFFSET) == ' ') {
+					StringBuilder buf = new StringBuilder(text);
+					buf.setCharAt(ENTRYLINE_TENS_DAY_OFFSET, '0');
+					text = buf.toString();
+				}
+			} catch (StringIndexOutOfBoundsException e) {
+				throw new ParseException(e.getMessage(), ENTRYLINE_TENS_DAY_OFFSET);
+			}
+			return entryLineFormat.parse(text);
+		}
+
+		static synchronized public String dateToEntryLine(Date date) {
+			if (date == null) return ""; //$NON-NLS-1$
+			String passOne = entryLineFormat.format(date);
+			if (passOne.charAt(ENTRYLINE_TENS_DAY_OFFSET) != '0') return passOne;
+			StringBuilder passTwo = new StringBuilder(passOne);
+			passTwo.setCharAt(ENTRYLINE_TENS_DAY_OFFSET, ' ');
+			return passTwo.toString();
+		}
+
+		/*
+		 * Converts timezone text from date string from CVS server and
+		 * returns a timezone representing the received timezone.
+		 * Timezone string is of the following format: [-|+]MMSS
+		 */
+		static private TimeZone getTimeZone(String dateFromServer) {
+			if (dateFromServer.contains("0000"))  //$NON-NLS-1$
+				return TimeZone.getTimeZone("GMT");//$NON-NLS-1$
+			String tz = null;
+			StringBuilder resultTz = new StringBuilder("GMT");//$NON-NLS-1$
+			if (dateFromServer.contains("-")) {//$NON-NLS-1$
+				resultTz.append("-");//$NON-NLS-1$
+				tz = dateFromServer.substring(dateFromServer.indexOf("-"));//$NON-NLS-1$
+			} else if (dateFromServer.contains("+")) {//$NON-NLS-1$
+				resultTz.append('+');
+				tz = dateFromServer.substring(dateFromServer.indexOf("+"));//$NON-NLS-1$
+			}
+			try {
+				if(tz!=null) {
+					resultTz.append(tz.substring(1, 3) /*hours*/ + ":" + tz.substring(3, 5) /*minutes*/);//$NON-NLS-1$
+					return TimeZone.getTimeZone(resultTz.toString());
+				}
+			} catch(IndexOutOfBoundsException e) {
+				return TimeZone.getTimeZone("GMT");//$NON-NLS-1$
+			}
+			return TimeZone.getTimeZone("GMT");//$NON-NLS-1$
+		}
+	}
+}
@@ -39,6 +39,14 @@ public class AllTeamTests extends ResourceTest {
 		TestSuite suite = new TestSuite();
 		suite.addTest(RepositoryProviderTests.suite());
 		suite.addTest(StreamTests.suite());
+		suite.addTest(PathTreeTests.suite());
+		suite.addTest(ResourceVariantTreeTests.suite());
+		suite.addTest(ResourceVariantCacheTests.suite());
+		suite.addTest(CompactResourceVariantByteStoreTests.suite());
+		suite.addTest(ThreeWaySynchronizerTests.suite());
+		suite.addTest(ContentComparatorTests.suite());
+		suite.addTest(BackgroundEventHandlerTests.suite());
+		suite.addTest(SubscriberEventHandlerTests.suite());
 		suite.addTest(StorageMergerTests.suite());
 		suite.addTest(org.eclipse.team.tests.core.regression.AllTests.suite());
 		return suite;
@@ -0,0 +1,236 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.team.internal.core.BackgroundEventHandler;
+
+public class BackgroundEventHandlerTests extends TestCase {
+
+	private static final int CHANGE = 1;
+	private static final int REMOVAL = 2;
+
+	private final IProject project = ResourcesPlugin.getWorkspace().getRoot().getProject("BackgroundEventHandlerTests");
+
+	static class TestHandler extends BackgroundEventHandler {
+		final List<String> processed = new ArrayList<>();
+		final CountDownLatch release = new CountDownLatch(1);
+
+		TestHandler() {
+			super("Test handler", "Test errors");
+		}
+		void queue(IResource resource, int type, int depth) {
+			queueEvent(new ResourceEvent(resource, type, depth), false);
+		}
+		void block() {
+			// holds up the processing of the events queued after it
+			queueEvent(new RunnableEvent(monitor -> {
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}, false), false);
+		}
+		List<String> processAll() throws InterruptedException {
+			release.countDown();
+			getEventHandlerJob().join();
+			return processed;
+		}
+		@Override
+		protected void processEvent(Event event, IProgressMonitor monitor) throws CoreException {
+			if (event instanceof RunnableEvent) {
+				((RunnableEvent) event).run(monitor);
+			} else {
+				ResourceEvent resourceEvent = (ResourceEvent) event;
+				processed.add(resourceEvent.getType() + " " + resourceEvent.getResource().getFullPath() + " " + resourceEvent.getDepth());
+			}
+		}
+		@Override
+		protected boolean doDispatchEvents(IProgressMonitor monitor) {
+			return false;
+		}
+	}
+
+	/*
+	 * A handler that always has something to dispatch and records the
+	 * dispatch delay in effect at each dispatch.
+	 */
+	static class DispatchingHandler extends TestHandler {
+		static final long TARGET = 20;
+		static final long LONG_DELAY = 320;
+		final List<Long> delays = new ArrayList<>();
+		private final long eventCost;
+		private final long dispatchCost;
+
+		DispatchingHandler(long eventCost, long dispatchCost) {
+			this.eventCost = eventCost;
+			this.dispatchCost = dispatchCost;
+		}
+		long currentDelay() {
+			return getDispatchDelay();
+		}
+		@Override
+		protected void processEvent(Event event, IProgressMonitor monitor) throws CoreException {
+			super.processEvent(event, monitor);
+			if (event instanceof ResourceEvent) {
+				sleep(eventCost);
+			}
+		}
+		@Override
+		protected boolean doDispatchEvents(IProgressMonitor monitor) {
+			delays.add(getDispatchDelay());
+			sleep(dispatchCost);
+			return true;
+		}
+		@Override
+		protected long getDispatchLatencyTarget() {
+			return TARGET;
+		}
+		@Override
+		protected long getLongDispatchDelay() {
+			return LONG_DELAY;
+		}
+		private static void sleep(long millis) {
+			try {
+				Thread.sleep(millis);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	public BackgroundEventHandlerTests(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new TestSuite(BackgroundEventHandlerTests.class);
+	}
+
+	private String event(int type, String path, int depth) {
+		return type + " " + project.getFullPath().append(path) + " " + depth;
+	}
+
+	public void testCoveredEventsAreDropped() throws InterruptedException {
+		TestHandler handler = new TestHandler();
+		handler.block();
+		handler.queue(project.getFolder("a"), CHANGE, IResource.DEPTH_INFINITE);
+		handler.queue(project.getFile("a/b/c.txt"), CHANGE, IResource.DEPTH_ZERO);
+		handler.queue(project.getFolder("a"), CHANGE, IResource.DEPTH_ONE);
+		handler.queue(project.getFolder("d"), CHANGE, IResource.DEPTH_ONE);
+		handler.queue(project.getFile("d/e.txt"), CHANGE, IResource.DEPTH_ZERO);
+		handler.queue(project.getFile("d/f/g.txt"), CHANGE, IResource.DEPTH_ZERO);
+		handler.queue(project.getFolder("d/f"), CHANGE, IResource.DEPTH_ZERO);
+		handler.queue(project.getFile("d/f/g.txt"), CHANGE, IResource.DEPTH_ZERO);
+		List<String> processed = handler.processAll();
+		assertEquals(List.of(
+				event(CHANGE, "a", IResource.DEPTH_INFINITE),
+				event(CHANGE, "d", IResource.DEPTH_ONE),
+				event(CHANGE, "d/f/g.txt", IResource.DEPTH_ZERO)), processed);
+		assertEquals(4, handler.getQueuedEventCount());
+		assertEquals(5, handler.getCoalescedEventCount());
+		assertEquals(4, handler.getProcessedEventCount());
+		assertTrue(handler.getMaxQueueDepth() >= 3);
+		assertEquals(0, handler.getQueueDepth());
+		assertTrue(handler.getMaxLatency() >= handler.getAverageLatency());
+		handler.shutdown();
+	}
+
+	public void testOtherEventsAreNotReordered() throws InterruptedException {
+		TestHandler handler = new TestHandler();
+		handler.block();
+		handler.queue(project.getFolder("a"), CHANGE, IResource.DEPTH_INFINITE);
+		handler.queue(project.getFile("a/b.txt"), REMOVAL, IResource.DEPTH_INFINITE);
+		// covering this change by the first one would process it before the removal
+		handler.queue(project.getFile("a/b.txt"), CHANGE, IResource.DEPTH_ZERO);
+		handler.queue(project.getFile("a/b.txt"), REMOVAL, IResource.DEPTH_INFINITE);
+		assertEquals(List.of(
+				event(CHANGE, "a", IResource.DEPTH_INFINITE),
+				event(REMOVAL, "a/b.txt", IResource.DEPTH_INFINITE),
+				event(CHANGE, "a/b.txt", IResource.DEPTH_ZERO),
+				event(REMOVAL, "a/b.txt", IResource.DEPTH_INFINITE)), handler.processAll());
+		assertEquals(0, handler.getCoalescedEventCount());
+		handler.shutdown();
+	}
+
+	public void testProcessedEventsDoNotCover() throws InterruptedException {
+		TestHandler handler = new TestHandler();
+		handler.queue(project.getFolder("a"), CHANGE, IResource.DEPTH_INFINITE);
+		handler.getEventHandlerJob().join();
+		handler.block();
+		handler.queue(project.getFile("a/b.txt"), CHANGE, IResource.DEPTH_ZERO);
+		assertEquals(List.of(
+				event(CHANGE, "a", IResource.DEPTH_INFINITE),
+				event(CHANGE, "a/b.txt", IResource.DEPTH_ZERO)), handler.processAll());
+		handler.shutdown();
+	}
+
+	public void testDispatchDelayGrowsWhileEventsAreWaiting() throws InterruptedException {
+		DispatchingHandler handler = new DispatchingHandler(5, 0);
+		handler.block();
+		for (int i = 0; i < 200; i++) {
+			handler.queue(project.getFile("file" + i + ".txt"), CHANGE, IResource.DEPTH_ZERO);
+		}
+		assertEquals(200, handler.processAll().size());
+		List<Long> delays = handler.delays;
+		assertEquals(DispatchingHandler.TARGET, delays.get(0).longValue());
+		for (int i = 1; i < delays.size(); i++) {
+			assertTrue(delays.toString(), delays.get(i) >= delays.get(i - 1));
+		}
+		assertEquals(DispatchingHandler.LONG_DELAY, delays.get(delays.size() - 1).longValue());
+		// The queue is drained so the next dispatch is due after the target
+		assertEquals(DispatchingHandler.TARGET, handler.currentDelay());
+		handler.shutdown();
+	}
+
+	public void testDispatchDelayGrowsWhileEventsKeepArriving() throws InterruptedException {
+		DispatchingHandler handler = new DispatchingHandler(0, 0);
+		for (int i = 0; i < 100; i++) {
+			handler.queue(project.getFile("file" + i + ".txt"), CHANGE, IResource.DEPTH_ZERO);
+			Thread.sleep(10);
+		}
+		handler.getEventHandlerJob().join();
+		assertEquals(100, handler.processed.size());
+		// The events are processed as they arrive but the dispatches still batch them
+		assertTrue(handler.delays.toString(), handler.delays.stream().anyMatch(delay -> delay >= 4 * DispatchingHandler.TARGET));
+		assertTrue(handler.delays.size() < 50);
+		assertEquals(DispatchingHandler.TARGET, handler.currentDelay());
+		handler.shutdown();
+	}
+
+	public void testExpensiveDispatchesIncreaseDelay() throws InterruptedException {
+		DispatchingHandler handler = new DispatchingHandler(0, 30);
+		for (int i = 0; i < 8; i++) {
+			handler.queue(project.getFile("file" + i + ".txt"), CHANGE, IResource.DEPTH_ZERO);
+			handler.getEventHandlerJob().join();
+		}
+		assertEquals(8, handler.delays.size());
+		long delay = handler.currentDelay();
+		assertTrue(String.valueOf(delay), delay >= 3 * DispatchingHandler.TARGET && delay <= DispatchingHandler.LONG_DELAY);
+		handler.shutdown();
+	}
+}
@@ -0,0 +1,148 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspaceRoot;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.team.core.TeamException;
+import org.eclipse.team.core.variants.CompactResourceVariantByteStore;
+import org.eclipse.team.core.variants.SessionResourceVariantByteStore;
+
+public class CompactResourceVariantByteStoreTests extends TestCase {
+
+	private final IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
+	private final IProject project = root.getProject("CompactResourceVariantByteStoreTests");
+
+	public CompactResourceVariantByteStoreTests(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new TestSuite(CompactResourceVariantByteStoreTests.class);
+	}
+
+	private static Set<IResource> asSet(IResource[] resources) {
+		return new HashSet<>(Arrays.asList(resources));
+	}
+
+	public void testBytes() throws TeamException {
+		CompactResourceVariantByteStore store = new CompactResourceVariantByteStore();
+		IResource file = project.getFile("a/b.txt");
+		IResource folder = project.getFolder("a/b.txt");
+		assertTrue(store.isEmpty());
+		assertNull(store.getBytes(file));
+		assertTrue(store.setBytes(file, new byte[] { 1, 2 }));
+		assertFalse(store.setBytes(file, new byte[] { 1, 2 }));
+		// a file and a folder with the same path are different resources
+		assertNull(store.getBytes(folder));
+		assertTrue(store.setBytes(folder, new byte[] { 3 }));
+		assertTrue(Arrays.equals(new byte[] { 1, 2 }, store.getBytes(file)));
+		assertTrue(Arrays.equals(new byte[] { 3 }, store.getBytes(folder)));
+		// no bytes means that there is no remote
+		assertTrue(store.setBytes(file, new byte[0]));
+		assertNull(store.getBytes(file));
+		assertEquals(asSet(new IResource[] { file, folder }), asSet(store.members(project.getFolder("a"))));
+		assertTrue(store.deleteBytes(file));
+		assertFalse(store.deleteBytes(file));
+		assertEquals(asSet(new IResource[] { folder }), asSet(store.members(project.getFolder("a"))));
+		assertFalse(store.isEmpty());
+		store.dispose();
+		assertTrue(store.isEmpty());
+		assertNull(store.getBytes(folder));
+	}
+
+	public void testFlush() throws TeamException {
+		CompactResourceVariantByteStore store = new CompactResourceVariantByteStore(true);
+		byte[] bytes = new byte[] { 1 };
+		store.setBytes(project, bytes);
+		store.setBytes(project.getFolder("a"), bytes);
+		store.setBytes(project.getFile("a/b.txt"), bytes);
+		store.setBytes(project.getFile("c.txt"), bytes);
+		assertEquals(asSet(new IResource[] { project }), asSet(store.members(root)));
+		assertTrue(store.flushBytes(project, IResource.DEPTH_ONE));
+		assertNull(store.getBytes(project));
+		assertNull(store.getBytes(project.getFile("c.txt")));
+		assertNull(store.getBytes(project.getFolder("a")));
+		// the flush does not go below the given depth
+		assertNotNull(store.getBytes(project.getFile("a/b.txt")));
+		// and only applies to resources that have bytes
+		assertFalse(store.flushBytes(project.getFolder("a"), IResource.DEPTH_INFINITE));
+		assertEquals(0, store.members(root).length);
+		assertTrue(store.flushBytes(project.getFile("a/b.txt"), IResource.DEPTH_INFINITE));
+		assertTrue(store.isEmpty());
+	}
+
+	public void testSameAsSessionStore() throws TeamException {
+		Random random = new Random(0);
+		List<IResource> resources = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			IProject p = root.getProject("CompactResourceVariantByteStoreTests" + i);
+			resources.add(p);
+			for (int j = 0; j < 4; j++) {
+				resources.add(p.getFolder("f" + j));
+				resources.add(p.getFile("f" + j));
+				resources.add(p.getFile("f" + j + "/g" + i));
+				resources.add(p.getFolder("f" + j + "/g" + i));
+			}
+		}
+		SessionResourceVariantByteStore expected = new SessionResourceVariantByteStore();
+		CompactResourceVariantByteStore actual = new CompactResourceVariantByteStore();
+		for (int i = 0; i < 20000; i++) {
+			IResource resource = resources.get(random.nextInt(resources.size()));
+			switch (random.nextInt(4)) {
+			case 0:
+			case 1:
+				// large values take up a buffer of their own
+				byte[] bytes = new byte[random.nextInt(100) == 0 ? 100000 : random.nextInt(20)];
+				random.nextBytes(bytes);
+				assertEquals(expected.setBytes(resource, bytes.clone()), actual.setBytes(resource, bytes));
+				break;
+			case 2:
+				int depth = random.nextInt(3);
+				assertEquals(expected.flushBytes(resource, depth), actual.flushBytes(resource, depth));
+				break;
+			default:
+				assertEquals(expected.deleteBytes(resource), actual.deleteBytes(resource));
+			}
+			assertEquals(expected.isEmpty(), actual.isEmpty());
+		}
+		for (IResource resource : resources) {
+			assertTrue(resource.toString(), Arrays.equals(expected.getBytes(resource), actual.getBytes(resource)));
+			Set<IResource> members = new HashSet<>();
+			for (IResource member : expected.members(resource)) {
+				if (expected.getBytes(member) != null)
+					members.add(member);
+			}
+			Set<IResource> actualMembers = new HashSet<>();
+			for (IResource member : actual.members(resource)) {
+				if (actual.getBytes(member) != null)
+					actualMembers.add(member);
+			}
+			assertEquals(resource.toString(), members, actualMembers);
+		}
+	}
+}
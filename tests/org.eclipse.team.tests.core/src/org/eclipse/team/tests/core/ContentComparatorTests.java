@@ -0,0 +1,241 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IStorage;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.team.core.history.IFileRevision;
+import org.eclipse.team.core.history.provider.FileRevision;
+import org.eclipse.team.internal.core.subscribers.ContentComparator;
+import org.eclipse.team.internal.core.subscribers.ContentDigestCache;
+import org.eclipse.team.internal.core.subscribers.ContentDigestCache.Digest;
+
+public class ContentComparatorTests extends TestCase {
+
+	static class TestComparator extends ContentComparator {
+		TestComparator(boolean ignoreWhitespace) {
+			super(ignoreWhitespace);
+		}
+		boolean equal(byte[] contents1, byte[] contents2) {
+			return contentsEqual(new NullProgressMonitor(), stream(contents1), stream(contents2), shouldIgnoreWhitespace());
+		}
+		private InputStream stream(byte[] contents) {
+			if (contents == null)
+				return null;
+			return new ByteArrayInputStream(contents) {
+				// return fewer bytes than requested, like a network stream
+				@Override
+				public synchronized int read(byte[] b, int off, int len) {
+					return super.read(b, off, Math.min(len, 1000));
+				}
+			};
+		}
+	}
+
+	/*
+	 * A remote revision whose contents fail to be read the given number of
+	 * times.
+	 */
+	static class TestRevision extends FileRevision {
+		private final String contentIdentifier;
+		private final byte[] contents;
+		private int failures;
+
+		TestRevision(String contentIdentifier, byte[] contents, int failures) {
+			this.contentIdentifier = contentIdentifier;
+			this.contents = contents;
+			this.failures = failures;
+		}
+		@Override
+		public String getName() {
+			return "file.txt";
+		}
+		@Override
+		public String getContentIdentifier() {
+			return contentIdentifier;
+		}
+		@Override
+		public IStorage getStorage(IProgressMonitor monitor) throws CoreException {
+			if (failures > 0) {
+				failures--;
+				throw new CoreException(new Status(IStatus.ERROR, "org.eclipse.team.tests.core", "Failed to fetch " + contentIdentifier));
+			}
+			return new IStorage() {
+				@Override
+				public <T> T getAdapter(Class<T> adapter) {
+					return null;
+				}
+				@Override
+				public boolean isReadOnly() {
+					return true;
+				}
+				@Override
+				public String getName() {
+					return TestRevision.this.getName();
+				}
+				@Override
+				public IPath getFullPath() {
+					return null;
+				}
+				@Override
+				public InputStream getContents() {
+					return new ByteArrayInputStream(contents);
+				}
+			};
+		}
+		@Override
+		public boolean isPropertyMissing() {
+			return false;
+		}
+		@Override
+		public IFileRevision withAllProperties(IProgressMonitor monitor) {
+			return this;
+		}
+	}
+
+	public ContentComparatorTests(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new TestSuite(ContentComparatorTests.class);
+	}
+
+	private static byte[] bytes(String contents) {
+		return contents.getBytes(StandardCharsets.ISO_8859_1);
+	}
+
+	public void testCompare() {
+		TestComparator comparator = new TestComparator(false);
+		assertTrue(comparator.equal(null, null));
+		assertFalse(comparator.equal(bytes(""), null));
+		assertTrue(comparator.equal(bytes(""), bytes("")));
+		assertTrue(comparator.equal(bytes("a b"), bytes("a b")));
+		assertFalse(comparator.equal(bytes("a b"), bytes("ab")));
+		assertFalse(comparator.equal(bytes("a b"), bytes("a b ")));
+	}
+
+	public void testCompareIgnoringWhitespace() {
+		TestComparator comparator = new TestComparator(true);
+		assertTrue(comparator.equal(bytes(" \t\r\n"), bytes("")));
+		assertTrue(comparator.equal(bytes("a b\r\n"), bytes("ab")));
+		assertFalse(comparator.equal(bytes("a b"), bytes("a c")));
+		assertFalse(comparator.equal(bytes("a b"), bytes("a b c")));
+		// non-breaking spaces are not whitespace
+		assertFalse(comparator.equal(bytes("a\u00a0b"), bytes("ab")));
+	}
+
+	public void testCompareLargeContents() {
+		Random random = new Random(0);
+		byte[] contents = new byte[1000000];
+		random.nextBytes(contents);
+		contents[contents.length - 1] = 'z';
+		for (boolean ignoreWhitespace : new boolean[] { false, true }) {
+			TestComparator comparator = new TestComparator(ignoreWhitespace);
+			assertTrue(comparator.equal(contents, contents.clone()));
+			byte[] changed = contents.clone();
+			changed[changed.length - 1] = 'x';
+			changed[changed.length - 2] = 'y';
+			assertFalse(comparator.equal(contents, changed));
+			assertFalse(comparator.equal(contents, Arrays.copyOf(contents, contents.length + 1)));
+			assertFalse(comparator.equal(Arrays.copyOf(contents, contents.length - 1), contents));
+		}
+	}
+
+	private static Digest digest(String contents) throws IOException {
+		return ContentDigestCache.computeDigest(new ByteArrayInputStream(bytes(contents)));
+	}
+
+	public void testDigests() throws IOException {
+		assertTrue(digest("a b").contentsEqual(digest("a b"), false));
+		assertFalse(digest("a b").contentsEqual(digest("ab"), false));
+		assertTrue(digest("a b\r\n").contentsEqual(digest("ab"), true));
+		assertFalse(digest("a b").contentsEqual(digest("a c"), true));
+	}
+
+	public void testDigestCache() throws IOException {
+		ContentDigestCache cache = new ContentDigestCache(2);
+		IPath path = new Path("/project/file.txt");
+		Digest digest = digest("contents");
+		assertNull(cache.getLocalDigest(path, 1));
+		cache.putLocalDigest(path, 1, digest);
+		assertSame(digest, cache.getLocalDigest(path, 1));
+		// a modified file or another remote revision has a different key
+		assertNull(cache.getLocalDigest(path, 2));
+		assertNull(cache.getRemoteDigest(path, "1.1"));
+		cache.putRemoteDigest(path, "1.1", digest);
+		assertSame(digest, cache.getRemoteDigest(path, "1.1"));
+		assertNull(cache.getRemoteDigest(path, "1.2"));
+		assertEquals(2, cache.getHitCount());
+		assertEquals(4, cache.getMissCount());
+		assertEquals(1.0 / 3, cache.getHitRate(), 0.001);
+		// the least recently used digest is removed when the cache is full
+		cache.putRemoteDigest(path, "1.2", digest);
+		assertNull(cache.getLocalDigest(path, 1));
+		assertSame(digest, cache.getRemoteDigest(path, "1.1"));
+		cache.clear();
+		assertNull(cache.getRemoteDigest(path, "1.1"));
+	}
+
+	public void testCompareFiles() throws CoreException {
+		IProject project = ResourcesPlugin.getWorkspace().getRoot().getProject("ContentComparatorTests");
+		project.create(null);
+		try {
+			project.open(null);
+			IFile file = project.getFile("file.txt");
+			file.create(new ByteArrayInputStream(bytes("a b")), true, null);
+			ContentDigestCache cache = ContentDigestCache.getInstance();
+			cache.clear();
+			ContentComparator comparator = new ContentComparator(false);
+
+			// Without cached digests the contents are compared directly and digested if they are equal
+			assertFalse(comparator.compare(file, new TestRevision("1.1", bytes("a c"), 0), new NullProgressMonitor()));
+			assertNull(cache.getLocalDigest(file.getFullPath(), file.getModificationStamp()));
+			assertTrue(comparator.compare(file, new TestRevision("1.2", bytes("a b"), 0), new NullProgressMonitor()));
+			assertNotNull(cache.getLocalDigest(file.getFullPath(), file.getModificationStamp()));
+			assertNotNull(cache.getRemoteDigest(file.getFullPath(), "1.2"));
+
+			// With a cached digest the other side is digested
+			assertFalse(comparator.compare(file, new TestRevision("1.3", bytes("ab"), 0), new NullProgressMonitor()));
+			assertNotNull(cache.getRemoteDigest(file.getFullPath(), "1.3"));
+			assertTrue(new ContentComparator(true).compare(file, new TestRevision("1.3", bytes("ab"), 0), new NullProgressMonitor()));
+
+			// Contents that cannot be digested are compared directly
+			assertTrue(comparator.compare(file, new TestRevision("1.4", bytes("a b"), 1), new NullProgressMonitor()));
+			assertNull(cache.getRemoteDigest(file.getFullPath(), "1.4"));
+		} finally {
+			project.delete(true, null);
+		}
+	}
+}
@@ -0,0 +1,189 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.core;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.team.core.diff.FastDiffFilter;
+import org.eclipse.team.core.diff.IDiff;
+import org.eclipse.team.core.diff.IThreeWayDiff;
+import org.eclipse.team.core.diff.provider.DiffTree;
+import org.eclipse.team.core.diff.provider.ThreeWayDiff;
+import org.eclipse.team.core.diff.provider.TwoWayDiff;
+import org.eclipse.team.internal.core.mapping.PathTree;
+
+public class PathTreeTests extends TestCase {
+
+	private static final int P_1 = 1;
+	private static final int P_2 = 2;
+
+	public PathTreeTests(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new TestSuite(PathTreeTests.class);
+	}
+
+	public void testPutAndRemove() {
+		PathTree tree = new PathTree();
+		assertTrue(tree.isEmpty());
+		assertNull(tree.put(new Path("/p/a/b"), "b"));
+		assertNull(tree.put(new Path("/p/a"), "a"));
+		assertEquals("b", tree.put(new Path("/p/a/b"), "b2"));
+		assertEquals(2, tree.size());
+		assertEquals("a", tree.get(new Path("/p/a")));
+		assertEquals("b2", tree.get(new Path("/p/a/b")));
+		assertNull(tree.get(new Path("/p")));
+		assertNull(tree.get(new Path("p/a")));
+		assertEquals(paths("/p/a", "/p/a/b"), new HashSet<>(Arrays.asList(tree.getPaths())));
+
+		assertEquals("a", tree.remove(new Path("/p/a")));
+		assertNull(tree.remove(new Path("/p/a")));
+		assertEquals(1, tree.size());
+		assertTrue(tree.hasChildren(new Path("/p/a")));
+		assertEquals("b2", tree.remove(new Path("/p/a/b")));
+		assertTrue(tree.isEmpty());
+		assertFalse(tree.hasChildren(Path.ROOT));
+		assertEquals(0, tree.getChildren(Path.ROOT).length);
+	}
+
+	public void testChildren() {
+		PathTree tree = new PathTree();
+		tree.put(new Path("/p/a/b/c"), "c");
+		tree.put(new Path("/p/a/d"), "d");
+		tree.put(new Path("/q"), "q");
+		assertEquals(paths("/p", "/q"), new HashSet<>(Arrays.asList(tree.getChildren(Path.ROOT))));
+		assertEquals(paths("/p/a/b", "/p/a/d"), new HashSet<>(Arrays.asList(tree.getChildren(new Path("/p/a")))));
+		assertTrue(tree.hasChildren(new Path("/p/a/b")));
+		assertFalse(tree.hasChildren(new Path("/p/a/d")));
+		assertFalse(tree.hasChildren(new Path("/q")));
+
+		tree.remove(new Path("/p/a/b/c"));
+		assertEquals(paths("/p/a/d"), new HashSet<>(Arrays.asList(tree.getChildren(new Path("/p/a")))));
+		assertFalse(tree.hasChildren(new Path("/p/a/b")));
+	}
+
+	public void testPropagatedProperty() {
+		PathTree tree = new PathTree();
+		tree.put(new Path("/p/a/b"), "b");
+		tree.put(new Path("/p/a/c"), "c");
+		assertEquals(paths("/p/a/b", "/p/a", "/p"), paths(tree.setPropogatedProperty(new Path("/p/a/b"), P_1, true)));
+		assertEquals(paths("/p/a/c"), paths(tree.setPropogatedProperty(new Path("/p/a/c"), P_1, true)));
+		assertTrue(tree.getProperty(new Path("/p"), P_1));
+		assertFalse(tree.getProperty(new Path("/p"), P_2));
+		assertFalse(tree.getProperty(Path.ROOT, P_1));
+
+		// the ancestors keep the property while a descendant has it
+		assertEquals(paths("/p/a/b"), paths(tree.setPropogatedProperty(new Path("/p/a/b"), P_1, false)));
+		assertTrue(tree.getProperty(new Path("/p/a"), P_1));
+		assertEquals(paths("/p/a/c", "/p/a", "/p"), paths(tree.setPropogatedProperty(new Path("/p/a/c"), P_1, false)));
+		assertFalse(tree.getProperty(new Path("/p"), P_1));
+
+		// removed descendants no longer keep the property of their ancestors
+		tree.setPropogatedProperty(new Path("/p/a/b"), P_2, true);
+		tree.remove(new Path("/p/a/b"));
+		assertEquals(paths("/p/a", "/p"), paths(tree.setPropogatedProperty(new Path("/p/a"), P_2, false)));
+		assertEquals(0, tree.setPropogatedProperty(new Path("/p/x"), P_2, true).length);
+	}
+
+	public void testMatch() {
+		// the class of a payload is its length
+		PathTree tree = new PathTree(object -> 1 << ((String) object).length());
+		tree.put(new Path("/p/a/b"), "b");
+		tree.put(new Path("/p/a/b/c"), "cc");
+		tree.put(new Path("/p/d"), "dd");
+		tree.put(new Path("/p/e/f/g"), "ggg");
+		assertTrue(tree.hasMatch(new Path("/p"), IResource.DEPTH_INFINITE, 1 << 1, "b"::equals));
+		// the descendants of a path with a payload are not searched
+		assertFalse(tree.hasMatch(new Path("/p"), IResource.DEPTH_INFINITE, 1 << 2, "cc"::equals));
+		assertTrue(tree.hasMatch(new Path("/p/a/b/c"), IResource.DEPTH_ZERO, 1 << 2, "cc"::equals));
+		assertTrue(tree.hasMatch(new Path("/p"), IResource.DEPTH_ONE, 1 << 2, "dd"::equals));
+		assertFalse(tree.hasMatch(new Path("/p"), IResource.DEPTH_ONE, 1 << 3, "ggg"::equals));
+		assertTrue(tree.hasMatch(new Path("/p"), IResource.DEPTH_INFINITE, 1 << 3, "ggg"::equals));
+		assertFalse(tree.hasMatch(new Path("/x"), IResource.DEPTH_INFINITE, -1, object -> true));
+
+		// only the payloads of the given classes are tested
+		Set<Object> tested = new HashSet<>();
+		assertFalse(tree.hasMatch(new Path("/p"), IResource.DEPTH_INFINITE, 1 << 3, object -> !tested.add(object)));
+		assertEquals(Set.of("ggg"), tested);
+
+		// the class counts follow replaced and removed payloads
+		tree.put(new Path("/p/e/f/g"), "g");
+		assertFalse(tree.hasMatch(new Path("/p/e"), IResource.DEPTH_INFINITE, 1 << 3, object -> true));
+		assertTrue(tree.hasMatch(new Path("/p/e"), IResource.DEPTH_INFINITE, 1 << 1, object -> true));
+		tree.remove(new Path("/p/e/f/g"));
+		tree.remove(new Path("/p/a/b"));
+		assertFalse(tree.hasMatch(new Path("/p"), IResource.DEPTH_INFINITE, 1 << 1, object -> true));
+		assertTrue(tree.hasMatch(new Path("/p"), IResource.DEPTH_INFINITE, 1 << 2, "cc"::equals));
+	}
+
+	private static IDiff diff(String path, int localKind, int remoteKind) {
+		return new ThreeWayDiff(
+				localKind == IDiff.NO_CHANGE ? null : new TwoWayDiff(new Path(path), localKind, 0),
+				remoteKind == IDiff.NO_CHANGE ? null : new TwoWayDiff(new Path(path), remoteKind, 0));
+	}
+
+	public void testMatchingDiffs() {
+		DiffTree tree = new DiffTree();
+		tree.add(diff("/p/a/b", IDiff.CHANGE, IDiff.NO_CHANGE));
+		tree.add(diff("/p/a/c", IDiff.NO_CHANGE, IDiff.ADD));
+		tree.add(diff("/p/d/e", IDiff.CHANGE, IDiff.CHANGE));
+		FastDiffFilter conflicts = FastDiffFilter.getDirectionFilter(new int[] { IThreeWayDiff.CONFLICTING });
+		assertTrue(tree.hasMatchingDiffs(new Path("/p"), conflicts));
+		assertFalse(tree.hasMatchingDiffs(new Path("/p/a"), conflicts));
+		assertFalse(tree.hasMatchingDiffs(new Path("/p"), conflicts, IResource.DEPTH_ONE));
+		assertTrue(tree.hasMatchingDiffs(new Path("/p/d"), conflicts, IResource.DEPTH_ONE));
+
+		FastDiffFilter incomingAdditions = FastDiffFilter.getStateFilter(new int[] { IThreeWayDiff.INCOMING | IDiff.ADD },
+				IThreeWayDiff.DIRECTION_MASK | IDiff.ADD | IDiff.REMOVE | IDiff.CHANGE);
+		assertTrue(tree.hasMatchingDiffs(new Path("/p/a"), incomingAdditions));
+		assertFalse(tree.hasMatchingDiffs(new Path("/p/d"), incomingAdditions));
+		assertTrue(tree.hasMatchingDiffs(new Path("/p/a/c"), incomingAdditions, IResource.DEPTH_ZERO));
+
+		// filters that are not indexed test every diff
+		FastDiffFilter outgoing = new FastDiffFilter() {
+			@Override
+			public boolean select(IDiff diff) {
+				return ((IThreeWayDiff) diff).getDirection() == IThreeWayDiff.OUTGOING;
+			}
+		};
+		assertTrue(tree.hasMatchingDiffs(new Path("/p"), outgoing));
+		assertFalse(tree.hasMatchingDiffs(new Path("/p/d"), outgoing));
+
+		tree.remove(new Path("/p/d/e"));
+		assertFalse(tree.hasMatchingDiffs(new Path("/p"), conflicts));
+	}
+
+	private static Set<IPath> paths(String... paths) {
+		Set<IPath> result = new HashSet<>();
+		for (String path : paths) {
+			result.add(new Path(path));
+		}
+		return result;
+	}
+
+	private static Set<IPath> paths(IPath[] paths) {
+		return new HashSet<>(Arrays.asList(paths));
+	}
+}
@@ -0,0 +1,260 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.team.core.TeamException;
+import org.eclipse.team.core.variants.CachedResourceVariant;
+import org.eclipse.team.internal.core.ResourceVariantCache;
+import org.eclipse.team.internal.core.ResourceVariantCacheEntry;
+
+public class ResourceVariantCacheTests extends TestCase {
+
+	private static final String CACHE_ID = "org.eclipse.team.tests.core.cache";
+
+	private int fetches;
+
+	class TestVariant extends CachedResourceVariant {
+		private final String path;
+		private final String contents;
+
+		TestVariant(String path, String contents) {
+			this.path = path;
+			this.contents = contents;
+		}
+		@Override
+		protected void fetchContents(IProgressMonitor monitor) throws TeamException {
+			fetches++;
+			setContents(new ByteArrayInputStream(contents.getBytes()), monitor);
+		}
+		@Override
+		protected String getCachePath() {
+			return path;
+		}
+		@Override
+		protected String getCacheId() {
+			return CACHE_ID;
+		}
+		@Override
+		public String getName() {
+			return path;
+		}
+		@Override
+		public boolean isContainer() {
+			return false;
+		}
+		@Override
+		public String getContentIdentifier() {
+			return path;
+		}
+		@Override
+		public byte[] asBytes() {
+			return path.getBytes();
+		}
+		String read() throws CoreException, IOException {
+			try (InputStream in = getStorage(null).getContents()) {
+				ByteArrayOutputStream out = new ByteArrayOutputStream();
+				byte[] buffer = new byte[1024];
+				int read;
+				while ((read = in.read(buffer)) >= 0) {
+					out.write(buffer, 0, read);
+				}
+				return out.toString();
+			}
+		}
+	}
+
+	public ResourceVariantCacheTests(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new TestSuite(ResourceVariantCacheTests.class);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		ResourceVariantCache.disableCache(CACHE_ID);
+		super.tearDown();
+	}
+
+	public void testContentsSurviveRestart() throws Exception {
+		assertEquals("a", new TestVariant("folder/a 1.1", "a").read());
+		assertEquals(1, fetches);
+		assertEquals("a", new TestVariant("folder/a 1.1", "other").read());
+		assertEquals(1, fetches);
+
+		// closes the cache like a restart of the workbench
+		ResourceVariantCache.shutdown();
+		assertFalse(ResourceVariantCache.isCachingEnabled(CACHE_ID));
+		TestVariant variant = new TestVariant("folder/a 1.1", "other");
+		assertTrue(variant.isContentsCached());
+		assertEquals("a", variant.read());
+		assertEquals(1, fetches);
+	}
+
+	public void testEqualContentsAreShared() throws Exception {
+		new TestVariant("folder/a 1.1", "contents").read();
+		new TestVariant("folder/b 1.4", "contents").read();
+		new TestVariant("folder/c 1.2", "other contents").read();
+		ResourceVariantCacheEntry[] entries = ResourceVariantCache.getCache(CACHE_ID).getEntries();
+		assertEquals(3, entries.length);
+		Set<String> hashes = new HashSet<>();
+		for (ResourceVariantCacheEntry entry : entries) {
+			hashes.add(entry.getContentHash());
+		}
+		assertEquals(2, hashes.size());
+	}
+
+	public void testLeastRecentlyUsedEntriesAreEvicted() throws Exception {
+		new TestVariant("a", "12345").read();
+		ResourceVariantCache cache = ResourceVariantCache.getCache(CACHE_ID);
+		cache.setSizeLimit(12);
+		new TestVariant("b", "123456").read();
+		// makes b the least recently used entry
+		new TestVariant("a", "12345").read();
+		new TestVariant("c", "1234567").read();
+		assertTrue(cache.hasEntry("a"));
+		assertFalse(cache.hasEntry("b"));
+		assertTrue(cache.hasEntry("c"));
+		assertEquals(3, fetches);
+	}
+
+	/*
+	 * A stream that blocks the first read until it is released.
+	 */
+	static class BlockingStream extends ByteArrayInputStream {
+		final CountDownLatch reading = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+
+		BlockingStream(String contents) {
+			super(contents.getBytes());
+		}
+		@Override
+		public synchronized int read(byte[] b, int off, int len) {
+			reading.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return super.read(b, off, len);
+		}
+	}
+
+	/*
+	 * A stream that records whether it was read or closed.
+	 */
+	static class RecordingStream extends ByteArrayInputStream {
+		final AtomicBoolean read = new AtomicBoolean();
+		final AtomicBoolean closed = new AtomicBoolean();
+
+		RecordingStream(String contents) {
+			super(contents.getBytes());
+		}
+		@Override
+		public synchronized int read(byte[] b, int off, int len) {
+			read.set(true);
+			return super.read(b, off, len);
+		}
+		@Override
+		public void close() {
+			closed.set(true);
+		}
+	}
+
+	private Thread startWriter(ResourceVariantCacheEntry entry, InputStream stream, Throwable[] failures, int index) {
+		Thread writer = new Thread(() -> {
+			try {
+				entry.setContents(stream, new NullProgressMonitor());
+			} catch (Throwable e) {
+				failures[index] = e;
+			}
+		});
+		writer.start();
+		return writer;
+	}
+
+	/*
+	 * Wait until the given writer waits for the write of another thread.
+	 */
+	private void waitUntilWaiting(Thread writer) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 10000;
+		while (writer.getState() != Thread.State.WAITING && writer.getState() != Thread.State.TIMED_WAITING) {
+			assertTrue("The second writer did not wait for the first", writer.isAlive());
+			assertTrue("Timed out waiting for the second writer", System.currentTimeMillis() < deadline);
+			Thread.sleep(10);
+		}
+	}
+
+	public void testSecondWriterWaitsForFirst() throws Exception {
+		ResourceVariantCache.enableCaching(CACHE_ID);
+		ResourceVariantCacheEntry entry = ResourceVariantCache.getCache(CACHE_ID).add("a", new TestVariant("a", "a"));
+		BlockingStream first = new BlockingStream("first");
+		RecordingStream second = new RecordingStream("second");
+		Throwable[] failures = new Throwable[2];
+		Thread firstWriter = startWriter(entry, first, failures, 0);
+		first.reading.await();
+		Thread secondWriter = startWriter(entry, second, failures, 1);
+		waitUntilWaiting(secondWriter);
+		first.release.countDown();
+		firstWriter.join();
+		secondWriter.join();
+		assertNull(failures[0]);
+		assertNull(failures[1]);
+		assertEquals(ResourceVariantCacheEntry.READY, entry.getState());
+		assertFalse(second.read.get());
+		assertTrue(second.closed.get());
+		try (InputStream contents = entry.getContents()) {
+			assertEquals("first", new String(contents.readAllBytes()));
+		}
+	}
+
+	public void testWritersFailWhenEntryIsDisposed() throws Exception {
+		ResourceVariantCache.enableCaching(CACHE_ID);
+		ResourceVariantCacheEntry entry = ResourceVariantCache.getCache(CACHE_ID).add("a", new TestVariant("a", "a"));
+		BlockingStream first = new BlockingStream("first");
+		RecordingStream second = new RecordingStream("second");
+		Throwable[] failures = new Throwable[2];
+		Thread firstWriter = startWriter(entry, first, failures, 0);
+		first.reading.await();
+		Thread secondWriter = startWriter(entry, second, failures, 1);
+		waitUntilWaiting(secondWriter);
+		// The contents of the first writer cannot be stored for a disposed entry
+		entry.dispose();
+		first.release.countDown();
+		firstWriter.join();
+		secondWriter.join();
+		assertTrue(failures[0] instanceof TeamException);
+		assertTrue(failures[1] instanceof TeamException);
+		assertEquals(ResourceVariantCacheEntry.DISPOSED, entry.getState());
+		assertFalse(second.read.get());
+		assertTrue(second.closed.get());
+	}
+}
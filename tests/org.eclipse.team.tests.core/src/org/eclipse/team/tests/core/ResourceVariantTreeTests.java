@@ -0,0 +1,208 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IStorage;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.team.core.TeamException;
+import org.eclipse.team.core.variants.AbstractResourceVariantTree;
+import org.eclipse.team.core.variants.IResourceVariant;
+
+public class ResourceVariantTreeTests extends TeamTest {
+
+	public ResourceVariantTreeTests() {
+		super();
+	}
+
+	public ResourceVariantTreeTests(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new TestSuite(ResourceVariantTreeTests.class);
+	}
+
+	static class TestVariant implements IResourceVariant {
+		private final String name;
+		private final List<TestVariant> members = new ArrayList<>();
+		private final boolean container;
+
+		TestVariant(String name, boolean container) {
+			this.name = name;
+			this.container = container;
+		}
+		TestVariant add(TestVariant member) {
+			members.add(member);
+			return this;
+		}
+		@Override
+		public String getName() {
+			return name;
+		}
+		@Override
+		public boolean isContainer() {
+			return container;
+		}
+		@Override
+		public IStorage getStorage(IProgressMonitor monitor) {
+			return null;
+		}
+		@Override
+		public String getContentIdentifier() {
+			return name;
+		}
+		@Override
+		public byte[] asBytes() {
+			return name.getBytes();
+		}
+	}
+
+	static class TestTree extends AbstractResourceVariantTree {
+		private final int concurrency;
+		private final Map<IResource, IResourceVariant> variants = new HashMap<>();
+		private final Set<Thread> collectingThreads = new HashSet<>();
+		final Map<IResource, IResourceVariant> remotes = new HashMap<>();
+		String failingFolder;
+
+		TestTree(int concurrency) {
+			this.concurrency = concurrency;
+		}
+		@Override
+		protected int getRefreshConcurrency() {
+			return concurrency;
+		}
+		@Override
+		protected IResourceVariant[] fetchMembers(IResourceVariant variant, IProgressMonitor progress) throws TeamException {
+			if (variant.getName().equals(failingFolder))
+				throw new TeamException(failingFolder);
+			return ((TestVariant) variant).members.toArray(new IResourceVariant[0]);
+		}
+		@Override
+		protected IResourceVariant fetchVariant(IResource resource, int depth, IProgressMonitor monitor) {
+			return remotes.get(resource);
+		}
+		@Override
+		protected boolean setVariant(IResource local, IResourceVariant remote) {
+			collectingThreads.add(Thread.currentThread());
+			return variants.put(local, remote) != remote;
+		}
+		@Override
+		public IResource[] roots() {
+			return new IResource[0];
+		}
+		@Override
+		public IResource[] members(IResource resource) throws TeamException {
+			try {
+				if (resource.getType() == IResource.FILE || !resource.exists())
+					return new IResource[0];
+				return ((IContainer) resource).members();
+			} catch (CoreException e) {
+				throw TeamException.asTeamException(e);
+			}
+		}
+		@Override
+		public IResourceVariant getResourceVariant(IResource resource) {
+			return variants.get(resource);
+		}
+		@Override
+		public boolean hasResourceVariant(IResource resource) {
+			return variants.get(resource) != null;
+		}
+		@Override
+		public void flushVariants(IResource resource, int depth) {
+			variants.clear();
+		}
+		Set<IResource> collect(IResource local, IResourceVariant remote) throws TeamException {
+			return new HashSet<>(Arrays.asList(collectChanges(local, remote, IResource.DEPTH_INFINITE, DEFAULT_MONITOR)));
+		}
+	}
+
+	private static TestVariant createRemoteTree(String name) {
+		return new TestVariant(name, true)
+				.add(new TestVariant("folder1", true)
+						.add(new TestVariant("a.txt", false)))
+				.add(new TestVariant("folder2", true)
+						.add(new TestVariant("b.txt", false))
+						.add(new TestVariant("sub", true)
+								.add(new TestVariant("c.txt", false))))
+				.add(new TestVariant("folder3", true)
+						.add(new TestVariant("d.txt", false)));
+	}
+
+	public void testConcurrentRefreshCollectsSameChanges() throws CoreException {
+		IProject project = createProject(new String[] { "folder1/", "folder1/a.txt", "folder1/e.txt", "folder2/", "folder2/b.txt", "folder2/sub/" });
+		TestVariant remote = createRemoteTree(project.getName());
+
+		TestTree sequential = new TestTree(1);
+		Set<IResource> expected = sequential.collect(project, remote);
+		TestTree concurrent = new TestTree(4);
+		Set<IResource> changed = concurrent.collect(project, remote);
+
+		assertEquals(expected, changed);
+		assertTrue(changed.contains(project.getFile("folder3/d.txt")));
+		assertEquals(sequential.variants, concurrent.variants);
+		// the variants are only set by the thread that collects the changes
+		assertEquals(Collections.singleton(Thread.currentThread()), concurrent.collectingThreads);
+		// nothing changed since the last refresh
+		assertTrue(concurrent.collect(project, remote).isEmpty());
+	}
+
+	public void testConcurrentRefreshOfSeveralResources() throws CoreException {
+		IProject project1 = createProject(new String[] { "folder1/", "folder1/a.txt", "folder2/" });
+		IProject project2 = createProject(new String[] { "folder2/", "folder2/sub/", "folder3/" });
+		IResource[] projects = new IResource[] { project1, project2 };
+
+		TestTree sequential = new TestTree(1);
+		TestTree concurrent = new TestTree(2);
+		for (IResource project : projects) {
+			sequential.remotes.put(project, createRemoteTree(project.getName()));
+			concurrent.remotes.put(project, createRemoteTree(project.getName()));
+		}
+		Set<IResource> expected = new HashSet<>(Arrays.asList(sequential.refresh(projects, IResource.DEPTH_INFINITE, DEFAULT_MONITOR)));
+		Set<IResource> changed = new HashSet<>(Arrays.asList(concurrent.refresh(projects, IResource.DEPTH_INFINITE, DEFAULT_MONITOR)));
+
+		assertEquals(expected, changed);
+		assertTrue(changed.contains(project1.getFile("folder2/sub/c.txt")));
+		assertTrue(changed.contains(project2.getFile("folder1/a.txt")));
+		assertEquals(Collections.singleton(Thread.currentThread()), concurrent.collectingThreads);
+	}
+
+	public void testConcurrentRefreshReportsFetchFailure() throws CoreException {
+		IProject project = createProject(new String[] { "folder1/", "folder2/", "folder2/sub/" });
+		TestTree tree = new TestTree(4);
+		tree.failingFolder = "sub";
+		try {
+			tree.collect(project, createRemoteTree(project.getName()));
+			fail("the failure to fetch the members of a folder should be reported");
+		} catch (TeamException e) {
+			assertEquals("sub", e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,245 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.team.core.ITeamStatus;
+import org.eclipse.team.core.TeamException;
+import org.eclipse.team.core.subscribers.Subscriber;
+import org.eclipse.team.core.synchronize.ISyncInfoSetChangeEvent;
+import org.eclipse.team.core.synchronize.ISyncInfoSetChangeListener;
+import org.eclipse.team.core.synchronize.SyncInfo;
+import org.eclipse.team.core.synchronize.SyncInfoSet;
+import org.eclipse.team.core.variants.IResourceVariant;
+import org.eclipse.team.core.variants.IResourceVariantComparator;
+import org.eclipse.team.internal.core.subscribers.SubscriberSyncInfoEventHandler;
+import org.eclipse.team.internal.core.subscribers.SubscriberSyncInfoSet;
+
+public class SubscriberEventHandlerTests extends TeamTest {
+
+	private static final String[] RESOURCES = new String[] { "a/", "a/1.txt", "a/2.txt", "b/", "b/1.txt", "b/2.txt", "c/", "c/1.txt", "c/d/", "c/d/2.txt" };
+
+	public SubscriberEventHandlerTests() {
+		super();
+	}
+
+	public SubscriberEventHandlerTests(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new TestSuite(SubscriberEventHandlerTests.class);
+	}
+
+	/*
+	 * A subscriber that reports every file as an outgoing addition and
+	 * counts whether the synchronization state is calculated by a job or by
+	 * the collection workers.
+	 */
+	static class TestSubscriber extends Subscriber {
+		final AtomicInteger collectedByJob = new AtomicInteger();
+		final AtomicInteger collectedByWorkers = new AtomicInteger();
+		final IResource failing;
+
+		TestSubscriber(IResource failing) {
+			this.failing = failing;
+		}
+		@Override
+		public String getName() {
+			return "Subscriber Event Handler Tests";
+		}
+		@Override
+		public IResourceVariantComparator getResourceComparator() {
+			return new IResourceVariantComparator() {
+				@Override
+				public boolean isThreeWay() {
+					return true;
+				}
+				@Override
+				public boolean compare(IResourceVariant base, IResourceVariant remote) {
+					return false;
+				}
+				@Override
+				public boolean compare(IResource local, IResourceVariant remote) {
+					return false;
+				}
+			};
+		}
+		@Override
+		public SyncInfo getSyncInfo(IResource resource) throws TeamException {
+			(isJobThread() ? collectedByJob : collectedByWorkers).incrementAndGet();
+			if (resource.equals(failing))
+				throw new TeamException("Failed to collect " + resource.getFullPath());
+			if (resource.getType() != IResource.FILE)
+				return null;
+			SyncInfo info = new SyncInfo(resource, null, null, getResourceComparator());
+			info.init();
+			return info;
+		}
+		@Override
+		public boolean isSupervised(IResource resource) {
+			return true;
+		}
+		@Override
+		public IResource[] members(IResource resource) throws TeamException {
+			if (resource.getType() == IResource.FILE)
+				return new IResource[0];
+			try {
+				return ((IContainer) resource).members();
+			} catch (CoreException e) {
+				throw TeamException.asTeamException(e);
+			}
+		}
+		@Override
+		public void refresh(IResource[] resources, int depth, IProgressMonitor monitor) {
+			// Nothing to do
+		}
+		@Override
+		public IResource[] roots() {
+			return new IResource[0];
+		}
+	}
+
+	static class TestHandler extends SubscriberSyncInfoEventHandler {
+		private final int concurrency;
+
+		TestHandler(Subscriber subscriber, IProject project, int concurrency) {
+			super(subscriber, new IResource[] { project });
+			this.concurrency = concurrency;
+		}
+		@Override
+		protected int getCollectionConcurrency() {
+			// a concurrency of 0 uses the default
+			return concurrency > 0 ? concurrency : super.getCollectionConcurrency();
+		}
+		SubscriberSyncInfoSet collect() throws InterruptedException {
+			start();
+			getEventHandlerJob().join();
+			return getSyncSetInput().getSyncSet();
+		}
+		SubscriberSyncInfoSet collectChange(IResource resource) throws InterruptedException {
+			change(resource, IResource.DEPTH_INFINITE);
+			getEventHandlerJob().join();
+			return getSyncSetInput().getSyncSet();
+		}
+	}
+
+	/*
+	 * Records the errors reported to a sync set and whether they are all
+	 * reported by a job.
+	 */
+	static class ErrorListener implements ISyncInfoSetChangeListener {
+		final List<ITeamStatus> errors = Collections.synchronizedList(new ArrayList<>());
+		volatile boolean reportedByWorkers;
+
+		@Override
+		public void syncInfoSetReset(SyncInfoSet set, IProgressMonitor monitor) {
+			// Nothing to do
+		}
+		@Override
+		public void syncInfoChanged(ISyncInfoSetChangeEvent event, IProgressMonitor monitor) {
+			// Nothing to do
+		}
+		@Override
+		public void syncInfoSetErrors(SyncInfoSet set, ITeamStatus[] statuses, IProgressMonitor monitor) {
+			reportedByWorkers |= !isJobThread();
+			errors.addAll(Arrays.asList(statuses));
+		}
+	}
+
+	public void testCollectionIsNotConcurrentByDefault() throws CoreException, InterruptedException {
+		IProject project = createProject("testCollectionIsNotConcurrentByDefault", RESOURCES);
+		TestSubscriber subscriber = new TestSubscriber(null);
+		TestHandler handler = new TestHandler(subscriber, project, 0);
+		assertTrue(handler.collect().getResources().length > 0);
+		assertTrue(subscriber.collectedByJob.get() > 0);
+		assertEquals(0, subscriber.collectedByWorkers.get());
+		handler.shutdown();
+	}
+
+	public void testConcurrentCollectionCollectsSameState() throws CoreException, InterruptedException {
+		IProject project = createProject("testConcurrentCollectionCollectsSameState", RESOURCES);
+		TestSubscriber serialSubscriber = new TestSubscriber(null);
+		TestHandler serial = new TestHandler(serialSubscriber, project, 1);
+		TestSubscriber concurrentSubscriber = new TestSubscriber(null);
+		TestHandler concurrent = new TestHandler(concurrentSubscriber, project, 4);
+
+		Set<IResource> expected = getResources(serial.collect());
+		assertTrue(expected.contains(project.getFile("c/d/2.txt")));
+		assertEquals(expected, getResources(concurrent.collect()));
+		assertEquals(0, serialSubscriber.collectedByWorkers.get());
+		assertTrue(concurrentSubscriber.collectedByWorkers.get() > 0);
+
+		// Changes below the project are collected concurrently as well
+		assertEquals(expected, getResources(concurrent.collectChange(project)));
+		serial.shutdown();
+		concurrent.shutdown();
+	}
+
+	public void testConcurrentCollectionReportsErrorsOnJob() throws CoreException, InterruptedException {
+		IProject project = createProject("testConcurrentCollectionReportsErrorsOnJob", RESOURCES);
+		IResource failing = project.getFile("b/1.txt");
+		TestSubscriber subscriber = new TestSubscriber(failing);
+		TestHandler handler = new TestHandler(subscriber, project, 4);
+		ErrorListener listener = new ErrorListener();
+		handler.getSyncSetInput().getSyncSet().addSyncSetChangedListener(listener);
+
+		// Errors of an initialization are reported to the sync set
+		SubscriberSyncInfoSet set = handler.collect();
+		assertTrue(getResources(set).contains(project.getFile("b/2.txt")));
+		assertFalse(getResources(set).contains(failing));
+		assertError(set, failing);
+		assertEquals(1, listener.errors.size());
+
+		// Errors of a change are reported to the sync set and the job
+		handler.collectChange(project);
+		assertError(set, failing);
+		assertEquals(2, listener.errors.size());
+		assertFalse(handler.getEventHandlerJob().getResult().isOK());
+
+		assertTrue(subscriber.collectedByWorkers.get() > 0);
+		assertFalse(listener.reportedByWorkers);
+		handler.shutdown();
+	}
+
+	private static boolean isJobThread() {
+		return Job.getJobManager().currentJob() != null;
+	}
+
+	private Set<IResource> getResources(SyncInfoSet set) {
+		return new HashSet<>(Arrays.asList(set.getResources()));
+	}
+
+	private void assertError(SyncInfoSet set, IResource resource) {
+		ITeamStatus[] errors = set.getErrors();
+		assertEquals(1, errors.length);
+		assertEquals(resource, errors[0].getResource());
+	}
+}
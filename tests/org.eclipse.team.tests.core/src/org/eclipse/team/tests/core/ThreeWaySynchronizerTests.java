@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.team.core.TeamException;
+import org.eclipse.team.core.variants.SessionResourceVariantByteStore;
+import org.eclipse.team.core.variants.ThreeWaySynchronizer;
+
+public class ThreeWaySynchronizerTests extends TestCase {
+
+	private final IProject project = ResourcesPlugin.getWorkspace().getRoot().getProject("ThreeWaySynchronizerTests");
+	private final IProject otherProject = ResourcesPlugin.getWorkspace().getRoot().getProject("ThreeWaySynchronizerTests2");
+
+	public ThreeWaySynchronizerTests(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new TestSuite(ThreeWaySynchronizerTests.class);
+	}
+
+	private static byte[][] bytes(String... values) {
+		byte[][] result = new byte[values.length][];
+		for (int i = 0; i < values.length; i++) {
+			result[i] = values[i] == null ? null : values[i].getBytes();
+		}
+		return result;
+	}
+
+	private static void assertBytesEquals(byte[][] expected, byte[][] actual) {
+		assertEquals(expected.length, actual.length);
+		for (int i = 0; i < expected.length; i++) {
+			assertTrue("at " + i, Arrays.equals(expected[i], actual[i]));
+		}
+	}
+
+	public void testBulkAccess() throws TeamException {
+		ThreeWaySynchronizer synchronizer = new ThreeWaySynchronizer(new SessionResourceVariantByteStore());
+		List<IResource[]> events = new ArrayList<>();
+		synchronizer.addListener(events::add);
+		IResource[] resources = new IResource[] {
+				project.getFile("a.txt"),
+				project.getFile("b.txt"),
+				project.getFile("c/d.txt"),
+				otherProject.getFolder("e")
+		};
+		synchronizer.setBaseBytes(resources[0], "base".getBytes());
+		synchronizer.setRemoteBytes(resources[1], "2".getBytes());
+		events.clear();
+
+		IResource[] changed = synchronizer.setRemoteBytes(resources, bytes("base", "3", "4", "5"));
+		assertEquals(new HashSet<>(Arrays.asList(resources[1], resources[2], resources[3])), new HashSet<>(Arrays.asList(changed)));
+		// the changes are reported in a single event
+		assertEquals(1, events.size());
+		assertEquals(new HashSet<>(Arrays.asList(changed)), new HashSet<>(Arrays.asList(events.get(0))));
+
+		byte[][] remoteBytes = synchronizer.getRemoteBytes(resources);
+		assertBytesEquals(bytes("base", "3", "4", "5"), remoteBytes);
+		for (int i = 0; i < resources.length; i++) {
+			assertTrue(Arrays.equals(synchronizer.getRemoteBytes(resources[i]), remoteBytes[i]));
+		}
+		assertBytesEquals(bytes("base", null, null, null), synchronizer.getBaseBytes(resources));
+		boolean[] modified = synchronizer.isLocallyModified(resources);
+		for (int i = 0; i < resources.length; i++) {
+			assertEquals(synchronizer.isLocallyModified(resources[i]), modified[i]);
+		}
+
+		events.clear();
+		changed = synchronizer.removeRemoteBytes(new IResource[] { resources[1], resources[2] });
+		assertEquals(2, changed.length);
+		assertEquals(1, events.size());
+		assertBytesEquals(bytes("base", null, null, "5"), synchronizer.getRemoteBytes(resources));
+		assertEquals(0, synchronizer.removeRemoteBytes(new IResource[] { resources[1] }).length);
+	}
+}
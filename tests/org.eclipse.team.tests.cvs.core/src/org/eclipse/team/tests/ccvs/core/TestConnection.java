@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2006 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -18,7 +18,9 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.team.internal.ccvs.core.ICVSRepositoryLocation;
@@ -37,6 +39,9 @@ public class TestConnection implements IServerConnection {
 	public static List<String> previousLines;
 	public static StringBuffer currentLine;
 	
+	// the responses to requests other than valid-requests, including the trailing "ok" or "error"
+	public static final Map<String, String> responses = new HashMap<>();
+	
 	private ByteArrayInputStream serverResponse;
 	
 	private static final String VALID_SERVER_REQUESTS = "Valid-requests Root Valid-responses valid-requests Repository Directory Max-dotdot Static-directory Sticky Checkin-prog Update-prog Entry Kopt Checkin-time Modified Is-modified UseUnchanged Unchanged Notify Questionable Case Argument Argumentx Global_option Gzip-stream wrapper-sendme-rcsOptions Set Kerberos-encrypt Gssapi-encrypt Gssapi-authenticate expand-modules ci co update diff log rlog add remove update-patches gzip-file-contents status rdiff tag rtag import admin export history release watch-on watch-off watch-add watch-remove watchers editors init annotate rannotate noop version";
@@ -106,6 +111,8 @@ public class TestConnection implements IServerConnection {
 	protected void respondToSentLine(String sentLine) {
 		if (sentLine.equals("valid-requests")) {
 			serverResponse = new ByteArrayInputStream((VALID_SERVER_REQUESTS + "\nok\n").getBytes());
+		} else if (responses.containsKey(sentLine)) {
+			serverResponse = new ByteArrayInputStream((responses.get(sentLine) + "\n").getBytes());
 		}
 	}
 
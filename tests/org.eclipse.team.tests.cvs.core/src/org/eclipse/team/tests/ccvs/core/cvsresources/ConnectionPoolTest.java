@@ -0,0 +1,171 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.ccvs.core.cvsresources;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.team.internal.ccvs.core.CVSException;
+import org.eclipse.team.internal.ccvs.core.CVSProviderPlugin;
+import org.eclipse.team.internal.ccvs.core.ICVSFolder;
+import org.eclipse.team.internal.ccvs.core.client.Request;
+import org.eclipse.team.internal.ccvs.core.client.Session;
+import org.eclipse.team.internal.ccvs.core.connection.CVSRepositoryLocation;
+import org.eclipse.team.internal.ccvs.core.connection.ConnectionPool;
+import org.eclipse.team.internal.ccvs.core.resources.CVSWorkspaceRoot;
+import org.eclipse.team.internal.ccvs.core.util.KnownRepositories;
+import org.eclipse.team.tests.ccvs.core.CVSTestSetup;
+import org.eclipse.team.tests.ccvs.core.EclipseTest;
+import org.eclipse.team.tests.ccvs.core.TestConnection;
+
+public class ConnectionPoolTest extends EclipseTest {
+
+	public ConnectionPoolTest() {
+		super();
+	}
+
+	public ConnectionPoolTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		TestSuite suite = new TestSuite(ConnectionPoolTest.class);
+		return new CVSTestSetup(suite);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		// disable version determination to reduce traffic
+		CVSProviderPlugin.getPlugin().setDetermineVersionEnabled(false);
+		TestConnection.responses.put("noop", "ok");
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		TestConnection.responses.clear();
+		CVSProviderPlugin.getPlugin().setConnectionPoolingEnabled(false);
+		super.tearDown();
+	}
+
+	private CVSRepositoryLocation getLocation() {
+		CVSRepositoryLocation location = (CVSRepositoryLocation) KnownRepositories.getInstance().getRepository(":test:user:password@host:/pool");
+		location.getConnectionPool().clear();
+		return location;
+	}
+
+	private Session openSession(CVSRepositoryLocation location) throws CVSException {
+		ICVSFolder root = CVSWorkspaceRoot.getCVSFolderFor(ResourcesPlugin.getWorkspace().getRoot());
+		Session session = new Session(location, root);
+		session.open(DEFAULT_MONITOR, false /* read-only */);
+		return session;
+	}
+
+	public void testPoolingIsDisabledByDefault() throws CVSException {
+		assertFalse(CVSProviderPlugin.getPlugin().isConnectionPoolingEnabled());
+		CVSRepositoryLocation location = getLocation();
+
+		Session session = openSession(location);
+		TestConnection connection = TestConnection.currentConnection;
+		session.close();
+		assertEquals(0, location.getConnectionPool().getIdleCount());
+
+		// the next session opens a new connection and asks for the valid requests
+		session = openSession(location);
+		assertNotSame(connection, TestConnection.currentConnection);
+		assertTrue(TestConnection.previousLines.contains("valid-requests"));
+		session.close();
+		assertEquals(0, location.getConnectionPool().getIdleCount());
+	}
+
+	public void testConnectionReuse() throws CVSException {
+		CVSProviderPlugin.getPlugin().setConnectionPoolingEnabled(true);
+		CVSRepositoryLocation location = getLocation();
+		ConnectionPool pool = location.getConnectionPool();
+
+		Session session = openSession(location);
+		TestConnection connection = TestConnection.currentConnection;
+		assertTrue(TestConnection.previousLines.contains("valid-requests"));
+		session.close();
+		assertEquals(1, pool.getIdleCount());
+
+		// the next session checks the connection but does not send the initial requests again
+		int sentLines = TestConnection.previousLines.size();
+		session = openSession(location);
+		assertSame(connection, TestConnection.currentConnection);
+		assertEquals(sentLines + 1, TestConnection.previousLines.size());
+		assertEquals("noop", TestConnection.getLastLine());
+		assertEquals(0, pool.getIdleCount());
+
+		// a connection with requests that were not answered is closed
+		session.sendArgument("file.txt");
+		session.close();
+		assertEquals(0, pool.getIdleCount());
+
+		// a new connection does not ask for the valid requests again
+		session = openSession(location);
+		assertNotSame(connection, TestConnection.currentConnection);
+		assertFalse(TestConnection.previousLines.contains("valid-requests"));
+		assertTrue(session.isValidRequest("noop"));
+		session.close();
+		assertEquals(1, pool.getIdleCount());
+
+		pool.clear();
+		assertEquals(0, pool.getIdleCount());
+	}
+
+	public void testDeadConnectionIsReplaced() throws CVSException {
+		CVSProviderPlugin.getPlugin().setConnectionPoolingEnabled(true);
+		CVSRepositoryLocation location = getLocation();
+		ConnectionPool pool = location.getConnectionPool();
+
+		Session session = openSession(location);
+		TestConnection connection = TestConnection.currentConnection;
+		session.close();
+		assertEquals(1, pool.getIdleCount());
+
+		// the server closed the idle connection so the noop is not answered
+		TestConnection.responses.put("noop", "");
+		session = openSession(location);
+		assertNotSame(connection, TestConnection.currentConnection);
+		assertEquals(0, pool.getIdleCount());
+		session.close();
+		assertEquals(1, pool.getIdleCount());
+	}
+
+	public void testConnectionIsClosedAfterError() throws CVSException {
+		CVSProviderPlugin.getPlugin().setConnectionPoolingEnabled(true);
+		CVSRepositoryLocation location = getLocation();
+		ConnectionPool pool = location.getConnectionPool();
+
+		TestConnection.responses.put("expand-modules", "error  ");
+		Session session = openSession(location);
+		IStatus status = Request.EXPAND_MODULES.execute(session, new String[] { "module" }, DEFAULT_MONITOR);
+		assertFalse(status.isOK());
+		session.close();
+		assertEquals(0, pool.getIdleCount());
+
+		// a request that succeeds after the error does not make the connection reusable
+		TestConnection.responses.put("expand-modules", "ok");
+		session = openSession(location);
+		TestConnection.responses.put("expand-modules", "error  ");
+		Request.EXPAND_MODULES.execute(session, new String[] { "module" }, DEFAULT_MONITOR);
+		TestConnection.responses.put("expand-modules", "ok");
+		assertTrue(Request.EXPAND_MODULES.execute(session, new String[] { "module" }, DEFAULT_MONITOR).isOK());
+		session.close();
+		assertEquals(0, pool.getIdleCount());
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2009 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -14,6 +14,9 @@
 package org.eclipse.team.tests.ccvs.core.cvsresources;
 
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.LinkedList;
@@ -270,6 +273,49 @@ public class EclipseSynchronizerTest extends EclipseTest {
 		assertNull(info);
 	}
 
+	public void testEntriesCache() throws CoreException, CVSException, IOException {
+		IProject project = getUniqueTestProject(getName());
+		IFolder folder = project.getFolder("folder1");
+		folder.create(false /*force*/, true /*local*/, null);
+		
+		// Write then read
+		SyncFileWriter.writeAllResourceSync(folder, new byte[][] { entryLine("a.txt") });
+		assertEntries(folder, "a.txt");
+		SyncFileWriter.writeAllResourceSync(folder, new byte[][] { entryLine("a.txt"), entryLine("b.txt") });
+		assertEntries(folder, "a.txt", "b.txt");
+		assertEquals(new String(entryLine("b.txt")), new String(SyncFileWriter.readResourceSync(folder, "b.txt")));
+		
+		// Returned sync bytes are not shared
+		SyncFileWriter.readAllResourceSync(folder)[0][1] = 'x';
+		SyncFileWriter.readResourceSync(folder, "b.txt")[1] = 'x';
+		assertEntries(folder, "a.txt", "b.txt");
+		
+		// External edit that the workspace is not in sync with
+		IFile entries = folder.getFolder(SyncFileWriter.CVS_DIRNAME).getFile(SyncFileWriter.ENTRIES);
+		Files.write(entries.getLocation().toFile().toPath(), (new String(entryLine("c.txt")) + "\n").getBytes());
+		assertEntries(folder, "c.txt");
+		
+		// Deleted and recreated file
+		entries.delete(true /*force*/, null);
+		assertNull(SyncFileWriter.readResourceSync(folder, "c.txt"));
+		entries.create(new ByteArrayInputStream((new String(entryLine("dd.txt")) + "\n").getBytes()), true /*force*/, null);
+		assertEntries(folder, "dd.txt");
+	}
+	
+	private byte[] entryLine(String name) {
+		return ("/" + name + "/1.1/Mon Jan 10 12:00:00 2022//").getBytes();
+	}
+	
+	private void assertEntries(IContainer folder, String... names) throws CVSException {
+		byte[][] syncBytes = SyncFileWriter.readAllResourceSync(folder);
+		assertNotNull(syncBytes);
+		assertEquals(names.length, syncBytes.length);
+		for (int i = 0; i < names.length; i++) {
+			assertEquals(new String(entryLine(names[i])), new String(syncBytes[i]));
+			assertEquals(new String(entryLine(names[i])), new String(SyncFileWriter.readResourceSync(folder, names[i])));
+		}
+	}
+
 	public void testIsIgnored() throws CoreException, TeamException {
 		IProject project = getUniqueTestProject("isIgnoredTests");
 		CVSTeamProvider.markAsTempShare(project);
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -12,7 +12,13 @@
  *     IBM Corporation - initial API and implementation
  *******************************************************************************/
 package org.eclipse.team.tests.ccvs.core.cvsresources;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
 
 import junit.framework.Test;
 import junit.framework.TestSuite;
@@ -22,6 +28,8 @@ import org.eclipse.team.internal.ccvs.core.CVSException;
 import org.eclipse.team.internal.ccvs.core.connection.CVSRepositoryLocation;
 import org.eclipse.team.internal.ccvs.core.syncinfo.FolderSyncInfo;
 import org.eclipse.team.internal.ccvs.core.syncinfo.ResourceSyncInfo;
+import org.eclipse.team.internal.ccvs.core.util.CVSDateFormatter;
+import org.eclipse.team.internal.ccvs.core.util.EntriesReader;
 import org.eclipse.team.tests.ccvs.core.CVSTestSetup;
 import org.eclipse.team.tests.ccvs.core.EclipseTest;
 
@@ -69,6 +77,48 @@ public class ResourceSyncInfoTest extends EclipseTest {
 		}
 	}
 	
+	public void testEntriesReader() throws CVSException {
+		String[] lines = new String[] {
+			"/a.java/1.1/Mon Feb 25 21:44:02 2002//",
+			"/b.java/-1.2/Sun Apr  7 01:29:26 1996/-kb/Tbranch",
+			"/c.java/0/dummy timestamp///",
+			"/d.java/1.3/Result of merge/-ko/",
+			"/e.java/1.4/Result of merge+Mon Feb 25 21:44:02 2002//Ta/b",
+			"/f.java/1.5/restored+Mon Feb 25 21:44:02 2002//D2002.01.01.00.00.00",
+			"D/folder////",
+			// lines that are not written as they are read
+			"/g.java/1.1/Sun Apr 07 01:29:26 1996//",
+			"/h.java/1.1/Mon Apr  7 01:29:26 1996//",
+			"/i.java/1.1/+modified/-kkv/Nversion",
+			"/j.java/1.1 locked by user/Initial j.java//",
+			"D/other/x///",
+			"D",
+			""
+		};
+		StringBuilder entries = new StringBuilder();
+		for (String line : lines) {
+			entries.append(line).append("\r\n");
+		}
+		EntriesReader reader = new EntriesReader(null);
+		reader.readEntries(entries.toString().getBytes());
+		reader.readEntriesLog("A /k.java/1.1/Mon Feb 25 21:44:02 2002//\nR /a.java/1.1/Mon Feb 25 21:44:02 2002//\nR /h.java/1.1///\n".getBytes());
+		
+		String[] names = reader.getNames();
+		byte[][] syncBytes = reader.getSyncBytes();
+		assertEquals(Arrays.asList("b.java", "c.java", "d.java", "e.java", "f.java", "folder", "g.java", "i.java", "j.java", "k.java", "other"), Arrays.asList(names));
+		// the sync bytes are those of the parsed lines
+		for (int i = 0; i < names.length; i++) {
+			String line = null;
+			for (String l : lines) {
+				if (l.length() > 1 && new ResourceSyncInfo(l, null).getName().equals(names[i]))
+					line = l;
+			}
+			if (line == null)
+				line = "/k.java/1.1/Mon Feb 25 21:44:02 2002//";
+			assertTrue(names[i], Arrays.equals(new ResourceSyncInfo(line, null).getBytes(), syncBytes[i]));
+		}
+	}
+	
 	public void testEntryLineConstructor() throws CVSException {		
 		ResourceSyncInfo info;
 		info = new ResourceSyncInfo("/file.java/-1.1/Mon Feb 25 21:44:02 2002/-k/", null);
@@ -146,7 +196,175 @@ public class ResourceSyncInfoTest extends EclipseTest {
 		assertTrue(date1.equals(date3));
 		assertTrue(date2.equals(date3));
 	}
-	
+
+	public void testDateFormats() throws ParseException {
+		SimpleDateFormat format = new SimpleDateFormat("E MMM dd HH:mm:ss yyyy", Locale.US);
+		format.setTimeZone(TimeZone.getTimeZone("GMT"));
+		Date date = format.parse("Sat Feb 09 21:44:02 2002");
+		assertEquals("Sat Feb  9 21:44:02 2002", CVSDateFormatter.dateToEntryLine(date));
+		assertEquals("09 Feb 2002 21:44:02 GMT", CVSDateFormatter.dateToNotifyServer(date));
+		assertEquals(date, CVSDateFormatter.entryLineToDate("Sat Feb  9 21:44:02 2002"));
+		assertEquals(date, CVSDateFormatter.serverStampToDate("09 Feb 2002 21:44:02 -0000"));
+		assertEquals(date, CVSDateFormatter.serverStampToDate("09 Feb 2002 22:44:02 +0100"));
+		assertEquals(date, CVSDateFormatter.logStampToDate("2002/02/09 21:44:02"));
+		assertEquals(date, CVSDateFormatter.logStampToDate("2002-02-09 16:14:02 -0530"));
+		// dates that are not well-formed are parsed leniently
+		assertEquals(date, CVSDateFormatter.entryLineToDate("Mon Feb 9 21:44:02 2002"));
+		assertEquals(date, CVSDateFormatter.entryLineToDate("Sat Feb  8 45:44:02 2002"));
+		Date julianDate = format.parse("Wed Mar 01 00:00:00 1200");
+		assertEquals(julianDate, CVSDateFormatter.entryLineToDate("Wed Feb 30 00:00:00 1200"));
+		assertEquals(julianDate, CVSDateFormatter.entryLineToDate(CVSDateFormatter.dateToEntryLine(julianDate)));
+		try {
+			CVSDateFormatter.entryLineToDate("Sat Foo  9 21:44:02 2002");
+			fail("Invalid month should not parse");
+		} catch (ParseException e) {
+			// expected
+		}
+	}
+
+	public void testDateFormatsMatchSimpleDateFormat() {
+		Random random = new Random(1);
+		for (int i = 0; i < 2000; i++) {
+			// a quarter of the dates is in years 1 to 9999, the rest in 1970 to 2037
+			long seconds = i % 4 == 0 ? -62135596800L + (long) (random.nextDouble() * 377673580800L)
+					: Integer.toUnsignedLong(random.nextInt()) / 2;
+			Date date = new Date(seconds * 1000);
+			String entryLine = SimpleDateFormatter.dateToEntryLine(date);
+			assertEquals(entryLine, CVSDateFormatter.dateToEntryLine(date));
+			String notifyServer = SimpleDateFormatter.dateToNotifyServer(date);
+			assertEquals(notifyServer, CVSDateFormatter.dateToNotifyServer(date));
+
+			String serverStamp = notifyServer.substring(0, notifyServer.length() - 4) + nextOffset(random);
+			String logStamp = SimpleDateFormatter.dateToLogStamp(date, random.nextBoolean()) + nextOffset(random);
+			String[] entryLines = { entryLine, mutate(random, entryLine), mutate(random, mutate(random, entryLine)) };
+			String[] serverStamps = { serverStamp, mutate(random, serverStamp), mutate(random, mutate(random, serverStamp)) };
+			String[] logStamps = { logStamp, mutate(random, logStamp), mutate(random, mutate(random, logStamp)) };
+			for (int j = 0; j < 3; j++) {
+				assertSameDate(SimpleDateFormatter::entryLineToDate, CVSDateFormatter::entryLineToDate, entryLines[j]);
+				assertSameDate(SimpleDateFormatter::serverStampToDate, CVSDateFormatter::serverStampToDate, serverStamps[j]);
+				assertSameDate(SimpleDateFormatter::logStampToDate, CVSDateFormatter::logStampToDate, logStamps[j]);
+			}
+		}
+	}
+
+	private String nextOffset(Random random) {
+		String[] offsets = { "", " -0000", " +0000", " +0100", " -0530", " +1245", " -1100" };
+		return offsets[random.nextInt(offsets.length)];
+	}
+
+	/*
+	 * Replace a character of the given date with one that may or may not be
+	 * valid at its position, or drop the last character.
+	 */
+	private String mutate(Random random, String text) {
+		if (text.isEmpty())
+			return text;
+		if (random.nextInt(10) == 0)
+			return text.substring(0, text.length() - 1);
+		String characters = "0123456789 0123456789 :-+/ADFJMNOSTWaceuy";
+		StringBuilder buffer = new StringBuilder(text);
+		buffer.setCharAt(random.nextInt(text.length()), characters.charAt(random.nextInt(characters.length())));
+		return buffer.toString();
+	}
+
+	private interface DateParser {
+		Date parse(String text) throws ParseException;
+	}
+
+	private void assertSameDate(DateParser expected, DateParser actual, String text) {
+		assertEquals(text, parse(expected, text), parse(actual, text));
+	}
+
+	private Object parse(DateParser parser, String text) {
+		try {
+			return parser.parse(text);
+		} catch (ParseException e) {
+			return "unparseable";
+		}
+	}
+
+	/*
+	 * The conversion of dates with a SimpleDateFormat, as CVSDateFormatter
+	 * and LogListener converted them before CVSDateFormatter scanned the
+	 * dates itself.
+	 */
+	private static class SimpleDateFormatter {
+		private static final int ENTRYLINE_TENS_DAY_OFFSET = 8;
+
+		static Date serverStampToDate(String text) throws ParseException {
+			SimpleDateFormat serverFormat = new SimpleDateFormat("dd MMM yyyy HH:mm:ss", Locale.US);
+			serverFormat.setTimeZone(getTimeZone(text));
+			return serverFormat.parse(text);
+		}
+
+		static Date entryLineToDate(String text) throws ParseException {
+			try {
+				if (text.charAt(ENTRYLINE_TENS_DAY_OFFSET) == ' ') {
+					StringBuilder buf = new StringBuilder(text);
+					buf.setCharAt(ENTRYLINE_TENS_DAY_OFFSET, '0');
+					text = buf.toString();
+				}
+			} catch (StringIndexOutOfBoundsException e) {
+				throw new ParseException(e.getMessage(), ENTRYLINE_TENS_DAY_OFFSET);
+			}
+			return newEntryLineFormat().parse(text);
+		}
+
+		static Date logStampToDate(String text) throws ParseException {
+			String format = text.length() > 4 && text.charAt(4) == '/' ? "yyyy/MM/dd HH:mm:ss zzz" : "yyyy-MM-dd HH:mm:ss zzz";
+			return new SimpleDateFormat(format, Locale.US).parse(text + " GMT");
+		}
+
+		static String dateToEntryLine(Date date) {
+			String passOne = newEntryLineFormat().format(date);
+			if (passOne.charAt(ENTRYLINE_TENS_DAY_OFFSET) != '0') return passOne;
+			StringBuilder passTwo = new StringBuilder(passOne);
+			passTwo.setCharAt(ENTRYLINE_TENS_DAY_OFFSET, ' ');
+			return passTwo.toString();
+		}
+
+		static String dateToNotifyServer(Date date) {
+			SimpleDateFormat serverFormat = new SimpleDateFormat("dd MMM yyyy HH:mm:ss", Locale.US);
+			serverFormat.setTimeZone(TimeZone.getTimeZone("GMT"));
+			return serverFormat.format(date) + " GMT";
+		}
+
+		static String dateToLogStamp(Date date, boolean old) {
+			SimpleDateFormat logFormat = new SimpleDateFormat(old ? "yyyy/MM/dd HH:mm:ss" : "yyyy-MM-dd HH:mm:ss", Locale.US);
+			logFormat.setTimeZone(TimeZone.getTimeZone("GMT"));
+			return logFormat.format(date);
+		}
+
+		private static SimpleDateFormat newEntryLineFormat() {
+			SimpleDateFormat entryLineFormat = new SimpleDateFormat("E MMM dd HH:mm:ss yyyy", Locale.US);
+			entryLineFormat.setTimeZone(TimeZone.getTimeZone("GMT"));
+			return entryLineFormat;
+		}
+
+		private static TimeZone getTimeZone(String dateFromServer) {
+			if (dateFromServer.contains("0000"))
+				return TimeZone.getTimeZone("GMT");
+			String tz = null;
+			StringBuilder resultTz = new StringBuilder("GMT");
+			if (dateFromServer.contains("-")) {
+				resultTz.append("-");
+				tz = dateFromServer.substring(dateFromServer.indexOf("-"));
+			} else if (dateFromServer.contains("+")) {
+				resultTz.append('+');
+				tz = dateFromServer.substring(dateFromServer.indexOf("+"));
+			}
+			try {
+				if (tz != null) {
+					resultTz.append(tz.substring(1, 3) + ":" + tz.substring(3, 5));
+					return TimeZone.getTimeZone(resultTz.toString());
+				}
+			} catch (IndexOutOfBoundsException e) {
+				return TimeZone.getTimeZone("GMT");
+			}
+			return TimeZone.getTimeZone("GMT");
+		}
+	}
+
 	public void testRevisionComparison() {
 		assertTrue(ResourceSyncInfo.isLaterRevision("1.9", "1.8"));
 		assertTrue( ! ResourceSyncInfo.isLaterRevision("1.8", "1.8"));
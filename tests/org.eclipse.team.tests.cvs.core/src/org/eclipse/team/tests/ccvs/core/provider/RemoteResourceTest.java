@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -15,6 +15,8 @@ package org.eclipse.team.tests.ccvs.core.provider;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.List;
 
 import junit.framework.Test;
 
@@ -30,6 +32,7 @@ import org.eclipse.team.core.TeamException;
 import org.eclipse.team.core.variants.CachedResourceVariant;
 import org.eclipse.team.core.variants.IResourceVariant;
 import org.eclipse.team.internal.ccvs.core.CVSException;
+import org.eclipse.team.internal.ccvs.core.CVSProviderPlugin;
 import org.eclipse.team.internal.ccvs.core.CVSTag;
 import org.eclipse.team.internal.ccvs.core.ICVSFolder;
 import org.eclipse.team.internal.ccvs.core.ICVSRemoteFile;
@@ -145,6 +148,145 @@ public class RemoteResourceTest extends EclipseTest {
 		assertRemoteMatchesLocal("testFolderAddition", tree, copy);
 	}
 	
+	/**
+	 * RemoteFolderTreeBuilder test
+	 * 
+	 * Add several nested folder structures and many files remotely and build
+	 * the remote tree with and without pipelining.
+	 */
+	public void testPipelinedFolderAddition() throws TeamException, CoreException, IOException {
+		
+		// Create a test project
+		IProject project = createProject("testPipelinedFolderAddition", new String[] { "file1.txt", "folder1/", "folder1/a.txt"});
+		
+		// Checkout and modify a copy
+		IProject copy = checkoutCopy(project, "-copy");
+		List<String> added = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			added.add("new" + i + "/sub/deeper/b.txt");
+			added.add("new" + i + "/c.txt");
+		}
+		for (int i = 0; i < 100; i++) {
+			added.add("folder1/added" + i + ".txt");
+		}
+		addResources(copy, added.toArray(new String[added.size()]), false);
+		for (int i = 0; i < 100; i += 10) {
+			setContentsAndEnsureModified(copy.getFile("folder1/added" + i + ".txt"));
+		}
+		setContentsAndEnsureModified(copy.getFile("folder1/a.txt"));
+		commitResources(new IResource[] {copy}, IResource.DEPTH_INFINITE);
+
+		// Build the remote tree from the project in both modes
+		boolean pipelined = CVSProviderPlugin.getPlugin().isPipelinedTreeBuildingEnabled();
+		try {
+			for (boolean enabled : new boolean[] { true, false }) {
+				CVSProviderPlugin.getPlugin().setPipelinedTreeBuildingEnabled(enabled);
+				RemoteFolderTree tree = RemoteFolderTreeBuilder.buildRemoteTree(getRepository(), project, CVSTag.DEFAULT, DEFAULT_MONITOR);
+				assertRemoteMatchesLocal("testPipelinedFolderAddition", tree, copy);
+			}
+		} finally {
+			CVSProviderPlugin.getPlugin().setPipelinedTreeBuildingEnabled(pipelined);
+		}
+	}
+	
+	/**
+	 * RemoteFolderTreeBuilder test
+	 * 
+	 * Add nested folders on a branch, including a folder that only has
+	 * subfolders, and build the remote tree for the branch with and without
+	 * pipelining.
+	 */
+	public void testPipelinedBranchFolderAddition() throws TeamException, CoreException, IOException {
+		
+		// Create a test project and branch it
+		IProject project = createProject("testPipelinedBranchFolderAddition", new String[] { "file1.txt", "folder1/", "folder1/a.txt"});
+		CVSTag root = new CVSTag("root_pipelined", CVSTag.VERSION);
+		CVSTag branch = new CVSTag("pipelined", CVSTag.BRANCH);
+		makeBranch(new IResource[] {project}, root, branch, false);
+		
+		// Checkout and modify a copy of the branch
+		IProject copy = checkoutCopy(project, branch);
+		addResources(copy, new String[] { "new0/sub/b.txt", "new0/c.txt", "new1/c.txt", "hollow/sub/deeper/d.txt" }, false);
+		commitResources(new IResource[] {copy}, IResource.DEPTH_INFINITE);
+		
+		// Build the remote tree of the branch from the project, which is on HEAD
+		RemoteFolderTree tree = buildRemoteTreeInBothModes(project, branch);
+		assertTrue(tree.childExists("hollow/sub/deeper/d.txt"));
+		assertRemoteMatchesLocal("testPipelinedBranchFolderAddition", tree, copy);
+	}
+	
+	/**
+	 * RemoteFolderTreeBuilder test
+	 * 
+	 * Add nested folders, version them and build the remote tree for the
+	 * version with and without pipelining after further changes.
+	 */
+	public void testPipelinedVersionFolderAddition() throws TeamException, CoreException, IOException {
+		
+		// Create a test project
+		IProject project = createProject("testPipelinedVersionFolderAddition", new String[] { "file1.txt", "folder1/", "folder1/a.txt"});
+		
+		// Add folders in a copy and version them
+		CVSTag v1Tag = new CVSTag("v1", CVSTag.VERSION);
+		IProject copy = checkoutCopy(project, "-copy");
+		addResources(copy, new String[] { "new0/sub/b.txt", "new0/c.txt", "new1/e.txt", "hollow/sub/d.txt" }, false);
+		commitResources(new IResource[] {copy}, IResource.DEPTH_INFINITE);
+		tagProject(copy, v1Tag, false);
+		
+		// Make further changes that are not part of the version
+		addResources(copy, new String[] { "new2/f.txt", "new0/sub/g.txt" }, false);
+		deleteResources(copy, new String[] { "new1/e.txt" }, false);
+		commitResources(new IResource[] {copy}, IResource.DEPTH_INFINITE);
+		
+		// Build the remote tree of the version from the project
+		RemoteFolderTree tree = buildRemoteTreeInBothModes(project, v1Tag);
+		assertTrue(tree.childExists("hollow/sub/d.txt"));
+		assertTrue(tree.childExists("new1/e.txt"));
+		assertFalse(tree.childExists("new0/sub/g.txt"));
+	}
+	
+	/**
+	 * RemoteFolderTreeBuilder test
+	 * 
+	 * Add empty folders and folders that only have subfolders and build the
+	 * remote tree with and without pipelining.
+	 */
+	public void testPipelinedEmptyFolderAddition() throws TeamException, CoreException, IOException {
+		
+		// Create a test project
+		IProject project = createProject("testPipelinedEmptyFolderAddition", new String[] { "file1.txt", "folder1/", "folder1/a.txt"});
+		
+		// Checkout and modify a copy
+		IProject copy = checkoutCopy(project, "-copy");
+		addResources(copy, new String[] { "empty/", "folder1/empty/", "hollow/sub/d.txt", "new0/c.txt" }, false);
+		commitResources(new IResource[] {copy}, IResource.DEPTH_INFINITE);
+		
+		// Build the remote tree from the project
+		RemoteFolderTree tree = buildRemoteTreeInBothModes(project, CVSTag.DEFAULT);
+		assertTrue(tree.childExists("empty"));
+		assertTrue(tree.childExists("folder1/empty"));
+		assertTrue(tree.childExists("hollow/sub/d.txt"));
+	}
+	
+	/*
+	 * Build the remote tree of the project for the given tag with and without
+	 * pipelining, ensure that the trees match and return the one that was built
+	 * without pipelining.
+	 */
+	private RemoteFolderTree buildRemoteTreeInBothModes(IProject project, CVSTag tag) throws TeamException, CoreException, IOException {
+		boolean pipelined = CVSProviderPlugin.getPlugin().isPipelinedTreeBuildingEnabled();
+		try {
+			CVSProviderPlugin.getPlugin().setPipelinedTreeBuildingEnabled(true);
+			RemoteFolderTree pipelinedTree = RemoteFolderTreeBuilder.buildRemoteTree(getRepository(), project, tag, DEFAULT_MONITOR);
+			CVSProviderPlugin.getPlugin().setPipelinedTreeBuildingEnabled(false);
+			RemoteFolderTree tree = RemoteFolderTreeBuilder.buildRemoteTree(getRepository(), project, tag, DEFAULT_MONITOR);
+			assertEquals(Path.EMPTY, (ICVSRemoteResource) pipelinedTree, (ICVSRemoteResource) tree, false);
+			return tree;
+		} finally {
+			CVSProviderPlugin.getPlugin().setPipelinedTreeBuildingEnabled(pipelined);
+		}
+	}
+	
 	/**
 	 * RemoteFolderTreeBuilder test
 	 * 
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2006 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -23,6 +23,7 @@ import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.Path;
 import org.eclipse.team.core.TeamException;
+import org.eclipse.team.internal.ccvs.core.CVSProviderPlugin;
 import org.eclipse.team.internal.ccvs.core.ICVSFolder;
 import org.eclipse.team.internal.ccvs.core.ICVSRemoteFolder;
 import org.eclipse.team.internal.ccvs.core.resources.CVSWorkspaceRoot;
@@ -110,6 +111,36 @@ public class CheckoutOperationTests extends CVSOperationTest {
 		run(op);
 	}
 	
+	public void testParallelCheckout() throws CoreException, TeamException, IOException {
+		IProject[] projects = new IProject[6];
+		IProject[] movedProjects = new IProject[projects.length];
+		ICVSRemoteFolder[] remoteFolders = new ICVSRemoteFolder[projects.length];
+		for (int i = 0; i < projects.length; i++) {
+			projects[i] = createProject("testParallelCheckout" + i, new String[] { "file.txt", "folder1/", "folder1/a.txt" });
+			// move the created project so we can do a simple checkout
+			projects[i].move(new Path("moved-parallel" + i), false /* force */, DEFAULT_MONITOR);
+			movedProjects[i] = ResourcesPlugin.getWorkspace().getRoot().getProject("moved-parallel" + i);
+			remoteFolders[i] = (ICVSRemoteFolder)CVSWorkspaceRoot.getRemoteResourceFor(movedProjects[i]);
+		}
+		
+		// checkout the projects to the default location, three at a time
+		int parallelism = CVSProviderPlugin.getPlugin().getCheckoutParallelism();
+		try {
+			CVSProviderPlugin.getPlugin().setCheckoutParallelism(3);
+			CVSOperation op = new CheckoutMultipleProjectsOperation(
+				null /* shell */, 
+				remoteFolders,
+				null /*target location*/);
+			run(op);
+		} finally {
+			CVSProviderPlugin.getPlugin().setCheckoutParallelism(parallelism);
+		}
+		
+		for (int i = 0; i < projects.length; i++) {
+			assertEquals(projects[i], movedProjects[i]);
+		}
+	}
+	
 	public void testCheckoutAs() throws TeamException, CoreException, IOException {
 		IProject project = createProject("testCheckoutAs", new String[] { "changed.txt", "deleted.txt", "folder1/", "folder1/a.txt" });
 		IProject copy = ResourcesPlugin.getWorkspace().getRoot().getProject(project.getName() + "-copy");
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2013 IBM Corporation and others.
+ * Copyright (c) 2007, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -27,6 +27,8 @@ import java.util.Map;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.jface.wizard.Wizard;
 import org.eclipse.jface.wizard.WizardDialog;
 import org.eclipse.swt.widgets.Button;
@@ -34,6 +36,7 @@ import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.Shell;
 import org.eclipse.team.core.ProjectSetCapability;
 import org.eclipse.team.core.ProjectSetSerializationContext;
+import org.eclipse.team.core.RepositoryProvider;
 import org.eclipse.team.core.RepositoryProviderType;
 import org.eclipse.team.core.ScmUrlImportDescription;
 import org.eclipse.team.core.Team;
@@ -187,6 +190,81 @@ public class ProjectSetImporterTests extends EclipseTest {
 		// If we got here and no NPE was thrown, we're good.
 	}
 
+	private String[] getReferenceStrings(IProject[] projects) {
+		String[] referenceStrings = new String[projects.length];
+		for (int i = 0; i < projects.length; i++) {
+			referenceStrings[i] = "1.0," + CVSTestSetup.REPOSITORY_LOCATION + ","
+					+ projects[i].getName() /* module */ + psf_1 + projects[i].getName() /* project */;
+		}
+		return referenceStrings;
+	}
+
+	public void testImportProjectsInParallel() throws TeamException, CoreException {
+		IProject[] projects = new IProject[4];
+		for (int i = 0; i < projects.length; i++) {
+			projects[i] = createProject("testImportProjectsInParallel" + i,
+					new String[] { "file.txt", "folder1/", "folder1/a.txt" });
+		}
+		String[] referenceStrings = getReferenceStrings(projects);
+		for (IProject project : projects) {
+			project.delete(true, null);
+		}
+
+		ProjectSetCapability c = RepositoryProviderType
+				.getProviderType(CVSProviderPlugin.getTypeId()).getProjectSetCapability();
+		int parallelism = CVSProviderPlugin.getPlugin().getCheckoutParallelism();
+		IProject[] imported;
+		try {
+			CVSProviderPlugin.getPlugin().setCheckoutParallelism(3);
+			imported = c.addToWorkspace(referenceStrings, new ProjectSetSerializationContext(), DEFAULT_MONITOR);
+		} finally {
+			CVSProviderPlugin.getPlugin().setCheckoutParallelism(parallelism);
+		}
+
+		// the projects are returned in the order of the project set
+		assertEquals(projects.length, imported.length);
+		for (int i = 0; i < projects.length; i++) {
+			assertEquals(projects[i], imported[i]);
+			assertTrue(imported[i].getFile("folder1/a.txt").exists());
+		}
+	}
+
+	public void testCanceledImportReturnsLoadedProjects() throws TeamException, CoreException {
+		IProject[] projects = new IProject[3];
+		for (int i = 0; i < projects.length; i++) {
+			projects[i] = createProject("testCanceledImportReturnsLoadedProjects" + i,
+					new String[] { "file.txt" });
+		}
+		String[] referenceStrings = getReferenceStrings(projects);
+		for (IProject project : projects) {
+			project.delete(true, null);
+		}
+
+		// cancel once the first project is loaded, which is the last step of its checkout
+		IProgressMonitor monitor = new NullProgressMonitor() {
+			@Override
+			public boolean isCanceled() {
+				return super.isCanceled() || RepositoryProvider.isShared(projects[0]);
+			}
+		};
+		ProjectSetCapability c = RepositoryProviderType
+				.getProviderType(CVSProviderPlugin.getTypeId()).getProjectSetCapability();
+		int parallelism = CVSProviderPlugin.getPlugin().getCheckoutParallelism();
+		IProject[] imported;
+		try {
+			// load the projects one at a time so the cancelation happens between them
+			CVSProviderPlugin.getPlugin().setCheckoutParallelism(1);
+			imported = c.addToWorkspace(referenceStrings, new ProjectSetSerializationContext(), monitor);
+		} finally {
+			CVSProviderPlugin.getPlugin().setCheckoutParallelism(parallelism);
+		}
+
+		assertEquals(1, imported.length);
+		assertEquals(projects[0], imported[0]);
+		assertTrue(imported[0].getFile("file.txt").exists());
+		assertFalse(projects[1].exists());
+	}
+
 	public void testScmUrlImport() throws TeamException, CoreException {
 		IProject project = createProject("testScmUrlImport", new String[0]);
 		project.delete(true, true, null);